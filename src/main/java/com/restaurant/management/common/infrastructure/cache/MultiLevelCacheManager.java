@@ -8,6 +8,11 @@ import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.data.redis.core.RedisTemplate;
 import org.springframework.stereotype.Component;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
 import java.util.concurrent.TimeUnit;
 
@@ -86,6 +91,44 @@ public class MultiLevelCacheManager {
         }
     }
 
+    /**
+     * 批量读取已缓存的值（两级缓存），不加载未命中的 key
+     * 本地缓存未命中的 key 用一次 Redis MGET 读取并回填本地缓存
+     * 
+     * @param keys 完整的缓存键
+     * @return 命中的 key -> 缓存值，未命中的 key 不在结果中
+     */
+    public Map<String, Object> getAllPresent(Collection<String> keys) {
+        Map<String, Object> result = new HashMap<>();
+        try {
+            List<String> remaining = new ArrayList<>(keys);
+            if (localCache != null) {
+                result.putAll(localCache.getAllPresent(keys));
+                remaining.removeIf(result::containsKey);
+            }
+            if (remaining.isEmpty()) {
+                return result;
+            }
+            List<Object> values = redisTemplate.opsForValue().multiGet(remaining);
+            if (values == null) {
+                return result;
+            }
+            for (int i = 0; i < remaining.size(); i++) {
+                Object value = values.get(i);
+                if (value != null) {
+                    result.put(remaining.get(i), value);
+                    if (localCache != null) {
+                        localCache.put(remaining.get(i), value);
+                    }
+                }
+            }
+        } catch (Exception e) {
+            // 缓存不可用时按未命中处理，由调用方从数据源加载
+            log.error("批量获取缓存失败，keys: {}", keys.size(), e);
+        }
+        return result;
+    }
+
     /**
      * 写入缓存（两级缓存）
      * 
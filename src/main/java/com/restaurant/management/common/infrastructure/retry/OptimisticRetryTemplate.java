@@ -0,0 +1,120 @@
+package com.restaurant.management.common.infrastructure.retry;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * 乐观锁重试模板
+ *
+ * 每次尝试在独立的新事务中执行：REPEATABLE READ 下同一事务内重试只会重新读到同一快照，
+ * 因此只能在应用服务边界（外层无事务时）重试。冲突后按全抖动指数退避等待，
+ * 避免同时冲突的请求再次同时重试
+ *
+ * 除版本冲突外，数据库死锁（被选为牺牲者的事务已整体回滚）与锁等待超时同样整体重试
+ *
+ * 指标（按聚合类型打标签）：
+ * optimistic_lock.conflict —— 版本冲突次数
+ * lock.deadlock —— 死锁/锁等待超时次数（type = deadlock / lock_timeout）
+ * optimistic_lock.retry —— 发起重试次数（含死锁重试）
+ * optimistic_lock.exhausted —— 重试耗尽后放弃次数（含死锁）
+ */
+@Slf4j
+@Component
+public class OptimisticRetryTemplate {
+
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final int maxAttempts;
+    private final long initialBackoffMs;
+    private final long maxBackoffMs;
+
+    public OptimisticRetryTemplate(PlatformTransactionManager transactionManager,
+                                   MeterRegistry meterRegistry,
+                                   @Value("${optimistic-lock.retry.max-attempts:3}") int maxAttempts,
+                                   @Value("${optimistic-lock.retry.initial-backoff-ms:10}") long initialBackoffMs,
+                                   @Value("${optimistic-lock.retry.max-backoff-ms:200}") long maxBackoffMs) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoffMs = Math.max(1, initialBackoffMs);
+        this.maxBackoffMs = Math.max(this.initialBackoffMs, maxBackoffMs);
+    }
+
+    /**
+     * 在新事务中执行，版本冲突、死锁或锁等待超时时重试
+     *
+     * @param aggregateType 聚合类型（指标标签）
+     */
+    public <T> T execute(String aggregateType, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            // 外层事务内重试只会读到同一快照，直接抛出由外层边界处理
+            try {
+                return action.get();
+            } catch (OptimisticLockingFailureException | PessimisticLockingFailureException ex) {
+                recordConflict(aggregateType, ex);
+                throw ex;
+            }
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException | PessimisticLockingFailureException ex) {
+                recordConflict(aggregateType, ex);
+                if (attempt >= maxAttempts) {
+                    meterRegistry.counter("optimistic_lock.exhausted", "aggregate", aggregateType).increment();
+                    log.warn("并发冲突重试耗尽，聚合: {}, 尝试次数: {}, 原因: {}", aggregateType, attempt, ex.getMessage());
+                    throw ex;
+                }
+                meterRegistry.counter("optimistic_lock.retry", "aggregate", aggregateType).increment();
+                log.warn("并发冲突，准备重试，聚合: {}, 第 {} 次, 原因: {}", aggregateType, attempt, ex.getMessage());
+                backoff(attempt, ex);
+            }
+        }
+    }
+
+    /**
+     * 无返回值版本
+     */
+    public void execute(String aggregateType, Runnable action) {
+        execute(aggregateType, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    private void recordConflict(String aggregateType, ConcurrencyFailureException ex) {
+        if (ex instanceof OptimisticLockingFailureException) {
+            meterRegistry.counter("optimistic_lock.conflict", "aggregate", aggregateType).increment();
+        } else {
+            // MySQL 1205（锁等待超时）翻译为 CannotAcquireLockException，1213（死锁）为其它悲观锁异常
+            String type = ex instanceof CannotAcquireLockException ? "lock_timeout" : "deadlock";
+            meterRegistry.counter("lock.deadlock", "aggregate", aggregateType, "type", type).increment();
+        }
+    }
+
+    /**
+     * 全抖动退避：在 (0, min(max, initial * 2^(attempt-1))] 内随机等待
+     */
+    private void backoff(int attempt, ConcurrencyFailureException cause) {
+        long ceiling = Math.min(maxBackoffMs, initialBackoffMs << Math.min(attempt - 1, 20));
+        long sleepMs = ThreadLocalRandom.current().nextLong(ceiling) + 1;
+        try {
+            Thread.sleep(sleepMs);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw cause;
+        }
+    }
+}
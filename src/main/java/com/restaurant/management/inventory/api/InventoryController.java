@@ -1,12 +1,20 @@
 package com.restaurant.management.inventory.api;
 
+import com.restaurant.management.inventory.api.dto.BatchInventorySummaryRequest;
+import com.restaurant.management.inventory.api.dto.BatchReserveInventoryRequest;
+import com.restaurant.management.inventory.api.dto.BulkAvailabilityResponse;
 import com.restaurant.management.inventory.api.dto.InventoryResponse;
+import com.restaurant.management.inventory.api.dto.InventorySummaryResponse;
 import com.restaurant.management.inventory.api.dto.ReserveInventoryRequest;
 import com.restaurant.management.inventory.application.InventoryApplicationService;
+import com.restaurant.management.inventory.application.command.BatchReserveInventoryCommand;
 import com.restaurant.management.inventory.application.command.ReserveInventoryCommand;
+import com.restaurant.management.inventory.application.query.InventoryAvailabilityView;
 import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.service.InventoryDomainService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.ArraySchema;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
@@ -14,7 +22,18 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
 
 /**
  * 库存控制器
@@ -25,6 +44,11 @@ import org.springframework.web.bind.annotation.*;
 @RequiredArgsConstructor
 public class InventoryController {
     
+    /**
+     * 批量可用量一次最多查询的 SKU 数
+     */
+    private static final int MAX_BULK_SKU_IDS = 500;
+    
     private final InventoryApplicationService inventoryApplicationService;
     
     /**
@@ -45,10 +69,29 @@ public class InventoryController {
         return convertToResponse(inventory);
     }
     
+    /**
+     * 批量预留库存
+     */
+    @Operation(summary = "批量预留库存", description = "一次为订单的多个 SKU 预留库存，全部成功或全部失败")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "预留成功",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = InventoryResponse.class)))),
+            @ApiResponse(responseCode = "400", description = "请求参数错误或库存不足"),
+            @ApiResponse(responseCode = "404", description = "库存不存在"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    @PostMapping("/reserve/batch")
+    public List<InventoryResponse> batchReserveInventory(@Valid @RequestBody BatchReserveInventoryRequest request) {
+        BatchReserveInventoryCommand command = convertToCommand(request);
+        return inventoryApplicationService.batchReserveInventory(command).stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+    }
+    
     /**
      * 根据 SKU 查询库存
      */
-    @Operation(summary = "根据 SKU 查询库存", description = "根据 SKU ID 查询库存详情")
+    @Operation(summary = "根据 SKU 查询库存", description = "根据 SKU ID 查询库存详情（读缓存，数据可能有数秒延迟）")
     @ApiResponses(value = {
             @ApiResponse(responseCode = "200", description = "查询成功",
                     content = @Content(schema = @Schema(implementation = InventoryResponse.class))),
@@ -59,8 +102,73 @@ public class InventoryController {
     public InventoryResponse getInventoryBySkuId(
             @Parameter(description = "SKU ID", required = true, example = "SKU001")
             @PathVariable String skuId) {
-        Inventory inventory = inventoryApplicationService.getInventoryBySkuId(skuId);
-        return convertToResponse(inventory);
+        InventoryAvailabilityView view = inventoryApplicationService.getAvailabilityBySkuId(skuId);
+        return convertToResponse(view);
+    }
+    
+    /**
+     * 批量查询 SKU 可用量
+     * 响应带 ETag，客户端以 If-None-Match 轮询时结果未变返回 304 且不带响应体
+     */
+    @Operation(summary = "批量查询 SKU 可用量",
+            description = "一次查询多个 SKU 的可用数量（读缓存/分仓索引，数据可能有数秒延迟），支持 If-None-Match 条件请求")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功",
+                    content = @Content(schema = @Schema(implementation = BulkAvailabilityResponse.class))),
+            @ApiResponse(responseCode = "304", description = "结果未变化"),
+            @ApiResponse(responseCode = "400", description = "请求参数错误"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    @GetMapping("/availability")
+    public ResponseEntity<BulkAvailabilityResponse> getBulkAvailability(
+            @Parameter(description = "SKU ID 列表（逗号分隔），最多 500 个", required = true, example = "SKU001,SKU002")
+            @RequestParam List<String> skuIds,
+            @Parameter(description = "仓库 ID，不传时返回全部启用仓库的可分配数量合计", example = "WH001")
+            @RequestParam(required = false) String warehouseId,
+            WebRequest webRequest) {
+        if (skuIds.isEmpty() || skuIds.size() > MAX_BULK_SKU_IDS) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "SKU ID 数量须在 1 到 " + MAX_BULK_SKU_IDS + " 之间");
+        }
+        Map<String, Integer> available = inventoryApplicationService.getBulkAvailability(skuIds, warehouseId);
+        String eTag = availabilityETag(warehouseId, available);
+        if (webRequest.checkNotModified(eTag)) {
+            return null;
+        }
+        BulkAvailabilityResponse response = new BulkAvailabilityResponse();
+        response.setWarehouseId(warehouseId);
+        response.setAvailable(available);
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(eTag)
+                .body(response);
+    }
+    
+    /**
+     * 批量查询 SKU 库存汇总
+     */
+    @Operation(summary = "批量查询 SKU 库存汇总", description = "一次查询多个 SKU 在全部仓库的可用、预留、占用合计（读汇总表）")
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = "200", description = "查询成功",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = InventorySummaryResponse.class)))),
+            @ApiResponse(responseCode = "400", description = "请求参数错误"),
+            @ApiResponse(responseCode = "500", description = "服务器内部错误")
+    })
+    @PostMapping("/summary/batch")
+    public List<InventorySummaryResponse> batchGetInventorySummary(@Valid @RequestBody BatchInventorySummaryRequest request) {
+        return inventoryApplicationService.getInventorySummaries(request.getSkuIds()).stream()
+                .map(this::convertToResponse)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * 按响应内容计算 ETag（SKU 已排序，内容相同则 ETag 相同）
+     */
+    private String availabilityETag(String warehouseId, Map<String, Integer> available) {
+        StringBuilder content = new StringBuilder(available.size() * 16);
+        content.append(warehouseId).append('|');
+        available.forEach((skuId, quantity) -> content.append(skuId).append('=').append(quantity).append(';'));
+        return "\"" + DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8)) + "\"";
     }
     
     private ReserveInventoryCommand convertToCommand(ReserveInventoryRequest request) {
@@ -71,6 +179,21 @@ public class InventoryController {
         return command;
     }
     
+    private BatchReserveInventoryCommand convertToCommand(BatchReserveInventoryRequest request) {
+        BatchReserveInventoryCommand command = new BatchReserveInventoryCommand();
+        command.setOrderId(request.getOrderId());
+        command.setItems(request.getItems().stream()
+                .map(item -> {
+                    BatchReserveInventoryCommand.ReserveItemCommand itemCommand =
+                            new BatchReserveInventoryCommand.ReserveItemCommand();
+                    itemCommand.setSkuId(item.getSkuId());
+                    itemCommand.setQuantity(item.getQuantity());
+                    return itemCommand;
+                })
+                .collect(Collectors.toList()));
+        return command;
+    }
+    
     private InventoryResponse convertToResponse(Inventory inventory) {
         InventoryResponse response = new InventoryResponse();
         response.setId(inventory.getId());
@@ -81,5 +204,25 @@ public class InventoryController {
         response.setCreateTime(inventory.getCreateTime());
         return response;
     }
+    
+    private InventoryResponse convertToResponse(InventoryAvailabilityView view) {
+        InventoryResponse response = new InventoryResponse();
+        response.setId(view.getId());
+        response.setSkuId(view.getSkuId());
+        response.setAvailableQuantity(view.getAvailableQuantity());
+        response.setReservedQuantity(view.getReservedQuantity());
+        response.setTotalQuantity(view.getTotalQuantity());
+        response.setCreateTime(view.getCreateTime());
+        return response;
+    }
+    
+    private InventorySummaryResponse convertToResponse(InventoryDomainService.InventorySummary summary) {
+        InventorySummaryResponse response = new InventorySummaryResponse();
+        response.setSkuId(summary.getSkuId());
+        response.setTotalAvailable(summary.getTotalAvailable());
+        response.setTotalReserved(summary.getTotalReserved());
+        response.setTotalOccupied(summary.getTotalOccupied());
+        response.setTotalQuantity(summary.getTotalQuantity());
+        return response;
+    }
 }
-
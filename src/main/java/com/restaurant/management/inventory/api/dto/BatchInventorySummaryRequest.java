@@ -0,0 +1,18 @@
+package com.restaurant.management.inventory.api.dto;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量查询库存汇总请求DTO
+ */
+@Data
+public class BatchInventorySummaryRequest {
+    
+    @NotEmpty(message = "SKU ID列表不能为空")
+    @Size(max = 5000, message = "一次最多查询5000个SKU")
+    private List<String> skuIds;
+}
@@ -0,0 +1,33 @@
+package com.restaurant.management.inventory.api.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量预留库存请求DTO
+ */
+@Data
+public class BatchReserveInventoryRequest {
+    
+    @NotNull(message = "订单ID不能为空")
+    private String orderId;
+    
+    @Valid
+    @NotEmpty(message = "预留明细不能为空")
+    private List<ReserveItemRequest> items;
+    
+    @Data
+    public static class ReserveItemRequest {
+        @NotNull(message = "SKU ID不能为空")
+        private String skuId;
+        
+        @NotNull(message = "数量不能为空")
+        @Positive(message = "数量必须大于0")
+        private Integer quantity;
+    }
+}
@@ -0,0 +1,20 @@
+package com.restaurant.management.inventory.api.dto;
+
+import lombok.Data;
+
+import java.util.Map;
+
+/**
+ * 批量可用量响应DTO
+ * 只返回 SKU -> 可用数量（0 表示售罄或无库存），供 POS 菜单置灰
+ */
+@Data
+public class BulkAvailabilityResponse {
+    
+    /**
+     * 查询的仓库，为空表示全部启用仓库合计
+     */
+    private String warehouseId;
+    
+    private Map<String, Integer> available;
+}
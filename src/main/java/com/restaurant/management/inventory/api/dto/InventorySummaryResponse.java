@@ -0,0 +1,16 @@
+package com.restaurant.management.inventory.api.dto;
+
+import lombok.Data;
+
+/**
+ * SKU 库存汇总响应DTO（全部仓库合计）
+ */
+@Data
+public class InventorySummaryResponse {
+    
+    private String skuId;
+    private Integer totalAvailable;
+    private Integer totalReserved;
+    private Integer totalOccupied;
+    private Integer totalQuantity;
+}
@@ -1,11 +1,29 @@
 package com.restaurant.management.inventory.application;
 
+import com.restaurant.management.common.exception.DomainException;
+import com.restaurant.management.common.infrastructure.retry.OptimisticRetryTemplate;
+import com.restaurant.management.inventory.application.command.BatchReserveInventoryCommand;
 import com.restaurant.management.inventory.application.command.ReserveInventoryCommand;
+import com.restaurant.management.inventory.application.query.InventoryAvailabilityView;
+import com.restaurant.management.inventory.application.query.InventoryQueryService;
+import com.restaurant.management.inventory.domain.model.AllocationPlan;
 import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
 import com.restaurant.management.inventory.domain.service.InventoryDomainService;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
 import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * 库存应用服务
@@ -16,27 +34,79 @@ import org.springframework.transaction.annotation.Transactional;
  */
 @Service
 @RequiredArgsConstructor
+@Slf4j
 public class InventoryApplicationService {
     
+    private static final String AGGREGATE_TYPE = "Inventory";
+    
     private final InventoryDomainService inventoryDomainService;
+    private final OptimisticRetryTemplate optimisticRetryTemplate;
+    private final InventoryQueryService inventoryQueryService;
+    private final InventoryProperties inventoryProperties;
+    private final InventoryMetrics inventoryMetrics;
     
     /**
      * 预留库存
+     * 按分仓结果预留（可能拆分到多个仓库），每次尝试一个新事务，版本冲突时重试
+     * 落在单个仓库且启用组提交时，与同一库存的并发预留合并提交（不在外层开启事务，等待期间不占用连接）
+     * 配额租约 SKU 在租约仓库中从本节点配额预留，不经过分仓
+     * 返回分得数量最多的仓库中的库存
      */
-    @Transactional
     public Inventory reserveInventory(ReserveInventoryCommand command) {
-        // 调用领域服务，由领域层处理业务逻辑和持久化
-        String defaultWarehouseId = "DEFAULT_WAREHOUSE";
-        inventoryDomainService.reserveInventory(
-                command.getSkuId(),
-                defaultWarehouseId,
-                command.getQuantity(),
-                command.getOrderId()
-        );
-        
-        // 返回更新后的库存信息
-        return inventoryDomainService.getInventory(command.getSkuId(), defaultWarehouseId)
-                .orElseThrow(() -> new IllegalStateException("库存记录不存在"));
+        Optional<String> quotaWarehouseId = inventoryDomainService.getQuotaWarehouse(command.getSkuId());
+        if (quotaWarehouseId.isPresent()) {
+            // 配额租约 SKU 不参与分仓，从本节点租借的配额中预留
+            String warehouseId = quotaWarehouseId.get();
+            return optimisticRetryTemplate.execute(AGGREGATE_TYPE, () -> {
+                inventoryDomainService.reserveInventory(command.getSkuId(), warehouseId,
+                        command.getQuantity(), command.getOrderId());
+                return inventoryDomainService.getInventory(command.getSkuId(), warehouseId)
+                        .orElseThrow(() -> new IllegalStateException("库存记录不存在"));
+            });
+        }
+        List<ReservationLine> lines = allocate(Map.of(command.getSkuId(), command.getQuantity()));
+        ReservationLine primary = lines.stream()
+                .max(Comparator.comparingInt(ReservationLine::getQuantity))
+                .orElseThrow();
+        if (lines.size() == 1 && inventoryDomainService.isCoalesced(primary.getSkuId(), primary.getWarehouseId())) {
+            inventoryDomainService.reserveInventory(primary.getSkuId(), primary.getWarehouseId(),
+                    primary.getQuantity(), command.getOrderId());
+            return inventoryDomainService.getInventory(primary.getSkuId(), primary.getWarehouseId())
+                    .orElseThrow(() -> new IllegalStateException("库存记录不存在"));
+        }
+        return optimisticRetryTemplate.execute(AGGREGATE_TYPE, () -> {
+            inventoryDomainService.reserveAll(lines, command.getOrderId());
+            
+            // 返回更新后的库存信息
+            return inventoryDomainService.getInventory(command.getSkuId(), primary.getWarehouseId())
+                    .orElseThrow(() -> new IllegalStateException("库存记录不存在"));
+        });
+    }
+    
+    /**
+     * 批量预留库存（全部成功或全部失败）
+     * 配额租约 SKU 由分仓固定在租约仓库，预留时从本节点配额中扣减
+     */
+    public List<Inventory> batchReserveInventory(BatchReserveInventoryCommand command) {
+        Map<String, Integer> quantityBySku = command.getItems().stream()
+                .collect(Collectors.toMap(BatchReserveInventoryCommand.ReserveItemCommand::getSkuId,
+                        BatchReserveInventoryCommand.ReserveItemCommand::getQuantity, Integer::sum, LinkedHashMap::new));
+        List<ReservationLine> lines = allocate(quantityBySku);
+        return optimisticRetryTemplate.execute(AGGREGATE_TYPE,
+                () -> inventoryDomainService.reserveAll(lines, command.getOrderId()));
+    }
+    
+    /**
+     * 分仓，索引和数据库都显示不足时直接拒绝，不进入预留事务
+     */
+    private List<ReservationLine> allocate(Map<String, Integer> quantityBySku) {
+        AllocationPlan plan = inventoryDomainService.allocate(quantityBySku);
+        if (!plan.isFulfilled()) {
+            Map.Entry<String, Integer> shortage = plan.getShortages().entrySet().iterator().next();
+            throw new DomainException("INVENTORY_INSUFFICIENT",
+                    "SKU[" + shortage.getKey() + "]库存不足，缺少：" + shortage.getValue());
+        }
+        return plan.getLines();
     }
     
     /**
@@ -51,9 +121,77 @@ public class InventoryApplicationService {
      * 根据商品ID查询默认仓库库存
      */
     public Inventory getInventoryBySkuId(String skuId) {
-        String defaultWarehouseId = "DEFAULT_WAREHOUSE";
+        String defaultWarehouseId = inventoryProperties.getAllocation().getDefaultWarehouseId();
         return inventoryDomainService.getInventory(skuId, defaultWarehouseId)
                 .orElse(null);
     }
+    
+    /**
+     * 根据商品ID查询默认仓库库存可用量（读模型，允许有界陈旧）
+     */
+    public InventoryAvailabilityView getAvailabilityBySkuId(String skuId) {
+        String defaultWarehouseId = inventoryProperties.getAllocation().getDefaultWarehouseId();
+        return inventoryQueryService.getAvailability(skuId, defaultWarehouseId)
+                .orElseThrow(() -> new DomainException("INVENTORY_NOT_FOUND", "库存记录不存在: " + skuId));
+    }
+    
+    /**
+     * 批量查询 SKU 可用量（POS 菜单置灰售罄商品）
+     * 指定仓库时读该仓库的读模型（批量读缓存，未命中合并为一次查询）；
+     * 未指定时读分仓内存索引中全部启用仓库的可分配数量，与下单分仓口径一致
+     *
+     * @return 按 SKU 排序的 SKU -> 可用数量，没有库存的 SKU 为 0
+     */
+    public Map<String, Integer> getBulkAvailability(List<String> skuIds, String warehouseId) {
+        Map<String, Integer> available = new TreeMap<>();
+        if (warehouseId == null || warehouseId.isBlank()) {
+            available.putAll(inventoryDomainService.getAllocatableQuantities(skuIds));
+            return available;
+        }
+        Map<String, InventoryAvailabilityView> views = inventoryQueryService.getAvailabilities(skuIds, warehouseId);
+        for (String skuId : skuIds) {
+            InventoryAvailabilityView view = views.get(skuId);
+            available.put(skuId, view == null || !InventoryStatus.NORMAL.name().equals(view.getStatus())
+                    ? 0 : view.getAvailableQuantity());
+        }
+        return available;
+    }
+    
+    /**
+     * 批量查询 SKU 的全部仓库库存汇总（读汇总表，一次查询回答整张菜单）
+     */
+    public List<InventoryDomainService.InventorySummary> getInventorySummaries(List<String> skuIds) {
+        return List.copyOf(inventoryDomainService.getInventorySummaries(skuIds).values());
+    }
+    
+    /**
+     * 批量变更 SPU 下全部 SKU 的库存状态
+     */
+    public int changeStatusBySpuId(String spuId, InventoryStatus status, String reason) {
+        return changeStatusBySkuIds(inventoryDomainService.findSkuIdsBySpuId(spuId), status, reason);
+    }
+    
+    /**
+     * 批量变更一组 SKU 的库存状态
+     * 按批提交：每批一个新事务（外层已有事务时并入外层），已提交的批次不因后续批次失败而回滚；
+     * 已是目标状态的库存会被跳过，失败后整体重试是安全的
+     *
+     * @return 状态实际变化的库存行数
+     */
+    public int changeStatusBySkuIds(List<String> skuIds, InventoryStatus status, String reason) {
+        List<String> distinctSkuIds = skuIds.stream().distinct().sorted().collect(Collectors.toList());
+        int chunkSize = Math.max(1, inventoryProperties.getBulkStatus().getChunkSize());
+        long startMillis = System.currentTimeMillis();
+        int changed = 0;
+        for (int from = 0; from < distinctSkuIds.size(); from += chunkSize) {
+            List<String> chunk = distinctSkuIds.subList(from, Math.min(from + chunkSize, distinctSkuIds.size()));
+            changed += optimisticRetryTemplate.execute(AGGREGATE_TYPE,
+                    () -> inventoryDomainService.changeStatusInBulk(chunk, status, reason));
+        }
+        long elapsedMs = System.currentTimeMillis() - startMillis;
+        inventoryMetrics.recordBulkStatusChange(status.name(), changed, elapsedMs);
+        log.info("批量变更库存状态: status={}, skus={}, changedRows={}, elapsedMs={}",
+                status, distinctSkuIds.size(), changed, elapsedMs);
+        return changed;
+    }
 }
-
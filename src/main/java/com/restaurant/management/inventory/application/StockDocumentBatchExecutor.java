@@ -0,0 +1,192 @@
+package com.restaurant.management.inventory.application;
+
+import com.restaurant.management.inventory.domain.model.StockDocument;
+import com.restaurant.management.inventory.domain.repository.StockDocumentRepository;
+import com.restaurant.management.inventory.domain.service.StockDocumentExecutionEngine;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * 单据批量处理（批量审核、批量执行）
+ *
+ * 1. 一次查询读出全部单据主表，按涉及的仓库划分分区：调拨单的来源与目标仓库归入同一分区，
+ *    因此不同分区不会修改同一库存行，分区之间并行也不会互相等锁或死锁
+ * 2. 分区在有界线程池上并行，分区内按请求顺序逐张处理（同一仓库的入库先于之后的出库）
+ * 3. 每张单据由调用方在各自的短事务中处理，一张失败不影响其它单据
+ * 非事务方法，调用方不能处于事务中（工作线程不会加入调用方的事务）
+ */
+@Slf4j
+@Component
+public class StockDocumentBatchExecutor {
+    
+    private final StockDocumentRepository stockDocumentRepository;
+    private final StockDocumentExecutionEngine executionEngine;
+    private final InventoryProperties inventoryProperties;
+    private final InventoryMetrics inventoryMetrics;
+    
+    public StockDocumentBatchExecutor(StockDocumentRepository stockDocumentRepository,
+                                      StockDocumentExecutionEngine executionEngine,
+                                      InventoryProperties inventoryProperties,
+                                      InventoryMetrics inventoryMetrics) {
+        this.stockDocumentRepository = stockDocumentRepository;
+        this.executionEngine = executionEngine;
+        this.inventoryProperties = inventoryProperties;
+        this.inventoryMetrics = inventoryMetrics;
+    }
+    
+    /**
+     * 批量处理单据
+     *
+     * @param operation   批量操作名（approve / execute），用于日志与指标
+     * @param documentIds 单据ID，重复的只处理一次
+     * @param action      处理一张单据，须自行开启事务；会被多个工作线程并发调用
+     */
+    public StockDocumentBatchResult run(String operation, Collection<String> documentIds, Consumer<String> action) {
+        long start = System.currentTimeMillis();
+        Set<String> requested = new LinkedHashSet<>(documentIds);
+        Map<String, StockDocumentBatchResult.Item> results = new HashMap<>();
+        
+        Map<String, StockDocument> documents = new HashMap<>();
+        stockDocumentRepository.findHeadersByDocumentIds(requested)
+            .forEach(document -> documents.put(document.getDocumentId(), document));
+        List<StockDocument> found = new ArrayList<>(documents.size());
+        for (String documentId : requested) {
+            StockDocument document = documents.get(documentId);
+            if (document == null) {
+                results.put(documentId, StockDocumentBatchResult.Item.failed(documentId, "单据不存在: " + documentId, 0));
+            } else {
+                found.add(document);
+            }
+        }
+        
+        List<List<String>> partitions = partition(found);
+        int parallelism = Math.max(1, Math.min(inventoryProperties.getDocumentExecution().getBatchParallelism(),
+            partitions.size()));
+        AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "stock-document-" + operation + "-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<List<StockDocumentBatchResult.Item>>> futures = new ArrayList<>(partitions.size());
+            for (List<String> partition : partitions) {
+                futures.add(executor.submit(() -> runPartition(operation, partition, action)));
+            }
+            for (Future<List<StockDocumentBatchResult.Item>> future : futures) {
+                await(future).forEach(item -> results.put(item.getDocumentId(), item));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+        
+        List<StockDocumentBatchResult.Item> items = new ArrayList<>(requested.size());
+        requested.forEach(documentId -> items.add(results.get(documentId)));
+        StockDocumentBatchResult result = new StockDocumentBatchResult(operation, items, partitions.size(),
+            System.currentTimeMillis() - start);
+        inventoryMetrics.recordDocumentBatch(operation, result.getPartitions(), result.getElapsedMs());
+        log.info("批量处理单据完成: 操作={}, 单据数={}, 成功={}, 失败={}, 分区数={}, 耗时={}ms", operation,
+            items.size(), result.getSucceededCount(), result.getFailedCount(), result.getPartitions(), result.getElapsedMs());
+        return result;
+    }
+    
+    /**
+     * 按涉及的仓库划分分区（并查集合并调拨单两端的仓库），分区内保持请求顺序
+     */
+    List<List<String>> partition(List<StockDocument> documents) {
+        Map<String, String> parents = new HashMap<>();
+        List<Set<String>> warehouses = new ArrayList<>(documents.size());
+        for (StockDocument document : documents) {
+            Set<String> warehouseIds = warehouseIdsOf(document);
+            warehouses.add(warehouseIds);
+            String first = null;
+            for (String warehouseId : warehouseIds) {
+                parents.putIfAbsent(warehouseId, warehouseId);
+                if (first == null) {
+                    first = warehouseId;
+                } else {
+                    parents.put(find(parents, warehouseId), find(parents, first));
+                }
+            }
+        }
+        
+        Map<String, List<String>> partitions = new LinkedHashMap<>();
+        for (int i = 0; i < documents.size(); i++) {
+            String root = find(parents, warehouses.get(i).iterator().next());
+            partitions.computeIfAbsent(root, key -> new ArrayList<>()).add(documents.get(i).getDocumentId());
+        }
+        return new ArrayList<>(partitions.values());
+    }
+    
+    private Set<String> warehouseIdsOf(StockDocument document) {
+        try {
+            return executionEngine.warehouseIdsOf(document);
+        } catch (IllegalArgumentException e) {
+            // 调拨单目标仓库无法解析时只按来源仓库分区，由处理该单据时报告错误
+            Set<String> warehouseIds = new LinkedHashSet<>();
+            warehouseIds.add(document.getWarehouseId());
+            return warehouseIds;
+        }
+    }
+    
+    private static String find(Map<String, String> parents, String warehouseId) {
+        String root = warehouseId;
+        while (!root.equals(parents.get(root))) {
+            root = parents.get(root);
+        }
+        parents.put(warehouseId, root);
+        return root;
+    }
+    
+    private List<StockDocumentBatchResult.Item> runPartition(String operation, List<String> documentIds,
+                                                           Consumer<String> action) {
+        List<StockDocumentBatchResult.Item> items = new ArrayList<>(documentIds.size());
+        for (String documentId : documentIds) {
+            long start = System.nanoTime();
+            try {
+                action.accept(documentId);
+                long elapsedNanos = System.nanoTime() - start;
+                inventoryMetrics.recordBatchDocument(operation, InventoryMetrics.OUTCOME_SUCCESS, elapsedNanos);
+                items.add(StockDocumentBatchResult.Item.succeeded(documentId, elapsedNanos / 1_000_000));
+            } catch (RuntimeException e) {
+                long elapsedNanos = System.nanoTime() - start;
+                inventoryMetrics.recordBatchDocument(operation, InventoryMetrics.OUTCOME_FAILURE, elapsedNanos);
+                log.warn("批量处理单据失败 - 操作: {}, 单据ID: {}, 错误: {}", operation, documentId, e.getMessage());
+                items.add(StockDocumentBatchResult.Item.failed(documentId, e.getMessage(), elapsedNanos / 1_000_000));
+            }
+        }
+        return items;
+    }
+    
+    private <T> T await(Future<T> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("批量处理单据被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("批量处理单据失败", cause);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.restaurant.management.inventory.application;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 批量审核/执行结果
+ * 每张单据一条结果，顺序与请求中的单据ID一致
+ */
+@Getter
+public class StockDocumentBatchResult {
+    
+    private final String operation;
+    private final List<Item> items;
+    private final int partitions;
+    private final long elapsedMs;
+    
+    public StockDocumentBatchResult(String operation, List<Item> items, int partitions, long elapsedMs) {
+        this.operation = operation;
+        this.items = items;
+        this.partitions = partitions;
+        this.elapsedMs = elapsedMs;
+    }
+    
+    public long getSucceededCount() {
+        return items.stream().filter(Item::isSuccess).count();
+    }
+    
+    public long getFailedCount() {
+        return items.size() - getSucceededCount();
+    }
+    
+    public boolean isAllSucceeded() {
+        return getFailedCount() == 0;
+    }
+    
+    /**
+     * 单张单据的处理结果
+     */
+    @Getter
+    public static class Item {
+        private final String documentId;
+        private final boolean success;
+        private final String errorMessage;
+        private final long elapsedMs;
+        
+        private Item(String documentId, boolean success, String errorMessage, long elapsedMs) {
+            this.documentId = documentId;
+            this.success = success;
+            this.errorMessage = errorMessage;
+            this.elapsedMs = elapsedMs;
+        }
+        
+        public static Item succeeded(String documentId, long elapsedMs) {
+            return new Item(documentId, true, null, elapsedMs);
+        }
+        
+        public static Item failed(String documentId, String errorMessage, long elapsedMs) {
+            return new Item(documentId, false, errorMessage, elapsedMs);
+        }
+    }
+}
@@ -1,20 +1,28 @@
 package com.restaurant.management.inventory.application;
 
+import com.restaurant.management.inventory.application.query.StockDocumentLiveCounters;
 import com.restaurant.management.inventory.domain.model.DocumentStatus;
 import com.restaurant.management.inventory.domain.model.DocumentType;
 import com.restaurant.management.inventory.domain.model.StockDocument;
+import com.restaurant.management.inventory.domain.model.StockDocumentCounts;
+import com.restaurant.management.inventory.domain.model.StockDocumentPage;
 import com.restaurant.management.inventory.domain.repository.StockDocumentRepository;
+import com.restaurant.management.inventory.domain.service.DocumentInventories;
 import com.restaurant.management.inventory.domain.service.StockDocumentExecutionEngine;
 import com.restaurant.management.inventory.domain.service.StockDocumentFactory;
 import com.restaurant.management.inventory.domain.service.StockDocumentStateMachine;
 import com.restaurant.management.common.domain.DomainEventPublisher;
+import com.restaurant.management.common.infrastructure.retry.OptimisticRetryTemplate;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
+import java.util.EnumMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -40,6 +48,15 @@ public class StockDocumentService {
     @Autowired
     private DomainEventPublisher domainEventPublisher;
     
+    @Autowired
+    private OptimisticRetryTemplate optimisticRetryTemplate;
+    
+    @Autowired
+    private StockDocumentBatchExecutor batchExecutor;
+    
+    @Autowired
+    private StockDocumentLiveCounters liveCounters;
+    
     /**
      * 创建采购入库单
      */
@@ -174,26 +191,33 @@ public class StockDocumentService {
     
     /**
      * 执行单据
+     * 不加入类级事务，由重试模板为每次尝试开启新事务（单据或库存版本冲突时重新加载后重试）
      */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
     public void executeDocument(String documentId) {
-        StockDocument document = getDocumentById(documentId);
-        
-        // 验证是否可以执行
-        stateMachine.validateExecution(document);
-        
-        // 验证执行前的库存状态
-        executionEngine.validateInventoryBeforeExecution(document);
-        
-        // 执行单据
-        document.execute();
-        executionEngine.executeDocument(document);
-        
-        // 保存变更
-        stockDocumentRepository.save(document);
-        
-        // 发布领域事件
-        domainEventPublisher.publishAll(document.getDomainEvents());
-        document.clearDomainEvents();
+        optimisticRetryTemplate.execute("StockDocument", () -> {
+            StockDocument document = getDocumentById(documentId);
+            
+            // 验证是否可以执行
+            stateMachine.validateExecution(document);
+            
+            // 一次加载单据涉及的库存，校验与执行共用
+            DocumentInventories inventories = executionEngine.loadInventories(document);
+            
+            // 验证执行前的库存状态
+            executionEngine.validateInventoryBeforeExecution(document, inventories);
+            
+            // 执行单据
+            document.execute();
+            executionEngine.executeDocument(document, inventories);
+            
+            // 保存变更
+            stockDocumentRepository.save(document);
+            
+            // 发布领域事件
+            domainEventPublisher.publishAll(document.getDomainEvents());
+            document.clearDomainEvents();
+        });
     }
     
     /**
@@ -242,6 +266,14 @@ public class StockDocumentService {
         return stockDocumentRepository.findPendingDocuments();
     }
     
+    /**
+     * 获取待审核单据列表（只含主表，用于审核队列）
+     */
+    @Transactional(readOnly = true)
+    public List<StockDocument> getPendingDocumentHeaders() {
+        return stockDocumentRepository.findPendingDocumentHeaders();
+    }
+    
     /**
      * 获取已审核但未执行的单据列表
      */
@@ -251,7 +283,7 @@ public class StockDocumentService {
     }
     
     /**
-     * 根据条件查询单据列表
+     * 根据条件查询单据列表（偏移量分页，深分页请使用 searchDocuments）
      */
     @Transactional(readOnly = true)
     public List<StockDocument> findDocumentsByConditions(DocumentType type, DocumentStatus status,
@@ -261,6 +293,19 @@ public class StockDocumentService {
             type, status, warehouseId, startTime, endTime, offset, limit);
     }
     
+    /**
+     * 根据条件游标分页查询单据列表（按创建时间倒序）
+     * 第一页 pageToken 传 null，之后传上一页返回的 nextPageToken
+     */
+    @Transactional(readOnly = true)
+    public StockDocumentPage searchDocuments(DocumentType type, DocumentStatus status, String warehouseId,
+                                             String pageToken, int limit) {
+        if (limit <= 0) {
+            throw new IllegalArgumentException("每页数量必须大于0");
+        }
+        return stockDocumentRepository.searchByConditions(type, status, warehouseId, pageToken, limit);
+    }
+    
     /**
      * 获取单据的可用操作列表
      */
@@ -281,47 +326,39 @@ public class StockDocumentService {
     
     /**
      * 批量审核单据
+     * 按仓库分区并行处理，每张单据一个短事务，一张失败不影响其它单据
      */
-    public void batchApproveDocuments(List<String> documentIds, String approverId) {
-        for (String documentId : documentIds) {
-            try {
-                approveDocument(documentId, approverId);
-            } catch (Exception e) {
-                // 记录错误但继续处理其他单据
-                // 这里可以添加日志记录
-                System.err.println("批量审核失败 - 单据ID: " + documentId + ", 错误: " + e.getMessage());
-            }
-        }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StockDocumentBatchResult batchApproveDocuments(List<String> documentIds, String approverId) {
+        return batchExecutor.run("approve", documentIds, documentId ->
+            optimisticRetryTemplate.execute("StockDocument", () -> approveDocument(documentId, approverId)));
     }
     
     /**
      * 批量执行单据
+     * 按仓库分区并行执行（调拨单两端仓库同一分区），分区内按请求顺序逐张执行，每张单据一个短事务
      */
-    public void batchExecuteDocuments(List<String> documentIds) {
-        for (String documentId : documentIds) {
-            try {
-                executeDocument(documentId);
-            } catch (Exception e) {
-                // 记录错误但继续处理其他单据
-                System.err.println("批量执行失败 - 单据ID: " + documentId + ", 错误: " + e.getMessage());
-            }
-        }
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public StockDocumentBatchResult batchExecuteDocuments(List<String> documentIds) {
+        return batchExecutor.run("execute", documentIds, this::executeDocument);
     }
     
     /**
      * 获取单据统计信息
+     * 一次按（状态, 类型）分组查询，总数与各状态、各类型计数都限定在创建时间范围内
      */
     @Transactional(readOnly = true)
     public DocumentStatistics getDocumentStatistics(LocalDateTime startTime, LocalDateTime endTime) {
-        DocumentStatistics statistics = new DocumentStatistics();
-        
-        statistics.setTotalCount(stockDocumentRepository.countByCreateTimeBetween(startTime, endTime));
-        statistics.setPendingCount(stockDocumentRepository.countByStatus(DocumentStatus.PENDING));
-        statistics.setApprovedCount(stockDocumentRepository.countByStatus(DocumentStatus.APPROVED));
-        statistics.setExecutedCount(stockDocumentRepository.countByStatus(DocumentStatus.EXECUTED));
-        statistics.setCancelledCount(stockDocumentRepository.countByStatus(DocumentStatus.CANCELLED));
-        
-        return statistics;
+        return DocumentStatistics.from(stockDocumentRepository.countByStatusAndType(startTime, endTime));
+    }
+    
+    /**
+     * 获取当前全部单据的实时统计（看板轮询）
+     * 读内存计数，不查询单据表；陈旧度以 inventory.document-counters.rebuild-interval-ms 为上限
+     */
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public DocumentStatistics getLiveDocumentStatistics() {
+        return DocumentStatistics.from(liveCounters.snapshot());
     }
     
     /**
@@ -329,25 +366,50 @@ public class StockDocumentService {
      */
     public static class DocumentStatistics {
         private long totalCount;
+        private long draftCount;
         private long pendingCount;
         private long approvedCount;
+        private long rejectedCount;
         private long executedCount;
         private long cancelledCount;
+        private Map<DocumentType, Long> typeCounts = new EnumMap<>(DocumentType.class);
+        
+        public static DocumentStatistics from(StockDocumentCounts counts) {
+            DocumentStatistics statistics = new DocumentStatistics();
+            statistics.setTotalCount(counts.total());
+            statistics.setDraftCount(counts.count(DocumentStatus.DRAFT));
+            statistics.setPendingCount(counts.count(DocumentStatus.PENDING));
+            statistics.setApprovedCount(counts.count(DocumentStatus.APPROVED));
+            statistics.setRejectedCount(counts.count(DocumentStatus.REJECTED));
+            statistics.setExecutedCount(counts.count(DocumentStatus.EXECUTED));
+            statistics.setCancelledCount(counts.count(DocumentStatus.CANCELLED));
+            statistics.setTypeCounts(counts.countsByType());
+            return statistics;
+        }
         
         // Getters and Setters
         public long getTotalCount() { return totalCount; }
         public void setTotalCount(long totalCount) { this.totalCount = totalCount; }
         
+        public long getDraftCount() { return draftCount; }
+        public void setDraftCount(long draftCount) { this.draftCount = draftCount; }
+        
         public long getPendingCount() { return pendingCount; }
         public void setPendingCount(long pendingCount) { this.pendingCount = pendingCount; }
         
         public long getApprovedCount() { return approvedCount; }
         public void setApprovedCount(long approvedCount) { this.approvedCount = approvedCount; }
         
+        public long getRejectedCount() { return rejectedCount; }
+        public void setRejectedCount(long rejectedCount) { this.rejectedCount = rejectedCount; }
+        
         public long getExecutedCount() { return executedCount; }
         public void setExecutedCount(long executedCount) { this.executedCount = executedCount; }
         
         public long getCancelledCount() { return cancelledCount; }
         public void setCancelledCount(long cancelledCount) { this.cancelledCount = cancelledCount; }
+        
+        public Map<DocumentType, Long> getTypeCounts() { return typeCounts; }
+        public void setTypeCounts(Map<DocumentType, Long> typeCounts) { this.typeCounts = typeCounts; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,21 @@
+package com.restaurant.management.inventory.application.command;
+
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * 批量预留库存命令
+ */
+@Data
+public class BatchReserveInventoryCommand {
+    
+    private String orderId;
+    private List<ReserveItemCommand> items;
+    
+    @Data
+    public static class ReserveItemCommand {
+        private String skuId;
+        private Integer quantity;
+    }
+}
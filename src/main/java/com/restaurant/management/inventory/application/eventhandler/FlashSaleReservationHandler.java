@@ -0,0 +1,41 @@
+package com.restaurant.management.inventory.application.eventhandler;
+
+import com.restaurant.management.inventory.domain.event.FlashSaleReservedEvent;
+import com.restaurant.management.inventory.domain.service.InventoryDomainService;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * 秒杀预扣回写处理器
+ * 发件箱投递 FlashSaleReservedEvent 后，把 Redis 中的预扣回写为数据库预留库存；订单已在回写前释放时跳过
+ * 失败时抛出异常，由发件箱按重试策略重新投递
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class FlashSaleReservationHandler {
+    
+    private static final String OPERATION_RECONCILE = "reconcile";
+    
+    private final InventoryDomainService inventoryDomainService;
+    private final InventoryMetrics inventoryMetrics;
+    
+    @EventListener
+    @Transactional
+    public void handleFlashSaleReserved(FlashSaleReservedEvent event) {
+        try {
+            inventoryDomainService.applyFlashSaleReservation(
+                event.getSkuId(), event.getWarehouseId(), event.getQuantity(), event.getOrderId());
+            inventoryMetrics.recordFlashSale(OPERATION_RECONCILE, InventoryMetrics.OUTCOME_SUCCESS);
+        } catch (Exception e) {
+            inventoryMetrics.recordFlashSale(OPERATION_RECONCILE, InventoryMetrics.OUTCOME_FAILURE);
+            log.error("秒杀预扣回写失败: skuId={}, warehouseId={}, orderId={}", 
+                event.getSkuId(), event.getWarehouseId(), event.getOrderId(), e);
+            throw e;
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package com.restaurant.management.inventory.application.eventhandler;
+
+import com.restaurant.management.inventory.application.query.InventoryAvailabilityView;
+import com.restaurant.management.inventory.application.query.InventoryQueryService;
+import com.restaurant.management.inventory.domain.event.InventoryBatchChangedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryChangedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryReleasedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryReservedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryStatusChangedEvent;
+import com.restaurant.management.inventory.domain.event.WarehouseActivatedEvent;
+import com.restaurant.management.inventory.domain.event.WarehouseDeactivatedEvent;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.model.WarehouseStatus;
+import com.restaurant.management.inventory.infrastructure.allocation.WarehouseAvailabilityIndex;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.Optional;
+
+/**
+ * 库存读模型写穿更新
+ * 发件箱投递库存事件后重新加载该库存并覆盖缓存，同一次加载同时刷新分仓索引；
+ * 事件可能重复或乱序，重新加载保证写入的是最新值
+ * 批量数量变更（单据执行）按事件中的每个库存逐一重新加载，单个库存失败不影响其余库存
+ * 批量状态变更只使缓存失效（冻结的库存移出分仓索引），避免一批数千条库存逐条回读
+ * 仓库激活/停用切换分仓索引中的仓库状态
+ * 更新失败只记录日志，不影响发件箱投递（缓存由有界陈旧度兜底，分仓索引由定期重建兜底）
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class InventoryReadModelUpdater {
+
+    private final InventoryQueryService inventoryQueryService;
+    private final WarehouseAvailabilityIndex availabilityIndex;
+
+    @EventListener
+    public void onReserved(InventoryReservedEvent event) {
+        refresh(event.getSkuId(), event.getWarehouseId());
+    }
+
+    @EventListener
+    public void onReleased(InventoryReleasedEvent event) {
+        refresh(event.getSkuId(), event.getWarehouseId());
+    }
+
+    @EventListener
+    public void onChanged(InventoryChangedEvent event) {
+        refresh(event.getSkuId(), event.getWarehouseId());
+    }
+
+    @EventListener
+    public void onBatchChanged(InventoryBatchChangedEvent event) {
+        for (InventoryBatchChangedEvent.Change change : event.getChanges()) {
+            refresh(change.getSkuId(), change.getWarehouseId());
+        }
+    }
+
+    @EventListener
+    public void onStatusChanged(InventoryStatusChangedEvent event) {
+        for (InventoryKey key : event.getInventoryKeys()) {
+            try {
+                inventoryQueryService.evict(key.getSkuId(), key.getWarehouseId());
+                if (event.getStatus() == InventoryStatus.FROZEN) {
+                    availabilityIndex.update(key.getSkuId(), key.getWarehouseId(), 0);
+                }
+            } catch (Exception e) {
+                log.warn("库存读模型失效失败: skuId={}, warehouseId={}", key.getSkuId(), key.getWarehouseId(), e);
+            }
+        }
+    }
+
+    @EventListener
+    public void onWarehouseActivated(WarehouseActivatedEvent event) {
+        availabilityIndex.updateWarehouse(event.getWarehouseId(), WarehouseStatus.ACTIVE, null);
+    }
+
+    @EventListener
+    public void onWarehouseDeactivated(WarehouseDeactivatedEvent event) {
+        availabilityIndex.updateWarehouse(event.getWarehouseId(), WarehouseStatus.INACTIVE, null);
+    }
+
+    private void refresh(String skuId, String warehouseId) {
+        try {
+            Optional<InventoryAvailabilityView> view = inventoryQueryService.getFreshAvailability(skuId, warehouseId);
+            int available = view
+                .filter(current -> InventoryStatus.NORMAL.name().equals(current.getStatus()))
+                .map(InventoryAvailabilityView::getAvailableQuantity)
+                .orElse(0);
+            availabilityIndex.update(skuId, warehouseId, available);
+        } catch (Exception e) {
+            log.warn("库存读模型更新失败: skuId={}, warehouseId={}", skuId, warehouseId, e);
+        }
+    }
+}
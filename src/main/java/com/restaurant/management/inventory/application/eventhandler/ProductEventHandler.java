@@ -1,6 +1,8 @@
 package com.restaurant.management.inventory.application.eventhandler;
 
+import com.restaurant.management.inventory.application.InventoryApplicationService;
 import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
 import com.restaurant.management.inventory.domain.service.InventoryDomainService;
 import com.restaurant.management.product.domain.event.ProductCreatedEvent;
 import com.restaurant.management.product.domain.event.ProductDeletionEvent;
@@ -25,6 +27,7 @@ import java.util.List;
 public class ProductEventHandler {
     
     private final InventoryDomainService inventoryDomainService;
+    private final InventoryApplicationService inventoryApplicationService;
     
     /**
      * 处理商品创建事件
@@ -138,35 +141,27 @@ public class ProductEventHandler {
     
     /**
      * 处理商品状态变更事件
-     * 根据商品状态变更冻结或解冻库存
+     * 根据商品状态变更批量冻结或解冻库存：按批加锁、单条语句更新、每批一个汇总事件，
+     * 每批独立提交，整个分类下架时不会形成一个长事务
      */
     @EventListener
-    @Transactional
     public void handleProductStatusChanged(ProductStatusChangedEvent event) {
         log.info("处理商品状态变更事件: spuId={}, oldStatus={}, newStatus={}", 
             event.getSpuId(), event.getOldStatus(), event.getNewStatus());
         
         try {
-            // 获取商品下所有SKU的库存
-            List<Inventory> inventories = inventoryDomainService.findInventoriesBySpuId(event.getSpuId());
-            
-            for (Inventory inventory : inventories) {
-                if (event.getNewStatus() == ProductStatus.INACTIVE) {
-                    // 商品下架，冻结库存
-                    inventory.freeze(String.format("商品下架: %s", event.getSpuId()));
-                    log.info("冻结库存: skuId={}, warehouseId={}", 
-                        inventory.getSkuId(), inventory.getWarehouseId());
-                        
-                } else if (event.getNewStatus() == ProductStatus.ACTIVE && 
-                          event.getOldStatus() == ProductStatus.INACTIVE) {
-                    // 商品重新上架，解冻库存
-                    inventory.unfreeze(String.format("商品上架: %s", event.getSpuId()));
-                    log.info("解冻库存: skuId={}, warehouseId={}", 
-                        inventory.getSkuId(), inventory.getWarehouseId());
-                }
+            if (event.getNewStatus() == ProductStatus.INACTIVE) {
+                // 商品下架，冻结库存
+                int frozen = inventoryApplicationService.changeStatusBySpuId(
+                    event.getSpuId(), InventoryStatus.FROZEN, String.format("商品下架: %s", event.getSpuId()));
+                log.info("冻结库存: spuId={}, rows={}", event.getSpuId(), frozen);
                 
-                // 保存库存变更
-                inventoryDomainService.updateInventory(inventory);
+            } else if (event.getNewStatus() == ProductStatus.ACTIVE && 
+                      event.getOldStatus() == ProductStatus.INACTIVE) {
+                // 商品重新上架，解冻库存
+                int unfrozen = inventoryApplicationService.changeStatusBySpuId(
+                    event.getSpuId(), InventoryStatus.NORMAL, String.format("商品上架: %s", event.getSpuId()));
+                log.info("解冻库存: spuId={}, rows={}", event.getSpuId(), unfrozen);
             }
             
             log.info("商品状态变更事件处理完成: spuId={}", event.getSpuId());
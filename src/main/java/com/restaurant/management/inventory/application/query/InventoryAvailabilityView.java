@@ -0,0 +1,62 @@
+package com.restaurant.management.inventory.application.query;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.restaurant.management.inventory.domain.model.Inventory;
+import lombok.Data;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+/**
+ * 库存可用量读模型（缓存在本地 + Redis）
+ * 只保存展示与校验所需的字段；时间以毫秒时间戳保存，避免缓存序列化依赖 JavaTime 模块
+ */
+@Data
+public class InventoryAvailabilityView {
+
+    private Long id;
+    private String skuId;
+    private String warehouseId;
+    private Integer availableQuantity;
+    private Integer reservedQuantity;
+    private Integer occupiedQuantity;
+    private String status;
+    private Long createTimeMillis;
+
+    /**
+     * 从数据库加载的时间（毫秒），用于判断是否超出允许的陈旧度
+     */
+    private long loadedAtMillis;
+
+    public static InventoryAvailabilityView from(Inventory inventory, long loadedAtMillis) {
+        InventoryAvailabilityView view = new InventoryAvailabilityView();
+        view.setId(inventory.getId());
+        view.setSkuId(inventory.getSkuId());
+        view.setWarehouseId(inventory.getWarehouseId());
+        view.setAvailableQuantity(inventory.getAvailableQuantity());
+        view.setReservedQuantity(inventory.getReservedQuantity());
+        view.setOccupiedQuantity(inventory.getOccupiedQuantity());
+        view.setStatus(inventory.getStatus() == null ? null : inventory.getStatus().name());
+        if (inventory.getCreateTime() != null) {
+            view.setCreateTimeMillis(inventory.getCreateTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+        }
+        view.setLoadedAtMillis(loadedAtMillis);
+        return view;
+    }
+
+    @JsonIgnore
+    public int getTotalQuantity() {
+        return nullToZero(availableQuantity) + nullToZero(reservedQuantity) + nullToZero(occupiedQuantity);
+    }
+
+    @JsonIgnore
+    public LocalDateTime getCreateTime() {
+        return createTimeMillis == null ? null
+            : LocalDateTime.ofInstant(Instant.ofEpochMilli(createTimeMillis), ZoneId.systemDefault());
+    }
+
+    private static int nullToZero(Integer value) {
+        return value == null ? 0 : value;
+    }
+}
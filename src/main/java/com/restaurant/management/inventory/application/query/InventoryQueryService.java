@@ -0,0 +1,130 @@
+package com.restaurant.management.inventory.application.query;
+
+import com.restaurant.management.common.infrastructure.cache.MultiLevelCacheManager;
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.service.InventoryDomainService;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * 库存可用量查询服务（读模型）
+ *
+ * 读模型放在两级缓存（本地 + Redis）中，由库存事件写穿更新（重新加载后覆盖，而不是删除），
+ * 只读页面按 inventory.read-cache.max-staleness-ms 容忍有界陈旧：超出陈旧度的缓存值重新从数据库加载，
+ * 因此即使事件延迟或丢失，陈旧度也不会超过该上限
+ *
+ * 预留路径不读缓存，始终以数据库条件更新为准
+ */
+@Service
+@RequiredArgsConstructor
+public class InventoryQueryService {
+
+    private static final String CACHE_KEY_PREFIX = "inventory:availability:";
+
+    private final InventoryDomainService inventoryDomainService;
+    private final MultiLevelCacheManager cacheManager;
+    private final InventoryProperties inventoryProperties;
+
+    /**
+     * 有界陈旧读取（只读页面、下单前预校验）
+     */
+    public Optional<InventoryAvailabilityView> getAvailability(String skuId, String warehouseId) {
+        InventoryProperties.ReadCache readCache = inventoryProperties.getReadCache();
+        if (!readCache.isEnabled()) {
+            return Optional.ofNullable(load(skuId, warehouseId));
+        }
+        InventoryAvailabilityView view = cacheManager.get(cacheKey(skuId, warehouseId), () -> load(skuId, warehouseId));
+        if (view != null && System.currentTimeMillis() - view.getLoadedAtMillis() > readCache.getMaxStalenessMs()) {
+            return getFreshAvailability(skuId, warehouseId);
+        }
+        return Optional.ofNullable(view);
+    }
+
+    /**
+     * 批量有界陈旧读取（POS 菜单等一次展示大量 SKU 的页面）
+     * 缓存一次批量读取；未命中或超出陈旧度的 SKU 合并为一次数据库查询，并写穿更新缓存
+     *
+     * @return SKU -> 读模型，没有库存记录的 SKU 不在结果中
+     */
+    public Map<String, InventoryAvailabilityView> getAvailabilities(Collection<String> skuIds, String warehouseId) {
+        InventoryProperties.ReadCache readCache = inventoryProperties.getReadCache();
+        Map<String, InventoryAvailabilityView> result = new HashMap<>();
+        List<String> toLoad = new ArrayList<>();
+        if (readCache.isEnabled()) {
+            Map<String, String> skuIdByKey = new HashMap<>();
+            for (String skuId : skuIds) {
+                skuIdByKey.put(cacheKey(skuId, warehouseId), skuId);
+            }
+            Map<String, Object> cached = cacheManager.getAllPresent(skuIdByKey.keySet());
+            long now = System.currentTimeMillis();
+            skuIdByKey.forEach((key, skuId) -> {
+                Object value = cached.get(key);
+                if (value instanceof InventoryAvailabilityView
+                    && now - ((InventoryAvailabilityView) value).getLoadedAtMillis() <= readCache.getMaxStalenessMs()) {
+                    result.put(skuId, (InventoryAvailabilityView) value);
+                } else {
+                    toLoad.add(skuId);
+                }
+            });
+        } else {
+            toLoad.addAll(new LinkedHashSet<>(skuIds));
+        }
+        if (toLoad.isEmpty()) {
+            return result;
+        }
+        long loadedAt = System.currentTimeMillis();
+        for (Inventory inventory : inventoryDomainService.getInventories(toLoad, warehouseId)) {
+            InventoryAvailabilityView view = InventoryAvailabilityView.from(inventory, loadedAt);
+            result.put(inventory.getSkuId(), view);
+            if (readCache.isEnabled()) {
+                cacheManager.put(cacheKey(inventory.getSkuId(), warehouseId), view);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 强制从数据库读取，并写穿更新缓存
+     */
+    public Optional<InventoryAvailabilityView> getFreshAvailability(String skuId, String warehouseId) {
+        InventoryAvailabilityView view = load(skuId, warehouseId);
+        if (inventoryProperties.getReadCache().isEnabled()) {
+            if (view != null) {
+                cacheManager.put(cacheKey(skuId, warehouseId), view);
+            } else {
+                cacheManager.evict(cacheKey(skuId, warehouseId));
+            }
+        }
+        return Optional.ofNullable(view);
+    }
+
+    /**
+     * 使缓存失效，下次读取时重新加载（批量变更时避免逐条回读）
+     */
+    public void evict(String skuId, String warehouseId) {
+        if (inventoryProperties.getReadCache().isEnabled()) {
+            cacheManager.evict(cacheKey(skuId, warehouseId));
+        }
+    }
+
+    private InventoryAvailabilityView load(String skuId, String warehouseId) {
+        // 先取时间再读库，陈旧度按偏大的方向计算
+        long loadedAt = System.currentTimeMillis();
+        return inventoryDomainService.getInventory(skuId, warehouseId)
+            .map(inventory -> InventoryAvailabilityView.from(inventory, loadedAt))
+            .orElse(null);
+    }
+
+    private String cacheKey(String skuId, String warehouseId) {
+        return CACHE_KEY_PREFIX + skuId + ":" + warehouseId;
+    }
+}
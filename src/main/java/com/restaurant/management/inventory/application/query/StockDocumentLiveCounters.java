@@ -0,0 +1,142 @@
+package com.restaurant.management.inventory.application.query;
+
+import com.restaurant.management.inventory.domain.event.StockDocumentApprovedEvent;
+import com.restaurant.management.inventory.domain.event.StockDocumentCancelledEvent;
+import com.restaurant.management.inventory.domain.event.StockDocumentCreatedEvent;
+import com.restaurant.management.inventory.domain.event.StockDocumentExecutedEvent;
+import com.restaurant.management.inventory.domain.event.StockDocumentRejectedEvent;
+import com.restaurant.management.inventory.domain.model.DocumentStatus;
+import com.restaurant.management.inventory.domain.model.DocumentType;
+import com.restaurant.management.inventory.domain.model.StockDocumentCounts;
+import com.restaurant.management.inventory.domain.repository.StockDocumentRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * 实时单据计数（看板"当前"各状态单据数）
+ *
+ * 计数放在内存中，按（状态, 类型）各一个计数器，看板轮询只读内存，不查询单据表。
+ * 发件箱投递的单据事件按状态迁移增减计数（新建 +草稿，提交 草稿→待审核，审核 待审核→已审核/已拒绝，
+ * 执行 已审核→已执行，取消 原状态→已取消），并定期按一次分组统计全量重建兜底：
+ * 其它节点投递的事件、重复投递或丢失的事件造成的偏差，以重建间隔为上限
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockDocumentLiveCounters {
+
+    private static final int TYPES = DocumentType.values().length;
+
+    private final StockDocumentRepository stockDocumentRepository;
+    private final InventoryProperties inventoryProperties;
+
+    private volatile AtomicLongArray counts = new AtomicLongArray(DocumentStatus.values().length * TYPES);
+    private volatile boolean initialized;
+
+    /**
+     * 定时全量重建（启动后立即执行一次）
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${inventory.document-counters.rebuild-interval-ms:60000}")
+    public void scheduledRebuild() {
+        if (!inventoryProperties.getDocumentCounters().isEnabled()) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("实时单据计数重建失败，继续使用现有计数", e);
+        }
+    }
+
+    /**
+     * 全量重建：一次分组统计全部单据，构建完成后整体替换
+     * 重建期间到达的事件可能被较旧的统计结果覆盖，由下一次重建纠正
+     */
+    public void rebuild() {
+        StockDocumentCounts snapshot = stockDocumentRepository.countByStatusAndType(null, null);
+        AtomicLongArray rebuilt = new AtomicLongArray(counts.length());
+        for (DocumentStatus status : DocumentStatus.values()) {
+            for (DocumentType type : DocumentType.values()) {
+                rebuilt.set(index(status, type), snapshot.count(status, type));
+            }
+        }
+        counts = rebuilt;
+        initialized = true;
+        log.debug("实时单据计数重建完成: total={}", snapshot.total());
+    }
+
+    /**
+     * 当前计数快照；未启用或尚未完成首次重建时退回一次分组统计
+     */
+    public StockDocumentCounts snapshot() {
+        if (!inventoryProperties.getDocumentCounters().isEnabled() || !initialized) {
+            return stockDocumentRepository.countByStatusAndType(null, null);
+        }
+        AtomicLongArray current = counts;
+        long[][] values = new long[DocumentStatus.values().length][TYPES];
+        for (DocumentStatus status : DocumentStatus.values()) {
+            for (DocumentType type : DocumentType.values()) {
+                values[status.ordinal()][type.ordinal()] = current.get(index(status, type));
+            }
+        }
+        return StockDocumentCounts.of(values);
+    }
+
+    @EventListener
+    public void onCreated(StockDocumentCreatedEvent event) {
+        if (event.getStatus() == DocumentStatus.DRAFT) {
+            increment(DocumentStatus.DRAFT, event.getDocumentType());
+        } else if (event.getStatus() == DocumentStatus.PENDING) {
+            move(DocumentStatus.DRAFT, DocumentStatus.PENDING, event.getDocumentType());
+        }
+    }
+
+    @EventListener
+    public void onApproved(StockDocumentApprovedEvent event) {
+        move(DocumentStatus.PENDING, DocumentStatus.APPROVED, event.getDocumentType());
+    }
+
+    @EventListener
+    public void onRejected(StockDocumentRejectedEvent event) {
+        move(DocumentStatus.PENDING, DocumentStatus.REJECTED, event.getDocumentType());
+    }
+
+    @EventListener
+    public void onExecuted(StockDocumentExecutedEvent event) {
+        move(DocumentStatus.APPROVED, DocumentStatus.EXECUTED, event.getDocumentType());
+    }
+
+    @EventListener
+    public void onCancelled(StockDocumentCancelledEvent event) {
+        // 升级前写入发件箱的事件不带原状态，留给下一次重建纠正
+        if (event.getPreviousStatus() != null) {
+            move(event.getPreviousStatus(), DocumentStatus.CANCELLED, event.getDocumentType());
+        }
+    }
+
+    private void increment(DocumentStatus status, DocumentType type) {
+        if (type != null) {
+            counts.incrementAndGet(index(status, type));
+        }
+    }
+
+    private void move(DocumentStatus from, DocumentStatus to, DocumentType type) {
+        if (type == null) {
+            return;
+        }
+        AtomicLongArray current = counts;
+        // 重复投递或与重建交错时可能减到负数，截断为 0
+        current.getAndUpdate(index(from, type), count -> Math.max(0, count - 1));
+        current.incrementAndGet(index(to, type));
+    }
+
+    private static int index(DocumentStatus status, DocumentType type) {
+        return status.ordinal() * TYPES + type.ordinal();
+    }
+}
@@ -0,0 +1,33 @@
+package com.restaurant.management.inventory.domain.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.restaurant.management.common.domain.DomainEvent;
+import lombok.Getter;
+
+/**
+ * 秒杀预扣事件
+ * 秒杀库存已在 Redis 中预扣，经发件箱异步回写到数据库的预留库存
+ */
+@Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class FlashSaleReservedEvent extends DomainEvent {
+    
+    private final String skuId;
+    private final String warehouseId;
+    private final Integer quantity;
+    private final String orderId;
+    
+    @JsonCreator
+    public FlashSaleReservedEvent(@JsonProperty("skuId") String skuId,
+                                  @JsonProperty("warehouseId") String warehouseId,
+                                  @JsonProperty("quantity") Integer quantity,
+                                  @JsonProperty("orderId") String orderId) {
+        super();
+        this.skuId = skuId;
+        this.warehouseId = warehouseId;
+        this.quantity = quantity;
+        this.orderId = orderId;
+    }
+}
@@ -0,0 +1,59 @@
+package com.restaurant.management.inventory.domain.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.restaurant.management.common.domain.DomainEvent;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 库存批量变更事件
+ * 单据执行等批量操作在一个事务内对多个库存的数量变更合并为一个事件，每个库存一条变更，
+ * 同一库存的多次变更合并为净变更量，逐笔变更量保留在 lineChanges 中
+ */
+@Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class InventoryBatchChangedEvent extends DomainEvent {
+    
+    private final String refNo;
+    private final String reason;
+    private final List<Change> changes;
+    
+    @JsonCreator
+    public InventoryBatchChangedEvent(@JsonProperty("refNo") String refNo,
+                                      @JsonProperty("reason") String reason,
+                                      @JsonProperty("changes") List<Change> changes) {
+        super();
+        this.refNo = refNo;
+        this.reason = reason;
+        this.changes = changes;
+    }
+    
+    /**
+     * 单个库存的合并变更
+     */
+    @Getter
+    public static class Change {
+        
+        private final String skuId;
+        private final String warehouseId;
+        private final Integer changeQuantity;
+        private final Integer currentQuantity;
+        private final List<Integer> lineChanges;
+        
+        @JsonCreator
+        public Change(@JsonProperty("skuId") String skuId,
+                      @JsonProperty("warehouseId") String warehouseId,
+                      @JsonProperty("changeQuantity") Integer changeQuantity,
+                      @JsonProperty("currentQuantity") Integer currentQuantity,
+                      @JsonProperty("lineChanges") List<Integer> lineChanges) {
+            this.skuId = skuId;
+            this.warehouseId = warehouseId;
+            this.changeQuantity = changeQuantity;
+            this.currentQuantity = currentQuantity;
+            this.lineChanges = lineChanges;
+        }
+    }
+}
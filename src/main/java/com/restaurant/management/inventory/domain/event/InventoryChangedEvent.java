@@ -1,5 +1,8 @@
 package com.restaurant.management.inventory.domain.event;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.restaurant.management.common.domain.DomainEvent;
 import lombok.Getter;
 
@@ -8,6 +11,7 @@ import lombok.Getter;
  * 当库存数量发生变化时发布此事件
  */
 @Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class InventoryChangedEvent extends DomainEvent {
     
     private final String skuId;
@@ -16,8 +20,12 @@ public class InventoryChangedEvent extends DomainEvent {
     private final Integer currentQuantity;
     private final String reason;
     
-    public InventoryChangedEvent(String skuId, String warehouseId, Integer changeQuantity, 
-                               Integer currentQuantity, String reason) {
+    @JsonCreator
+    public InventoryChangedEvent(@JsonProperty("skuId") String skuId,
+                                 @JsonProperty("warehouseId") String warehouseId,
+                                 @JsonProperty("changeQuantity") Integer changeQuantity,
+                                 @JsonProperty("currentQuantity") Integer currentQuantity,
+                                 @JsonProperty("reason") String reason) {
         super();
         this.skuId = skuId;
         this.warehouseId = warehouseId;
@@ -25,4 +33,4 @@ public class InventoryChangedEvent extends DomainEvent {
         this.currentQuantity = currentQuantity;
         this.reason = reason;
     }
-}
\ No newline at end of file
+}
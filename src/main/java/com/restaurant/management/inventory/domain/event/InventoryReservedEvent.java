@@ -1,5 +1,8 @@
 package com.restaurant.management.inventory.domain.event;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.restaurant.management.common.domain.DomainEvent;
 import lombok.Getter;
 
@@ -8,6 +11,7 @@ import lombok.Getter;
  * 当库存被预留时发布此事件
  */
 @Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class InventoryReservedEvent extends DomainEvent {
     
     private final String skuId;
@@ -15,11 +19,15 @@ public class InventoryReservedEvent extends DomainEvent {
     private final Integer quantity;
     private final String orderId;
     
-    public InventoryReservedEvent(String skuId, String warehouseId, Integer quantity, String orderId) {
+    @JsonCreator
+    public InventoryReservedEvent(@JsonProperty("skuId") String skuId,
+                                  @JsonProperty("warehouseId") String warehouseId,
+                                  @JsonProperty("quantity") Integer quantity,
+                                  @JsonProperty("orderId") String orderId) {
         super();
         this.skuId = skuId;
         this.warehouseId = warehouseId;
         this.quantity = quantity;
         this.orderId = orderId;
     }
-}
\ No newline at end of file
+}
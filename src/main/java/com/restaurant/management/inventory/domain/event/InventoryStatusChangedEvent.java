@@ -0,0 +1,34 @@
+package com.restaurant.management.inventory.domain.event;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.restaurant.management.common.domain.DomainEvent;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 库存状态批量变更事件
+ * 批量冻结/解冻时每批发布一次，只包含状态实际发生变化的库存；状态变更不改变数量
+ */
+@Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class InventoryStatusChangedEvent extends DomainEvent {
+    
+    private final List<InventoryKey> inventoryKeys;
+    private final InventoryStatus status;
+    private final String reason;
+    
+    @JsonCreator
+    public InventoryStatusChangedEvent(@JsonProperty("inventoryKeys") List<InventoryKey> inventoryKeys,
+                                       @JsonProperty("status") InventoryStatus status,
+                                       @JsonProperty("reason") String reason) {
+        super();
+        this.inventoryKeys = inventoryKeys;
+        this.status = status;
+        this.reason = reason;
+    }
+}
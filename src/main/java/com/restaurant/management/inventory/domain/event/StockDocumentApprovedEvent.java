@@ -1,5 +1,8 @@
 package com.restaurant.management.inventory.domain.event;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.restaurant.management.common.domain.DomainEvent;
 import com.restaurant.management.inventory.domain.model.DocumentType;
 import lombok.Getter;
@@ -11,16 +14,20 @@ import java.time.LocalDateTime;
  * 当库存单据审核通过时发布此事件
  */
 @Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class StockDocumentApprovedEvent extends DomainEvent {
     
     private final String documentId;
     private final DocumentType documentType;
     private final String approverId;
     
-    public StockDocumentApprovedEvent(String documentId, DocumentType documentType, String approverId) {
+    @JsonCreator
+    public StockDocumentApprovedEvent(@JsonProperty("documentId") String documentId,
+                                      @JsonProperty("documentType") DocumentType documentType,
+                                      @JsonProperty("approverId") String approverId) {
         super();
         this.documentId = documentId;
         this.documentType = documentType;
         this.approverId = approverId;
     }
-}
\ No newline at end of file
+}
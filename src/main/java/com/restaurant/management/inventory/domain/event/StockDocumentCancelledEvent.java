@@ -1,6 +1,10 @@
 package com.restaurant.management.inventory.domain.event;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.restaurant.management.common.domain.DomainEvent;
+import com.restaurant.management.inventory.domain.model.DocumentStatus;
 import com.restaurant.management.inventory.domain.model.DocumentType;
 import lombok.Getter;
 
@@ -11,16 +15,26 @@ import java.time.LocalDateTime;
  * 当库存单据被取消时发布此事件
  */
 @Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class StockDocumentCancelledEvent extends DomainEvent {
     
     private final String documentId;
     private final DocumentType documentType;
     private final String cancelReason;
+    /**
+     * 取消前单据所处的状态
+     */
+    private final DocumentStatus previousStatus;
     
-    public StockDocumentCancelledEvent(String documentId, DocumentType documentType, String cancelReason) {
+    @JsonCreator
+    public StockDocumentCancelledEvent(@JsonProperty("documentId") String documentId,
+                                       @JsonProperty("documentType") DocumentType documentType,
+                                       @JsonProperty("cancelReason") String cancelReason,
+                                       @JsonProperty("previousStatus") DocumentStatus previousStatus) {
         super();
         this.documentId = documentId;
         this.documentType = documentType;
         this.cancelReason = cancelReason;
+        this.previousStatus = previousStatus;
     }
-}
\ No newline at end of file
+}
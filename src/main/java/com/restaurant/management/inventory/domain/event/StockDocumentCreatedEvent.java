@@ -1,6 +1,10 @@
 package com.restaurant.management.inventory.domain.event;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.restaurant.management.common.domain.DomainEvent;
+import com.restaurant.management.inventory.domain.model.DocumentStatus;
 import com.restaurant.management.inventory.domain.model.DocumentType;
 import lombok.Getter;
 
@@ -8,17 +12,26 @@ import java.time.LocalDateTime;
 
 /**
  * 库存单据创建事件
- * 当库存单据被创建时发布此事件
+ * 当库存单据被创建（草稿）或提交审核（待审核）时发布此事件
  */
 @Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class StockDocumentCreatedEvent extends DomainEvent {
     
     private final String documentId;
     private final DocumentType documentType;
+    /**
+     * 发布后单据所处的状态：DRAFT 为新建，PENDING 为提交审核
+     */
+    private final DocumentStatus status;
     
-    public StockDocumentCreatedEvent(String documentId, DocumentType documentType) {
+    @JsonCreator
+    public StockDocumentCreatedEvent(@JsonProperty("documentId") String documentId,
+                                     @JsonProperty("documentType") DocumentType documentType,
+                                     @JsonProperty("status") DocumentStatus status) {
         super();
         this.documentId = documentId;
         this.documentType = documentType;
+        this.status = status;
     }
-}
\ No newline at end of file
+}
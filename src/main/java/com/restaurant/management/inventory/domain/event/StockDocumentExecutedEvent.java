@@ -1,5 +1,8 @@
 package com.restaurant.management.inventory.domain.event;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.restaurant.management.common.domain.DomainEvent;
 import com.restaurant.management.inventory.domain.model.DocumentType;
 import com.restaurant.management.inventory.domain.model.StockDocumentItem;
@@ -13,16 +16,20 @@ import java.util.List;
  * 当库存单据执行完成时发布此事件
  */
 @Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class StockDocumentExecutedEvent extends DomainEvent {
     
     private final String documentId;
     private final DocumentType documentType;
     private final List<StockDocumentItem> items;
     
-    public StockDocumentExecutedEvent(String documentId, DocumentType documentType, List<StockDocumentItem> items) {
+    @JsonCreator
+    public StockDocumentExecutedEvent(@JsonProperty("documentId") String documentId,
+                                      @JsonProperty("documentType") DocumentType documentType,
+                                      @JsonProperty("items") List<StockDocumentItem> items) {
         super();
         this.documentId = documentId;
         this.documentType = documentType;
         this.items = items;
     }
-}
\ No newline at end of file
+}
@@ -1,5 +1,8 @@
 package com.restaurant.management.inventory.domain.event;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.restaurant.management.common.domain.DomainEvent;
 import com.restaurant.management.inventory.domain.model.DocumentType;
 import lombok.Getter;
@@ -11,6 +14,7 @@ import java.time.LocalDateTime;
  * 当库存单据审核被拒绝时发布此事件
  */
 @Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class StockDocumentRejectedEvent extends DomainEvent {
     
     private final String documentId;
@@ -18,11 +22,15 @@ public class StockDocumentRejectedEvent extends DomainEvent {
     private final String approverId;
     private final String rejectionReason;
     
-    public StockDocumentRejectedEvent(String documentId, DocumentType documentType, String approverId, String rejectionReason) {
+    @JsonCreator
+    public StockDocumentRejectedEvent(@JsonProperty("documentId") String documentId,
+                                      @JsonProperty("documentType") DocumentType documentType,
+                                      @JsonProperty("approverId") String approverId,
+                                      @JsonProperty("rejectionReason") String rejectionReason) {
         super();
         this.documentId = documentId;
         this.documentType = documentType;
         this.approverId = approverId;
         this.rejectionReason = rejectionReason;
     }
-}
\ No newline at end of file
+}
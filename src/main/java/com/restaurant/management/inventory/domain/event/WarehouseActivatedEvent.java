@@ -1,5 +1,8 @@
 package com.restaurant.management.inventory.domain.event;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.restaurant.management.common.domain.DomainEvent;
 import lombok.Getter;
 
@@ -7,14 +10,17 @@ import lombok.Getter;
  * 仓库激活事件
  */
 @Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class WarehouseActivatedEvent extends DomainEvent {
     
     private final String warehouseId;
     private final String warehouseName;
     
-    public WarehouseActivatedEvent(String warehouseId, String warehouseName) {
+    @JsonCreator
+    public WarehouseActivatedEvent(@JsonProperty("warehouseId") String warehouseId,
+                                   @JsonProperty("warehouseName") String warehouseName) {
         super();
         this.warehouseId = warehouseId;
         this.warehouseName = warehouseName;
     }
-}
\ No newline at end of file
+}
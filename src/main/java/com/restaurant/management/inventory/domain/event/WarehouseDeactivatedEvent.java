@@ -1,5 +1,8 @@
 package com.restaurant.management.inventory.domain.event;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.restaurant.management.common.domain.DomainEvent;
 import lombok.Getter;
 
@@ -7,16 +10,20 @@ import lombok.Getter;
  * 仓库停用事件
  */
 @Getter
+@JsonIgnoreProperties(ignoreUnknown = true)
 public class WarehouseDeactivatedEvent extends DomainEvent {
     
     private final String warehouseId;
     private final String warehouseName;
     private final String reason;
     
-    public WarehouseDeactivatedEvent(String warehouseId, String warehouseName, String reason) {
+    @JsonCreator
+    public WarehouseDeactivatedEvent(@JsonProperty("warehouseId") String warehouseId,
+                                     @JsonProperty("warehouseName") String warehouseName,
+                                     @JsonProperty("reason") String reason) {
         super();
         this.warehouseId = warehouseId;
         this.warehouseName = warehouseName;
         this.reason = reason;
     }
-}
\ No newline at end of file
+}
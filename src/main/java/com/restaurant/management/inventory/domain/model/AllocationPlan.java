@@ -0,0 +1,59 @@
+package com.restaurant.management.inventory.domain.model;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 分仓结果
+ * lines 为分配到具体仓库的预留明细（同一 SKU 拆分时有多条）；shortages 为索引中可用量不足的 SKU 及缺口数量
+ * 分仓依据的是内存索引，只是预留的落点建议，是否足够以预留时的加锁校验为准
+ */
+@Getter
+public class AllocationPlan {
+    
+    /**
+     * 整单由同一仓库满足
+     */
+    public static final String RESULT_SINGLE_WAREHOUSE = "single_warehouse";
+    
+    /**
+     * 每个 SKU 各由一个仓库满足，但整单跨仓
+     */
+    public static final String RESULT_PER_LINE = "per_line";
+    
+    /**
+     * 至少一个 SKU 拆分到多个仓库
+     */
+    public static final String RESULT_SPLIT = "split";
+    
+    /**
+     * 存在可用量不足的 SKU
+     */
+    public static final String RESULT_SHORTAGE = "shortage";
+    
+    private final List<ReservationLine> lines;
+    private final Map<String, Integer> shortages;
+    private final String result;
+    
+    public AllocationPlan(List<ReservationLine> lines, Map<String, Integer> shortages, String result) {
+        this.lines = lines;
+        this.shortages = shortages;
+        this.result = result;
+    }
+    
+    public boolean isFulfilled() {
+        return shortages.isEmpty();
+    }
+    
+    /**
+     * 追加不经过分仓、仓库已确定的明细（如配额租约 SKU 固定在租约仓库）
+     */
+    public AllocationPlan withFixedLines(List<ReservationLine> fixedLines) {
+        List<ReservationLine> merged = new ArrayList<>(lines);
+        merged.addAll(fixedLines);
+        return new AllocationPlan(merged, shortages, result);
+    }
+}
@@ -0,0 +1,127 @@
+package com.restaurant.management.inventory.domain.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 定点成本运算
+ *
+ * 金额按 4 位小数表示为 long（金额 × 10^4），加权平均和逐项累加都在 long 上完成，只在结果处构造一次 BigDecimal。
+ * 结果与原 BigDecimal 路径逐位相同（含 scale）：
+ * 1. 加权平均成本保留 4 位小数，HALF_UP
+ * 2. 单价 × 数量的合计取各项中最大的 scale
+ * 输入超过 4 位有效小数或运算溢出 long 时退回 BigDecimal 计算
+ *
+ * 单次 单价 × 数量 本身已走 BigDecimal 的紧凑 long 路径，不经过这里
+ */
+public final class FixedPointCost {
+    
+    /**
+     * 成本小数位数
+     */
+    public static final int SCALE = 4;
+    
+    /**
+     * 无法用定点表示（小数位过多或数值过大）
+     */
+    static final long UNREPRESENTABLE = Long.MIN_VALUE;
+    
+    /**
+     * 整数部分最多 14 位，保证按 10^4 放大后仍在 long 范围内
+     */
+    private static final int MAX_INTEGER_DIGITS = 14;
+    
+    private static final long[] POWERS_OF_TEN = {1L, 10L, 100L, 1_000L, 10_000L};
+    
+    private FixedPointCost() {
+    }
+    
+    /**
+     * 转为 4 位小数的定点值
+     * @return 定点值，无法精确表示时返回 UNREPRESENTABLE
+     */
+    static long toScaled(BigDecimal value) {
+        int scale = value.scale();
+        if (scale > SCALE) {
+            value = value.stripTrailingZeros();
+            scale = value.scale();
+            if (scale > SCALE) {
+                return UNREPRESENTABLE;
+            }
+        }
+        if (scale < 0 || value.precision() - scale > MAX_INTEGER_DIGITS) {
+            return UNREPRESENTABLE;
+        }
+        // scale 为 0 的紧凑 BigDecimal 直接取 long，不构造 BigInteger
+        long unscaled = scale == 0 ? value.longValue() : value.movePointRight(scale).longValue();
+        return unscaled * POWERS_OF_TEN[SCALE - scale];
+    }
+    
+    /**
+     * 加权平均成本：(currentUnitCost × currentQuantity + inboundCost × inboundQuantity) / 两者数量之和
+     * 保留 4 位小数，HALF_UP；调用方保证数量之和大于 0
+     */
+    public static BigDecimal weightedAverage(BigDecimal currentUnitCost, int currentQuantity,
+                                             BigDecimal inboundCost, int inboundQuantity) {
+        long unitCost = toScaled(currentUnitCost);
+        long cost = toScaled(inboundCost);
+        if (unitCost != UNREPRESENTABLE && cost != UNREPRESENTABLE) {
+            try {
+                long totalCost = Math.addExact(Math.multiplyExact(unitCost, (long) currentQuantity),
+                    Math.multiplyExact(cost, (long) inboundQuantity));
+                return BigDecimal.valueOf(divideHalfUp(totalCost, (long) currentQuantity + inboundQuantity), SCALE);
+            } catch (ArithmeticException e) {
+                // 溢出，按 BigDecimal 计算
+            }
+        }
+        return currentUnitCost.multiply(BigDecimal.valueOf(currentQuantity))
+            .add(inboundCost.multiply(BigDecimal.valueOf(inboundQuantity)))
+            .divide(BigDecimal.valueOf((long) currentQuantity + inboundQuantity), SCALE, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * long 除法（除数大于 0），HALF_UP 舍入：与 RoundingMode.HALF_UP 一致，负数向远离 0 的方向进位
+     */
+    static long divideHalfUp(long dividend, long divisor) {
+        long quotient = dividend / divisor;
+        long remainder = Math.abs(dividend % divisor);
+        if (remainder != 0 && remainder >= divisor - remainder) {
+            quotient += Long.signum(dividend);
+        }
+        return quotient;
+    }
+    
+    /**
+     * 金额累加器（单价 × 数量求和），与从 BigDecimal.ZERO 开始逐项 add 的结果相同
+     */
+    public static final class Sum {
+        
+        private long scaledTotal;
+        private int maxScale;
+        private BigDecimal overflow;
+        
+        public Sum add(BigDecimal unitPrice, int quantity) {
+            maxScale = Math.max(maxScale, unitPrice.scale());
+            if (overflow == null) {
+                long price = toScaled(unitPrice);
+                if (price != UNREPRESENTABLE) {
+                    try {
+                        scaledTotal = Math.addExact(scaledTotal, Math.multiplyExact(price, (long) quantity));
+                        return this;
+                    } catch (ArithmeticException e) {
+                        // 溢出，之后按 BigDecimal 累加
+                    }
+                }
+                overflow = BigDecimal.valueOf(scaledTotal, SCALE);
+            }
+            overflow = overflow.add(unitPrice.multiply(BigDecimal.valueOf(quantity)));
+            return this;
+        }
+        
+        public BigDecimal toBigDecimal() {
+            BigDecimal total = overflow != null ? overflow : BigDecimal.valueOf(scaledTotal, SCALE);
+            // 各项的 scale 都不超过 maxScale，改变 scale 不会舍入
+            return total.setScale(maxScale, RoundingMode.UNNECESSARY);
+        }
+    }
+}
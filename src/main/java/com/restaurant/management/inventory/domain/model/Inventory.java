@@ -2,6 +2,7 @@ package com.restaurant.management.inventory.domain.model;
 
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.Version;
 import com.restaurant.management.common.domain.AggregateRoot;
 import com.restaurant.management.common.domain.BaseEntity;
 import com.restaurant.management.common.domain.DomainEvent;
@@ -30,6 +31,12 @@ public class Inventory extends BaseEntity implements AggregateRoot {
     @TableField(exist = false)
     private List<DomainEvent> domainEvents = new ArrayList<>();
     
+    /**
+     * 尚未持久化的库存流水（仅存在于内存），由仓储在保存库存时一并写入
+     */
+    @TableField(exist = false)
+    private List<InventoryJournalEntry> journalEntries = new ArrayList<>();
+    
     @TableField("sku_id")
     private String skuId;
     
@@ -53,6 +60,12 @@ public class Inventory extends BaseEntity implements AggregateRoot {
     
     private InventoryStatus status;
     
+    /**
+     * 乐观锁版本号（按主键保存时校验并递增）
+     */
+    @Version
+    private Integer version = 0;
+    
     /**
      * 创建库存
      */
@@ -72,6 +85,9 @@ public class Inventory extends BaseEntity implements AggregateRoot {
         inventory.addDomainEvent(new InventoryChangedEvent(
             skuId, warehouseId, 0, initialQuantity, "初始化库存"
         ));
+        if (initialQuantity != 0) {
+            inventory.recordJournal(JournalChangeType.CREATE, initialQuantity, 0, 0, null, "初始化库存");
+        }
         
         return inventory;
     }
@@ -102,6 +118,7 @@ public class Inventory extends BaseEntity implements AggregateRoot {
         
         availableQuantity -= quantity;
         reservedQuantity += quantity;
+        recordJournal(JournalChangeType.RESERVE, -quantity, quantity, 0, orderId, null);
         
         // 发布库存预留事件
         addDomainEvent(new InventoryReservedEvent(skuId, warehouseId, quantity, orderId));
@@ -121,6 +138,7 @@ public class Inventory extends BaseEntity implements AggregateRoot {
         
         reservedQuantity -= quantity;
         availableQuantity += quantity;
+        recordJournal(JournalChangeType.RELEASE, quantity, -quantity, 0, orderId, null);
         
         // 发布库存释放事件
         addDomainEvent(new InventoryReleasedEvent(skuId, warehouseId, quantity, orderId));
@@ -140,6 +158,7 @@ public class Inventory extends BaseEntity implements AggregateRoot {
         
         reservedQuantity -= quantity;
         occupiedQuantity += quantity;
+        recordJournal(JournalChangeType.CONFIRM, 0, -quantity, quantity, orderId, null);
         
         // 发布库存确认事件
         addDomainEvent(new InventoryChangedEvent(
@@ -152,6 +171,14 @@ public class Inventory extends BaseEntity implements AggregateRoot {
      * 扣减库存（直接扣减可用库存）
      */
     public void deduct(Integer quantity, String reason) {
+        deduct(quantity, reason, null);
+    }
+    
+    /**
+     * 扣减库存（直接扣减可用库存）
+     * @param refNo 关联单据号，记入库存流水
+     */
+    public void deduct(Integer quantity, String reason, String refNo) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("扣减数量必须大于0");
         }
@@ -164,6 +191,7 @@ public class Inventory extends BaseEntity implements AggregateRoot {
         }
         
         availableQuantity -= quantity;
+        recordJournal(JournalChangeType.DEDUCT, -quantity, 0, 0, refNo, reason);
         
         // 发布库存变更事件
         addDomainEvent(new InventoryChangedEvent(
@@ -175,21 +203,28 @@ public class Inventory extends BaseEntity implements AggregateRoot {
      * 增加库存
      */
     public void increase(Integer quantity, BigDecimal cost, String reason) {
+        increase(quantity, cost, reason, null);
+    }
+    
+    /**
+     * 增加库存
+     * @param refNo 关联单据号，记入库存流水
+     */
+    public void increase(Integer quantity, BigDecimal cost, String reason, String refNo) {
         if (quantity <= 0) {
             throw new IllegalArgumentException("增加数量必须大于0");
         }
         
         // 计算加权平均成本
-        if (cost != null && cost.compareTo(BigDecimal.ZERO) > 0) {
-            BigDecimal totalCost = unitCost.multiply(BigDecimal.valueOf(getTotalQuantity()))
-                .add(cost.multiply(BigDecimal.valueOf(quantity)));
+        if (cost != null && cost.signum() > 0) {
             int newTotalQuantity = getTotalQuantity() + quantity;
             if (newTotalQuantity > 0) {
-                unitCost = totalCost.divide(BigDecimal.valueOf(newTotalQuantity), 4, BigDecimal.ROUND_HALF_UP);
+                unitCost = FixedPointCost.weightedAverage(unitCost, getTotalQuantity(), cost, quantity);
             }
         }
         
         availableQuantity += quantity;
+        recordJournal(JournalChangeType.INCREASE, quantity, 0, 0, refNo, reason);
         
         // 发布库存变更事件
         addDomainEvent(new InventoryChangedEvent(
@@ -203,6 +238,9 @@ public class Inventory extends BaseEntity implements AggregateRoot {
     public void adjust(Integer newQuantity, String reason) {
         int oldQuantity = getTotalQuantity();
         int changeQuantity = newQuantity - oldQuantity;
+        int oldAvailable = availableQuantity;
+        int oldReserved = reservedQuantity;
+        int oldOccupied = occupiedQuantity;
         
         // 重新分配库存
         availableQuantity = newQuantity - reservedQuantity - occupiedQuantity;
@@ -219,6 +257,9 @@ public class Inventory extends BaseEntity implements AggregateRoot {
             }
         }
         
+        recordJournal(JournalChangeType.ADJUST, availableQuantity - oldAvailable,
+            reservedQuantity - oldReserved, occupiedQuantity - oldOccupied, null, reason);
+        
         // 发布库存调整事件
         addDomainEvent(new InventoryChangedEvent(
             skuId, warehouseId, changeQuantity, getTotalQuantity(), 
@@ -318,5 +359,18 @@ public class Inventory extends BaseEntity implements AggregateRoot {
     public void clearDomainEvents() {
         this.domainEvents.clear();
     }
+    
+    /**
+     * 清空尚未持久化的库存流水（仓储写入后，或由内存账本按批回写时调用）
+     */
+    public void clearJournalEntries() {
+        this.journalEntries.clear();
+    }
+    
+    private void recordJournal(JournalChangeType changeType, int availableDelta, int reservedDelta,
+                               int occupiedDelta, String refNo, String reason) {
+        journalEntries.add(InventoryJournalEntry.of(skuId, warehouseId, changeType,
+            availableDelta, reservedDelta, occupiedDelta, refNo, reason));
+    }
 }
 
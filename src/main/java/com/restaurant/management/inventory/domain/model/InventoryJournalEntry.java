@@ -0,0 +1,60 @@
+package com.restaurant.management.inventory.domain.model;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存流水（只追加）
+ * 与库存行的更新在同一事务中写入；id 即序号，同一库存的流水在行锁下写入，序号与提交顺序一致
+ */
+@Data
+@TableName("inventory_journal")
+public class InventoryJournalEntry {
+    
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+    
+    private String skuId;
+    
+    private String warehouseId;
+    
+    private JournalChangeType changeType;
+    
+    private Integer availableDelta;
+    
+    private Integer reservedDelta;
+    
+    private Integer occupiedDelta;
+    
+    /**
+     * 关联单据号或订单号
+     */
+    private String refNo;
+    
+    private String reason;
+    
+    private LocalDateTime createTime;
+    
+    public static InventoryJournalEntry of(String skuId, String warehouseId, JournalChangeType changeType,
+                                           int availableDelta, int reservedDelta, int occupiedDelta,
+                                           String refNo, String reason) {
+        InventoryJournalEntry entry = new InventoryJournalEntry();
+        entry.skuId = skuId;
+        entry.warehouseId = warehouseId;
+        entry.changeType = changeType;
+        entry.availableDelta = availableDelta;
+        entry.reservedDelta = reservedDelta;
+        entry.occupiedDelta = occupiedDelta;
+        entry.refNo = refNo;
+        entry.reason = reason;
+        return entry;
+    }
+    
+    public int getTotalDelta() {
+        return availableDelta + reservedDelta + occupiedDelta;
+    }
+}
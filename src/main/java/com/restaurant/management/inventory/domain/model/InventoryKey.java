@@ -0,0 +1,49 @@
+package com.restaurant.management.inventory.domain.model;
+
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.restaurant.management.common.domain.ValueObject;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.util.Comparator;
+
+/**
+ * 库存定位键值对象（SKU + 仓库）
+ * 对应 inventories 表的唯一键 (sku_id, warehouse_id)
+ * 作为批量状态变更事件的一部分写入发件箱，需可由 Jackson 反序列化
+ */
+@Getter
+@EqualsAndHashCode
+public final class InventoryKey implements ValueObject {
+    
+    /**
+     * 加锁顺序：与唯一键 (sku_id, warehouse_id) 的索引顺序一致
+     * 所有一次锁定多条库存的操作都按此顺序加锁，避免事务之间交叉等待形成死锁
+     */
+    public static final Comparator<InventoryKey> LOCK_ORDER = Comparator
+        .comparing(InventoryKey::getSkuId)
+        .thenComparing(InventoryKey::getWarehouseId);
+    
+    private final String skuId;
+    private final String warehouseId;
+    
+    @JsonCreator
+    public InventoryKey(@JsonProperty("skuId") String skuId,
+                        @JsonProperty("warehouseId") String warehouseId) {
+        if (skuId == null || warehouseId == null) {
+            throw new IllegalArgumentException("SKU ID和仓库ID不能为空");
+        }
+        this.skuId = skuId;
+        this.warehouseId = warehouseId;
+    }
+    
+    public static InventoryKey of(Inventory inventory) {
+        return new InventoryKey(inventory.getSkuId(), inventory.getWarehouseId());
+    }
+    
+    @Override
+    public String toString() {
+        return skuId + "@" + warehouseId;
+    }
+}
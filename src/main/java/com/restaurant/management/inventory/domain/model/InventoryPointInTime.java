@@ -0,0 +1,34 @@
+package com.restaurant.management.inventory.domain.model;
+
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * 某一时刻的库存数量
+ * 查询时间早于流水保留期时只能给出不晚于该时刻的最近快照，asOf 为结果实际对应的时间
+ */
+@Getter
+public class InventoryPointInTime {
+    
+    private final String skuId;
+    private final String warehouseId;
+    private final LocalDateTime asOf;
+    private final int availableQuantity;
+    private final int reservedQuantity;
+    private final int occupiedQuantity;
+    
+    public InventoryPointInTime(String skuId, String warehouseId, LocalDateTime asOf,
+                                int availableQuantity, int reservedQuantity, int occupiedQuantity) {
+        this.skuId = skuId;
+        this.warehouseId = warehouseId;
+        this.asOf = asOf;
+        this.availableQuantity = availableQuantity;
+        this.reservedQuantity = reservedQuantity;
+        this.occupiedQuantity = occupiedQuantity;
+    }
+    
+    public int getTotalQuantity() {
+        return availableQuantity + reservedQuantity + occupiedQuantity;
+    }
+}
@@ -0,0 +1,25 @@
+package com.restaurant.management.inventory.domain.model;
+
+/**
+ * SKU 库存汇总（跨全部仓库的各数量合计）
+ * 由汇总查询按列名映射填充
+ */
+public class InventorySummaryTotals {
+    private String skuId;
+    private Integer totalAvailable;
+    private Integer totalReserved;
+    private Integer totalOccupied;
+    
+    // getters and setters
+    public String getSkuId() { return skuId; }
+    public void setSkuId(String skuId) { this.skuId = skuId; }
+    
+    public Integer getTotalAvailable() { return totalAvailable; }
+    public void setTotalAvailable(Integer totalAvailable) { this.totalAvailable = totalAvailable; }
+    
+    public Integer getTotalReserved() { return totalReserved; }
+    public void setTotalReserved(Integer totalReserved) { this.totalReserved = totalReserved; }
+    
+    public Integer getTotalOccupied() { return totalOccupied; }
+    public void setTotalOccupied(Integer totalOccupied) { this.totalOccupied = totalOccupied; }
+}
@@ -0,0 +1,51 @@
+package com.restaurant.management.inventory.domain.model;
+
+/**
+ * 库存流水变更类型
+ */
+public enum JournalChangeType {
+    
+    CREATE("初始化"),
+    
+    RESERVE("预留"),
+    
+    RELEASE("释放预留"),
+    
+    CONFIRM("确认预留"),
+    
+    INCREASE("入库"),
+    
+    DEDUCT("出库"),
+    
+    ADJUST("盘点调整"),
+    
+    /**
+     * 删除库存记录，增量为删除前的剩余数量取反
+     */
+    DELETE("删除"),
+    
+    /**
+     * 内存账本按批合并回写的增量（不区分单笔操作）
+     */
+    LEDGER_FLUSH("账本回写"),
+    
+    /**
+     * 节点租借库存配额，可用转预留，关联号为节点标识
+     */
+    QUOTA_GRANT("配额租借"),
+    
+    /**
+     * 节点归还或过期回收的配额，预留转可用
+     */
+    QUOTA_RETURN("配额归还");
+    
+    private final String description;
+    
+    JournalChangeType(String description) {
+        this.description = description;
+    }
+    
+    public String getDescription() {
+        return description;
+    }
+}
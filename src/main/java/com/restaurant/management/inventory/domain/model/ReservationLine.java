@@ -0,0 +1,64 @@
+package com.restaurant.management.inventory.domain.model;
+
+import com.restaurant.management.common.domain.ValueObject;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Comparator;
+
+/**
+ * 预留明细值对象
+ * 描述一次批量预留中单个 SKU 在指定仓库的预留数量
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class ReservationLine implements ValueObject {
+    
+    /**
+     * 加锁顺序：先 SKU 后仓库，与 inventories 唯一索引 (sku_id, warehouse_id) 的顺序一致
+     */
+    public static final Comparator<ReservationLine> LOCK_ORDER =
+        Comparator.comparing(ReservationLine::getSkuId).thenComparing(ReservationLine::getWarehouseId);
+    
+    private final String skuId;
+    private final String warehouseId;
+    private final int quantity;
+    
+    public ReservationLine(String skuId, String warehouseId, int quantity) {
+        if (skuId == null || skuId.trim().isEmpty()) {
+            throw new IllegalArgumentException("SKU ID不能为空");
+        }
+        if (warehouseId == null || warehouseId.trim().isEmpty()) {
+            throw new IllegalArgumentException("仓库ID不能为空");
+        }
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("预留数量必须大于0");
+        }
+        this.skuId = skuId;
+        this.warehouseId = warehouseId;
+        this.quantity = quantity;
+    }
+    
+    /**
+     * 库存定位键（SKU + 仓库）
+     */
+    public String inventoryKey() {
+        return inventoryKey(skuId, warehouseId);
+    }
+    
+    /**
+     * 合并同一库存的数量
+     */
+    public ReservationLine merge(ReservationLine other) {
+        if (!inventoryKey().equals(other.inventoryKey())) {
+            throw new IllegalArgumentException("只能合并同一库存的预留明细");
+        }
+        return new ReservationLine(skuId, warehouseId, quantity + other.quantity);
+    }
+    
+    public static String inventoryKey(String skuId, String warehouseId) {
+        return skuId + "@" + warehouseId;
+    }
+}
@@ -0,0 +1,19 @@
+package com.restaurant.management.inventory.domain.model;
+
+import lombok.Getter;
+
+/**
+ * 一笔待执行的单库存预留请求（合并预留批次中的一笔）
+ */
+@Getter
+public class ReservationRequest {
+    
+    private final int quantity;
+    
+    private final String orderId;
+    
+    public ReservationRequest(int quantity, String orderId) {
+        this.quantity = quantity;
+        this.orderId = orderId;
+    }
+}
@@ -2,6 +2,7 @@ package com.restaurant.management.inventory.domain.model;
 
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.Version;
 import com.restaurant.management.common.domain.AggregateRoot;
 import com.restaurant.management.common.domain.BaseEntity;
 import com.restaurant.management.common.domain.DomainEvent;
@@ -10,13 +11,16 @@ import com.restaurant.management.inventory.domain.event.StockDocumentApprovedEve
 import com.restaurant.management.inventory.domain.event.StockDocumentExecutedEvent;
 import com.restaurant.management.inventory.domain.event.StockDocumentCancelledEvent;
 import com.restaurant.management.inventory.domain.event.StockDocumentRejectedEvent;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -40,6 +44,24 @@ public class StockDocument extends BaseEntity implements AggregateRoot {
     @TableField(exist = false)
     private List<StockDocumentItem> items = new ArrayList<>();
     
+    /**
+     * 最近一次加载或保存时已持久化的明细主键（仅存在于内存，由仓储维护）
+     * 为 null 表示未跟踪，保存时整体替换明细
+     */
+    @TableField(exist = false)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private Set<Long> persistedItemIds;
+    
+    /**
+     * 是否只加载了主表（明细未加载，仅存在于内存）
+     * 仅含主表的单据可以审核、拒绝、取消，但不能修改明细、提交或执行，保存时也不会改动明细
+     */
+    @TableField(exist = false)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private boolean headerOnly;
+    
     /**
      * 单据ID（业务主键）
      */
@@ -99,6 +121,12 @@ public class StockDocument extends BaseEntity implements AggregateRoot {
     @TableField("execute_time")
     private LocalDateTime executeTime;
     
+    /**
+     * 乐观锁版本号
+     */
+    @Version
+    private Integer version = 0;
+    
     /**
      * 创建库存单据
      */
@@ -121,7 +149,7 @@ public class StockDocument extends BaseEntity implements AggregateRoot {
         document.calculateTotalAmount();
         
         // 发布单据创建事件
-        document.addDomainEvent(new StockDocumentCreatedEvent(document.documentId, document.type));
+        document.addDomainEvent(new StockDocumentCreatedEvent(document.documentId, document.type, document.status));
         
         return document;
     }
@@ -133,6 +161,7 @@ public class StockDocument extends BaseEntity implements AggregateRoot {
         if (status != DocumentStatus.DRAFT) {
             throw new IllegalStateException("只有草稿状态的单据才能提交审核");
         }
+        requireItemsLoaded();
         
         // 验证单据完整性
         validateDocumentCompleteness();
@@ -141,7 +170,7 @@ public class StockDocument extends BaseEntity implements AggregateRoot {
         this.status = DocumentStatus.PENDING;
         
         // 发布提交审核事件
-        addDomainEvent(new StockDocumentCreatedEvent(this.documentId, this.type));
+        addDomainEvent(new StockDocumentCreatedEvent(this.documentId, this.type, this.status));
     }
     
     /**
@@ -183,6 +212,7 @@ public class StockDocument extends BaseEntity implements AggregateRoot {
         if (status != DocumentStatus.APPROVED) {
             throw new IllegalStateException("只有已审核状态的单据才能执行");
         }
+        requireItemsLoaded();
         
         // 更新状态
         this.status = DocumentStatus.EXECUTED;
@@ -200,11 +230,12 @@ public class StockDocument extends BaseEntity implements AggregateRoot {
             throw new IllegalStateException("已执行的单据不能取消");
         }
         
+        DocumentStatus previousStatus = this.status;
         this.status = DocumentStatus.CANCELLED;
         this.remark = cancelReason;
         
         // 发布单据取消事件
-        addDomainEvent(new StockDocumentCancelledEvent(this.documentId, this.type, cancelReason));
+        addDomainEvent(new StockDocumentCancelledEvent(this.documentId, this.type, cancelReason, previousStatus));
     }
     
     /**
@@ -218,6 +249,7 @@ public class StockDocument extends BaseEntity implements AggregateRoot {
         if (status != DocumentStatus.DRAFT) {
             throw new IllegalStateException("只有草稿状态的单据才能修改明细");
         }
+        requireItemsLoaded();
         
         item.setDocumentId(this.documentId);
         this.items.add(item);
@@ -231,18 +263,30 @@ public class StockDocument extends BaseEntity implements AggregateRoot {
         if (status != DocumentStatus.DRAFT) {
             throw new IllegalStateException("只有草稿状态的单据才能修改明细");
         }
+        requireItemsLoaded();
         
         this.items.removeIf(item -> item.getSkuId().equals(skuId));
         calculateTotalAmount();
     }
     
     /**
-     * 计算总金额
+     * 计算总金额（定点累加，只在最后构造一次 BigDecimal）
      */
     private void calculateTotalAmount() {
-        this.totalAmount = items.stream()
-            .map(item -> item.getUnitPrice().multiply(BigDecimal.valueOf(item.getQuantity())))
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+        FixedPointCost.Sum total = new FixedPointCost.Sum();
+        for (StockDocumentItem item : items) {
+            total.add(item.getUnitPrice(), item.getQuantity());
+        }
+        this.totalAmount = total.toBigDecimal();
+    }
+    
+    /**
+     * 只加载了主表的单据不能执行依赖明细的操作
+     */
+    private void requireItemsLoaded() {
+        if (headerOnly) {
+            throw new IllegalStateException("单据明细未加载: " + documentId);
+        }
     }
     
     /**
@@ -297,6 +341,55 @@ public class StockDocument extends BaseEntity implements AggregateRoot {
         }
     }
     
+    /**
+     * 记录当前明细为已持久化（仓储加载或保存后调用），之后保存时只写入有变化的明细
+     */
+    public void markItemsPersisted() {
+        Set<Long> ids = new HashSet<>();
+        for (StockDocumentItem item : items) {
+            item.markPersisted();
+            if (item.getId() != null) {
+                ids.add(item.getId());
+            }
+        }
+        this.persistedItemIds = ids;
+    }
+    
+    /**
+     * 标记为只加载了主表（仓储按主表投影查询后调用）
+     */
+    public void markHeaderOnly() {
+        this.headerOnly = true;
+        this.items = new ArrayList<>();
+        this.persistedItemIds = null;
+    }
+    
+    /**
+     * 是否只加载了主表
+     */
+    public boolean isHeaderOnly() {
+        return headerOnly;
+    }
+    
+    /**
+     * 明细是否已按最近一次加载或保存的状态跟踪
+     */
+    public boolean itemsTracked() {
+        return persistedItemIds != null;
+    }
+    
+    /**
+     * 自最近一次加载或保存以来被移除的明细主键
+     */
+    public List<Long> removedItemIds() {
+        if (persistedItemIds == null) {
+            return List.of();
+        }
+        Set<Long> removed = new HashSet<>(persistedItemIds);
+        items.forEach(item -> removed.remove(item.getId()));
+        return new ArrayList<>(removed);
+    }
+    
     @Override
     public List<DomainEvent> getDomainEvents() {
         return domainEvents;
@@ -0,0 +1,68 @@
+package com.restaurant.management.inventory.domain.model;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * 单据计数快照
+ * 按（状态, 类型）分组的单据数，按状态、按类型与总数都由同一份分组结果汇总得出
+ */
+public final class StockDocumentCounts {
+    
+    private final long[][] counts;
+    
+    private StockDocumentCounts(long[][] counts) {
+        this.counts = counts;
+    }
+    
+    public static StockDocumentCounts empty() {
+        return new StockDocumentCounts(new long[DocumentStatus.values().length][DocumentType.values().length]);
+    }
+    
+    /**
+     * 由计数矩阵构建，counts[status.ordinal()][type.ordinal()]，传入的数组会被复制
+     */
+    public static StockDocumentCounts of(long[][] counts) {
+        long[][] copy = new long[DocumentStatus.values().length][];
+        for (int i = 0; i < copy.length; i++) {
+            copy[i] = counts[i].clone();
+        }
+        return new StockDocumentCounts(copy);
+    }
+    
+    public long count(DocumentStatus status, DocumentType type) {
+        return counts[status.ordinal()][type.ordinal()];
+    }
+    
+    public long count(DocumentStatus status) {
+        long total = 0;
+        for (long count : counts[status.ordinal()]) {
+            total += count;
+        }
+        return total;
+    }
+    
+    public long count(DocumentType type) {
+        long total = 0;
+        for (long[] byType : counts) {
+            total += byType[type.ordinal()];
+        }
+        return total;
+    }
+    
+    public long total() {
+        long total = 0;
+        for (DocumentStatus status : DocumentStatus.values()) {
+            total += count(status);
+        }
+        return total;
+    }
+    
+    public Map<DocumentType, Long> countsByType() {
+        Map<DocumentType, Long> byType = new EnumMap<>(DocumentType.class);
+        for (DocumentType type : DocumentType.values()) {
+            byType.put(type, count(type));
+        }
+        return byType;
+    }
+}
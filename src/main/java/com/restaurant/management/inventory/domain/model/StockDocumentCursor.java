@@ -0,0 +1,64 @@
+package com.restaurant.management.inventory.domain.model;
+
+import com.restaurant.management.common.domain.ValueObject;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.Base64;
+
+/**
+ * 单据分页游标值对象（create_time + id）
+ * 单据按 (create_time DESC, id DESC) 排序，游标为上一页最后一张单据的位置，下一页从其之后开始
+ * 对外以不透明的分页令牌（URL 安全的 Base64）传递
+ */
+@Getter
+@EqualsAndHashCode
+public final class StockDocumentCursor implements ValueObject {
+    
+    private static final String SEPARATOR = "|";
+    
+    private final LocalDateTime createTime;
+    private final Long id;
+    
+    public StockDocumentCursor(LocalDateTime createTime, Long id) {
+        if (createTime == null || id == null) {
+            throw new IllegalArgumentException("游标的创建时间和ID不能为空");
+        }
+        this.createTime = createTime;
+        this.id = id;
+    }
+    
+    public static StockDocumentCursor of(StockDocument document) {
+        return new StockDocumentCursor(document.getCreateTime(), document.getId());
+    }
+    
+    /**
+     * 编码为分页令牌
+     */
+    public String encode() {
+        String raw = createTime + SEPARATOR + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * 解析分页令牌
+     */
+    public static StockDocumentCursor decode(String pageToken) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(pageToken), StandardCharsets.UTF_8);
+            int separator = raw.lastIndexOf(SEPARATOR);
+            return new StockDocumentCursor(LocalDateTime.parse(raw.substring(0, separator)),
+                Long.valueOf(raw.substring(separator + 1)));
+        } catch (IllegalArgumentException | DateTimeParseException | IndexOutOfBoundsException e) {
+            throw new IllegalArgumentException("无效的分页令牌: " + pageToken, e);
+        }
+    }
+    
+    @Override
+    public String toString() {
+        return createTime + SEPARATOR + id;
+    }
+}
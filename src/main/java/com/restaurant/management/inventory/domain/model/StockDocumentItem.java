@@ -3,10 +3,13 @@ package com.restaurant.management.inventory.domain.model;
 import com.baomidou.mybatisplus.annotation.TableField;
 import com.baomidou.mybatisplus.annotation.TableName;
 import com.restaurant.management.common.domain.BaseEntity;
+import lombok.AccessLevel;
 import lombok.Getter;
 import lombok.Setter;
 
 import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
 
 /**
  * 库存单据明细实体
@@ -51,6 +54,14 @@ public class StockDocumentItem extends BaseEntity {
      */
     private String remark;
     
+    /**
+     * 最近一次加载或保存时的持久化状态（仅存在于内存，由仓储维护），为 null 表示尚未持久化
+     */
+    @TableField(exist = false)
+    @Getter(AccessLevel.NONE)
+    @Setter(AccessLevel.NONE)
+    private List<Object> persistedState;
+    
     /**
      * 创建单据明细
      */
@@ -115,6 +126,24 @@ public class StockDocumentItem extends BaseEntity {
         this.subtotalAmount = newUnitPrice.multiply(BigDecimal.valueOf(newQuantity));
     }
     
+    /**
+     * 记录当前状态为已持久化（仓储加载或保存后调用）
+     */
+    public void markPersisted() {
+        this.persistedState = state();
+    }
+    
+    /**
+     * 自最近一次加载或保存以来是否有字段变化
+     */
+    public boolean changedSincePersisted() {
+        return persistedState == null || !persistedState.equals(state());
+    }
+    
+    private List<Object> state() {
+        return Arrays.asList(documentId, skuId, quantity, unitPrice, subtotalAmount, remark);
+    }
+    
     /**
      * 获取小计金额
      */
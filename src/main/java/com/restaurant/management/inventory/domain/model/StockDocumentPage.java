@@ -0,0 +1,25 @@
+package com.restaurant.management.inventory.domain.model;
+
+import lombok.Getter;
+
+import java.util.List;
+
+/**
+ * 单据游标分页结果
+ * nextPageToken 为 null 表示已是最后一页
+ */
+@Getter
+public final class StockDocumentPage {
+    
+    private final List<StockDocument> documents;
+    private final String nextPageToken;
+    
+    public StockDocumentPage(List<StockDocument> documents, String nextPageToken) {
+        this.documents = documents;
+        this.nextPageToken = nextPageToken;
+    }
+    
+    public boolean hasNext() {
+        return nextPageToken != null;
+    }
+}
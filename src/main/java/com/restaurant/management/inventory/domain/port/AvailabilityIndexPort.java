@@ -0,0 +1,22 @@
+package com.restaurant.management.inventory.domain.port;
+
+import com.restaurant.management.inventory.domain.model.Inventory;
+
+import java.util.List;
+
+/**
+ * 仓库可用量索引
+ * 由基础设施层实现
+ */
+public interface AvailabilityIndexPort {
+    
+    /**
+     * 用 SKU 在各仓库的最新库存整体替换索引中的条目
+     */
+    void replaceSku(String skuId, List<Inventory> inventories);
+    
+    /**
+     * SKU 在可用仓库中的可用量合计
+     */
+    int totalAvailableOf(String skuId);
+}
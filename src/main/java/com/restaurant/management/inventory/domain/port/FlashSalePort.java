@@ -0,0 +1,59 @@
+package com.restaurant.management.inventory.domain.port;
+
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+
+import java.util.List;
+
+/**
+ * 秒杀库存预扣：秒杀 SKU 在独立存储中原子扣减，经发件箱异步回写数据库
+ * 由基础设施层实现
+ */
+public interface FlashSalePort {
+    
+    /**
+     * SKU 是否走秒杀预扣
+     */
+    boolean handles(String skuId);
+    
+    /**
+     * 预扣秒杀库存
+     * @return 是否本次预扣；同一订单重复预扣返回 false
+     */
+    boolean reserve(String skuId, String warehouseId, int quantity, String orderId);
+    
+    /**
+     * 逐行预扣秒杀库存（全部成功或全部失败）
+     * @return 本次实际预扣的明细（不含重复预扣的明细）
+     */
+    List<ReservationLine> reserveAll(List<ReservationLine> lines, String orderId);
+    
+    /**
+     * 归还订单预扣的秒杀库存
+     */
+    void release(String skuId, String warehouseId, int quantity, String orderId);
+    
+    /**
+     * 订单预扣尚未回写数据库时只在存储端归还，之后到达的回写跳过
+     * @return 是否已归还；false 表示已回写（或无预扣记录），由调用方先释放数据库预留库存再调用 release
+     */
+    boolean releaseBeforeWriteBack(String skuId, String warehouseId, int quantity, String orderId);
+    
+    /**
+     * 回写数据库预留库存前调用，需在回写事务中调用
+     * @return 是否需要回写；订单已在回写前释放时返回 false
+     */
+    boolean beginWriteBack(String skuId, String warehouseId, int quantity, String orderId);
+    
+    /**
+     * 直接修改库存行前登记，提交后同步可用库存的变化量与冻结状态
+     */
+    void syncOnCommit(List<Inventory> inventories);
+    
+    /**
+     * 批量变更状态时登记，提交后同步冻结状态
+     */
+    void syncStatusOnCommit(List<InventoryKey> keys, InventoryStatus status);
+}
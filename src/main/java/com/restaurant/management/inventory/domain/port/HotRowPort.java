@@ -0,0 +1,12 @@
+package com.restaurant.management.inventory.domain.port;
+
+/**
+ * 热点行探测：收集行锁争用与写入耗时
+ * 由基础设施层实现
+ */
+public interface HotRowPort {
+    
+    void recordContention(String skuId, String warehouseId);
+    
+    void recordLatency(String skuId, String warehouseId, long elapsedMs);
+}
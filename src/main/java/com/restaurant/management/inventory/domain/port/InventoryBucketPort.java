@@ -0,0 +1,37 @@
+package com.restaurant.management.inventory.domain.port;
+
+import com.restaurant.management.inventory.domain.model.Inventory;
+
+/**
+ * 热点库存分桶：已拆分的库存按桶预留/释放/确认
+ * 由基础设施层实现
+ */
+public interface InventoryBucketPort {
+    
+    /**
+     * 库存是否已拆分为分桶（可能读取缓存）
+     */
+    boolean isSplit(String skuId, String warehouseId);
+    
+    /**
+     * 绕过缓存重新判断库存是否已拆分
+     */
+    boolean refreshSplit(String skuId, String warehouseId);
+    
+    void reserve(String skuId, String warehouseId, int quantity, String orderId);
+    
+    void release(String skuId, String warehouseId, int quantity, String orderId);
+    
+    void confirm(String skuId, String warehouseId, int quantity, String orderId);
+    
+    /**
+     * 把分桶中的数量叠加到主行上
+     */
+    Inventory overlay(Inventory inventory);
+    
+    /**
+     * 把分桶合并回主行
+     * @return 是否发生合并
+     */
+    boolean merge(String skuId, String warehouseId);
+}
@@ -0,0 +1,53 @@
+package com.restaurant.management.inventory.domain.port;
+
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+/**
+ * 内存库存账本：接管指定仓库库存的预留/释放/确认，在内存中记账并定期回写
+ * 由基础设施层实现
+ */
+public interface InventoryLedgerPort {
+    
+    /**
+     * 仓库的库存是否由账本接管
+     */
+    boolean handles(String warehouseId);
+    
+    /**
+     * 在账本中对单个库存执行变更
+     * @return 变更后的库存
+     */
+    Inventory apply(String skuId, String warehouseId, Consumer<Inventory> operation);
+    
+    /**
+     * 在账本中对一批库存执行变更（全部成功或全部失败）
+     */
+    List<Inventory> applyAll(List<ReservationLine> lines, BiConsumer<Inventory, ReservationLine> operation);
+    
+    /**
+     * 用账本中的最新数量覆盖从数据库读取的库存，库存尚未加载到账本时原样返回
+     */
+    Inventory overlay(Inventory inventory);
+    
+    /**
+     * 移出并立即回写单个库存
+     */
+    void evict(String skuId, String warehouseId);
+    
+    /**
+     * 移出并立即回写一批库存，须在调用方事务锁定这些行之前调用
+     */
+    void evictAll(Collection<InventoryKey> keys);
+    
+    /**
+     * 移出并立即回写一批 SKU 在所有仓库的库存，须在调用方事务锁定这些行之前调用
+     */
+    void evictSkus(Collection<String> skuIds);
+}
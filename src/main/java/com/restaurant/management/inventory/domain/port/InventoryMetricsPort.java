@@ -0,0 +1,27 @@
+package com.restaurant.management.inventory.domain.port;
+
+/**
+ * 库存领域指标
+ * 由基础设施层实现
+ */
+public interface InventoryMetricsPort {
+    
+    String OUTCOME_SUCCESS = "success";
+    String OUTCOME_NOT_FOUND = "not_found";
+    String OUTCOME_FROZEN = "frozen";
+    String OUTCOME_INSUFFICIENT = "insufficient";
+    String OUTCOME_CONTENTION = "contention";
+    String OUTCOME_FAILURE = "failure";
+    String OUTCOME_DUPLICATE = "duplicate";
+    String OUTCOME_SPLIT = "split";
+    
+    /**
+     * 记录一次预留/释放/确认的写入结果
+     */
+    void recordAtomicUpdate(String operation, String outcome);
+    
+    /**
+     * 记录单据执行时库存变更事件的合并情况
+     */
+    void recordEventCoalescing(int collected, int published);
+}
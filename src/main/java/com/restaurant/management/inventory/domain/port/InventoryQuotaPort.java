@@ -0,0 +1,27 @@
+package com.restaurant.management.inventory.domain.port;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+
+/**
+ * 配额租约：租约 SKU 在本节点租到的配额内预留，不占用库存行锁
+ * 由基础设施层实现
+ */
+public interface InventoryQuotaPort {
+    
+    /**
+     * SKU 是否按配额租约预留
+     */
+    boolean handles(String skuId);
+    
+    /**
+     * 租约 SKU 的预留仓库
+     */
+    String warehouseId();
+    
+    void reserve(String skuId, String warehouseId, int quantity);
+    
+    /**
+     * 归还本节点在该库存上的全部配额并丢弃本地计数（删除库存前、库存冻结后）
+     */
+    void evict(InventoryKey key);
+}
@@ -0,0 +1,28 @@
+package com.restaurant.management.inventory.domain.port;
+
+/**
+ * 库存领域用到的配置项
+ * 由基础设施层的配置属性实现
+ */
+public interface InventorySettings {
+    
+    /**
+     * 预留是否使用条件 UPDATE 原子扣减（否则读取-修改-保存）
+     */
+    boolean isAtomicReservation();
+    
+    /**
+     * 读取-修改-保存预留在乐观锁冲突时的最大尝试次数
+     */
+    int getReservationMaxAttempts();
+    
+    /**
+     * 单据执行是否合并库存变更事件
+     */
+    boolean isEventCoalescingEnabled();
+    
+    /**
+     * 每个合并事件包含的库存数上限
+     */
+    int getMaxChangesPerEvent();
+}
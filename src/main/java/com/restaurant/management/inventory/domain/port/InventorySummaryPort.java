@@ -0,0 +1,18 @@
+package com.restaurant.management.inventory.domain.port;
+
+import com.restaurant.management.inventory.domain.model.InventorySummaryTotals;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * SKU 库存汇总查询
+ * 由基础设施层实现
+ */
+public interface InventorySummaryPort {
+    
+    /**
+     * 按 SKU 批量查询汇总，没有库存的 SKU 不在结果中
+     */
+    Map<String, InventorySummaryTotals> findBySkuIds(Collection<String> skuIds);
+}
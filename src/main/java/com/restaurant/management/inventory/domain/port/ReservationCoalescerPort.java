@@ -0,0 +1,27 @@
+package com.restaurant.management.inventory.domain.port;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.ReservationRequest;
+
+import java.util.List;
+import java.util.function.BiFunction;
+
+/**
+ * 同一库存预留的组提交
+ * 由基础设施层实现
+ */
+public interface ReservationCoalescerPort {
+    
+    boolean isEnabled();
+    
+    /**
+     * 提交一笔预留并等待所在批次提交
+     *
+     * @param executor     在新事务中执行一个批次，按到达顺序返回每笔请求的拒绝原因（null 表示成功）
+     * @param compensation 调用方事务回滚时撤销本笔预留
+     * @throws RuntimeException 本笔请求的拒绝原因，或整批执行失败的异常
+     */
+    void reserve(InventoryKey key, int quantity, String orderId,
+                 BiFunction<InventoryKey, List<ReservationRequest>, List<RuntimeException>> executor,
+                 Runnable compensation);
+}
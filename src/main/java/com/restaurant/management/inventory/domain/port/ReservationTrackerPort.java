@@ -0,0 +1,18 @@
+package com.restaurant.management.inventory.domain.port;
+
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+
+import java.util.List;
+
+/**
+ * 预留记录：记录订单预留以便过期自动释放
+ * 由基础设施层实现
+ */
+public interface ReservationTrackerPort {
+    
+    void recordReserved(String orderId, List<ReservationLine> lines);
+    
+    void recordReleased(String orderId, String skuId, String warehouseId, int quantity);
+    
+    void recordConfirmed(String orderId, String skuId, String warehouseId, int quantity);
+}
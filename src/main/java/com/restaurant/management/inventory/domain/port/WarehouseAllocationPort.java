@@ -0,0 +1,14 @@
+package com.restaurant.management.inventory.domain.port;
+
+import com.restaurant.management.inventory.domain.model.AllocationPlan;
+
+import java.util.Map;
+
+/**
+ * 分仓：为一批 SKU 选择预留仓库
+ * 由基础设施层实现
+ */
+public interface WarehouseAllocationPort {
+    
+    AllocationPlan allocate(Map<String, Integer> quantityBySku);
+}
@@ -0,0 +1,31 @@
+package com.restaurant.management.inventory.domain.repository;
+
+import com.restaurant.management.inventory.domain.model.InventoryJournalEntry;
+import com.restaurant.management.inventory.domain.model.InventoryPointInTime;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 库存流水仓储接口
+ */
+public interface InventoryJournalRepository {
+    
+    /**
+     * 追加流水，须与库存行的更新在同一事务中调用
+     */
+    void appendAll(List<InventoryJournalEntry> entries);
+    
+    /**
+     * 查询某一时刻的库存数量：不晚于该时刻的最近快照 + 快照之后到该时刻的流水
+     * @return 该时刻之前没有任何记录时为空
+     */
+    Optional<InventoryPointInTime> findAt(String skuId, String warehouseId, LocalDateTime at);
+    
+    /**
+     * 按时间区间查询流水 [from, to)，按序号升序
+     */
+    List<InventoryJournalEntry> findHistory(String skuId, String warehouseId,
+                                            LocalDateTime from, LocalDateTime to, int limit);
+}
@@ -1,8 +1,13 @@
 package com.restaurant.management.inventory.domain.repository;
 
 import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -16,11 +21,82 @@ public interface InventoryRepository {
      */
     Inventory save(Inventory inventory);
     
+    /**
+     * 批量保存库存（单据执行等批量操作）
+     * 新建的库存一条多行 INSERT，已有库存按版本号一条多行 UPDATE，流水一次追加
+     * 任一已有库存的版本号已变化时抛出 OptimisticLockingFailureException
+     */
+    void saveAll(Collection<Inventory> inventories);
+    
     /**
      * 根据SKU ID和仓库ID查找库存
      */
     Optional<Inventory> findBySkuIdAndWarehouseId(String skuId, String warehouseId);
     
+    /**
+     * 一个仓库中一批 SKU 的库存（一次查询）
+     */
+    List<Inventory> findBySkuIdsAndWarehouseId(Collection<String> skuIds, String warehouseId);
+    
+    /**
+     * 一批 (SKU, 仓库) 的库存（一次查询，可跨仓库），不存在的不返回
+     */
+    List<Inventory> findAllByKeys(Collection<InventoryKey> keys);
+    
+    /**
+     * 锁定一批 (SKU, 仓库) 的库存（SELECT ... FOR UPDATE，须在事务内调用），不存在的不返回
+     * 按 InventoryKey.LOCK_ORDER 加锁，行锁持有到事务结束
+     */
+    List<Inventory> findAllByKeysForUpdate(Collection<InventoryKey> keys);
+    
+    /**
+     * 原子预留库存（单条条件更新，可用库存充足且状态正常才生效）
+     * @return 是否预留成功
+     */
+    boolean reserveIfAvailable(String skuId, String warehouseId, int quantity);
+    
+    /**
+     * 原子释放预留库存（单条条件更新，预留库存充足才生效）
+     * @return 是否释放成功
+     */
+    boolean releaseReservedIfEnough(String skuId, String warehouseId, int quantity);
+    
+    /**
+     * 原子确认预留库存（单条条件更新，预留库存充足才生效）
+     * @return 是否确认成功
+     */
+    boolean confirmReservedIfEnough(String skuId, String warehouseId, int quantity);
+    
+    /**
+     * 一次查询并锁定多条库存（SELECT ... FOR UPDATE，按 SKU、仓库顺序加锁）
+     * 需在事务中调用
+     */
+    List<Inventory> findAllForUpdate(List<ReservationLine> lines);
+    
+    /**
+     * 单条语句批量预留
+     * @param quantityByInventoryId 库存主键 -> 预留数量，调用方须已锁定并校验
+     * @return 受影响行数
+     */
+    int batchReserve(Map<Long, Integer> quantityByInventoryId);
+    
+    /**
+     * 锁定一批 SKU 中状态不是目标状态的库存（SELECT ... FOR UPDATE），只填充主键、SKU 和仓库
+     * 需在事务中调用
+     */
+    List<Inventory> findAllForStatusChange(List<String> skuIds, InventoryStatus status);
+    
+    /**
+     * 单条语句批量更新库存状态
+     * @return 受影响行数
+     */
+    int batchUpdateStatus(List<Long> inventoryIds, InventoryStatus status);
+    
+    /**
+     * 查找 SPU 下有库存记录的 SKU ID
+     */
+    List<String> findSkuIdsBySpuId(String spuId);
+    
     /**
      * 根据SKU ID查找所有仓库的库存
      */
@@ -69,5 +145,5 @@ public interface InventoryRepository {
     /**
      * 根据状态查找库存
      */
-    List<Inventory> findByStatus(com.restaurant.management.inventory.domain.model.InventoryStatus status);
+    List<Inventory> findByStatus(InventoryStatus status);
 }
\ No newline at end of file
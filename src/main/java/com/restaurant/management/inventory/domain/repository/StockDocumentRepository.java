@@ -3,8 +3,11 @@ package com.restaurant.management.inventory.domain.repository;
 import com.restaurant.management.inventory.domain.model.DocumentStatus;
 import com.restaurant.management.inventory.domain.model.DocumentType;
 import com.restaurant.management.inventory.domain.model.StockDocument;
+import com.restaurant.management.inventory.domain.model.StockDocumentCounts;
+import com.restaurant.management.inventory.domain.model.StockDocumentPage;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -49,6 +52,16 @@ public interface StockDocumentRepository {
      */
     List<StockDocument> findByStatus(DocumentStatus status);
     
+    /**
+     * 查找指定状态的单据列表（只含主表，不加载明细）
+     */
+    List<StockDocument> findHeadersByStatus(DocumentStatus status);
+    
+    /**
+     * 根据单据ID批量查找单据（只含主表，不加载明细）
+     */
+    List<StockDocument> findHeadersByDocumentIds(Collection<String> documentIds);
+    
     /**
      * 查找指定类型的单据列表
      */
@@ -84,6 +97,11 @@ public interface StockDocumentRepository {
      */
     List<StockDocument> findPendingDocuments();
     
+    /**
+     * 查找待审核的单据列表（只含主表，不加载明细）
+     */
+    List<StockDocument> findPendingDocumentHeaders();
+    
     /**
      * 查找已审核但未执行的单据列表
      */
@@ -109,6 +127,12 @@ public interface StockDocumentRepository {
      */
     long countByCreateTimeBetween(LocalDateTime startTime, LocalDateTime endTime);
     
+    /**
+     * 一次分组查询统计创建时间在范围内的单据数，按（状态, 类型）分组
+     * 开始或结束时间为 null 时该端不设限
+     */
+    StockDocumentCounts countByStatusAndType(LocalDateTime startTime, LocalDateTime endTime);
+    
     /**
      * 检查单据编号是否存在
      */
@@ -120,14 +144,21 @@ public interface StockDocumentRepository {
     boolean existsByDocumentId(String documentId);
     
     /**
-     * 分页查询单据列表
+     * 分页查询单据列表（偏移量分页，深分页请使用 searchByConditions）
      */
     List<StockDocument> findWithPagination(int offset, int limit);
     
     /**
-     * 根据条件分页查询单据列表
+     * 根据条件分页查询单据列表（偏移量分页，深分页请使用 searchByConditions）
      */
     List<StockDocument> findByConditionsWithPagination(DocumentType type, DocumentStatus status, 
                                                        String warehouseId, LocalDateTime startTime, 
                                                        LocalDateTime endTime, int offset, int limit);
+    
+    /**
+     * 根据条件游标分页查询单据列表，按 (创建时间, ID) 倒序
+     * pageToken 为空时查询第一页，否则从令牌指向的单据之后开始；翻页深度不影响查询代价
+     */
+    StockDocumentPage searchByConditions(DocumentType type, DocumentStatus status, String warehouseId,
+                                         String pageToken, int limit);
 }
\ No newline at end of file
@@ -0,0 +1,70 @@
+package com.restaurant.management.inventory.domain.service;
+
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 一张单据涉及的库存（一次查询加载）
+ * 执行前校验与执行共用同一份加载结果；执行时在内存中变更，结束后只批量写回发生变更的库存
+ * 非线程安全，每次执行尝试重新加载
+ */
+public final class DocumentInventories {
+    
+    private final Map<InventoryKey, Inventory> inventories = new HashMap<>();
+    private final Set<InventoryKey> changed = new LinkedHashSet<>();
+    
+    DocumentInventories(List<Inventory> loaded) {
+        loaded.forEach(inventory -> inventories.put(InventoryKey.of(inventory), inventory));
+    }
+    
+    /**
+     * 已加载的库存
+     */
+    Optional<Inventory> find(String skuId, String warehouseId) {
+        return Optional.ofNullable(inventories.get(new InventoryKey(skuId, warehouseId)));
+    }
+    
+    /**
+     * 必须存在的库存
+     */
+    Inventory getRequired(String skuId, String warehouseId) {
+        return find(skuId, warehouseId)
+            .orElseThrow(() -> new IllegalStateException(String.format(
+                "库存记录不存在 - SKU: %s, 仓库: %s", skuId, warehouseId
+            )));
+    }
+    
+    /**
+     * 已加载的库存，不存在时在内存中新建（随批量写回一起插入）
+     */
+    Inventory getOrCreate(String skuId, String warehouseId) {
+        return inventories.computeIfAbsent(new InventoryKey(skuId, warehouseId), key -> {
+            changed.add(key);
+            return Inventory.create(skuId, warehouseId, 0);
+        });
+    }
+    
+    /**
+     * 标记库存已变更，需要写回
+     */
+    void markChanged(Inventory inventory) {
+        changed.add(InventoryKey.of(inventory));
+    }
+    
+    /**
+     * 需要写回的库存，按首次变更的顺序
+     */
+    List<Inventory> changed() {
+        List<Inventory> result = new ArrayList<>(changed.size());
+        changed.forEach(key -> result.add(inventories.get(key)));
+        return result;
+    }
+}
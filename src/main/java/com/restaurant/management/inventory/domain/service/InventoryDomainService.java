@@ -1,13 +1,51 @@
 package com.restaurant.management.inventory.domain.service;
 
+import com.restaurant.management.common.domain.DomainEventPublisher;
+import com.restaurant.management.inventory.domain.event.FlashSaleReservedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryChangedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryReleasedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryReservedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryStatusChangedEvent;
+import com.restaurant.management.inventory.domain.model.AllocationPlan;
 import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryJournalEntry;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.InventoryPointInTime;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.model.InventorySummaryTotals;
+import com.restaurant.management.inventory.domain.model.JournalChangeType;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+import com.restaurant.management.inventory.domain.model.ReservationRequest;
+import com.restaurant.management.inventory.domain.port.AvailabilityIndexPort;
+import com.restaurant.management.inventory.domain.port.FlashSalePort;
+import com.restaurant.management.inventory.domain.port.HotRowPort;
+import com.restaurant.management.inventory.domain.port.InventoryBucketPort;
+import com.restaurant.management.inventory.domain.port.InventoryLedgerPort;
+import com.restaurant.management.inventory.domain.port.InventoryMetricsPort;
+import com.restaurant.management.inventory.domain.port.InventoryQuotaPort;
+import com.restaurant.management.inventory.domain.port.InventorySettings;
+import com.restaurant.management.inventory.domain.port.InventorySummaryPort;
+import com.restaurant.management.inventory.domain.port.ReservationCoalescerPort;
+import com.restaurant.management.inventory.domain.port.ReservationTrackerPort;
+import com.restaurant.management.inventory.domain.port.WarehouseAllocationPort;
+import com.restaurant.management.inventory.domain.repository.InventoryJournalRepository;
 import com.restaurant.management.inventory.domain.repository.InventoryRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
 /**
  * 库存领域服务
@@ -18,7 +56,25 @@ import java.util.Optional;
 @Slf4j
 public class InventoryDomainService {
     
+    private static final String OPERATION_RESERVE = "reserve";
+    private static final String OPERATION_RELEASE = "release";
+    private static final String OPERATION_CONFIRM = "confirm";
+    
     private final InventoryRepository inventoryRepository;
+    private final DomainEventPublisher domainEventPublisher;
+    private final InventorySettings inventorySettings;
+    private final InventoryMetricsPort inventoryMetrics;
+    private final InventoryLedgerPort inventoryLedger;
+    private final FlashSalePort flashSaleInventory;
+    private final InventoryBucketPort inventoryBucketRouter;
+    private final HotRowPort hotRowDetector;
+    private final ReservationTrackerPort reservationTracker;
+    private final InventoryJournalRepository journalRepository;
+    private final WarehouseAllocationPort warehouseAllocator;
+    private final AvailabilityIndexPort availabilityIndex;
+    private final InventorySummaryPort summaryStore;
+    private final ReservationCoalescerPort reservationCoalescer;
+    private final InventoryQuotaPort quotaManager;
     
     /**
      * 创建库存
@@ -43,6 +99,8 @@ public class InventoryDomainService {
      */
     public Inventory updateInventory(Inventory inventory) {
         validateInventory(inventory);
+        evictFromLedger(inventory.getSkuId(), inventory.getWarehouseId());
+        mergeBuckets(inventory.getSkuId(), inventory.getWarehouseId());
         return inventoryRepository.save(inventory);
     }
     
@@ -57,7 +115,75 @@ public class InventoryDomainService {
      * 根据SKU ID和仓库ID获取库存
      */
     public Optional<Inventory> getInventory(String skuId, String warehouseId) {
-        return inventoryRepository.findBySkuIdAndWarehouseId(skuId, warehouseId);
+        return inventoryRepository.findBySkuIdAndWarehouseId(skuId, warehouseId).map(this::overlay);
+    }
+    
+    /**
+     * 叠加内存账本或热点分桶中的数量
+     */
+    private Inventory overlay(Inventory inventory) {
+        if (inventoryLedger.handles(inventory.getWarehouseId())) {
+            return inventoryLedger.overlay(inventory);
+        }
+        if (inventoryBucketRouter.isSplit(inventory.getSkuId(), inventory.getWarehouseId())) {
+            return inventoryBucketRouter.overlay(inventory);
+        }
+        return inventory;
+    }
+    
+    /**
+     * 获取一个仓库中一批 SKU 的库存（一次查询，含内存账本与分桶中的数量）
+     */
+    public List<Inventory> getInventories(Collection<String> skuIds, String warehouseId) {
+        return inventoryRepository.findBySkuIdsAndWarehouseId(skuIds, warehouseId).stream()
+            .map(this::overlay)
+            .collect(Collectors.toList());
+    }
+    
+    /**
+     * 一批 SKU 在全部启用仓库中可分配的数量合计（读分仓内存索引，不访问数据库）
+     */
+    public Map<String, Integer> getAllocatableQuantities(Collection<String> skuIds) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (String skuId : skuIds) {
+            quantities.put(skuId, availabilityIndex.totalAvailableOf(skuId));
+        }
+        return quantities;
+    }
+    
+    /**
+     * 为一组预留数量分仓
+     * 先只读内存索引；索引显示不足的 SKU（可能是索引陈旧）从数据库重新加载该 SKU 的全部仓库后再分一次
+     * 配额租约 SKU 不参与分仓，固定落在租约仓库，从本节点租借的配额中预留
+     * （租出的配额在库存行上计为预留，按索引分仓会显示不足）
+     *
+     * @param quantityBySku SKU -> 需要数量
+     */
+    public AllocationPlan allocate(Map<String, Integer> quantityBySku) {
+        Map<String, Integer> allocatable = new LinkedHashMap<>();
+        List<ReservationLine> quotaLines = new ArrayList<>();
+        quantityBySku.forEach((skuId, quantity) -> {
+            Optional<String> quotaWarehouseId = getQuotaWarehouse(skuId);
+            if (quotaWarehouseId.isPresent()) {
+                quotaLines.add(new ReservationLine(skuId, quotaWarehouseId.get(), quantity));
+            } else {
+                allocatable.put(skuId, quantity);
+            }
+        });
+        if (allocatable.isEmpty()) {
+            return new AllocationPlan(quotaLines, Map.of(), AllocationPlan.RESULT_SINGLE_WAREHOUSE);
+        }
+        
+        AllocationPlan plan = warehouseAllocator.allocate(allocatable);
+        if (!plan.isFulfilled()) {
+            for (String skuId : plan.getShortages().keySet()) {
+                availabilityIndex.replaceSku(skuId, inventoryRepository.findBySkuId(skuId).stream()
+                    .map(this::overlay)
+                    .collect(Collectors.toList()));
+            }
+            plan = warehouseAllocator.allocate(allocatable);
+        }
+        return plan.withFixedLines(quotaLines);
     }
     
     /**
@@ -74,6 +200,70 @@ public class InventoryDomainService {
         return inventoryRepository.findBySpuId(spuId);
     }
     
+    /**
+     * 根据SPU ID获取有库存记录的SKU ID
+     */
+    public List<String> findSkuIdsBySpuId(String spuId) {
+        return inventoryRepository.findSkuIdsBySpuId(spuId);
+    }
+    
+    /**
+     * 锁定一批库存，供不经过预留路径、直接改写库存行的操作使用（如库存单据执行）
+     * 由内存账本接管的库存先移出内存并回写，锁定后读到的就是最新数量（回写在独立事务中，须在本事务加锁之前完成）；
+     * 已拆分的热点库存在锁定主行之后把分桶合并回主行（与分桶路由先主行后分桶的加锁顺序一致），再重新读取；
+     * 秒杀 SKU 在提交后把可用库存的变化量与冻结状态同步到秒杀库存存储
+     * 一次查询按 InventoryKey.LOCK_ORDER 加锁；需在事务中调用，行锁持有到事务结束
+     */
+    public List<Inventory> lockForDirectWrite(Collection<InventoryKey> keys) {
+        inventoryLedger.evictAll(keys);
+        List<Inventory> locked = inventoryRepository.findAllByKeysForUpdate(keys);
+        boolean merged = false;
+        for (Inventory inventory : locked) {
+            if (inventoryBucketRouter.isSplit(inventory.getSkuId(), inventory.getWarehouseId())) {
+                merged |= inventoryBucketRouter.merge(inventory.getSkuId(), inventory.getWarehouseId());
+            }
+        }
+        List<Inventory> inventories = merged ? inventoryRepository.findAllByKeysForUpdate(keys) : locked;
+        flashSaleInventory.syncOnCommit(inventories);
+        return inventories;
+    }
+    
+    /**
+     * 批量变更一批 SKU 在所有仓库的库存状态
+     * 一次查询按主键顺序锁定状态需要变化的行，一条语句更新，发布一个汇总事件；
+     * 已是目标状态的行不更新也不进入事件，重复执行是幂等的
+     * 由内存账本接管的库存在加锁之前移出内存并回写（回写使用独立事务，加锁之后再回写会等待本事务持有的行锁），
+     * 之后从数据库重新加载新状态；秒杀 SKU 在提交后同步秒杀库存存储中的冻结标记
+     * 需在事务中调用
+     *
+     * @return 状态实际变化的库存行数
+     */
+    public int changeStatusInBulk(List<String> skuIds, InventoryStatus status, String reason) {
+        if (status == null) {
+            throw new IllegalArgumentException("库存状态不能为空");
+        }
+        inventoryLedger.evictSkus(skuIds);
+        List<Inventory> locked = inventoryRepository.findAllForStatusChange(skuIds, status);
+        if (locked.isEmpty()) {
+            return 0;
+        }
+        
+        List<Long> inventoryIds = new ArrayList<>(locked.size());
+        List<InventoryKey> inventoryKeys = new ArrayList<>(locked.size());
+        for (Inventory inventory : locked) {
+            inventoryIds.add(inventory.getId());
+            inventoryKeys.add(InventoryKey.of(inventory));
+        }
+        int updated = inventoryRepository.batchUpdateStatus(inventoryIds, status);
+        if (updated != inventoryIds.size()) {
+            throw new IllegalStateException(
+                String.format("批量状态变更写入行数不符，期望: %d, 实际: %d", inventoryIds.size(), updated));
+        }
+        flashSaleInventory.syncStatusOnCommit(inventoryKeys, status);
+        domainEventPublisher.publish(new InventoryStatusChangedEvent(inventoryKeys, status, reason));
+        return updated;
+    }
+    
     /**
      * 更新商品信息
      */
@@ -96,6 +286,10 @@ public class InventoryDomainService {
      * 删除库存
      */
     public void deleteInventory(String skuId, String warehouseId) {
+        if (quotaManager.handles(skuId)) {
+            // 本节点租借的配额计入预留，先归还，其它节点的租约归还/过期前不能删除
+            quotaManager.evict(new InventoryKey(skuId, warehouseId));
+        }
         Optional<Inventory> inventoryOpt = getInventory(skuId, warehouseId);
         
         if (inventoryOpt.isPresent()) {
@@ -105,7 +299,11 @@ public class InventoryDomainService {
             validateInventoryForDeletion(inventory);
             
             // 删除库存记录
+            evictFromLedger(skuId, warehouseId);
+            mergeBuckets(skuId, warehouseId);
             inventoryRepository.delete(inventory);
+            appendJournal(JournalChangeType.DELETE, skuId, warehouseId,
+                -inventory.getAvailableQuantity(), 0, 0, null);
             
             log.info("删除库存记录: skuId={}, warehouseId={}", skuId, warehouseId);
         } else {
@@ -115,29 +313,306 @@ public class InventoryDomainService {
     
     /**
      * 预留库存
+     * 秒杀 SKU 先在 Redis 中预扣，数据库预留由发件箱异步回写
+     * 配额租约 SKU 从本节点租借的配额中预留，只扣减本节点的租约行
+     * 启用组提交时与同一库存的并发预留合并为一个批次，在独立事务中提交
+     * 预留成功后记录过期时间，到期未确认/释放时自动释放
      */
     public void reserveInventory(String skuId, String warehouseId, Integer quantity, String orderId) {
-        Inventory inventory = getInventory(skuId, warehouseId)
-            .orElseThrow(() -> new IllegalArgumentException(
-                String.format("库存不存在: skuId=%s, warehouseId=%s", skuId, warehouseId)));
-        
-        inventory.reserve(quantity, orderId);
-        inventoryRepository.save(inventory);
+        if (flashSaleInventory.handles(skuId)) {
+            if (!flashSaleInventory.reserve(skuId, warehouseId, quantity, orderId)) {
+                return;
+            }
+            domainEventPublisher.publish(new FlashSaleReservedEvent(skuId, warehouseId, quantity, orderId));
+        } else if (quotaManager.handles(skuId)) {
+            requirePositive(quantity, "预留数量必须大于0");
+            quotaManager.reserve(skuId, warehouseId, quantity);
+            domainEventPublisher.publish(new InventoryReservedEvent(skuId, warehouseId, quantity, orderId));
+        } else if (isCoalesced(skuId, warehouseId)) {
+            requirePositive(quantity, "预留数量必须大于0");
+            reservationCoalescer.reserve(new InventoryKey(skuId, warehouseId), quantity, orderId,
+                this::applyCoalescedReservations,
+                () -> releaseReservedInventory(skuId, warehouseId, quantity, orderId));
+            log.info("合并预留库存: skuId={}, warehouseId={}, quantity={}, orderId={}",
+                skuId, warehouseId, quantity, orderId);
+            return;
+        } else {
+            reserveDirectly(skuId, warehouseId, quantity, orderId);
+        }
+        reservationTracker.recordReserved(orderId, List.of(new ReservationLine(skuId, warehouseId, quantity)));
         
         log.info("预留库存: skuId={}, warehouseId={}, quantity={}, orderId={}", 
             skuId, warehouseId, quantity, orderId);
     }
     
+    /**
+     * 租约 SKU 的预留仓库，非租约 SKU 返回空（按分仓结果预留）
+     */
+    public Optional<String> getQuotaWarehouse(String skuId) {
+        return quotaManager.handles(skuId) ? Optional.of(quotaManager.warehouseId()) : Optional.empty();
+    }
+    
+    /**
+     * 单 SKU 预留是否经过组提交（配额租约、内存账本和热点分桶已各自消除行锁争用，不再合并）
+     * 经过组提交的预留在独立事务中提交，调用方不应为其开启事务
+     */
+    public boolean isCoalesced(String skuId, String warehouseId) {
+        return reservationCoalescer.isEnabled()
+            && !flashSaleInventory.handles(skuId)
+            && !quotaManager.handles(skuId)
+            && !inventoryLedger.handles(warehouseId)
+            && !inventoryBucketRouter.isSplit(skuId, warehouseId);
+    }
+    
+    /**
+     * 执行一个合并预留批次（由组提交在新事务中调用）
+     * 加锁读取库存行后按到达顺序逐笔判断：可用量够本笔全部数量才预留，否则拒绝本笔（不部分满足），
+     * 后到的较小请求仍可成功；已接受的数量合计用一条 UPDATE 写入，流水、预留记录和事件逐笔记录
+     *
+     * @return 按到达顺序的拒绝原因，null 表示成功
+     */
+    public List<RuntimeException> applyCoalescedReservations(InventoryKey key, List<ReservationRequest> requests) {
+        List<Inventory> locked = inventoryRepository.findAllByKeysForUpdate(List.of(key));
+        if (locked.isEmpty()) {
+            throw new IllegalArgumentException(
+                String.format("库存不存在: skuId=%s, warehouseId=%s", key.getSkuId(), key.getWarehouseId()));
+        }
+        Inventory inventory = locked.get(0);
+        
+        int remaining = inventory.getAvailableQuantity();
+        List<RuntimeException> rejections = new ArrayList<>(requests.size());
+        List<ReservationRequest> accepted = new ArrayList<>(requests.size());
+        for (ReservationRequest request : requests) {
+            if (inventory.getStatus() == InventoryStatus.FROZEN) {
+                rejections.add(new IllegalStateException("库存已冻结，无法预留"));
+            } else if (request.getQuantity() > remaining) {
+                rejections.add(new IllegalStateException(
+                    String.format("可用库存不足，需要: %d, 可用: %d", request.getQuantity(), remaining)));
+            } else {
+                remaining -= request.getQuantity();
+                accepted.add(request);
+                rejections.add(null);
+            }
+        }
+        if (accepted.isEmpty()) {
+            return rejections;
+        }
+        
+        int total = inventory.getAvailableQuantity() - remaining;
+        if (inventoryRepository.batchReserve(Map.of(inventory.getId(), total)) != 1) {
+            throw new IllegalStateException(
+                String.format("合并预留写入失败: skuId=%s, warehouseId=%s", key.getSkuId(), key.getWarehouseId()));
+        }
+        journalRepository.appendAll(accepted.stream()
+            .map(request -> InventoryJournalEntry.of(key.getSkuId(), key.getWarehouseId(), JournalChangeType.RESERVE,
+                -request.getQuantity(), request.getQuantity(), 0, request.getOrderId(), null))
+            .collect(Collectors.toList()));
+        for (ReservationRequest request : accepted) {
+            reservationTracker.recordReserved(request.getOrderId(),
+                List.of(new ReservationLine(key.getSkuId(), key.getWarehouseId(), request.getQuantity())));
+            domainEventPublisher.publish(new InventoryReservedEvent(
+                key.getSkuId(), key.getWarehouseId(), request.getQuantity(), request.getOrderId()));
+        }
+        return rejections;
+    }
+    
+    /**
+     * 将秒杀预扣回写为数据库预留（由发件箱异步触发）
+     * 订单已在回写前释放时跳过（秒杀余量已归还，数据库不应再预留）
+     */
+    public void applyFlashSaleReservation(String skuId, String warehouseId, Integer quantity, String orderId) {
+        if (!flashSaleInventory.beginWriteBack(skuId, warehouseId, quantity, orderId)) {
+            return;
+        }
+        reserveDirectly(skuId, warehouseId, quantity, orderId);
+        
+        log.info("秒杀预扣回写: skuId={}, warehouseId={}, quantity={}, orderId={}", 
+            skuId, warehouseId, quantity, orderId);
+    }
+    
+    /**
+     * 直接预留库存（内存账本、热点分桶、条件 UPDATE 或读取-修改-保存）
+     */
+    private void reserveDirectly(String skuId, String warehouseId, Integer quantity, String orderId) {
+        if (inventoryLedger.handles(warehouseId)) {
+            publishEvents(inventoryLedger.apply(skuId, warehouseId, inventory -> inventory.reserve(quantity, orderId)));
+        } else if (inventoryBucketRouter.isSplit(skuId, warehouseId)) {
+            requirePositive(quantity, "预留数量必须大于0");
+            inventoryBucketRouter.reserve(skuId, warehouseId, quantity, orderId);
+            appendJournal(JournalChangeType.RESERVE, skuId, warehouseId, -quantity, quantity, 0, orderId);
+            domainEventPublisher.publish(new InventoryReservedEvent(skuId, warehouseId, quantity, orderId));
+        } else if (inventorySettings.isAtomicReservation()) {
+            requirePositive(quantity, "预留数量必须大于0");
+            if (!applyAtomically(OPERATION_RESERVE, skuId, warehouseId,
+                    () -> inventoryRepository.reserveIfAvailable(skuId, warehouseId, quantity),
+                    inventory -> diagnoseReserveRejection(inventory, quantity))) {
+                inventoryBucketRouter.reserve(skuId, warehouseId, quantity, orderId);
+            }
+            appendJournal(JournalChangeType.RESERVE, skuId, warehouseId, -quantity, quantity, 0, orderId);
+            domainEventPublisher.publish(new InventoryReservedEvent(skuId, warehouseId, quantity, orderId));
+        } else {
+            Inventory inventory = getRequiredInventory(skuId, warehouseId);
+            inventory.reserve(quantity, orderId);
+            saveAndPublish(inventory);
+        }
+    }
+    
+    /**
+     * 批量预留库存（全部成功或全部失败）
+     * 1. 合并同一库存的明细，并按 SKU、仓库排序
+     * 2. 一次 IN 查询按固定顺序锁定全部库存行
+     * 3. 在内存中逐行校验并预留，任一行失败即抛出，不产生任何写入
+     * 4. 单条语句写回全部增量
+     * 秒杀 SKU 最先在 Redis 中预扣，不在返回结果中；失败时由事务回滚归还
+     * 由内存账本接管的仓库在数据库部分成功后于内存中预留，失败时由事务回滚撤销数据库部分
+     * 已拆分的热点库存逐行按分桶预留，不在返回结果中
+     * 配额租约 SKU 从本节点租借的配额中预留（与单条预留一致），不在返回结果中；失败时由事务回滚归还配额
+     * 全部成功后记录预留过期时间
+     * 需在事务中调用
+     */
+    public List<Inventory> reserveAll(List<ReservationLine> lines, String orderId) {
+        if (lines == null || lines.isEmpty()) {
+            throw new IllegalArgumentException("预留明细不能为空");
+        }
+        
+        List<ReservationLine> mergedLines = lines.stream()
+            .collect(Collectors.toMap(ReservationLine::inventoryKey, Function.identity(),
+                ReservationLine::merge, LinkedHashMap::new))
+            .values().stream()
+            .sorted(ReservationLine.LOCK_ORDER)
+            .collect(Collectors.toList());
+        
+        Map<Boolean, List<ReservationLine>> linesByFlashSale = mergedLines.stream()
+            .collect(Collectors.partitioningBy(line -> flashSaleInventory.handles(line.getSkuId())));
+        List<ReservationLine> flashSaleReserved = linesByFlashSale.get(true).isEmpty()
+            ? List.of()
+            : flashSaleInventory.reserveAll(linesByFlashSale.get(true), orderId);
+        
+        Map<Boolean, List<ReservationLine>> linesByQuota = linesByFlashSale.get(false).stream()
+            .collect(Collectors.partitioningBy(line -> quotaManager.handles(line.getSkuId())));
+        Map<Boolean, List<ReservationLine>> linesByLedger = linesByQuota.get(false).stream()
+            .collect(Collectors.partitioningBy(line -> inventoryLedger.handles(line.getWarehouseId())));
+        Map<Boolean, List<ReservationLine>> linesBySplit = linesByLedger.get(false).stream()
+            .collect(Collectors.partitioningBy(
+                line -> inventoryBucketRouter.isSplit(line.getSkuId(), line.getWarehouseId())));
+        List<Inventory> reserved = reserveAllInDatabase(linesBySplit.get(false), orderId);
+        for (ReservationLine line : linesBySplit.get(true)) {
+            inventoryBucketRouter.reserve(line.getSkuId(), line.getWarehouseId(), line.getQuantity(), orderId);
+            appendJournal(JournalChangeType.RESERVE, line.getSkuId(), line.getWarehouseId(),
+                -line.getQuantity(), line.getQuantity(), 0, orderId);
+        }
+        if (!linesByLedger.get(true).isEmpty()) {
+            reserved.addAll(inventoryLedger.applyAll(linesByLedger.get(true),
+                (inventory, line) -> inventory.reserve(line.getQuantity(), orderId)));
+        }
+        for (ReservationLine line : linesByQuota.get(true)) {
+            requirePositive(line.getQuantity(), "预留数量必须大于0");
+            quotaManager.reserve(line.getSkuId(), line.getWarehouseId(), line.getQuantity());
+        }
+        
+        for (ReservationLine line : flashSaleReserved) {
+            domainEventPublisher.publish(new FlashSaleReservedEvent(
+                line.getSkuId(), line.getWarehouseId(), line.getQuantity(), orderId));
+        }
+        for (ReservationLine line : linesBySplit.get(true)) {
+            domainEventPublisher.publish(new InventoryReservedEvent(
+                line.getSkuId(), line.getWarehouseId(), line.getQuantity(), orderId));
+        }
+        for (ReservationLine line : linesByQuota.get(true)) {
+            domainEventPublisher.publish(new InventoryReservedEvent(
+                line.getSkuId(), line.getWarehouseId(), line.getQuantity(), orderId));
+        }
+        reserved.forEach(this::publishEvents);
+        
+        List<ReservationLine> trackedLines = new ArrayList<>(flashSaleReserved);
+        trackedLines.addAll(linesByFlashSale.get(false));
+        reservationTracker.recordReserved(orderId, trackedLines);
+        
+        log.info("批量预留库存: orderId={}, lines={}", orderId, mergedLines.size());
+        return reserved;
+    }
+    
+    /**
+     * 批量预留数据库中的库存：一次查询加锁，内存校验，单条语句写回
+     * 返回的聚合根携带尚未发布的领域事件
+     */
+    private List<Inventory> reserveAllInDatabase(List<ReservationLine> mergedLines, String orderId) {
+        if (mergedLines.isEmpty()) {
+            return new ArrayList<>();
+        }
+        
+        Map<String, Inventory> lockedInventories = inventoryRepository.findAllForUpdate(mergedLines).stream()
+            .collect(Collectors.toMap(
+                inventory -> ReservationLine.inventoryKey(inventory.getSkuId(), inventory.getWarehouseId()),
+                Function.identity()));
+        
+        Map<Long, Integer> quantityByInventoryId = new LinkedHashMap<>();
+        List<Inventory> reserved = new ArrayList<>(mergedLines.size());
+        for (ReservationLine line : mergedLines) {
+            Inventory inventory = lockedInventories.get(line.inventoryKey());
+            if (inventory == null) {
+                throw new IllegalArgumentException(
+                    String.format("库存不存在: skuId=%s, warehouseId=%s", line.getSkuId(), line.getWarehouseId()));
+            }
+            inventory.reserve(line.getQuantity(), orderId);
+            quantityByInventoryId.put(inventory.getId(), line.getQuantity());
+            reserved.add(inventory);
+        }
+        
+        int updated = inventoryRepository.batchReserve(quantityByInventoryId);
+        if (updated != quantityByInventoryId.size()) {
+            throw new IllegalStateException(
+                String.format("批量预留写入行数不符，期望: %d, 实际: %d", quantityByInventoryId.size(), updated));
+        }
+        List<InventoryJournalEntry> journalEntries = new ArrayList<>();
+        for (Inventory inventory : reserved) {
+            journalEntries.addAll(inventory.getJournalEntries());
+            inventory.clearJournalEntries();
+        }
+        journalRepository.appendAll(journalEntries);
+        return reserved;
+    }
+    
     /**
      * 释放预留库存
+     * 秒杀 SKU 先在 Redis 中按订单判断：预扣尚未回写数据库时只归还秒杀余量，否则先释放数据库再归还
      */
     public void releaseReservedInventory(String skuId, String warehouseId, Integer quantity, String orderId) {
-        Inventory inventory = getInventory(skuId, warehouseId)
-            .orElseThrow(() -> new IllegalArgumentException(
-                String.format("库存不存在: skuId=%s, warehouseId=%s", skuId, warehouseId)));
-        
-        inventory.releaseReserved(quantity, orderId);
-        inventoryRepository.save(inventory);
+        if (flashSaleInventory.handles(skuId)
+                && flashSaleInventory.releaseBeforeWriteBack(skuId, warehouseId, quantity, orderId)) {
+            // 预扣尚未回写数据库：只归还秒杀余量，数据库中没有这笔预留，之后到达的回写跳过
+            reservationTracker.recordReleased(orderId, skuId, warehouseId, quantity);
+            log.info("释放秒杀预扣（未回写）: skuId={}, warehouseId={}, quantity={}, orderId={}",
+                skuId, warehouseId, quantity, orderId);
+            return;
+        }
+        if (inventoryLedger.handles(warehouseId)) {
+            publishEvents(inventoryLedger.apply(skuId, warehouseId,
+                inventory -> inventory.releaseReserved(quantity, orderId)));
+        } else if (inventoryBucketRouter.isSplit(skuId, warehouseId)) {
+            requirePositive(quantity, "释放数量必须大于0");
+            inventoryBucketRouter.release(skuId, warehouseId, quantity, orderId);
+            appendJournal(JournalChangeType.RELEASE, skuId, warehouseId, quantity, -quantity, 0, orderId);
+            domainEventPublisher.publish(new InventoryReleasedEvent(skuId, warehouseId, quantity, orderId));
+        } else if (inventorySettings.isAtomicReservation()) {
+            requirePositive(quantity, "释放数量必须大于0");
+            if (!applyAtomically(OPERATION_RELEASE, skuId, warehouseId,
+                    () -> inventoryRepository.releaseReservedIfEnough(skuId, warehouseId, quantity),
+                    inventory -> diagnoseReservedShortage(OPERATION_RELEASE, "释放", inventory, quantity))) {
+                inventoryBucketRouter.release(skuId, warehouseId, quantity, orderId);
+            }
+            appendJournal(JournalChangeType.RELEASE, skuId, warehouseId, quantity, -quantity, 0, orderId);
+            domainEventPublisher.publish(new InventoryReleasedEvent(skuId, warehouseId, quantity, orderId));
+        } else {
+            Inventory inventory = getRequiredInventory(skuId, warehouseId);
+            inventory.releaseReserved(quantity, orderId);
+            saveAndPublish(inventory);
+        }
+        if (flashSaleInventory.handles(skuId)) {
+            // 预扣已回写：数据库可用库存已增加，秒杀余量同步归还，保持两者一致
+            flashSaleInventory.release(skuId, warehouseId, quantity, orderId);
+        }
+        reservationTracker.recordReleased(orderId, skuId, warehouseId, quantity);
         
         log.info("释放预留库存: skuId={}, warehouseId={}, quantity={}, orderId={}", 
             skuId, warehouseId, quantity, orderId);
@@ -147,17 +622,182 @@ public class InventoryDomainService {
      * 确认预留库存
      */
     public void confirmReservedInventory(String skuId, String warehouseId, Integer quantity, String orderId) {
-        Inventory inventory = getInventory(skuId, warehouseId)
-            .orElseThrow(() -> new IllegalArgumentException(
-                String.format("库存不存在: skuId=%s, warehouseId=%s", skuId, warehouseId)));
-        
-        inventory.confirmReserved(quantity, orderId);
-        inventoryRepository.save(inventory);
+        if (inventoryLedger.handles(warehouseId)) {
+            publishEvents(inventoryLedger.apply(skuId, warehouseId,
+                inventory -> inventory.confirmReserved(quantity, orderId)));
+        } else if (inventoryBucketRouter.isSplit(skuId, warehouseId)) {
+            requirePositive(quantity, "确认数量必须大于0");
+            inventoryBucketRouter.confirm(skuId, warehouseId, quantity, orderId);
+            appendJournal(JournalChangeType.CONFIRM, skuId, warehouseId, 0, -quantity, quantity, orderId);
+            publishConfirmed(skuId, warehouseId, quantity, orderId);
+        } else if (inventorySettings.isAtomicReservation()) {
+            requirePositive(quantity, "确认数量必须大于0");
+            if (!applyAtomically(OPERATION_CONFIRM, skuId, warehouseId,
+                    () -> inventoryRepository.confirmReservedIfEnough(skuId, warehouseId, quantity),
+                    inventory -> diagnoseReservedShortage(OPERATION_CONFIRM, "确认", inventory, quantity))) {
+                inventoryBucketRouter.confirm(skuId, warehouseId, quantity, orderId);
+            }
+            appendJournal(JournalChangeType.CONFIRM, skuId, warehouseId, 0, -quantity, quantity, orderId);
+            publishConfirmed(skuId, warehouseId, quantity, orderId);
+        } else {
+            Inventory inventory = getRequiredInventory(skuId, warehouseId);
+            inventory.confirmReserved(quantity, orderId);
+            saveAndPublish(inventory);
+        }
+        reservationTracker.recordConfirmed(orderId, skuId, warehouseId, quantity);
         
         log.info("确认预留库存: skuId={}, warehouseId={}, quantity={}, orderId={}", 
             skuId, warehouseId, quantity, orderId);
     }
     
+    /**
+     * 发布条件更新方式确认预留后的库存变更事件
+     * 确认不改变总库存，行锁已由本事务持有，回读仅用于填充事件中的当前库存
+     */
+    private void publishConfirmed(String skuId, String warehouseId, Integer quantity, String orderId) {
+        Integer currentQuantity = getRequiredInventory(skuId, warehouseId).getTotalQuantity();
+        domainEventPublisher.publish(new InventoryChangedEvent(
+            skuId, warehouseId, -quantity, currentQuantity,
+            String.format("确认预留库存，订单: %s", orderId)));
+    }
+    
+    /**
+     * 执行单条条件更新
+     * 更新落空时回读库存判断原因：条件确实不满足则抛出与聚合根一致的异常；
+     * 回读发现条件已满足，说明期间有并发变更，计为一次争用并重试
+     * 首次落空时先绕过缓存确认库存是否已被其它节点拆分，已拆分时返回 false，由调用方改走分桶
+     * 每次更新的耗时和争用都上报热点检测
+     *
+     * @return 是否已在主行上完成更新
+     */
+    private boolean applyAtomically(String operation, String skuId, String warehouseId,
+                                    BooleanSupplier conditionalUpdate,
+                                    Function<Inventory, RuntimeException> rejectionDiagnosis) {
+        int maxAttempts = Math.max(1, inventorySettings.getReservationMaxAttempts());
+        for (int attempt = 1; attempt <= maxAttempts; attempt++) {
+            long startNanos = System.nanoTime();
+            boolean updated = conditionalUpdate.getAsBoolean();
+            hotRowDetector.recordLatency(skuId, warehouseId,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos));
+            if (updated) {
+                inventoryMetrics.recordAtomicUpdate(operation, InventoryMetricsPort.OUTCOME_SUCCESS);
+                return true;
+            }
+            if (attempt == 1 && inventoryBucketRouter.refreshSplit(skuId, warehouseId)) {
+                // 本节点的分桶数缓存陈旧：库存已被其它节点拆分，主行上只剩拆分前的数量
+                inventoryMetrics.recordAtomicUpdate(operation, InventoryMetricsPort.OUTCOME_SPLIT);
+                return false;
+            }
+            
+            Optional<Inventory> current = getInventory(skuId, warehouseId);
+            if (current.isEmpty()) {
+                inventoryMetrics.recordAtomicUpdate(operation, InventoryMetricsPort.OUTCOME_NOT_FOUND);
+                throw new IllegalArgumentException(
+                    String.format("库存不存在: skuId=%s, warehouseId=%s", skuId, warehouseId));
+            }
+            
+            RuntimeException rejection = rejectionDiagnosis.apply(current.get());
+            if (rejection != null) {
+                throw rejection;
+            }
+            
+            inventoryMetrics.recordAtomicUpdate(operation, InventoryMetricsPort.OUTCOME_CONTENTION);
+            hotRowDetector.recordContention(skuId, warehouseId);
+            log.debug("库存条件更新发生争用: operation={}, skuId={}, warehouseId={}, attempt={}",
+                operation, skuId, warehouseId, attempt);
+        }
+        
+        throw new IllegalStateException(
+            String.format("库存更新冲突，请稍后重试: skuId=%s, warehouseId=%s", skuId, warehouseId));
+    }
+    
+    /**
+     * 判断预留失败原因，条件已满足时返回 null
+     */
+    private RuntimeException diagnoseReserveRejection(Inventory inventory, int quantity) {
+        if (inventory.getStatus() == InventoryStatus.FROZEN) {
+            inventoryMetrics.recordAtomicUpdate(OPERATION_RESERVE, InventoryMetricsPort.OUTCOME_FROZEN);
+            return new IllegalStateException("库存已冻结，无法预留");
+        }
+        if (inventory.getAvailableQuantity() < quantity) {
+            inventoryMetrics.recordAtomicUpdate(OPERATION_RESERVE, InventoryMetricsPort.OUTCOME_INSUFFICIENT);
+            return new IllegalStateException(
+                String.format("可用库存不足，需要: %d, 可用: %d", quantity, inventory.getAvailableQuantity()));
+        }
+        return null;
+    }
+    
+    /**
+     * 判断释放/确认失败原因，条件已满足时返回 null
+     */
+    private RuntimeException diagnoseReservedShortage(String operation, String action,
+                                                      Inventory inventory, int quantity) {
+        if (inventory.getReservedQuantity() < quantity) {
+            inventoryMetrics.recordAtomicUpdate(operation, InventoryMetricsPort.OUTCOME_INSUFFICIENT);
+            return new IllegalStateException(
+                String.format("预留库存不足，需要%s: %d, 预留: %d", action, quantity, inventory.getReservedQuantity()));
+        }
+        return null;
+    }
+    
+    /**
+     * 获取必须存在的库存
+     */
+    private Inventory getRequiredInventory(String skuId, String warehouseId) {
+        return getInventory(skuId, warehouseId)
+            .orElseThrow(() -> new IllegalArgumentException(
+                String.format("库存不存在: skuId=%s, warehouseId=%s", skuId, warehouseId)));
+    }
+    
+    /**
+     * 记录绕过聚合根的库存变更（条件更新、热点分桶），与更新在同一事务中写入
+     */
+    private void appendJournal(JournalChangeType changeType, String skuId, String warehouseId,
+                               int availableDelta, int reservedDelta, int occupiedDelta, String orderId) {
+        journalRepository.appendAll(List.of(InventoryJournalEntry.of(skuId, warehouseId, changeType,
+            availableDelta, reservedDelta, occupiedDelta, orderId, null)));
+    }
+    
+    /**
+     * 保存库存并发布聚合根上累积的领域事件
+     */
+    private void saveAndPublish(Inventory inventory) {
+        inventoryRepository.save(inventory);
+        publishEvents(inventory);
+    }
+    
+    /**
+     * 发布聚合根上累积的领域事件
+     */
+    private void publishEvents(Inventory inventory) {
+        domainEventPublisher.publishAll(inventory.getDomainEvents());
+        inventory.clearDomainEvents();
+    }
+    
+    /**
+     * 直接改写库存行之前，先让内存账本回写并释放该库存
+     */
+    private void evictFromLedger(String skuId, String warehouseId) {
+        if (inventoryLedger.handles(warehouseId)) {
+            inventoryLedger.evict(skuId, warehouseId);
+        }
+    }
+    
+    /**
+     * 直接改写库存行之前，先把热点分桶合并回主行
+     */
+    private void mergeBuckets(String skuId, String warehouseId) {
+        if (inventoryBucketRouter.isSplit(skuId, warehouseId)) {
+            inventoryBucketRouter.merge(skuId, warehouseId);
+        }
+    }
+    
+    private void requirePositive(Integer quantity, String message) {
+        if (quantity == null || quantity <= 0) {
+            throw new IllegalArgumentException(message);
+        }
+    }
+    
     /**
      * 检查库存可用性
      */
@@ -170,28 +810,57 @@ public class InventoryDomainService {
         
         Inventory inventory = inventoryOpt.get();
         return inventory.getAvailableQuantity() >= quantity && 
-               inventory.getStatus() == com.restaurant.management.inventory.domain.model.InventoryStatus.NORMAL;
+               inventory.getStatus() == InventoryStatus.NORMAL;
+    }
+    
+    /**
+     * 查询某一时刻的库存数量
+     * 早于流水保留期的时刻只能给出不晚于该时刻的最近快照，结果的 asOf 为其实际对应的时间
+     */
+    public Optional<InventoryPointInTime> getInventoryAt(String skuId, String warehouseId, LocalDateTime at) {
+        if (at == null) {
+            throw new IllegalArgumentException("查询时间不能为空");
+        }
+        return journalRepository.findAt(skuId, warehouseId, at);
+    }
+    
+    /**
+     * 查询时间区间 [from, to) 内的库存流水
+     */
+    public List<InventoryJournalEntry> getInventoryHistory(String skuId, String warehouseId,
+                                                           LocalDateTime from, LocalDateTime to, int limit) {
+        if (from == null || to == null || !from.isBefore(to)) {
+            throw new IllegalArgumentException("查询时间区间无效");
+        }
+        if (limit <= 0) {
+            throw new IllegalArgumentException("查询条数必须大于0");
+        }
+        return journalRepository.findHistory(skuId, warehouseId, from, to, limit);
     }
     
     /**
      * 获取库存汇总信息
      */
     public InventorySummary getInventorySummary(String skuId) {
-        List<Inventory> inventories = findInventoriesBySkuId(skuId);
-        
-        int totalAvailable = inventories.stream()
-            .mapToInt(Inventory::getAvailableQuantity)
-            .sum();
-            
-        int totalReserved = inventories.stream()
-            .mapToInt(Inventory::getReservedQuantity)
-            .sum();
-            
-        int totalOccupied = inventories.stream()
-            .mapToInt(Inventory::getOccupiedQuantity)
-            .sum();
-        
-        return new InventorySummary(skuId, totalAvailable, totalReserved, totalOccupied);
+        return getInventorySummaries(List.of(skuId)).get(skuId);
+    }
+    
+    /**
+     * 批量获取库存汇总信息（读取 SKU 汇总表，不加载各仓库的库存行）
+     * 内存账本尚未回写的增量不计入
+     *
+     * @return 按入参顺序的 SKU -> 汇总，没有库存的 SKU 各项为 0
+     */
+    public Map<String, InventorySummary> getInventorySummaries(Collection<String> skuIds) {
+        Map<String, InventorySummaryTotals> rows = summaryStore.findBySkuIds(skuIds);
+        Map<String, InventorySummary> summaries = new LinkedHashMap<>();
+        for (String skuId : new LinkedHashSet<>(skuIds)) {
+            InventorySummaryTotals row = rows.get(skuId);
+            summaries.put(skuId, row == null
+                ? new InventorySummary(skuId, 0, 0, 0)
+                : new InventorySummary(skuId, row.getTotalAvailable(), row.getTotalReserved(), row.getTotalOccupied()));
+        }
+        return summaries;
     }
     
     /**
@@ -0,0 +1,111 @@
+package com.restaurant.management.inventory.domain.service;
+
+import com.restaurant.management.common.domain.AggregateRoot;
+import com.restaurant.management.common.domain.DomainEvent;
+import com.restaurant.management.inventory.domain.event.InventoryBatchChangedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryChangedEvent;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 一次批量操作（单元工作）内聚合根领域事件的缓冲
+ *
+ * 每次保存聚合根后收集并清空其事件，批量操作结束时统一发布：
+ * 1. 合并模式下，库存数量变更事件按库存合并为 InventoryBatchChangedEvent，每个事件最多 maxChangesPerEvent 个库存
+ * 2. 其它事件以及非合并模式下的全部事件按产生顺序原样发布
+ * 非线程安全，每次批量操作新建一个
+ */
+final class InventoryEventBuffer {
+    
+    private final boolean coalescing;
+    private final int maxChangesPerEvent;
+    private final List<DomainEvent> events = new ArrayList<>();
+    private final Map<InventoryKey, PendingChange> changes = new LinkedHashMap<>();
+    private int collected;
+    
+    InventoryEventBuffer(boolean coalescing, int maxChangesPerEvent) {
+        this.coalescing = coalescing;
+        this.maxChangesPerEvent = Math.max(1, maxChangesPerEvent);
+    }
+    
+    /**
+     * 收集聚合根上累积的领域事件并清空
+     */
+    void collect(AggregateRoot aggregate) {
+        for (DomainEvent event : aggregate.getDomainEvents()) {
+            collected++;
+            if (coalescing && event instanceof InventoryChangedEvent) {
+                InventoryChangedEvent changed = (InventoryChangedEvent) event;
+                changes.computeIfAbsent(new InventoryKey(changed.getSkuId(), changed.getWarehouseId()),
+                    PendingChange::new).add(changed);
+            } else {
+                events.add(event);
+            }
+        }
+        aggregate.clearDomainEvents();
+    }
+    
+    /**
+     * 聚合根产生的事件总数
+     */
+    int collectedCount() {
+        return collected;
+    }
+    
+    /**
+     * 待发布的事件：合并后的批量变更事件在前，其余事件按产生顺序在后
+     *
+     * @param refNo  批量变更事件的关联单号
+     * @param reason 批量变更事件的原因
+     */
+    List<DomainEvent> toEvents(String refNo, String reason) {
+        List<DomainEvent> result = new ArrayList<>(events.size() + changes.size() / maxChangesPerEvent + 1);
+        List<InventoryBatchChangedEvent.Change> chunk = new ArrayList<>();
+        for (PendingChange pending : changes.values()) {
+            chunk.add(pending.toChange());
+            if (chunk.size() == maxChangesPerEvent) {
+                result.add(new InventoryBatchChangedEvent(refNo, reason, chunk));
+                chunk = new ArrayList<>();
+            }
+        }
+        if (!chunk.isEmpty()) {
+            result.add(new InventoryBatchChangedEvent(refNo, reason, chunk));
+        }
+        result.addAll(events);
+        return result;
+    }
+    
+    /**
+     * 单个库存上尚未发布的变更：累计净变更量，当前库存取最后一次变更后的值
+     * 变更量为 0 的事件（新建库存）只计入当前库存，不记逐笔变更
+     */
+    private static final class PendingChange {
+        
+        private final InventoryKey key;
+        private final List<Integer> lineChanges = new ArrayList<>();
+        private int changeQuantity;
+        private Integer currentQuantity;
+        
+        private PendingChange(InventoryKey key) {
+            this.key = key;
+        }
+        
+        private void add(InventoryChangedEvent event) {
+            int change = event.getChangeQuantity() == null ? 0 : event.getChangeQuantity();
+            if (change != 0) {
+                lineChanges.add(change);
+                changeQuantity += change;
+            }
+            currentQuantity = event.getCurrentQuantity();
+        }
+        
+        private InventoryBatchChangedEvent.Change toChange() {
+            return new InventoryBatchChangedEvent.Change(key.getSkuId(), key.getWarehouseId(),
+                changeQuantity, currentQuantity, lineChanges);
+        }
+    }
+}
@@ -1,20 +1,31 @@
 package com.restaurant.management.inventory.domain.service;
 
+import com.restaurant.management.common.domain.DomainEvent;
+import com.restaurant.management.common.domain.DomainEventPublisher;
 import com.restaurant.management.inventory.domain.model.DocumentType;
 import com.restaurant.management.inventory.domain.model.StockDocument;
 import com.restaurant.management.inventory.domain.model.StockDocumentItem;
 import com.restaurant.management.inventory.domain.repository.InventoryRepository;
 import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.port.InventoryMetricsPort;
+import com.restaurant.management.inventory.domain.port.InventorySettings;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * 库存单据执行引擎
  * 负责执行各种类型的库存单据，处理实际的库存变更操作
+ * 单据涉及的库存一次查询加载并锁定（SELECT ... FOR UPDATE，按 InventoryKey.LOCK_ORDER 加锁），执行前校验可复用同一份加载结果；
+ * 各行变更在内存中完成，结束后批量写回（新建库存一条多行 INSERT，已有库存按版本号一条多行 UPDATE）
+ * 行锁在执行开始时按统一顺序一次取得，不随单据行的顺序交错加锁，相反方向的调拨、行序不同的单据之间不会死锁
+ * 库存聚合根的领域事件在单据执行完成后统一发布；启用事件合并时，整张单据的库存数量变更合并为少量批量变更事件
  */
 @Service
 public class StockDocumentExecutionEngine {
@@ -25,6 +36,45 @@ public class StockDocumentExecutionEngine {
     @Autowired
     private InventoryDomainService inventoryDomainService;
     
+    @Autowired
+    private DomainEventPublisher domainEventPublisher;
+    
+    @Autowired
+    private InventorySettings inventorySettings;
+    
+    @Autowired
+    private InventoryMetricsPort inventoryMetrics;
+    
+    /**
+     * 一次查询加载并锁定单据涉及的全部库存（调拨单包含目标仓库）
+     * 经由库存领域服务加锁，由它协调内存账本、热点分桶等其它写入路径；在事务内调用时行锁持有到事务结束
+     */
+    public DocumentInventories loadInventories(StockDocument document) {
+        String targetWarehouseId = document.getType() == DocumentType.TRANSFER
+            ? extractTargetWarehouseId(document.getRemark())
+            : null;
+        Set<InventoryKey> keys = new LinkedHashSet<>();
+        for (StockDocumentItem item : document.getItems()) {
+            keys.add(new InventoryKey(item.getSkuId(), document.getWarehouseId()));
+            if (targetWarehouseId != null) {
+                keys.add(new InventoryKey(item.getSkuId(), targetWarehouseId));
+            }
+        }
+        return new DocumentInventories(inventoryDomainService.lockForDirectWrite(keys));
+    }
+    
+    /**
+     * 单据涉及的仓库（调拨单包含目标仓库）
+     */
+    public Set<String> warehouseIdsOf(StockDocument document) {
+        Set<String> warehouseIds = new LinkedHashSet<>();
+        warehouseIds.add(document.getWarehouseId());
+        if (document.getType() == DocumentType.TRANSFER) {
+            warehouseIds.add(extractTargetWarehouseId(document.getRemark()));
+        }
+        return warehouseIds;
+    }
+    
     /**
      * 执行库存单据
      */
@@ -33,95 +83,113 @@ public class StockDocumentExecutionEngine {
         if (document == null) {
             throw new IllegalArgumentException("单据不能为空");
         }
+        executeDocument(document, loadInventories(document));
+    }
+    
+    /**
+     * 使用已加载的库存执行库存单据
+     */
+    @Transactional
+    public void executeDocument(StockDocument document, DocumentInventories inventories) {
+        if (document == null) {
+            throw new IllegalArgumentException("单据不能为空");
+        }
         
         DocumentType type = document.getType();
+        InventoryEventBuffer events = new InventoryEventBuffer(
+            inventorySettings.isEventCoalescingEnabled(), inventorySettings.getMaxChangesPerEvent());
         
         switch (type) {
             case INBOUND_PURCHASE:
-                executeInboundPurchase(document);
+                executeInboundPurchase(document, inventories);
                 break;
             case INBOUND_PRODUCTION:
-                executeInboundProduction(document);
+                executeInboundProduction(document, inventories);
                 break;
             case INBOUND_RETURN:
-                executeInboundReturn(document);
+                executeInboundReturn(document, inventories);
                 break;
             case OUTBOUND_SALE:
-                executeOutboundSale(document);
+                executeOutboundSale(document, inventories);
                 break;
             case OUTBOUND_PRODUCTION:
-                executeOutboundProduction(document);
+                executeOutboundProduction(document, inventories);
                 break;
             case OUTBOUND_TRANSFER:
-                executeOutboundTransfer(document);
+                executeOutboundTransfer(document, inventories);
                 break;
             case TRANSFER:
-                executeTransfer(document);
+                executeTransfer(document, inventories);
                 break;
             case ADJUSTMENT:
-                executeAdjustment(document);
+                executeAdjustment(document, inventories);
                 break;
             default:
                 throw new IllegalArgumentException("不支持的单据类型: " + type);
         }
+        
+        List<Inventory> changed = inventories.changed();
+        inventoryRepository.saveAll(changed);
+        changed.forEach(events::collect);
+        publishEvents(document, events);
     }
     
     /**
      * 执行采购入库
      */
-    private void executeInboundPurchase(StockDocument document) {
+    private void executeInboundPurchase(StockDocument document, DocumentInventories inventories) {
         String warehouseId = document.getWarehouseId();
         String reason = String.format("采购入库 - 单据号: %s", document.getDocumentNo());
         
         for (StockDocumentItem item : document.getItems()) {
             // 查找或创建库存记录
-            Inventory inventory = findOrCreateInventory(item.getSkuId(), warehouseId);
+            Inventory inventory = inventories.getOrCreate(item.getSkuId(), warehouseId);
             
             // 增加库存
-            inventory.increase(item.getQuantity(), item.getUnitPrice(), reason);
+            inventory.increase(item.getQuantity(), item.getUnitPrice(), reason, document.getDocumentNo());
             
-            // 保存库存变更
-            inventoryRepository.save(inventory);
+            // 记录变更，执行结束后统一写回
+            inventories.markChanged(inventory);
         }
     }
     
     /**
      * 执行生产入库
      */
-    private void executeInboundProduction(StockDocument document) {
+    private void executeInboundProduction(StockDocument document, DocumentInventories inventories) {
         String warehouseId = document.getWarehouseId();
         String reason = String.format("生产入库 - 单据号: %s", document.getDocumentNo());
         
         for (StockDocumentItem item : document.getItems()) {
-            Inventory inventory = findOrCreateInventory(item.getSkuId(), warehouseId);
-            inventory.increase(item.getQuantity(), item.getUnitPrice(), reason);
-            inventoryRepository.save(inventory);
+            Inventory inventory = inventories.getOrCreate(item.getSkuId(), warehouseId);
+            inventory.increase(item.getQuantity(), item.getUnitPrice(), reason, document.getDocumentNo());
+            inventories.markChanged(inventory);
         }
     }
     
     /**
      * 执行退货入库
      */
-    private void executeInboundReturn(StockDocument document) {
+    private void executeInboundReturn(StockDocument document, DocumentInventories inventories) {
         String warehouseId = document.getWarehouseId();
         String reason = String.format("退货入库 - 单据号: %s", document.getDocumentNo());
         
         for (StockDocumentItem item : document.getItems()) {
-            Inventory inventory = findOrCreateInventory(item.getSkuId(), warehouseId);
-            inventory.increase(item.getQuantity(), item.getUnitPrice(), reason);
-            inventoryRepository.save(inventory);
+            Inventory inventory = inventories.getOrCreate(item.getSkuId(), warehouseId);
+            inventory.increase(item.getQuantity(), item.getUnitPrice(), reason, document.getDocumentNo());
+            inventories.markChanged(inventory);
         }
     }
     
     /**
      * 执行销售出库
      */
-    private void executeOutboundSale(StockDocument document) {
+    private void executeOutboundSale(StockDocument document, DocumentInventories inventories) {
         String warehouseId = document.getWarehouseId();
         String reason = String.format("销售出库 - 单据号: %s", document.getDocumentNo());
         
         for (StockDocumentItem item : document.getItems()) {
-            Inventory inventory = getRequiredInventory(item.getSkuId(), warehouseId);
+            Inventory inventory = inventories.getRequired(item.getSkuId(), warehouseId);
             
             // 检查库存充足性
             if (inventory.getAvailableQuantity() < item.getQuantity()) {
@@ -132,20 +200,20 @@ public class StockDocumentExecutionEngine {
             }
             
             // 扣减库存
-            inventory.deduct(item.getQuantity(), reason);
-            inventoryRepository.save(inventory);
+            inventory.deduct(item.getQuantity(), reason, document.getDocumentNo());
+            inventories.markChanged(inventory);
         }
     }
     
     /**
      * 执行生产出库
      */
-    private void executeOutboundProduction(StockDocument document) {
+    private void executeOutboundProduction(StockDocument document, DocumentInventories inventories) {
         String warehouseId = document.getWarehouseId();
         String reason = String.format("生产出库 - 单据号: %s", document.getDocumentNo());
         
         for (StockDocumentItem item : document.getItems()) {
-            Inventory inventory = getRequiredInventory(item.getSkuId(), warehouseId);
+            Inventory inventory = inventories.getRequired(item.getSkuId(), warehouseId);
             
             if (inventory.getAvailableQuantity() < item.getQuantity()) {
                 throw new IllegalStateException(String.format(
@@ -154,20 +222,20 @@ public class StockDocumentExecutionEngine {
                 ));
             }
             
-            inventory.deduct(item.getQuantity(), reason);
-            inventoryRepository.save(inventory);
+            inventory.deduct(item.getQuantity(), reason, document.getDocumentNo());
+            inventories.markChanged(inventory);
         }
     }
     
     /**
      * 执行调拨出库
      */
-    private void executeOutboundTransfer(StockDocument document) {
+    private void executeOutboundTransfer(StockDocument document, DocumentInventories inventories) {
         String warehouseId = document.getWarehouseId();
         String reason = String.format("调拨出库 - 单据号: %s", document.getDocumentNo());
         
         for (StockDocumentItem item : document.getItems()) {
-            Inventory inventory = getRequiredInventory(item.getSkuId(), warehouseId);
+            Inventory inventory = inventories.getRequired(item.getSkuId(), warehouseId);
             
             if (inventory.getAvailableQuantity() < item.getQuantity()) {
                 throw new IllegalStateException(String.format(
@@ -176,52 +244,52 @@ public class StockDocumentExecutionEngine {
                 ));
             }
             
-            inventory.deduct(item.getQuantity(), reason);
-            inventoryRepository.save(inventory);
+            inventory.deduct(item.getQuantity(), reason, document.getDocumentNo());
+            inventories.markChanged(inventory);
         }
     }
     
     /**
      * 执行仓库间调拨
      */
-    private void executeTransfer(StockDocument document) {
+    private void executeTransfer(StockDocument document, DocumentInventories inventories) {
         String sourceWarehouseId = document.getWarehouseId();
         String targetWarehouseId = extractTargetWarehouseId(document.getRemark());
         String reason = String.format("仓库调拨 - 单据号: %s", document.getDocumentNo());
         
         for (StockDocumentItem item : document.getItems()) {
             // 源仓库出库
-            Inventory sourceInventory = getRequiredInventory(item.getSkuId(), sourceWarehouseId);
+            Inventory sourceInventory = inventories.getRequired(item.getSkuId(), sourceWarehouseId);
             if (sourceInventory.getAvailableQuantity() < item.getQuantity()) {
                 throw new IllegalStateException(String.format(
                     "源仓库库存不足 - SKU: %s, 需要: %d, 可用: %d", 
                     item.getSkuId(), item.getQuantity(), sourceInventory.getAvailableQuantity()
                 ));
             }
-            sourceInventory.deduct(item.getQuantity(), reason + " (出库)");
-            inventoryRepository.save(sourceInventory);
+            sourceInventory.deduct(item.getQuantity(), reason + " (出库)", document.getDocumentNo());
+            inventories.markChanged(sourceInventory);
             
             // 目标仓库入库
-            Inventory targetInventory = findOrCreateInventory(item.getSkuId(), targetWarehouseId);
-            targetInventory.increase(item.getQuantity(), item.getUnitPrice(), reason + " (入库)");
-            inventoryRepository.save(targetInventory);
+            Inventory targetInventory = inventories.getOrCreate(item.getSkuId(), targetWarehouseId);
+            targetInventory.increase(item.getQuantity(), item.getUnitPrice(), reason + " (入库)", document.getDocumentNo());
+            inventories.markChanged(targetInventory);
         }
     }
     
     /**
      * 执行库存调整
      */
-    private void executeAdjustment(StockDocument document) {
+    private void executeAdjustment(StockDocument document, DocumentInventories inventories) {
         String warehouseId = document.getWarehouseId();
         String reason = String.format("库存调整 - 单据号: %s", document.getDocumentNo());
         
         for (StockDocumentItem item : document.getItems()) {
-            Inventory inventory = getRequiredInventory(item.getSkuId(), warehouseId);
+            Inventory inventory = inventories.getRequired(item.getSkuId(), warehouseId);
             
             int adjustmentQuantity = item.getQuantity();
             if (adjustmentQuantity > 0) {
                 // 正调整 - 增加库存
-                inventory.increase(adjustmentQuantity, item.getUnitPrice(), reason + " (增加)");
+                inventory.increase(adjustmentQuantity, item.getUnitPrice(), reason + " (增加)", document.getDocumentNo());
             } else if (adjustmentQuantity < 0) {
                 // 负调整 - 减少库存
                 int deductQuantity = Math.abs(adjustmentQuantity);
@@ -231,37 +299,25 @@ public class StockDocumentExecutionEngine {
                         item.getSkuId(), deductQuantity, inventory.getAvailableQuantity()
                     ));
                 }
-                inventory.deduct(deductQuantity, reason + " (减少)");
+                inventory.deduct(deductQuantity, reason + " (减少)", document.getDocumentNo());
             }
             // adjustmentQuantity == 0 的情况不需要处理
             
-            inventoryRepository.save(inventory);
+            inventories.markChanged(inventory);
         }
     }
     
     /**
-     * 查找或创建库存记录
+     * 发布单据执行期间收集的领域事件，与库存变更在同一事务中写入发件箱
      */
-    private Inventory findOrCreateInventory(String skuId, String warehouseId) {
-        Optional<Inventory> existingInventory = inventoryRepository.findBySkuIdAndWarehouseId(skuId, warehouseId);
-        
-        if (existingInventory.isPresent()) {
-            return existingInventory.get();
-        } else {
-            // 创建新的库存记录
-            Inventory newInventory = Inventory.create(skuId, warehouseId, 0);
-            return inventoryRepository.save(newInventory);
+    private void publishEvents(StockDocument document, InventoryEventBuffer events) {
+        String reason = String.format("%s - 单据号: %s", document.getType().getDescription(), document.getDocumentNo());
+        List<DomainEvent> pending = events.toEvents(document.getDocumentNo(), reason);
+        if (pending.isEmpty()) {
+            return;
         }
-    }
-    
-    /**
-     * 获取必须存在的库存记录
-     */
-    private Inventory getRequiredInventory(String skuId, String warehouseId) {
-        return inventoryRepository.findBySkuIdAndWarehouseId(skuId, warehouseId)
-            .orElseThrow(() -> new IllegalStateException(String.format(
-                "库存记录不存在 - SKU: %s, 仓库: %s", skuId, warehouseId
-            )));
+        domainEventPublisher.publishAll(pending);
+        inventoryMetrics.recordEventCoalescing(events.collectedCount(), pending.size());
     }
     
     /**
@@ -285,8 +341,25 @@ public class StockDocumentExecutionEngine {
     
     /**
      * 验证单据执行前的库存状态
+     * 只读查询来源仓库（含内存账本与分桶中的数量），不加锁、不移出内存账本或合并分桶；
+     * 执行时以加锁加载的库存为准，重新校验
      */
     public void validateInventoryBeforeExecution(StockDocument document) {
+        if (!isOutboundDocument(document.getType())) {
+            return;
+        }
+        Set<String> skuIds = new LinkedHashSet<>();
+        for (StockDocumentItem item : document.getItems()) {
+            skuIds.add(item.getSkuId());
+        }
+        validateInventoryBeforeExecution(document,
+            new DocumentInventories(inventoryDomainService.getInventories(skuIds, document.getWarehouseId())));
+    }
+    
+    /**
+     * 使用已加载的库存验证单据执行前的库存状态
+     */
+    public void validateInventoryBeforeExecution(StockDocument document, DocumentInventories inventories) {
         DocumentType type = document.getType();
         
         // 只有出库类型的单据需要验证库存充足性
@@ -294,8 +367,7 @@ public class StockDocumentExecutionEngine {
             String warehouseId = document.getWarehouseId();
             
             for (StockDocumentItem item : document.getItems()) {
-                Optional<Inventory> inventoryOpt = inventoryRepository.findBySkuIdAndWarehouseId(
-                    item.getSkuId(), warehouseId);
+                Optional<Inventory> inventoryOpt = inventories.find(item.getSkuId(), warehouseId);
                 
                 if (!inventoryOpt.isPresent()) {
                     throw new IllegalStateException(String.format(
@@ -0,0 +1,176 @@
+package com.restaurant.management.inventory.infrastructure.allocation;
+
+import com.restaurant.management.inventory.domain.model.AllocationPlan;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+import com.restaurant.management.inventory.domain.model.WarehouseType;
+import com.restaurant.management.inventory.domain.port.WarehouseAllocationPort;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 分仓引擎
+ *
+ * 只读内存索引，按以下顺序为订单选择仓库（仓库排序：配置的优先仓库 → 仓库类型 → 可用量多者 → 仓库ID）：
+ * 1. 能满足整单的仓库中排序最前者，整单落在一个仓库
+ * 2. 否则每个 SKU 选能单独满足该行的排序最前的仓库
+ * 3. 仍不满足的 SKU 按可用量从多到少拆分，至多 maxSplitWarehouses 个仓库
+ * 停用的仓库不参与分仓。耗时与订单行数 × 该 SKU 有货的仓库数成正比，不访问数据库
+ */
+@Component
+@RequiredArgsConstructor
+public class WarehouseAllocator implements WarehouseAllocationPort {
+
+    private final WarehouseAvailabilityIndex availabilityIndex;
+    private final InventoryProperties inventoryProperties;
+    private final InventoryMetrics inventoryMetrics;
+
+    /**
+     * 为一组 SKU 分仓
+     *
+     * @param quantityBySku SKU -> 需要数量（同一 SKU 须已合并）
+     */
+    @Override
+    public AllocationPlan allocate(Map<String, Integer> quantityBySku) {
+        long startNanos = System.nanoTime();
+        AllocationPlan plan = inventoryProperties.getAllocation().isEnabled()
+            ? plan(quantityBySku)
+            : toDefaultWarehouse(quantityBySku);
+        inventoryMetrics.recordAllocation(plan.getResult(), System.nanoTime() - startNanos);
+        return plan;
+    }
+
+    private AllocationPlan plan(Map<String, Integer> quantityBySku) {
+        Map<String, Map<String, Integer>> candidatesBySku = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : quantityBySku.entrySet()) {
+            Map<String, Integer> candidates = new LinkedHashMap<>();
+            availabilityIndex.availableOf(entry.getKey()).forEach((warehouseId, available) -> {
+                if (availabilityIndex.isActive(warehouseId)) {
+                    candidates.put(warehouseId, available);
+                }
+            });
+            candidatesBySku.put(entry.getKey(), candidates);
+        }
+
+        String wholeOrderWarehouse = findWholeOrderWarehouse(quantityBySku, candidatesBySku);
+        if (wholeOrderWarehouse != null) {
+            List<ReservationLine> lines = new ArrayList<>(quantityBySku.size());
+            quantityBySku.forEach((skuId, quantity) ->
+                lines.add(new ReservationLine(skuId, wholeOrderWarehouse, quantity)));
+            return new AllocationPlan(lines, Map.of(), AllocationPlan.RESULT_SINGLE_WAREHOUSE);
+        }
+
+        int maxSplit = Math.max(1, inventoryProperties.getAllocation().getMaxSplitWarehouses());
+        List<ReservationLine> lines = new ArrayList<>();
+        Map<String, Integer> shortages = new LinkedHashMap<>();
+        boolean split = false;
+        for (Map.Entry<String, Integer> entry : quantityBySku.entrySet()) {
+            String skuId = entry.getKey();
+            int quantity = entry.getValue();
+            Map<String, Integer> candidates = candidatesBySku.get(skuId);
+            List<String> ranked = rank(candidates);
+
+            String single = ranked.stream()
+                .filter(warehouseId -> candidates.get(warehouseId) >= quantity)
+                .findFirst()
+                .orElse(null);
+            if (single != null) {
+                lines.add(new ReservationLine(skuId, single, quantity));
+                continue;
+            }
+
+            ranked.sort(Comparator.comparing(candidates::get, Comparator.reverseOrder()));
+            int remaining = quantity;
+            List<ReservationLine> parts = new ArrayList<>();
+            for (int i = 0; i < ranked.size() && i < maxSplit && remaining > 0; i++) {
+                int take = Math.min(remaining, candidates.get(ranked.get(i)));
+                parts.add(new ReservationLine(skuId, ranked.get(i), take));
+                remaining -= take;
+            }
+            if (remaining > 0) {
+                shortages.put(skuId, remaining);
+            } else {
+                lines.addAll(parts);
+                split = true;
+            }
+        }
+
+        String result = !shortages.isEmpty() ? AllocationPlan.RESULT_SHORTAGE
+            : split ? AllocationPlan.RESULT_SPLIT : AllocationPlan.RESULT_PER_LINE;
+        return new AllocationPlan(lines, shortages, result);
+    }
+
+    /**
+     * 能满足整单的仓库中排序最前者
+     */
+    private String findWholeOrderWarehouse(Map<String, Integer> quantityBySku,
+                                           Map<String, Map<String, Integer>> candidatesBySku) {
+        Set<String> common = null;
+        for (Map.Entry<String, Integer> entry : quantityBySku.entrySet()) {
+            Set<String> sufficient = new HashSet<>();
+            candidatesBySku.get(entry.getKey()).forEach((warehouseId, available) -> {
+                if (available >= entry.getValue()) {
+                    sufficient.add(warehouseId);
+                }
+            });
+            if (common == null) {
+                common = sufficient;
+            } else {
+                common.retainAll(sufficient);
+            }
+            if (common.isEmpty()) {
+                return null;
+            }
+        }
+        if (common == null) {
+            return null;
+        }
+        // 整单场景按总可用量无意义，可用量一项取 0 只比较优先级
+        Map<String, Integer> ties = new LinkedHashMap<>();
+        common.forEach(warehouseId -> ties.put(warehouseId, 0));
+        return rank(ties).get(0);
+    }
+
+    /**
+     * 按优先仓库、仓库类型、可用量（多者优先）、仓库ID 排序
+     */
+    private List<String> rank(Map<String, Integer> candidates) {
+        List<String> preferred = inventoryProperties.getAllocation().getPreferredWarehouseIds();
+        List<String> ranked = new ArrayList<>(candidates.keySet());
+        ranked.sort(Comparator
+            .comparingInt((String warehouseId) -> {
+                int index = preferred.indexOf(warehouseId);
+                return index < 0 ? Integer.MAX_VALUE : index;
+            })
+            .thenComparingInt(warehouseId -> typeRank(availabilityIndex.typeOf(warehouseId)))
+            .thenComparing(candidates::get, Comparator.reverseOrder())
+            .thenComparing(Comparator.naturalOrder()));
+        return ranked;
+    }
+
+    /**
+     * 中央仓优先，其次区域仓、门店仓；未登记类型排在最后
+     */
+    private int typeRank(WarehouseType type) {
+        return type == null ? Integer.MAX_VALUE : type.ordinal();
+    }
+
+    /**
+     * 未启用分仓时全部落在默认仓库，是否足够由预留时校验
+     */
+    private AllocationPlan toDefaultWarehouse(Map<String, Integer> quantityBySku) {
+        String defaultWarehouseId = inventoryProperties.getAllocation().getDefaultWarehouseId();
+        List<ReservationLine> lines = new ArrayList<>(quantityBySku.size());
+        quantityBySku.forEach((skuId, quantity) -> lines.add(new ReservationLine(skuId, defaultWarehouseId, quantity)));
+        return new AllocationPlan(lines, Map.of(), AllocationPlan.RESULT_SINGLE_WAREHOUSE);
+    }
+}
@@ -0,0 +1,193 @@
+package com.restaurant.management.inventory.infrastructure.allocation;
+
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.model.Warehouse;
+import com.restaurant.management.inventory.domain.model.WarehouseStatus;
+import com.restaurant.management.inventory.domain.model.WarehouseType;
+import com.restaurant.management.inventory.domain.port.AvailabilityIndexPort;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryMapper;
+import com.restaurant.management.inventory.infrastructure.mapper.WarehouseMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 分仓可用库存内存索引
+ *
+ * SKU -> (仓库 -> 可用量)，只收录状态正常且可用量大于 0 的库存；另记录各仓库的状态和类型。
+ * 分仓时只读内存，不按订单查询库存行。索引由库存事件逐条刷新、仓库事件切换状态，
+ * 并定期全量重建兜底（其它节点上的变更、丢失或乱序的事件），陈旧度以重建间隔为上限
+ */
+@Slf4j
+@Component
+public class WarehouseAvailabilityIndex implements AvailabilityIndexPort {
+
+    private final InventoryMapper inventoryMapper;
+    private final WarehouseMapper warehouseMapper;
+    private final InventoryProperties inventoryProperties;
+    private final TransactionTemplate readOnlyTransaction;
+
+    private volatile Map<String, Map<String, Integer>> availableBySku = new ConcurrentHashMap<>();
+    private final Map<String, WarehouseStatus> warehouseStatuses = new ConcurrentHashMap<>();
+    private final Map<String, WarehouseType> warehouseTypes = new ConcurrentHashMap<>();
+
+    public WarehouseAvailabilityIndex(InventoryMapper inventoryMapper,
+                                      WarehouseMapper warehouseMapper,
+                                      InventoryProperties inventoryProperties,
+                                      PlatformTransactionManager transactionManager) {
+        this.inventoryMapper = inventoryMapper;
+        this.warehouseMapper = warehouseMapper;
+        this.inventoryProperties = inventoryProperties;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * 定时全量重建（启动后立即执行一次）
+     */
+    @Scheduled(initialDelay = 0, fixedDelayString = "${inventory.allocation.rebuild-interval-ms:60000}")
+    public void scheduledRebuild() {
+        if (!inventoryProperties.getAllocation().isEnabled()) {
+            return;
+        }
+        try {
+            rebuild();
+        } catch (Exception e) {
+            log.error("分仓索引重建失败，继续使用现有索引", e);
+        }
+    }
+
+    /**
+     * 全量重建：流式读取库存，构建完成后整体替换
+     * 重建期间到达的逐条更新可能被较旧的重建结果覆盖，由后续事件或下一次重建纠正
+     */
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        for (Warehouse warehouse : warehouseMapper.selectList(null)) {
+            updateWarehouse(warehouse.getWarehouseId(), warehouse.getStatus(), warehouse.getType());
+        }
+        Map<String, Map<String, Integer>> rebuilt = new ConcurrentHashMap<>();
+        int rows = readOnlyTransaction.execute(status -> {
+            int count = 0;
+            try (Cursor<WarehouseAvailabilityRow> cursor = inventoryMapper.streamWarehouseAvailability()) {
+                for (WarehouseAvailabilityRow row : cursor) {
+                    if (row.getAvailableQuantity() != null && row.getAvailableQuantity() > 0) {
+                        rebuilt.computeIfAbsent(row.getSkuId(), key -> new ConcurrentHashMap<>())
+                            .put(row.getWarehouseId(), row.getAvailableQuantity());
+                        count++;
+                    }
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return count;
+        });
+        availableBySku = rebuilt;
+        log.info("分仓索引重建完成: skus={}, rows={}, 耗时={}ms", rebuilt.size(), rows, System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 按最新库存刷新单条（可用量已含热点分桶和内存账本）
+     */
+    public void update(Inventory inventory) {
+        int available = inventory.getStatus() == InventoryStatus.NORMAL ? inventory.getAvailableQuantity() : 0;
+        update(inventory.getSkuId(), inventory.getWarehouseId(), available);
+    }
+
+    /**
+     * 刷新单条可用量，不大于 0 时移出索引
+     */
+    public void update(String skuId, String warehouseId, int available) {
+        Map<String, Map<String, Integer>> current = availableBySku;
+        if (available > 0) {
+            current.computeIfAbsent(skuId, key -> new ConcurrentHashMap<>()).put(warehouseId, available);
+        } else {
+            current.computeIfPresent(skuId, (key, warehouses) -> {
+                warehouses.remove(warehouseId);
+                return warehouses.isEmpty() ? null : warehouses;
+            });
+        }
+    }
+
+    /**
+     * 用数据库中的最新值替换某个 SKU 在所有仓库的可用量
+     */
+    @Override
+    public void replaceSku(String skuId, List<Inventory> inventories) {
+        Map<String, Integer> warehouses = new ConcurrentHashMap<>();
+        for (Inventory inventory : inventories) {
+            if (inventory.getStatus() == InventoryStatus.NORMAL && inventory.getAvailableQuantity() > 0) {
+                warehouses.put(inventory.getWarehouseId(), inventory.getAvailableQuantity());
+            }
+        }
+        if (warehouses.isEmpty()) {
+            availableBySku.remove(skuId);
+        } else {
+            availableBySku.put(skuId, warehouses);
+        }
+    }
+
+    /**
+     * 更新仓库状态和类型（类型为空时保留原值）
+     */
+    public void updateWarehouse(String warehouseId, WarehouseStatus status, WarehouseType type) {
+        if (status != null) {
+            warehouseStatuses.put(warehouseId, status);
+        }
+        if (type != null) {
+            warehouseTypes.put(warehouseId, type);
+        }
+    }
+
+    /**
+     * 某 SKU 在全部启用仓库中的可用量合计
+     */
+    @Override
+    public int totalAvailableOf(String skuId) {
+        Map<String, Integer> warehouses = availableBySku.get(skuId);
+        if (warehouses == null) {
+            return 0;
+        }
+        int total = 0;
+        for (Map.Entry<String, Integer> entry : warehouses.entrySet()) {
+            if (isActive(entry.getKey())) {
+                total += entry.getValue();
+            }
+        }
+        return total;
+    }
+
+    /**
+     * 某 SKU 在各仓库的可用量（只读视图，可能包含已停用的仓库）
+     */
+    public Map<String, Integer> availableOf(String skuId) {
+        Map<String, Integer> warehouses = availableBySku.get(skuId);
+        return warehouses == null ? Collections.emptyMap() : Collections.unmodifiableMap(warehouses);
+    }
+
+    /**
+     * 仓库是否可参与分仓：未登记状态的仓库（仅存在于库存表）视为可用
+     */
+    public boolean isActive(String warehouseId) {
+        return warehouseStatuses.getOrDefault(warehouseId, WarehouseStatus.ACTIVE) == WarehouseStatus.ACTIVE;
+    }
+
+    /**
+     * 仓库类型，未登记时为空
+     */
+    public WarehouseType typeOf(String warehouseId) {
+        return warehouseTypes.get(warehouseId);
+    }
+}
@@ -0,0 +1,14 @@
+package com.restaurant.management.inventory.infrastructure.allocation;
+
+import lombok.Data;
+
+/**
+ * 分仓索引重建读取的可用库存投影（主行 + 热点分桶合计）
+ */
+@Data
+public class WarehouseAvailabilityRow {
+
+    private String skuId;
+    private String warehouseId;
+    private Integer availableQuantity;
+}
@@ -0,0 +1,107 @@
+package com.restaurant.management.inventory.infrastructure.bucket;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.port.HotRowPort;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 热点库存检测
+ *
+ * 按窗口统计每个库存的条件更新争用次数和锁等待次数，超过阈值即判定为热点；
+ * 开启自动拆分时由 {@link InventoryBucketRouter} 拆分
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class HotRowDetector implements HotRowPort {
+
+    private final InventoryBucketRouter bucketRouter;
+    private final InventoryProperties inventoryProperties;
+
+    private final Map<InventoryKey, WindowCounters> window = new ConcurrentHashMap<>();
+
+    private volatile Set<InventoryKey> hotKeys = Set.of();
+
+    /**
+     * 记录一次条件更新争用（更新落空后重试）
+     */
+    @Override
+    public void recordContention(String skuId, String warehouseId) {
+        counters(skuId, warehouseId).contentions.increment();
+    }
+
+    /**
+     * 记录一次条件更新耗时，超过阈值计为锁等待
+     */
+    @Override
+    public void recordLatency(String skuId, String warehouseId, long elapsedMs) {
+        if (elapsedMs >= inventoryProperties.getHotRow().getLockWaitThresholdMs()) {
+            counters(skuId, warehouseId).lockWaits.increment();
+        }
+    }
+
+    /**
+     * 上一个窗口判定的热点库存
+     */
+    public Set<InventoryKey> getHotKeys() {
+        return hotKeys;
+    }
+
+    /**
+     * 结算窗口：判定热点并按配置自动拆分
+     */
+    @Scheduled(fixedDelayString = "${inventory.hot-row.detection-window-seconds:10}", timeUnit = TimeUnit.SECONDS)
+    public void evaluate() {
+        InventoryProperties.HotRow config = inventoryProperties.getHotRow();
+        Set<InventoryKey> detected = new HashSet<>();
+        for (InventoryKey key : window.keySet()) {
+            WindowCounters counters = window.remove(key);
+            if (counters == null) {
+                continue;
+            }
+            long contentions = counters.contentions.sum();
+            long lockWaits = counters.lockWaits.sum();
+            if (contentions >= config.getContentionThreshold() || lockWaits >= config.getLockWaitThreshold()) {
+                detected.add(key);
+                log.warn("检测到热点库存: key={}, contentions={}, lockWaits={}", key, contentions, lockWaits);
+            }
+        }
+        hotKeys = Set.copyOf(detected);
+
+        if (!config.isAutoSplit()) {
+            return;
+        }
+        for (InventoryKey key : detected) {
+            try {
+                if (!bucketRouter.isSplit(key.getSkuId(), key.getWarehouseId())) {
+                    bucketRouter.split(key.getSkuId(), key.getWarehouseId(), config.getBucketCount());
+                }
+            } catch (Exception e) {
+                log.error("自动拆分热点库存失败: key={}", key, e);
+            }
+        }
+    }
+
+    private WindowCounters counters(String skuId, String warehouseId) {
+        return window.computeIfAbsent(new InventoryKey(skuId, warehouseId), key -> new WindowCounters());
+    }
+
+    /**
+     * 单个库存的窗口计数
+     */
+    private static class WindowCounters {
+        private final LongAdder contentions = new LongAdder();
+        private final LongAdder lockWaits = new LongAdder();
+    }
+}
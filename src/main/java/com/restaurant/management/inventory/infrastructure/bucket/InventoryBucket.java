@@ -0,0 +1,21 @@
+package com.restaurant.management.inventory.infrastructure.bucket;
+
+import lombok.Data;
+
+/**
+ * 库存分桶行
+ * 主行参与跨桶分配时以 bucketNo = {@link #MAIN_ROW} 表示
+ */
+@Data
+public class InventoryBucket {
+
+    public static final int MAIN_ROW = -1;
+
+    private Long id;
+    private String skuId;
+    private String warehouseId;
+    private Integer bucketNo;
+    private Integer availableQuantity;
+    private Integer reservedQuantity;
+    private Integer occupiedQuantity;
+}
@@ -0,0 +1,371 @@
+package com.restaurant.management.inventory.infrastructure.bucket;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.port.InventoryBucketPort;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryBucketMapper;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 热点库存分桶路由
+ *
+ * 1. 拆分：把主行的可用库存平均分到 N 个分桶，主行只保留拆分前的预留/占用
+ * 2. 预留/释放/确认：按订单号哈希（或随机）选中一个分桶做条件 UPDATE，落空则依次尝试其它分桶
+ * 3. 单个分桶都不够时，按主行、分桶的顺序加锁，跨主行和分桶合并扣减
+ * 4. 合并：分桶数量加回主行并删除分桶
+ *
+ * 加锁顺序固定为先主行后分桶（分桶按序号），与单桶预留的 JOIN 一致，避免死锁
+ */
+@Slf4j
+@Component
+public class InventoryBucketRouter implements InventoryBucketPort {
+
+    public static final String ROUTE_FIRST = "first";
+    public static final String ROUTE_SIBLING = "sibling";
+    public static final String ROUTE_SPANNING = "spanning";
+    public static final String ROUTE_INSUFFICIENT = "insufficient";
+
+    private static final String ROUTING_RANDOM = "RANDOM";
+
+    private final InventoryBucketMapper bucketMapper;
+    private final InventoryProperties inventoryProperties;
+    private final InventoryMetrics inventoryMetrics;
+
+    /**
+     * 库存 -> 分桶数（0 表示未拆分）
+     */
+    private final Cache<InventoryKey, Integer> bucketCounts;
+
+    public InventoryBucketRouter(InventoryBucketMapper bucketMapper,
+                                 InventoryProperties inventoryProperties,
+                                 InventoryMetrics inventoryMetrics) {
+        this.bucketMapper = bucketMapper;
+        this.inventoryProperties = inventoryProperties;
+        this.inventoryMetrics = inventoryMetrics;
+        this.bucketCounts = Caffeine.newBuilder()
+            .maximumSize(10_000)
+            .expireAfterWrite(inventoryProperties.getHotRow().getBucketCacheSeconds(), TimeUnit.SECONDS)
+            .build();
+    }
+
+    /**
+     * 库存是否已拆分
+     */
+    @Override
+    public boolean isSplit(String skuId, String warehouseId) {
+        return bucketCount(new InventoryKey(skuId, warehouseId)) > 0;
+    }
+
+    /**
+     * 绕过缓存从数据库重新读取分桶数
+     * 拆分/合并只使执行节点的缓存失效，其它节点最长 bucketCacheSeconds 内仍按旧分桶数路由；
+     * 主行上的条件更新落空、即将判定数量不足之前调用，确认库存是否已被其它节点拆分
+     *
+     * @return 库存当前是否已拆分
+     */
+    @Override
+    public boolean refreshSplit(String skuId, String warehouseId) {
+        InventoryKey key = new InventoryKey(skuId, warehouseId);
+        bucketCounts.invalidate(key);
+        return bucketCount(key) > 0;
+    }
+
+    /**
+     * 预留（可用转预留）
+     */
+    @Override
+    public void reserve(String skuId, String warehouseId, int quantity, String orderId) {
+        move(Move.RESERVE, new InventoryKey(skuId, warehouseId), quantity, orderId);
+    }
+
+    /**
+     * 释放预留（预留转可用）
+     */
+    @Override
+    public void release(String skuId, String warehouseId, int quantity, String orderId) {
+        move(Move.RELEASE, new InventoryKey(skuId, warehouseId), quantity, orderId);
+    }
+
+    /**
+     * 确认预留（预留转占用）
+     */
+    @Override
+    public void confirm(String skuId, String warehouseId, int quantity, String orderId) {
+        move(Move.CONFIRM, new InventoryKey(skuId, warehouseId), quantity, orderId);
+    }
+
+    /**
+     * 用分桶合计补足主行数量
+     */
+    @Override
+    public Inventory overlay(Inventory inventory) {
+        InventoryBucket sum = bucketMapper.sumBuckets(inventory.getSkuId(), inventory.getWarehouseId());
+        inventory.setAvailableQuantity(inventory.getAvailableQuantity() + sum.getAvailableQuantity());
+        inventory.setReservedQuantity(inventory.getReservedQuantity() + sum.getReservedQuantity());
+        inventory.setOccupiedQuantity(inventory.getOccupiedQuantity() + sum.getOccupiedQuantity());
+        return inventory;
+    }
+
+    /**
+     * SKU 在所有仓库的分桶合计
+     */
+    public InventoryBucket sumBySkuId(String skuId) {
+        return bucketMapper.sumBucketsBySkuId(skuId);
+    }
+
+    /**
+     * 拆分热点库存
+     *
+     * @return 是否由本次调用拆分（已拆分时返回 false）
+     */
+    @Transactional
+    public boolean split(String skuId, String warehouseId, int bucketCount) {
+        if (bucketCount < 2) {
+            throw new IllegalArgumentException("分桶数必须大于1");
+        }
+        InventoryKey key = new InventoryKey(skuId, warehouseId);
+        Inventory inventory = lockRequiredInventory(key);
+        if (bucketMapper.countBuckets(skuId, warehouseId) > 0) {
+            return false;
+        }
+
+        int available = inventory.getAvailableQuantity();
+        List<InventoryBucket> buckets = new ArrayList<>(bucketCount);
+        for (int bucketNo = 0; bucketNo < bucketCount; bucketNo++) {
+            InventoryBucket bucket = newCell(key, bucketNo, 0, 0, 0);
+            bucket.setAvailableQuantity(available / bucketCount + (bucketNo < available % bucketCount ? 1 : 0));
+            buckets.add(bucket);
+        }
+        bucketMapper.insertBuckets(buckets);
+        bucketMapper.rebalanceInventoryCounters(newCell(key, InventoryBucket.MAIN_ROW,
+            0, inventory.getReservedQuantity(), inventory.getOccupiedQuantity()));
+
+        bucketCounts.invalidate(key);
+        inventoryMetrics.recordHotRow("split");
+        log.info("拆分热点库存: key={}, buckets={}, available={}", key, bucketCount, available);
+        return true;
+    }
+
+    /**
+     * 合并分桶回主行
+     *
+     * @return 是否由本次调用合并（未拆分时返回 false）
+     */
+    @Transactional
+    @Override
+    public boolean merge(String skuId, String warehouseId) {
+        InventoryKey key = new InventoryKey(skuId, warehouseId);
+        Inventory inventory = lockRequiredInventory(key);
+        List<InventoryBucket> buckets = bucketMapper.lockBuckets(skuId, warehouseId);
+        if (buckets.isEmpty()) {
+            return false;
+        }
+
+        InventoryBucket main = mainCell(key, inventory);
+        for (InventoryBucket bucket : buckets) {
+            main.setAvailableQuantity(main.getAvailableQuantity() + bucket.getAvailableQuantity());
+            main.setReservedQuantity(main.getReservedQuantity() + bucket.getReservedQuantity());
+            main.setOccupiedQuantity(main.getOccupiedQuantity() + bucket.getOccupiedQuantity());
+        }
+        bucketMapper.rebalanceInventoryCounters(main);
+        bucketMapper.deleteBuckets(skuId, warehouseId);
+
+        bucketCounts.invalidate(key);
+        inventoryMetrics.recordHotRow("merge");
+        log.info("合并热点库存分桶: key={}, buckets={}", key, buckets.size());
+        return true;
+    }
+
+    private void move(Move move, InventoryKey key, int quantity, String routingKey) {
+        int bucketCount = bucketCount(key);
+        int start = startBucket(routingKey, bucketCount);
+        for (int i = 0; i < bucketCount; i++) {
+            int bucketNo = (start + i) % bucketCount;
+            if (move.tryBucket(bucketMapper, key, bucketNo, quantity) == 1) {
+                inventoryMetrics.recordBucketRoute(move.operation, i == 0 ? ROUTE_FIRST : ROUTE_SIBLING);
+                return;
+            }
+        }
+        moveAcrossBuckets(move, key, quantity, start);
+    }
+
+    /**
+     * 锁定主行和全部分桶，从选中的分桶开始依次扣减，最后使用主行
+     */
+    private void moveAcrossBuckets(Move move, InventoryKey key, int quantity, int start) {
+        Inventory inventory = lockRequiredInventory(key);
+        if (move == Move.RESERVE && inventory.getStatus() == InventoryStatus.FROZEN) {
+            throw new IllegalStateException("库存已冻结，无法预留");
+        }
+        List<InventoryBucket> buckets = bucketMapper.lockBuckets(key.getSkuId(), key.getWarehouseId());
+
+        List<InventoryBucket> cells = new ArrayList<>(buckets.size() + 1);
+        for (int i = 0; i < buckets.size(); i++) {
+            cells.add(buckets.get((start + i) % buckets.size()));
+        }
+        cells.add(mainCell(key, inventory));
+
+        int total = cells.stream().mapToInt(move::source).sum();
+        if (total < quantity) {
+            inventoryMetrics.recordBucketRoute(move.operation, ROUTE_INSUFFICIENT);
+            throw new IllegalStateException(move.shortageMessage(quantity, total));
+        }
+
+        int remaining = quantity;
+        for (InventoryBucket cell : cells) {
+            int taken = Math.min(move.source(cell), remaining);
+            if (taken == 0) {
+                continue;
+            }
+            move.apply(cell, taken);
+            if (cell.getBucketNo() == InventoryBucket.MAIN_ROW) {
+                bucketMapper.updateInventoryCounters(cell);
+            } else {
+                bucketMapper.updateBucket(cell);
+            }
+            remaining -= taken;
+            if (remaining == 0) {
+                break;
+            }
+        }
+        inventoryMetrics.recordBucketRoute(move.operation, ROUTE_SPANNING);
+    }
+
+    private int bucketCount(InventoryKey key) {
+        return bucketCounts.get(key, k -> bucketMapper.countBuckets(k.getSkuId(), k.getWarehouseId()));
+    }
+
+    private int startBucket(String routingKey, int bucketCount) {
+        if (bucketCount <= 1) {
+            return 0;
+        }
+        if (ROUTING_RANDOM.equalsIgnoreCase(inventoryProperties.getHotRow().getRouting())) {
+            return ThreadLocalRandom.current().nextInt(bucketCount);
+        }
+        return (Objects.hashCode(routingKey) & Integer.MAX_VALUE) % bucketCount;
+    }
+
+    private Inventory lockRequiredInventory(InventoryKey key) {
+        Inventory inventory = bucketMapper.lockInventory(key.getSkuId(), key.getWarehouseId());
+        if (inventory == null) {
+            throw new IllegalArgumentException(
+                String.format("库存不存在: skuId=%s, warehouseId=%s", key.getSkuId(), key.getWarehouseId()));
+        }
+        return inventory;
+    }
+
+    private InventoryBucket mainCell(InventoryKey key, Inventory inventory) {
+        return newCell(key, InventoryBucket.MAIN_ROW, inventory.getAvailableQuantity(),
+            inventory.getReservedQuantity(), inventory.getOccupiedQuantity());
+    }
+
+    private InventoryBucket newCell(InventoryKey key, int bucketNo, int available, int reserved, int occupied) {
+        InventoryBucket cell = new InventoryBucket();
+        cell.setSkuId(key.getSkuId());
+        cell.setWarehouseId(key.getWarehouseId());
+        cell.setBucketNo(bucketNo);
+        cell.setAvailableQuantity(available);
+        cell.setReservedQuantity(reserved);
+        cell.setOccupiedQuantity(occupied);
+        return cell;
+    }
+
+    /**
+     * 数量搬移方向
+     */
+    private enum Move {
+        RESERVE("reserve") {
+            @Override
+            int tryBucket(InventoryBucketMapper mapper, InventoryKey key, int bucketNo, int quantity) {
+                return mapper.reserveInBucket(key.getSkuId(), key.getWarehouseId(), bucketNo, quantity);
+            }
+
+            @Override
+            int source(InventoryBucket cell) {
+                return cell.getAvailableQuantity();
+            }
+
+            @Override
+            void apply(InventoryBucket cell, int quantity) {
+                cell.setAvailableQuantity(cell.getAvailableQuantity() - quantity);
+                cell.setReservedQuantity(cell.getReservedQuantity() + quantity);
+            }
+
+            @Override
+            String shortageMessage(int quantity, int total) {
+                return String.format("可用库存不足，需要: %d, 可用: %d", quantity, total);
+            }
+        },
+        RELEASE("release") {
+            @Override
+            int tryBucket(InventoryBucketMapper mapper, InventoryKey key, int bucketNo, int quantity) {
+                return mapper.releaseInBucket(key.getSkuId(), key.getWarehouseId(), bucketNo, quantity);
+            }
+
+            @Override
+            int source(InventoryBucket cell) {
+                return cell.getReservedQuantity();
+            }
+
+            @Override
+            void apply(InventoryBucket cell, int quantity) {
+                cell.setReservedQuantity(cell.getReservedQuantity() - quantity);
+                cell.setAvailableQuantity(cell.getAvailableQuantity() + quantity);
+            }
+
+            @Override
+            String shortageMessage(int quantity, int total) {
+                return String.format("预留库存不足，需要释放: %d, 预留: %d", quantity, total);
+            }
+        },
+        CONFIRM("confirm") {
+            @Override
+            int tryBucket(InventoryBucketMapper mapper, InventoryKey key, int bucketNo, int quantity) {
+                return mapper.confirmInBucket(key.getSkuId(), key.getWarehouseId(), bucketNo, quantity);
+            }
+
+            @Override
+            int source(InventoryBucket cell) {
+                return cell.getReservedQuantity();
+            }
+
+            @Override
+            void apply(InventoryBucket cell, int quantity) {
+                cell.setReservedQuantity(cell.getReservedQuantity() - quantity);
+                cell.setOccupiedQuantity(cell.getOccupiedQuantity() + quantity);
+            }
+
+            @Override
+            String shortageMessage(int quantity, int total) {
+                return String.format("预留库存不足，需要确认: %d, 预留: %d", quantity, total);
+            }
+        };
+
+        private final String operation;
+
+        Move(String operation) {
+            this.operation = operation;
+        }
+
+        abstract int tryBucket(InventoryBucketMapper mapper, InventoryKey key, int bucketNo, int quantity);
+
+        abstract int source(InventoryBucket cell);
+
+        abstract void apply(InventoryBucket cell, int quantity);
+
+        abstract String shortageMessage(int quantity, int total);
+    }
+}
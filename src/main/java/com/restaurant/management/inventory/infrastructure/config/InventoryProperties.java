@@ -0,0 +1,623 @@
+package com.restaurant.management.inventory.infrastructure.config;
+
+import com.restaurant.management.inventory.domain.port.InventorySettings;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 库存模块配置属性
+ *
+ * 配置示例:
+ * inventory:
+ *   reservation:
+ *     atomic-update: true   # 使用条件 UPDATE 原子预留
+ *     max-attempts: 3       # 条件更新因并发变更落空时的最大尝试次数
+ *   ledger:
+ *     enabled: false        # 是否启用内存库存账本
+ *     warehouse-ids: [WH001] # 由内存账本接管预留的仓库
+ *     stripes: 64           # 分段锁数量
+ *     flush-interval-ms: 200 # 增量回写间隔
+ *   flash-sale:
+ *     sku-ids: [SKU001]     # 秒杀 SKU，是否生效由 traffic.split.features.inventory-flash-sale 控制
+ *   hot-row:
+ *     bucket-count: 8       # 热点库存拆分的分桶数
+ *     auto-split: false     # 检测到热点后自动拆分
+ *   expiry:
+ *     ttl-seconds: 1800     # 预留未确认/释放时自动释放的时间
+ *   read-cache:
+ *     max-staleness-ms: 5000 # 只读查询允许的最大陈旧度
+ *   replenishment:
+ *     enabled: false        # 定时补货/积压扫描
+ *     parallelism: 4        # 并行扫描的仓库数
+ *   allocation:
+ *     enabled: true         # 按内存索引为预留分仓
+ *     default-warehouse-id: DEFAULT_WAREHOUSE # 未启用分仓时的仓库、默认仓库查询
+ *     preferred-warehouse-ids: [WH001] # 优先分配的仓库
+ *   bulk-status:
+ *     chunk-size: 500       # 批量冻结/解冻每批的 SKU 数
+ *   journal:
+ *     enabled: true         # 记录库存流水
+ *     retention-days: 90    # 流水保留天数，更早的历史按快照粒度回答
+ *   summary:
+ *     enabled: true         # 按库存增量维护 SKU 汇总表
+ *     stripes: 4            # 每个 SKU 的汇总行数，分散热点 SKU 的并发更新
+ *   coalescer:
+ *     enabled: false        # 同一库存的并发预留合并为一个批次提交
+ *     window-micros: 1000   # 合并窗口
+ *   quota:
+ *     enabled: false        # 按节点租借库存配额，本地无锁预留
+ *     sku-ids: [SKU001]     # 使用配额租约的 SKU
+ *     lease-size: 50        # 每次租借的目标数量
+ *   event-coalescing:
+ *     enabled: true         # 单据执行的库存变更事件按库存合并为批量事件
+ *     max-changes-per-event: 200 # 每个批量事件包含的库存数上限
+ *   document-execution:
+ *     write-batch-size: 500 # 单据库存、明细批量写入时每条语句的行数
+ *     batch-parallelism: 4  # 批量审核/执行时并行处理的仓库分区数
+ *   document-counters:
+ *     enabled: true         # 按单据事件维护内存中的实时单据计数
+ *     rebuild-interval-ms: 60000 # 计数按一次分组统计全量重建的间隔
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "inventory")
+public class InventoryProperties implements InventorySettings {
+
+    /**
+     * 预留相关配置
+     */
+    private Reservation reservation = new Reservation();
+
+    /**
+     * 内存库存账本配置
+     */
+    private Ledger ledger = new Ledger();
+
+    /**
+     * 秒杀预扣配置
+     */
+    private FlashSale flashSale = new FlashSale();
+
+    /**
+     * 热点行拆分配置
+     */
+    private HotRow hotRow = new HotRow();
+
+    /**
+     * 预留过期配置
+     */
+    private Expiry expiry = new Expiry();
+
+    /**
+     * 库存读模型缓存配置
+     */
+    private ReadCache readCache = new ReadCache();
+
+    /**
+     * 补货扫描配置
+     */
+    private Replenishment replenishment = new Replenishment();
+
+    /**
+     * 分仓配置
+     */
+    private Allocation allocation = new Allocation();
+
+    /**
+     * 批量状态变更配置
+     */
+    private BulkStatus bulkStatus = new BulkStatus();
+
+    /**
+     * 库存流水配置
+     */
+    private Journal journal = new Journal();
+
+    /**
+     * SKU 库存汇总配置
+     */
+    private Summary summary = new Summary();
+
+    /**
+     * 预留组提交配置
+     */
+    private Coalescer coalescer = new Coalescer();
+
+    /**
+     * 节点库存配额租约配置
+     */
+    private Quota quota = new Quota();
+
+    /**
+     * 领域事件合并配置
+     */
+    private EventCoalescing eventCoalescing = new EventCoalescing();
+
+    /**
+     * 单据执行配置
+     */
+    private DocumentExecution documentExecution = new DocumentExecution();
+
+    /**
+     * 实时单据计数配置
+     */
+    private DocumentCounters documentCounters = new DocumentCounters();
+
+    @Override
+    public boolean isAtomicReservation() {
+        return reservation.isAtomicUpdate();
+    }
+
+    @Override
+    public int getReservationMaxAttempts() {
+        return reservation.getMaxAttempts();
+    }
+
+    @Override
+    public boolean isEventCoalescingEnabled() {
+        return eventCoalescing.isEnabled();
+    }
+
+    @Override
+    public int getMaxChangesPerEvent() {
+        return eventCoalescing.getMaxChangesPerEvent();
+    }
+
+    /**
+     * 预留配置
+     */
+    @Data
+    public static class Reservation {
+        /**
+         * 是否使用单条条件 UPDATE 完成预留/释放/确认
+         * false 时退回读取-修改-保存的方式
+         */
+        private boolean atomicUpdate = true;
+
+        /**
+         * 条件更新落空但复查发现条件已满足（并发变更）时的最大尝试次数
+         */
+        private int maxAttempts = 3;
+    }
+
+    /**
+     * 内存库存账本配置
+     * 热点仓库的预留/释放/确认在内存中完成，增量合并后定期回写 inventories
+     */
+    @Data
+    public static class Ledger {
+        /**
+         * 是否启用内存库存账本
+         */
+        private boolean enabled = false;
+
+        /**
+         * 由内存账本接管的仓库ID，未列出的仓库仍直接读写数据库
+         */
+        private Set<String> warehouseIds = new HashSet<>();
+
+        /**
+         * 分段锁数量，同一分段内的库存串行处理
+         */
+        private int stripes = 64;
+
+        /**
+         * 增量回写间隔（毫秒）
+         */
+        private long flushIntervalMs = 200;
+
+        /**
+         * 单条回写语句包含的最大库存行数
+         */
+        private int flushBatchSize = 200;
+
+        /**
+         * 本地日志目录，用于崩溃后恢复尚未回写的增量
+         */
+        private String journalDir = "data/inventory-ledger";
+
+        /**
+         * 每次追加日志后是否强制刷盘
+         */
+        private boolean fsync = true;
+
+        /**
+         * 节点标识，回写检查点按节点记录
+         */
+        private String nodeId = "default";
+    }
+
+    /**
+     * 秒杀预扣配置
+     * 秒杀 SKU 的预留在 Redis 中用 Lua 脚本原子预扣，再经发件箱异步回写数据库预留库存
+     */
+    @Data
+    public static class FlashSale {
+        /**
+         * 秒杀 SKU
+         */
+        private Set<String> skuIds = new HashSet<>();
+
+        /**
+         * 控制秒杀预扣开关的流量切分功能名，按 SKU 切分
+         */
+        private String featureName = "inventory-flash-sale";
+
+        /**
+         * 订单预扣标记的过期时间（秒），期间同一订单重复预扣视为幂等
+         */
+        private long orderMarkerTtlSeconds = 86400;
+    }
+
+    /**
+     * 热点行拆分配置
+     * 热点库存的可用库存拆分到 inventory_buckets 多行，预留按订单哈希分散到不同分桶
+     */
+    @Data
+    public static class HotRow {
+        /**
+         * 拆分的分桶数
+         */
+        private int bucketCount = 8;
+
+        /**
+         * 分桶路由：HASH 按订单号哈希，RANDOM 随机
+         */
+        private String routing = "HASH";
+
+        /**
+         * 分桶数缓存时间（秒），其它节点拆分/合并后最迟在此时间后感知
+         */
+        private long bucketCacheSeconds = 30;
+
+        /**
+         * 检测到热点后是否自动拆分
+         */
+        private boolean autoSplit = false;
+
+        /**
+         * 热点检测窗口（秒）
+         */
+        private long detectionWindowSeconds = 10;
+
+        /**
+         * 窗口内条件更新争用（落空后重试）次数达到此值判定为热点
+         */
+        private int contentionThreshold = 20;
+
+        /**
+         * 单次条件更新耗时超过此值（毫秒）计为一次锁等待
+         */
+        private long lockWaitThresholdMs = 50;
+
+        /**
+         * 窗口内锁等待次数达到此值判定为热点
+         */
+        private int lockWaitThreshold = 50;
+    }
+
+    /**
+     * 预留过期配置
+     * 预留记录写入 inventory_reservations，到期仍未确认/释放时由时间轮触发自动释放
+     */
+    @Data
+    public static class Expiry {
+        /**
+         * 是否记录预留并自动释放过期预留
+         */
+        private boolean enabled = true;
+
+        /**
+         * 预留有效期（秒）
+         */
+        private long ttlSeconds = 1800;
+
+        /**
+         * 时间轮刻度（毫秒），即过期检查间隔
+         */
+        private long tickMs = 1000;
+
+        /**
+         * 时间轮每层格数
+         */
+        private int wheelSize = 512;
+
+        /**
+         * 每批回查/释放的最大订单数
+         */
+        private int batchSize = 200;
+
+        /**
+         * 兜底扫描间隔（毫秒）
+         */
+        private long sweepIntervalMs = 60000;
+
+        /**
+         * 重建时间轮的分页大小
+         */
+        private int rebuildPageSize = 1000;
+    }
+
+    /**
+     * 库存读模型缓存配置
+     * 只读查询走两级缓存，由库存事件写穿更新；预留路径不受影响
+     */
+    @Data
+    public static class ReadCache {
+        /**
+         * 是否启用读模型缓存
+         */
+        private boolean enabled = true;
+
+        /**
+         * 缓存值允许的最大陈旧度（毫秒），超出后重新从数据库加载
+         */
+        private long maxStalenessMs = 5000;
+    }
+
+    /**
+     * 补货扫描配置
+     * 按仓库并行流式扫描 total_quantity 生成列（需要 sql/inventory_total_quantity.sql）
+     */
+    @Data
+    public static class Replenishment {
+        /**
+         * 是否启用定时扫描
+         */
+        private boolean enabled = false;
+
+        /**
+         * 定时扫描 cron 表达式
+         */
+        private String cron = "0 0 2 * * *";
+
+        /**
+         * 并行扫描的仓库数（每个仓库占用一个数据库连接）
+         */
+        private int parallelism = 4;
+    }
+
+    /**
+     * 分仓配置
+     * 预留前按内存中的分仓可用量索引为每个 SKU 选择仓库，必要时拆分到多个仓库
+     */
+    @Data
+    public static class Allocation {
+        /**
+         * 是否启用分仓，关闭时全部落在默认仓库
+         */
+        private boolean enabled = true;
+
+        /**
+         * 默认仓库（未启用分仓时的预留仓库、按 SKU 查询库存时的仓库、新商品建库存的仓库）
+         */
+        private String defaultWarehouseId = "DEFAULT_WAREHOUSE";
+
+        /**
+         * 优先分配的仓库，按列表顺序；未列出的仓库按类型（中央仓优先）和可用量排序
+         */
+        private List<String> preferredWarehouseIds = new ArrayList<>();
+
+        /**
+         * 单个 SKU 最多拆分到的仓库数
+         */
+        private int maxSplitWarehouses = 3;
+
+        /**
+         * 索引全量重建间隔（毫秒），即其它节点上的变更被感知的最长延迟
+         */
+        private long rebuildIntervalMs = 60000;
+    }
+
+    /**
+     * 批量状态变更配置
+     * 商品上下架时按批冻结/解冻库存，每批一个事务、一次加锁查询、一条 UPDATE 和一个汇总事件
+     */
+    @Data
+    public static class BulkStatus {
+        /**
+         * 每批的 SKU 数（一个 SKU 在多个仓库各有一行）
+         */
+        private int chunkSize = 500;
+    }
+
+    /**
+     * 库存流水配置
+     * 每次库存变更在同一事务中追加 inventory_journal，定期生成快照并删除快照已覆盖且超出保留期的流水
+     */
+    @Data
+    public static class Journal {
+        /**
+         * 是否记录库存流水（需要 sql/inventory_journal.sql）
+         */
+        private boolean enabled = true;
+
+        /**
+         * 快照生成间隔（毫秒）
+         */
+        private long snapshotIntervalMs = 300000;
+
+        /**
+         * 快照只覆盖写入超过此时间（秒）的流水，避免长事务晚提交的较小序号被跳过
+         */
+        private long settleSeconds = 300;
+
+        /**
+         * 流水保留天数，更早的时刻只能按快照粒度查询
+         */
+        private int retentionDays = 90;
+
+        /**
+         * 每批删除的流水条数
+         */
+        private int compactBatchSize = 5000;
+    }
+
+    /**
+     * SKU 库存汇总配置
+     * 库存增量与流水同一入口、同一事务累加到 inventory_sku_summary，查询汇总不再读取各仓库的库存行
+     */
+    @Data
+    public static class Summary {
+        /**
+         * 是否维护并读取汇总表（需要 sql/inventory_summary.sql）
+         * false 时汇总查询退回对 inventories + inventory_buckets 的 SQL 聚合
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每个 SKU 的汇总行数，每次写入随机落到其中一行，读取时求和
+         */
+        private int stripes = 4;
+
+        /**
+         * 批量查询时每条 SQL 的 SKU 数上限
+         */
+        private int queryChunkSize = 500;
+    }
+
+    /**
+     * 预留组提交配置
+     * 同一库存在窗口内的并发预留合并为一个事务、一条 UPDATE；窗口越大批次越大，单笔延迟也越高
+     * 内存账本接管的仓库和已拆分的热点库存不经过合并
+     */
+    @Data
+    public static class Coalescer {
+        /**
+         * 是否合并单 SKU 预留
+         */
+        private boolean enabled = false;
+
+        /**
+         * 合并窗口（微秒），领头请求等待该时长后提交批次
+         */
+        private long windowMicros = 1000;
+
+        /**
+         * 单个批次的最大请求数，满后到达的请求开启新批次
+         */
+        private int maxBatchSize = 64;
+
+        /**
+         * 等待批次提交的超时时间（毫秒）
+         */
+        private long waitTimeoutMs = 3000;
+    }
+
+    /**
+     * 节点库存配额租约配置
+     * 每个节点从库存行租借一段配额（计入 reserved_quantity），登记在 inventory_quota_leases 的本节点行上；
+     * 预留先扣本地计数器，再在同一事务中扣减本节点租约行，多实例之间不再争用同一库存行
+     */
+    @Data
+    public static class Quota {
+        /**
+         * 是否启用配额租约（需要 sql/inventory_quota_leases.sql）
+         */
+        private boolean enabled = false;
+
+        /**
+         * 使用配额租约的 SKU
+         */
+        private Set<String> skuIds = new HashSet<>();
+
+        /**
+         * 配额所在仓库，为空时使用 allocation.default-warehouse-id；租约 SKU 不参与分仓
+         */
+        private String warehouseId = "";
+
+        /**
+         * 节点标识，多实例部署时每个实例必须不同
+         */
+        private String nodeId = "default";
+
+        /**
+         * 每次租借的目标数量（本地余量补足到该值）
+         */
+        private int leaseSize = 50;
+
+        /**
+         * 本地余量低于 leaseSize 的该比例时由后台任务补租
+         */
+        private double lowWatermarkRatio = 0.25;
+
+        /**
+         * 租约有效期（秒），节点失联超过该时间后由其它节点回收
+         */
+        private long leaseTtlSeconds = 30;
+
+        /**
+         * 续约、补租、归还与回收的执行间隔（毫秒），应明显小于 leaseTtlSeconds
+         */
+        private long maintainIntervalMs = 5000;
+
+        /**
+         * 超过该时间（毫秒）无预留的租约归还给库存行
+         */
+        private long idleReturnMs = 60000;
+
+        /**
+         * 每轮回收的过期租约数上限
+         */
+        private int reclaimBatchSize = 100;
+    }
+
+    /**
+     * 领域事件合并配置
+     * 单据执行在一个事务内产生的库存数量变更事件按库存合并为 InventoryBatchChangedEvent，
+     * 一张 N 行单据写入发件箱的事件数从 N 降为 N / maxChangesPerEvent（向上取整）
+     */
+    @Data
+    public static class EventCoalescing {
+        /**
+         * 是否合并，false 时逐条发布聚合根产生的 InventoryChangedEvent
+         */
+        private boolean enabled = true;
+
+        /**
+         * 每个批量事件包含的库存数上限，避免单个事件超出发件箱 event_data 的列长度
+         */
+        private int maxChangesPerEvent = 200;
+    }
+
+    /**
+     * 单据执行配置
+     * 一张单据涉及的库存一次查询加载，在内存中完成全部变更后批量写回：
+     * 新建库存一条多行 INSERT，已有库存按版本号一条多行 UPDATE
+     */
+    @Data
+    public static class DocumentExecution {
+        /**
+         * 批量写回库存、批量写入单据明细时每条 INSERT/UPDATE/DELETE 语句的行数
+         */
+        private int writeBatchSize = 500;
+
+        /**
+         * 批量审核/执行时并行处理的分区数（按仓库分区，每个分区同一时刻占用一个数据库连接）
+         */
+        private int batchParallelism = 4;
+    }
+
+    /**
+     * 实时单据计数配置
+     * 看板的"当前"计数读内存，由单据事件增减，定期按一次分组统计重建兜底
+     */
+    @Data
+    public static class DocumentCounters {
+        /**
+         * 是否启用，关闭时实时计数退回按分组统计查询
+         */
+        private boolean enabled = true;
+
+        /**
+         * 全量重建间隔（毫秒），即其它节点上的单据变更、重复或丢失的事件被纠正的最长延迟
+         */
+        private long rebuildIntervalMs = 60000;
+    }
+}
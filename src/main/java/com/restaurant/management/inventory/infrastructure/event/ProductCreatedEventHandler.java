@@ -2,6 +2,7 @@ package com.restaurant.management.inventory.infrastructure.event;
 
 import com.restaurant.management.inventory.domain.model.Inventory;
 import com.restaurant.management.inventory.domain.service.InventoryDomainService;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
 import com.restaurant.management.product.domain.event.ProductCreatedEvent;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -24,6 +25,7 @@ import org.springframework.transaction.event.TransactionalEventListener;
 public class ProductCreatedEventHandler {
     
     private final InventoryDomainService inventoryDomainService;
+    private final InventoryProperties inventoryProperties;
     
     /**
      * 处理商品创建事件
@@ -39,8 +41,8 @@ public class ProductCreatedEventHandler {
             event.getSkus().forEach(skuSnapshot -> {
                 log.info("创建库存，SKU: {}, 初始库存: {}", skuSnapshot.getSkuId(), skuSnapshot.getInitialQuantity());
                 
-                // 获取默认仓库ID（实际项目中可能需要从配置中获取）
-                String defaultWarehouseId = "DEFAULT_WAREHOUSE";
+                // 新商品的库存建在默认仓库，其它仓库由入库单建立
+                String defaultWarehouseId = inventoryProperties.getAllocation().getDefaultWarehouseId();
                 
                 // 创建库存对象
                 Inventory inventory = Inventory.create(
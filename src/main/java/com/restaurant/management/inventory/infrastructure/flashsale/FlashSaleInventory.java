@@ -0,0 +1,270 @@
+package com.restaurant.management.inventory.infrastructure.flashsale;
+
+import com.restaurant.management.common.infrastructure.feature.TrafficSplitter;
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+import com.restaurant.management.inventory.domain.port.FlashSalePort;
+import com.restaurant.management.inventory.domain.repository.InventoryRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 秒杀库存预扣
+ *
+ * 1. 秒杀 SKU 首次预扣时，把数据库中的可用库存加载到 {@link FlashSaleStockStore}
+ * 2. 之后的预扣只在存储端原子扣减，不占用 inventories 行锁
+ * 3. 预扣成功后由调用方发布 FlashSaleReservedEvent，经发件箱异步回写数据库预留库存
+ * 4. 外层事务回滚时归还预扣
+ * 5. 回写前释放的订单只在存储端归还，并记录下来让之后到达的回写跳过；回写后释放先释放数据库再归还存储
+ *
+ * 秒杀期间存储中的余量即该库存的可用库存；在发件箱回写完成前不要卸载，否则重新加载会重复计算。
+ * 单据、冻结/解冻等直接修改库存行的操作在提交后把可用库存的变化量和冻结状态同步到存储，
+ * 不整体覆盖余量（数据库中的可用库存尚未扣除发件箱未回写的预扣）
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FlashSaleInventory implements FlashSalePort {
+
+    private static final String OPERATION_RESERVE = "reserve";
+
+    private final FlashSaleStockStore stockStore;
+    private final InventoryRepository inventoryRepository;
+    private final TrafficSplitter trafficSplitter;
+    private final InventoryProperties inventoryProperties;
+    private final InventoryMetrics inventoryMetrics;
+
+    /**
+     * SKU 是否走秒杀预扣（配置为秒杀 SKU 且流量切分命中，按 SKU 切分保证同一 SKU 只走一条路径）
+     */
+    @Override
+    public boolean handles(String skuId) {
+        InventoryProperties.FlashSale config = inventoryProperties.getFlashSale();
+        return config.getSkuIds().contains(skuId)
+            && trafficSplitter.shouldUseNewFeature(config.getFeatureName(), skuId);
+    }
+
+    /**
+     * 预扣秒杀库存
+     *
+     * @return 是否本次预扣；同一订单重复预扣返回 false
+     */
+    @Override
+    public boolean reserve(String skuId, String warehouseId, int quantity, String orderId) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("预留数量必须大于0");
+        }
+        InventoryKey key = new InventoryKey(skuId, warehouseId);
+        long result = stockStore.tryReserve(key, orderId, quantity);
+        if (result == FlashSaleStockStore.NOT_LOADED) {
+            loadFromDatabase(key);
+            result = stockStore.tryReserve(key, orderId, quantity);
+        }
+
+        if (result == FlashSaleStockStore.FROZEN) {
+            inventoryMetrics.recordFlashSale(OPERATION_RESERVE, InventoryMetrics.OUTCOME_FROZEN);
+            throw new IllegalStateException("库存已冻结，无法预留");
+        }
+        if (result == FlashSaleStockStore.DUPLICATE) {
+            inventoryMetrics.recordFlashSale(OPERATION_RESERVE, InventoryMetrics.OUTCOME_DUPLICATE);
+            log.info("秒杀库存重复预扣，忽略: key={}, orderId={}", key, orderId);
+            return false;
+        }
+        if (result == FlashSaleStockStore.INSUFFICIENT) {
+            inventoryMetrics.recordFlashSale(OPERATION_RESERVE, InventoryMetrics.OUTCOME_INSUFFICIENT);
+            throw new IllegalStateException(String.format("秒杀库存不足，需要: %d", quantity));
+        }
+        if (result < 0) {
+            inventoryMetrics.recordFlashSale(OPERATION_RESERVE, InventoryMetrics.OUTCOME_FAILURE);
+            throw new IllegalStateException(String.format("秒杀库存未加载: %s", key));
+        }
+
+        inventoryMetrics.recordFlashSale(OPERATION_RESERVE, InventoryMetrics.OUTCOME_SUCCESS);
+        releaseOnRollback(key, orderId, quantity);
+        return true;
+    }
+
+    /**
+     * 逐行预扣秒杀库存（全部成功或全部失败）
+     *
+     * @return 本次实际预扣的明细（不含重复预扣的明细）
+     */
+    @Override
+    public List<ReservationLine> reserveAll(List<ReservationLine> lines, String orderId) {
+        List<ReservationLine> reserved = new ArrayList<>(lines.size());
+        try {
+            for (ReservationLine line : lines) {
+                if (reserve(line.getSkuId(), line.getWarehouseId(), line.getQuantity(), orderId)) {
+                    reserved.add(line);
+                }
+            }
+        } catch (RuntimeException e) {
+            // 有事务时由回滚归还，没有事务时在此归还
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                reserved.forEach(line -> release(line.getSkuId(), line.getWarehouseId(), line.getQuantity(), orderId));
+            }
+            throw e;
+        }
+        return reserved;
+    }
+
+    /**
+     * 归还订单预扣的秒杀库存，订单未预扣或已归还时无副作用
+     */
+    @Override
+    public void release(String skuId, String warehouseId, int quantity, String orderId) {
+        InventoryKey key = new InventoryKey(skuId, warehouseId);
+        if (stockStore.release(key, orderId, quantity)) {
+            log.info("归还秒杀库存: key={}, quantity={}, orderId={}", key, quantity, orderId);
+        }
+    }
+
+    /**
+     * 订单预扣尚未回写数据库时只在存储端归还，之后到达的回写跳过
+     *
+     * @return 是否已归还
+     */
+    @Override
+    public boolean releaseBeforeWriteBack(String skuId, String warehouseId, int quantity, String orderId) {
+        InventoryKey key = new InventoryKey(skuId, warehouseId);
+        if (!stockStore.releaseBeforeWriteBack(key, orderId, quantity)) {
+            return false;
+        }
+        log.info("回写前归还秒杀库存: key={}, quantity={}, orderId={}", key, quantity, orderId);
+        return true;
+    }
+    
+    /**
+     * 回写前把订单标记置为已回写，回写事务回滚时恢复（发件箱重试时仍可被回写前释放）
+     *
+     * @return 是否需要回写
+     */
+    @Override
+    public boolean beginWriteBack(String skuId, String warehouseId, int quantity, String orderId) {
+        InventoryKey key = new InventoryKey(skuId, warehouseId);
+        if (!stockStore.markWrittenBack(key, orderId)) {
+            log.info("秒杀预扣已在回写前释放，跳过回写: key={}, orderId={}", key, orderId);
+            return false;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status == STATUS_ROLLED_BACK) {
+                        stockStore.unmarkWrittenBack(key, orderId, quantity);
+                    }
+                }
+            });
+        }
+        return true;
+    }
+    
+    /**
+     * 直接修改库存行前登记：记录秒杀 SKU 当前的可用库存与状态，
+     * 提交后按可用库存的变化量调整存储中的余量，并同步冻结状态
+     * 需在事务中、修改库存对象之前调用
+     */
+    @Override
+    public void syncOnCommit(List<Inventory> inventories) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        List<Inventory> tracked = new ArrayList<>();
+        List<Integer> availableBefore = new ArrayList<>();
+        List<InventoryStatus> statusBefore = new ArrayList<>();
+        for (Inventory inventory : inventories) {
+            if (isFlashSaleSku(inventory.getSkuId())) {
+                tracked.add(inventory);
+                availableBefore.add(inventory.getAvailableQuantity());
+                statusBefore.add(inventory.getStatus());
+            }
+        }
+        if (tracked.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                for (int i = 0; i < tracked.size(); i++) {
+                    Inventory inventory = tracked.get(i);
+                    InventoryKey key = InventoryKey.of(inventory);
+                    int delta = inventory.getAvailableQuantity() - availableBefore.get(i);
+                    if (delta != 0 && stockStore.adjust(key, delta)) {
+                        log.info("同步秒杀库存余量: key={}, delta={}", key, delta);
+                    }
+                    if (inventory.getStatus() != statusBefore.get(i)) {
+                        stockStore.setFrozen(key, inventory.getStatus() == InventoryStatus.FROZEN);
+                    }
+                }
+            }
+        });
+    }
+    
+    /**
+     * 批量变更状态时登记：提交后同步秒杀 SKU 的冻结状态
+     * 需在事务中调用
+     */
+    @Override
+    public void syncStatusOnCommit(List<InventoryKey> keys, InventoryStatus status) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        List<InventoryKey> tracked = keys.stream()
+            .filter(key -> isFlashSaleSku(key.getSkuId()))
+            .collect(Collectors.toList());
+        if (tracked.isEmpty()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                tracked.forEach(key -> stockStore.setFrozen(key, status == InventoryStatus.FROZEN));
+                log.info("同步秒杀库存冻结状态: keys={}, status={}", tracked, status);
+            }
+        });
+    }
+    
+    /**
+     * 配置为秒杀的 SKU，不看流量切分：切分变化后重新命中时存储中的状态仍须正确
+     */
+    private boolean isFlashSaleSku(String skuId) {
+        return inventoryProperties.getFlashSale().getSkuIds().contains(skuId);
+    }
+    
+    private void loadFromDatabase(InventoryKey key) {
+        Inventory inventory = inventoryRepository.findBySkuIdAndWarehouseId(key.getSkuId(), key.getWarehouseId())
+            .orElseThrow(() -> new IllegalArgumentException(
+                String.format("库存不存在: skuId=%s, warehouseId=%s", key.getSkuId(), key.getWarehouseId())));
+        if (inventory.getStatus() == InventoryStatus.FROZEN) {
+            throw new IllegalStateException("库存已冻结，无法预留");
+        }
+        if (stockStore.load(key, inventory.getAvailableQuantity())) {
+            log.info("加载秒杀库存: key={}, quantity={}", key, inventory.getAvailableQuantity());
+        }
+    }
+
+    private void releaseOnRollback(InventoryKey key, String orderId, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    stockStore.release(key, orderId, quantity);
+                }
+            }
+        });
+    }
+}
@@ -0,0 +1,89 @@
+package com.restaurant.management.inventory.infrastructure.flashsale;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+
+import java.util.Optional;
+
+/**
+ * 秒杀库存存储
+ * 预扣须在存储端原子完成：检查余量、扣减、记录订单标记三步不可被其它请求穿插
+ */
+public interface FlashSaleStockStore {
+    
+    /**
+     * 库存尚未加载
+     */
+    long NOT_LOADED = -1;
+    
+    /**
+     * 余量不足
+     */
+    long INSUFFICIENT = -2;
+    
+    /**
+     * 同一订单已预扣过该库存
+     */
+    long DUPLICATE = -3;
+    
+    /**
+     * 库存已冻结
+     */
+    long FROZEN = -4;
+    
+    /**
+     * 加载秒杀库存，已存在时不覆盖
+     * @return 是否由本次调用写入
+     */
+    boolean load(InventoryKey key, int quantity);
+    
+    /**
+     * 原子预扣，成功时清除该订单此前的回写前已释放记录
+     * @return 扣减后的余量（>= 0），或 NOT_LOADED / INSUFFICIENT / DUPLICATE / FROZEN
+     */
+    long tryReserve(InventoryKey key, String orderId, int quantity);
+    
+    /**
+     * 归还订单预扣的库存，订单标记不存在时不做任何修改
+     * @return 是否归还
+     */
+    boolean release(InventoryKey key, String orderId, int quantity);
+    
+    /**
+     * 订单预扣尚未回写数据库时归还：归还余量、删除订单标记并记录"回写前已释放"，之后的回写据此跳过；
+     * 订单标记不存在或已回写时不做任何修改
+     * @return 是否归还
+     */
+    boolean releaseBeforeWriteBack(InventoryKey key, String orderId, int quantity);
+    
+    /**
+     * 回写数据库前调用：订单在回写前已释放时返回 false（跳过回写，重复投递同样跳过），
+     * 否则把订单标记置为已回写（标记已过期时不做修改）并返回 true
+     */
+    boolean markWrittenBack(InventoryKey key, String orderId);
+    
+    /**
+     * 回写事务回滚时调用：已回写的订单标记恢复为未回写
+     */
+    void unmarkWrittenBack(InventoryKey key, String orderId, int quantity);
+    
+    /**
+     * 按增量调整余量；未加载时不做修改（下次加载读取数据库中的最新值）
+     * @return 是否调整
+     */
+    boolean adjust(InventoryKey key, int delta);
+    
+    /**
+     * 设置冻结标记，冻结期间预扣返回 FROZEN；与余量是否加载无关
+     */
+    void setFrozen(InventoryKey key, boolean frozen);
+    
+    /**
+     * 查询余量
+     */
+    Optional<Integer> remaining(InventoryKey key);
+    
+    /**
+     * 移除秒杀库存
+     */
+    void unload(InventoryKey key);
+}
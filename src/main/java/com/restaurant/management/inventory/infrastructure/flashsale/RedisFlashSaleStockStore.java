@@ -0,0 +1,208 @@
+package com.restaurant.management.inventory.infrastructure.flashsale;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import lombok.RequiredArgsConstructor;
+import org.springframework.data.redis.core.RedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 基于 Redis Lua 脚本的秒杀库存存储
+ * 
+ * KEYS:
+ * inventory:flash:stock:{skuId}@{warehouseId}               剩余秒杀库存
+ * inventory:flash:order:{orderId}:{skuId}@{warehouseId}     订单预扣标记（值为预扣数量，回写数据库后为 written-back，带过期时间）
+ * inventory:flash:released:{orderId}:{skuId}@{warehouseId}  回写前已释放记录（带过期时间）
+ * inventory:flash:frozen:{skuId}@{warehouseId}              冻结标记
+ */
+@Component
+@RequiredArgsConstructor
+public class RedisFlashSaleStockStore implements FlashSaleStockStore {
+    
+    private static final String STOCK_KEY_PREFIX = "inventory:flash:stock:";
+    private static final String ORDER_KEY_PREFIX = "inventory:flash:order:";
+    private static final String RELEASED_KEY_PREFIX = "inventory:flash:released:";
+    private static final String FROZEN_KEY_PREFIX = "inventory:flash:frozen:";
+    
+    /**
+     * ARGV[1] 预扣数量，ARGV[2] 订单标记过期秒数
+     */
+    private static final RedisScript<Long> RESERVE_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call('EXISTS', KEYS[3]) == 1 then
+            return -4
+        end
+        local stock = redis.call('GET', KEYS[1])
+        if not stock then
+            return -1
+        end
+        if redis.call('EXISTS', KEYS[2]) == 1 then
+            return -3
+        end
+        local quantity = tonumber(ARGV[1])
+        stock = tonumber(stock)
+        if stock < quantity then
+            return -2
+        end
+        redis.call('DECRBY', KEYS[1], quantity)
+        redis.call('SET', KEYS[2], quantity, 'EX', tonumber(ARGV[2]))
+        redis.call('DEL', KEYS[4])
+        return stock - quantity
+        """, Long.class);
+    
+    /**
+     * ARGV[1] 归还数量；订单标记存在才归还，保证重复归还无副作用
+     */
+    private static final RedisScript<Long> RELEASE_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call('DEL', KEYS[2]) == 0 then
+            return 0
+        end
+        if redis.call('EXISTS', KEYS[1]) == 1 then
+            redis.call('INCRBY', KEYS[1], tonumber(ARGV[1]))
+        end
+        return 1
+        """, Long.class);
+    
+    /**
+     * ARGV[1] 归还数量，ARGV[2] 释放记录过期秒数；订单标记存在且尚未回写才归还
+     */
+    private static final RedisScript<Long> RELEASE_BEFORE_WRITE_BACK_SCRIPT = new DefaultRedisScript<>("""
+        local marker = redis.call('GET', KEYS[2])
+        if not marker or marker == 'written-back' then
+            return 0
+        end
+        redis.call('DEL', KEYS[2])
+        if redis.call('EXISTS', KEYS[1]) == 1 then
+            redis.call('INCRBY', KEYS[1], tonumber(ARGV[1]))
+        end
+        redis.call('SET', KEYS[3], 1, 'EX', tonumber(ARGV[2]))
+        return 1
+        """, Long.class);
+    
+    /**
+     * 有回写前已释放记录时返回 0（保留记录，重复投递的回写同样跳过）；否则保留过期时间把订单标记置为已回写
+     */
+    private static final RedisScript<Long> MARK_WRITTEN_BACK_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call('EXISTS', KEYS[2]) == 1 then
+            return 0
+        end
+        local ttl = redis.call('PTTL', KEYS[1])
+        if ttl > 0 then
+            redis.call('SET', KEYS[1], 'written-back', 'PX', ttl)
+        end
+        return 1
+        """, Long.class);
+    
+    /**
+     * ARGV[1] 预扣数量；只恢复已回写的订单标记
+     */
+    private static final RedisScript<Long> UNMARK_WRITTEN_BACK_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call('GET', KEYS[1]) ~= 'written-back' then
+            return 0
+        end
+        local ttl = redis.call('PTTL', KEYS[1])
+        if ttl > 0 then
+            redis.call('SET', KEYS[1], ARGV[1], 'PX', ttl)
+        end
+        return 1
+        """, Long.class);
+    
+    /**
+     * ARGV[1] 增量；未加载时不写入，避免用增量覆盖尚未加载的余量
+     */
+    private static final RedisScript<Long> ADJUST_SCRIPT = new DefaultRedisScript<>("""
+        if redis.call('EXISTS', KEYS[1]) == 0 then
+            return 0
+        end
+        redis.call('INCRBY', KEYS[1], tonumber(ARGV[1]))
+        return 1
+        """, Long.class);
+    
+    private final RedisTemplate<String, Object> redisTemplate;
+    private final InventoryProperties inventoryProperties;
+    
+    @Override
+    public boolean load(InventoryKey key, int quantity) {
+        return Boolean.TRUE.equals(redisTemplate.opsForValue().setIfAbsent(stockKey(key), quantity));
+    }
+    
+    @Override
+    public long tryReserve(InventoryKey key, String orderId, int quantity) {
+        Long result = redisTemplate.execute(RESERVE_SCRIPT,
+            List.of(stockKey(key), orderKey(key, orderId), frozenKey(key), releasedKey(key, orderId)),
+            quantity, inventoryProperties.getFlashSale().getOrderMarkerTtlSeconds());
+        return result == null ? NOT_LOADED : result;
+    }
+    
+    @Override
+    public boolean release(InventoryKey key, String orderId, int quantity) {
+        Long result = redisTemplate.execute(RELEASE_SCRIPT, List.of(stockKey(key), orderKey(key, orderId)), quantity);
+        return result != null && result == 1L;
+    }
+    
+    @Override
+    public boolean releaseBeforeWriteBack(InventoryKey key, String orderId, int quantity) {
+        Long result = redisTemplate.execute(RELEASE_BEFORE_WRITE_BACK_SCRIPT,
+            List.of(stockKey(key), orderKey(key, orderId), releasedKey(key, orderId)),
+            quantity, inventoryProperties.getFlashSale().getOrderMarkerTtlSeconds());
+        return result != null && result == 1L;
+    }
+    
+    @Override
+    public boolean markWrittenBack(InventoryKey key, String orderId) {
+        Long result = redisTemplate.execute(MARK_WRITTEN_BACK_SCRIPT,
+            List.of(orderKey(key, orderId), releasedKey(key, orderId)));
+        return result == null || result == 1L;
+    }
+    
+    @Override
+    public void unmarkWrittenBack(InventoryKey key, String orderId, int quantity) {
+        redisTemplate.execute(UNMARK_WRITTEN_BACK_SCRIPT, List.of(orderKey(key, orderId)), quantity);
+    }
+    
+    @Override
+    public boolean adjust(InventoryKey key, int delta) {
+        Long result = redisTemplate.execute(ADJUST_SCRIPT, List.of(stockKey(key)), delta);
+        return result != null && result == 1L;
+    }
+    
+    @Override
+    public void setFrozen(InventoryKey key, boolean frozen) {
+        if (frozen) {
+            redisTemplate.opsForValue().set(frozenKey(key), 1);
+        } else {
+            redisTemplate.delete(frozenKey(key));
+        }
+    }
+    
+    @Override
+    public Optional<Integer> remaining(InventoryKey key) {
+        Object value = redisTemplate.opsForValue().get(stockKey(key));
+        return Optional.ofNullable(value).map(v -> ((Number) v).intValue());
+    }
+    
+    @Override
+    public void unload(InventoryKey key) {
+        redisTemplate.delete(stockKey(key));
+    }
+    
+    private String stockKey(InventoryKey key) {
+        return STOCK_KEY_PREFIX + key;
+    }
+    
+    private String orderKey(InventoryKey key, String orderId) {
+        return ORDER_KEY_PREFIX + orderId + ":" + key;
+    }
+    
+    private String releasedKey(InventoryKey key, String orderId) {
+        return RELEASED_KEY_PREFIX + orderId + ":" + key;
+    }
+    
+    private String frozenKey(InventoryKey key) {
+        return FROZEN_KEY_PREFIX + key;
+    }
+}
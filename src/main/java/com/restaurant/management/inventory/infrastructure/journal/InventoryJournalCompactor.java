@@ -0,0 +1,82 @@
+package com.restaurant.management.inventory.infrastructure.journal;
+
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryJournalMapper;
+import com.restaurant.management.inventory.infrastructure.mapper.InventorySnapshotMapper;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存流水快照与压缩
+ *
+ * 快照：截止时间 cutoff = 当前时间 - settleSeconds，取不晚于 cutoff 写入的最大流水序号作为本轮上界，
+ * 在上一轮快照的基础上累加 (上一轮序号, 本轮上界] 的增量。自增序号按插入分配、按提交可见，
+ * 留出 settleSeconds 的余量，避免长事务晚提交的较小序号落在已生成的快照之前
+ *
+ * 压缩：截止时间早于保留期的快照轮次已覆盖的流水可以删除，分批删除避免长事务和大量 undo
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryJournalCompactor {
+
+    private final InventoryJournalMapper journalMapper;
+    private final InventorySnapshotMapper snapshotMapper;
+    private final InventoryProperties inventoryProperties;
+
+    @Scheduled(fixedDelayString = "${inventory.journal.snapshot-interval-ms:300000}")
+    public void scheduledRun() {
+        if (!inventoryProperties.getJournal().isEnabled()) {
+            return;
+        }
+        try {
+            snapshot();
+            compact();
+        } catch (Exception e) {
+            log.error("库存流水快照/压缩失败", e);
+        }
+    }
+
+    /**
+     * 生成一轮快照
+     * @return 新增快照行数
+     */
+    public int snapshot() {
+        LocalDateTime cutoff = LocalDateTime.now().minusSeconds(inventoryProperties.getJournal().getSettleSeconds());
+        Long upToId = journalMapper.selectMaxIdBefore(cutoff);
+        long fromId = snapshotMapper.selectLastJournalId();
+        if (upToId == null || upToId <= fromId) {
+            return 0;
+        }
+        int rows = snapshotMapper.insertRound(fromId, upToId, cutoff);
+        log.info("生成库存快照，流水区间: ({}, {}], 库存数: {}", fromId, upToId, rows);
+        return rows;
+    }
+
+    /**
+     * 删除已被快照覆盖且超出保留期的流水
+     * @return 删除条数
+     */
+    public int compact() {
+        InventoryProperties.Journal config = inventoryProperties.getJournal();
+        Long upToId = snapshotMapper.selectLastJournalIdBefore(LocalDateTime.now().minusDays(config.getRetentionDays()));
+        if (upToId == null || upToId <= 0) {
+            return 0;
+        }
+        int batchSize = Math.max(1, config.getCompactBatchSize());
+        int total = 0;
+        int deleted;
+        do {
+            deleted = journalMapper.deleteUpTo(upToId, batchSize);
+            total += deleted;
+        } while (deleted == batchSize);
+        if (total > 0) {
+            log.info("压缩库存流水，删除序号不大于 {} 的流水: {} 条", upToId, total);
+        }
+        return total;
+    }
+}
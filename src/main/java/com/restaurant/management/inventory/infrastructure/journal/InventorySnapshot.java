@@ -0,0 +1,34 @@
+package com.restaurant.management.inventory.infrastructure.journal;
+
+import com.baomidou.mybatisplus.annotation.IdType;
+import com.baomidou.mybatisplus.annotation.TableId;
+import com.baomidou.mybatisplus.annotation.TableName;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存快照
+ * 截至 lastJournalId（含）的全部流水累计后的数量；asOfTime 为该轮快照的截止时间
+ */
+@Data
+@TableName("inventory_snapshots")
+public class InventorySnapshot {
+
+    @TableId(value = "id", type = IdType.AUTO)
+    private Long id;
+
+    private String skuId;
+
+    private String warehouseId;
+
+    private Integer availableQuantity;
+
+    private Integer reservedQuantity;
+
+    private Integer occupiedQuantity;
+
+    private Long lastJournalId;
+
+    private LocalDateTime asOfTime;
+}
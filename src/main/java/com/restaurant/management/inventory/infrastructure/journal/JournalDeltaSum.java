@@ -0,0 +1,15 @@
+package com.restaurant.management.inventory.infrastructure.journal;
+
+import lombok.Data;
+
+/**
+ * 一段流水的增量合计
+ */
+@Data
+public class JournalDeltaSum {
+
+    private long entries;
+    private int availableDelta;
+    private int reservedDelta;
+    private int occupiedDelta;
+}
@@ -0,0 +1,588 @@
+package com.restaurant.management.inventory.infrastructure.ledger;
+
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+import com.restaurant.management.inventory.domain.port.InventoryLedgerPort;
+import com.restaurant.management.inventory.domain.repository.InventoryRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * 内存库存账本（按仓库启用）
+ *
+ * 1. 热点库存首次访问时从数据库加载到内存槽位，之后的预留/释放/确认直接在槽位中的聚合根上执行，
+ *    沿用聚合根的校验规则和领域事件，不访问数据库
+ * 2. 槽位按分段锁保护，不同分段的库存互不阻塞
+ * 3. 每次变更先追加本地日志再计入待回写增量；定时任务合并增量后单条语句回写 inventories，
+ *    并在同一个独立事务中推进检查点
+ * 4. 启动时重放检查点之后的日志，补回崩溃前未回写的增量
+ * 5. 外层事务回滚时按反向增量撤销内存变更
+ *
+ * 启用账本的仓库，其库存行的数量字段应只经由账本修改；其它写入路径需先调用 {@link #evict}
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryLedger implements InventoryLedgerPort {
+
+    private final InventoryRepository inventoryRepository;
+    private final InventoryLedgerWriter ledgerWriter;
+    private final InventoryProperties inventoryProperties;
+    private final InventoryMetrics inventoryMetrics;
+
+    private final Map<InventoryKey, Slot> slots = new ConcurrentHashMap<>();
+
+    /**
+     * 已移出内存但尚未回写的增量
+     */
+    private final Map<InventoryKey, LedgerDelta> detached = new ConcurrentHashMap<>();
+
+    /**
+     * 变更持有读锁，回写切换批次时持有写锁，保证检查点序号之前的增量全部进入本批
+     */
+    private final ReentrantReadWriteLock flushGate = new ReentrantReadWriteLock();
+
+    private ReentrantLock[] stripes;
+    private LedgerJournal journal;
+
+    @PostConstruct
+    public void start() throws IOException {
+        InventoryProperties.Ledger config = inventoryProperties.getLedger();
+        if (!config.isEnabled()) {
+            return;
+        }
+        stripes = new ReentrantLock[Math.max(1, config.getStripes())];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new ReentrantLock();
+        }
+        journal = new LedgerJournal(Paths.get(config.getJournalDir()), config.isFsync());
+        recover(config.getNodeId());
+        log.info("内存库存账本已启用: warehouses={}, stripes={}", config.getWarehouseIds(), stripes.length);
+    }
+
+    @PreDestroy
+    public void stop() throws IOException {
+        if (journal == null) {
+            return;
+        }
+        flush();
+        journal.close();
+    }
+
+    /**
+     * 指定仓库是否由内存账本接管
+     */
+    @Override
+    public boolean handles(String warehouseId) {
+        return journal != null && inventoryProperties.getLedger().getWarehouseIds().contains(warehouseId);
+    }
+
+    /**
+     * 在内存槽位上执行单个库存的变更
+     *
+     * @param operation 对聚合根的操作，抛出异常时槽位保持原状
+     * @return 变更后的库存快照，携带本次产生的领域事件
+     */
+    @Override
+    public Inventory apply(String skuId, String warehouseId, Consumer<Inventory> operation) {
+        InventoryKey key = new InventoryKey(skuId, warehouseId);
+        LedgerDelta delta;
+        Inventory snapshot;
+        flushGate.readLock().lock();
+        ReentrantLock stripe = stripeOf(key);
+        stripe.lock();
+        try {
+            Slot slot = loadSlot(key);
+            int[] before = slot.counters();
+            try {
+                operation.accept(slot.inventory);
+            } catch (RuntimeException e) {
+                slot.restore(before);
+                throw e;
+            }
+            delta = slot.diff(before);
+            appendOrRestore(List.of(delta), List.of(slot), List.of(before));
+            slot.addPending(delta);
+            snapshot = slot.snapshot();
+        } finally {
+            stripe.unlock();
+            flushGate.readLock().unlock();
+        }
+        revertOnRollback(List.of(delta));
+        return snapshot;
+    }
+
+    /**
+     * 在内存槽位上执行多个库存的变更（全部成功或全部失败）
+     * 按分段序号依次加锁，避免并发批量操作互相等待
+     *
+     * @param lines 已按库存合并的明细
+     * @return 变更后的库存快照，与明细顺序一致
+     */
+    @Override
+    public List<Inventory> applyAll(List<ReservationLine> lines, BiConsumer<Inventory, ReservationLine> operation) {
+        TreeSet<Integer> stripeIndexes = new TreeSet<>();
+        for (ReservationLine line : lines) {
+            stripeIndexes.add(stripeIndex(new InventoryKey(line.getSkuId(), line.getWarehouseId())));
+        }
+
+        List<LedgerDelta> deltas = new ArrayList<>(lines.size());
+        List<Inventory> snapshots = new ArrayList<>(lines.size());
+        flushGate.readLock().lock();
+        stripeIndexes.forEach(index -> stripes[index].lock());
+        try {
+            List<Slot> touched = new ArrayList<>(lines.size());
+            List<int[]> befores = new ArrayList<>(lines.size());
+            try {
+                for (ReservationLine line : lines) {
+                    Slot slot = loadSlot(new InventoryKey(line.getSkuId(), line.getWarehouseId()));
+                    touched.add(slot);
+                    befores.add(slot.counters());
+                    operation.accept(slot.inventory, line);
+                }
+            } catch (RuntimeException e) {
+                restoreAll(touched, befores);
+                throw e;
+            }
+            for (int i = 0; i < touched.size(); i++) {
+                deltas.add(touched.get(i).diff(befores.get(i)));
+            }
+            appendOrRestore(deltas, touched, befores);
+            for (int i = 0; i < touched.size(); i++) {
+                touched.get(i).addPending(deltas.get(i));
+                snapshots.add(touched.get(i).snapshot());
+            }
+        } finally {
+            stripeIndexes.descendingSet().forEach(index -> stripes[index].unlock());
+            flushGate.readLock().unlock();
+        }
+        revertOnRollback(deltas);
+        return snapshots;
+    }
+
+    /**
+     * 用内存中的最新数量覆盖从数据库读取的库存
+     * 库存尚未加载到内存时原样返回
+     */
+    @Override
+    public Inventory overlay(Inventory inventory) {
+        InventoryKey key = InventoryKey.of(inventory);
+        ReentrantLock stripe = stripeOf(key);
+        stripe.lock();
+        try {
+            Slot slot = slots.get(key);
+            if (slot != null) {
+                inventory.setAvailableQuantity(slot.inventory.getAvailableQuantity());
+                inventory.setReservedQuantity(slot.inventory.getReservedQuantity());
+                inventory.setOccupiedQuantity(slot.inventory.getOccupiedQuantity());
+                inventory.setStatus(slot.inventory.getStatus());
+            }
+            return inventory;
+        } finally {
+            stripe.unlock();
+        }
+    }
+
+    /**
+     * 将库存移出内存并立即回写其增量
+     * 其它路径直接修改该库存行之前调用，之后的账本操作会重新从数据库加载
+     */
+    @Override
+    public void evict(String skuId, String warehouseId) {
+        evictAll(List.of(new InventoryKey(skuId, warehouseId)));
+    }
+
+    /**
+     * 批量移出内存槽位，只回写一次
+     * 不由账本接管的仓库忽略
+     */
+    @Override
+    public void evictAll(Collection<InventoryKey> keys) {
+        if (journal == null) {
+            return;
+        }
+        Set<InventoryKey> handled = new HashSet<>();
+        for (InventoryKey key : keys) {
+            if (handles(key.getWarehouseId())) {
+                handled.add(key);
+            }
+        }
+        if (!handled.isEmpty()) {
+            evictNow(() -> handled);
+        }
+    }
+
+    /**
+     * 移出一批 SKU 在所有仓库的内存槽位（调用方不知道具体仓库时使用，如批量状态变更）
+     */
+    @Override
+    public void evictSkus(Collection<String> skuIds) {
+        if (journal == null) {
+            return;
+        }
+        Set<String> skus = new HashSet<>(skuIds);
+        evictNow(() -> keysOf(skus));
+    }
+
+    /**
+     * 移出并立即回写；回写失败时抛出异常，调用方不能在缺少这些增量的库存行上继续写入
+     * 外层事务结束后再移出一次：直接写入提交前被重新加载的槽位读到的是旧行
+     */
+    private void evictNow(Supplier<Collection<InventoryKey>> keys) {
+        if (detach(keys.get()) && !flushPending()) {
+            throw new IllegalStateException("内存库存账本回写失败，暂不能直接修改库存");
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    detach(keys.get());
+                }
+            });
+        }
+    }
+
+    /**
+     * 移出槽位，未回写的增量转入 detached，由回写统一写入
+     *
+     * @return 这些库存是否有未回写的增量
+     */
+    private boolean detach(Collection<InventoryKey> keys) {
+        boolean pending = false;
+        flushGate.writeLock().lock();
+        try {
+            for (InventoryKey key : keys) {
+                Slot slot = slots.remove(key);
+                if (slot != null && !slot.pending.isEmpty()) {
+                    detached.merge(key, slot.pending, LedgerDelta::plus);
+                }
+                pending |= detached.containsKey(key);
+            }
+        } finally {
+            flushGate.writeLock().unlock();
+        }
+        return pending;
+    }
+
+    private List<InventoryKey> keysOf(Set<String> skuIds) {
+        List<InventoryKey> keys = new ArrayList<>();
+        for (InventoryKey key : slots.keySet()) {
+            if (skuIds.contains(key.getSkuId())) {
+                keys.add(key);
+            }
+        }
+        for (InventoryKey key : detached.keySet()) {
+            if (skuIds.contains(key.getSkuId())) {
+                keys.add(key);
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 合并待回写增量并写入数据库
+     * 回写失败时增量退回槽位，由下一次回写重试
+     */
+    @Scheduled(fixedDelayString = "${inventory.ledger.flush-interval-ms:200}")
+    public void flush() {
+        flushPending();
+    }
+
+    /**
+     * 回写在独立事务中提交，不随调用方（如移出槽位的业务事务）回滚；
+     * 提交成功后才删除对应的日志分段
+     *
+     * @return 是否全部回写成功（没有待回写增量也视为成功）
+     */
+    private synchronized boolean flushPending() {
+        if (journal == null) {
+            return true;
+        }
+
+        List<LedgerDelta> batch = new ArrayList<>();
+        long upToSeq;
+        flushGate.writeLock().lock();
+        try {
+            upToSeq = journal.rotate();
+            for (Slot slot : slots.values()) {
+                if (!slot.pending.isEmpty()) {
+                    batch.add(slot.pending);
+                    slot.pending = LedgerDelta.zero(slot.key);
+                }
+            }
+            batch.addAll(detached.values());
+            detached.clear();
+        } catch (IOException e) {
+            log.error("切换库存账本日志分段失败", e);
+            return false;
+        } finally {
+            flushGate.writeLock().unlock();
+        }
+
+        if (batch.isEmpty()) {
+            journal.deleteSegmentsUpTo(upToSeq);
+            return true;
+        }
+
+        try {
+            List<LedgerDelta> rejected = ledgerWriter.write(batch, inventoryProperties.getLedger().getNodeId(), upToSeq);
+            if (!rejected.isEmpty()) {
+                holdBack(rejected);
+            }
+            journal.deleteSegmentsUpTo(upToSeq);
+            inventoryMetrics.recordLedgerFlush(InventoryMetrics.OUTCOME_SUCCESS, batch.size() - rejected.size());
+            log.debug("内存库存账本回写完成: rows={}, upToSeq={}", batch.size(), upToSeq);
+            return true;
+        } catch (RuntimeException e) {
+            inventoryMetrics.recordLedgerFlush(InventoryMetrics.OUTCOME_FAILURE, batch.size());
+            log.error("内存库存账本回写失败，增量将在下次回写时重试: rows={}", batch.size(), e);
+            requeue(batch);
+            return false;
+        }
+    }
+
+    /**
+     * 重放检查点之后的本地日志并回写，随后从最大序号继续编号
+     */
+    private void recover(String nodeId) throws IOException {
+        long checkpoint = ledgerWriter.loadCheckpoint(nodeId);
+        Map<InventoryKey, LedgerDelta> unflushed = new LinkedHashMap<>();
+        long lastSeq = journal.replay(checkpoint, delta -> unflushed.merge(delta.key(), delta, LedgerDelta::plus));
+        unflushed.values().removeIf(LedgerDelta::isEmpty);
+        List<LedgerDelta> rejected = List.of();
+        if (!unflushed.isEmpty()) {
+            rejected = ledgerWriter.write(new ArrayList<>(unflushed.values()), nodeId, lastSeq);
+            log.warn("内存库存账本从本地日志恢复未回写增量: rows={}, checkpoint={}, lastSeq={}",
+                unflushed.size(), checkpoint, lastSeq);
+        }
+        journal.open(lastSeq);
+        if (!rejected.isEmpty()) {
+            holdBack(rejected);
+        }
+    }
+
+    /**
+     * 保留回写后数量会为负（或库存行已不存在）的增量，由之后的回写重试，例如入库补足库存之后
+     * 检查点已越过这些增量原来的日志，重新追加到本地日志，节点重启后仍能恢复；
+     * 槽位数量仍包含这些增量，可用数量为负时预留会被聚合根拒绝
+     */
+    private void holdBack(List<LedgerDelta> rejected) {
+        inventoryMetrics.recordLedgerFlush(InventoryMetrics.OUTCOME_INSUFFICIENT, rejected.size());
+        log.error("内存库存账本增量回写后数量为负或库存不存在，暂不回写: deltas={}", rejected);
+        flushGate.readLock().lock();
+        try {
+            journal.append(rejected);
+        } catch (IOException e) {
+            log.error("重新写入库存账本日志失败，节点重启前未回写的增量会丢失: deltas={}", rejected, e);
+        } finally {
+            flushGate.readLock().unlock();
+        }
+        requeue(rejected);
+    }
+
+    /**
+     * 外层事务回滚时撤销内存变更；没有事务时变更立即生效
+     */
+    private void revertOnRollback(List<LedgerDelta> deltas) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    deltas.forEach(delta -> revert(delta));
+                }
+            }
+        });
+    }
+
+    /**
+     * 按反向增量撤销变更，不做业务校验
+     */
+    private void revert(LedgerDelta delta) {
+        LedgerDelta inverse = delta.negate();
+        InventoryKey key = delta.key();
+        flushGate.readLock().lock();
+        ReentrantLock stripe = stripeOf(key);
+        stripe.lock();
+        try {
+            Slot slot = loadSlot(key);
+            int[] before = slot.counters();
+            slot.shift(inverse);
+            appendOrRestore(List.of(inverse), List.of(slot), List.of(before));
+            slot.addPending(inverse);
+        } catch (RuntimeException e) {
+            log.error("撤销内存库存变更失败: delta={}", delta, e);
+        } finally {
+            stripe.unlock();
+            flushGate.readLock().unlock();
+        }
+    }
+
+    private void requeue(List<LedgerDelta> batch) {
+        flushGate.readLock().lock();
+        try {
+            for (LedgerDelta delta : batch) {
+                InventoryKey key = delta.key();
+                ReentrantLock stripe = stripeOf(key);
+                stripe.lock();
+                try {
+                    Slot slot = slots.get(key);
+                    if (slot != null) {
+                        slot.pending = delta.plus(slot.pending);
+                    } else {
+                        detached.merge(key, delta, LedgerDelta::plus);
+                    }
+                } finally {
+                    stripe.unlock();
+                }
+            }
+        } finally {
+            flushGate.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取槽位，首次访问时从数据库加载；调用方须持有对应分段锁
+     */
+    private Slot loadSlot(InventoryKey key) {
+        Slot slot = slots.get(key);
+        if (slot != null) {
+            return slot;
+        }
+        Optional<Inventory> loaded = inventoryRepository.findBySkuIdAndWarehouseId(key.getSkuId(), key.getWarehouseId());
+        Inventory inventory = loaded.orElseThrow(() -> new IllegalArgumentException(
+            String.format("库存不存在: skuId=%s, warehouseId=%s", key.getSkuId(), key.getWarehouseId())));
+        inventory.clearDomainEvents();
+        slot = new Slot(key, inventory);
+        // 移出内存后尚未回写成功的增量，数据库中还看不到，需要补到加载结果上
+        LedgerDelta pending = detached.remove(key);
+        if (pending != null) {
+            slot.shift(pending);
+            slot.pending = pending;
+        }
+        slots.put(key, slot);
+        return slot;
+    }
+
+    private void appendOrRestore(List<LedgerDelta> deltas, List<Slot> touched, List<int[]> befores) {
+        try {
+            journal.append(deltas);
+        } catch (IOException e) {
+            restoreAll(touched, befores);
+            throw new UncheckedIOException("写入库存账本日志失败", e);
+        }
+    }
+
+    private void restoreAll(List<Slot> touched, List<int[]> befores) {
+        for (int i = touched.size() - 1; i >= 0; i--) {
+            touched.get(i).restore(befores.get(i));
+        }
+    }
+
+    private ReentrantLock stripeOf(InventoryKey key) {
+        return stripes[stripeIndex(key)];
+    }
+
+    private int stripeIndex(InventoryKey key) {
+        return (key.hashCode() & Integer.MAX_VALUE) % stripes.length;
+    }
+
+    /**
+     * 内存槽位：库存聚合根及其尚未回写的增量
+     */
+    private static final class Slot {
+        private final InventoryKey key;
+        private final Inventory inventory;
+        private LedgerDelta pending;
+
+        private Slot(InventoryKey key, Inventory inventory) {
+            this.key = key;
+            this.inventory = inventory;
+            this.pending = LedgerDelta.zero(key);
+        }
+
+        private int[] counters() {
+            return new int[] {
+                inventory.getAvailableQuantity(), inventory.getReservedQuantity(), inventory.getOccupiedQuantity()
+            };
+        }
+
+        private void restore(int[] counters) {
+            inventory.setAvailableQuantity(counters[0]);
+            inventory.setReservedQuantity(counters[1]);
+            inventory.setOccupiedQuantity(counters[2]);
+            inventory.clearDomainEvents();
+            inventory.clearJournalEntries();
+        }
+
+        private LedgerDelta diff(int[] before) {
+            return new LedgerDelta(key.getSkuId(), key.getWarehouseId(),
+                inventory.getAvailableQuantity() - before[0],
+                inventory.getReservedQuantity() - before[1],
+                inventory.getOccupiedQuantity() - before[2]);
+        }
+
+        private void shift(LedgerDelta delta) {
+            inventory.setAvailableQuantity(inventory.getAvailableQuantity() + delta.getAvailableDelta());
+            inventory.setReservedQuantity(inventory.getReservedQuantity() + delta.getReservedDelta());
+            inventory.setOccupiedQuantity(inventory.getOccupiedQuantity() + delta.getOccupiedDelta());
+        }
+
+        private void addPending(LedgerDelta delta) {
+            pending = pending.plus(delta);
+        }
+
+        /**
+         * 复制数量、状态等当前值并转移聚合根上累积的领域事件
+         * 安全库存、最大库存的 setter 带校验，快照中不复制
+         * 逐笔流水不保留，回写时按合并后的增量记录
+         */
+        private Inventory snapshot() {
+            Inventory copy = new Inventory();
+            copy.setId(inventory.getId());
+            copy.setSkuId(inventory.getSkuId());
+            copy.setWarehouseId(inventory.getWarehouseId());
+            copy.setAvailableQuantity(inventory.getAvailableQuantity());
+            copy.setReservedQuantity(inventory.getReservedQuantity());
+            copy.setOccupiedQuantity(inventory.getOccupiedQuantity());
+            copy.setUnitCost(inventory.getUnitCost());
+            copy.setStatus(inventory.getStatus());
+            copy.setCreateTime(inventory.getCreateTime());
+            copy.setUpdateTime(inventory.getUpdateTime());
+            inventory.getDomainEvents().forEach(copy::addDomainEvent);
+            inventory.clearDomainEvents();
+            inventory.clearJournalEntries();
+            return copy;
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package com.restaurant.management.inventory.infrastructure.ledger;
+
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryJournalEntry;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.JournalChangeType;
+import com.restaurant.management.inventory.domain.repository.InventoryJournalRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryLedgerCheckpointMapper;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 内存库存账本回写器
+ * 在同一事务中写入合并后的增量、对应的库存流水并推进检查点，保证崩溃恢复时日志不会被重复应用
+ * 回写总是使用独立事务：账本在回写成功后清空增量并删除日志分段，若加入调用方事务，调用方回滚会丢失这些增量
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryLedgerWriter {
+
+    private final InventoryMapper inventoryMapper;
+    private final InventoryLedgerCheckpointMapper checkpointMapper;
+    private final InventoryProperties inventoryProperties;
+    private final InventoryJournalRepository journalRepository;
+
+    /**
+     * 回写增量并记录检查点
+     * 先按 InventoryKey.LOCK_ORDER 锁定涉及的库存行，回写后会使数量为负的增量（账本移出内存期间库存行被直接改写，
+     * 如出库单扣减了同一库存）以及库存行已不存在的增量不写入，返回给调用方保留
+     *
+     * @param deltas  合并后的增量，每个库存至多一条
+     * @param nodeId  节点标识
+     * @param upToSeq 本批增量覆盖的最大日志序号
+     * @return 未能回写的增量
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public List<LedgerDelta> write(List<LedgerDelta> deltas, String nodeId, long upToSeq) {
+        List<LedgerDelta> ordered = new ArrayList<>(deltas);
+        ordered.sort(Comparator.comparing(LedgerDelta::key, InventoryKey.LOCK_ORDER));
+
+        int batchSize = Math.max(1, inventoryProperties.getLedger().getFlushBatchSize());
+        List<LedgerDelta> applied = new ArrayList<>(ordered.size());
+        List<LedgerDelta> rejected = new ArrayList<>();
+        for (int from = 0; from < ordered.size(); from += batchSize) {
+            List<LedgerDelta> chunk = ordered.subList(from, Math.min(from + batchSize, ordered.size()));
+            Map<InventoryKey, Inventory> rows = inventoryMapper.selectByKeysForUpdate(
+                    chunk.stream().map(LedgerDelta::key).collect(Collectors.toList())).stream()
+                .collect(Collectors.toMap(InventoryKey::of, Function.identity()));
+            List<LedgerDelta> applicable = new ArrayList<>(chunk.size());
+            for (LedgerDelta delta : chunk) {
+                Inventory row = rows.get(delta.key());
+                if (row == null || overdraws(row, delta)) {
+                    rejected.add(delta);
+                } else {
+                    applicable.add(delta);
+                }
+            }
+            if (applicable.isEmpty()) {
+                continue;
+            }
+            int updated = inventoryMapper.applyLedgerDeltas(applicable);
+            if (updated != applicable.size()) {
+                throw new IllegalStateException(
+                    String.format("库存账本回写行数不符，期望: %d, 实际: %d", applicable.size(), updated));
+            }
+            applied.addAll(applicable);
+        }
+        journalRepository.appendAll(applied.stream()
+            .map(delta -> InventoryJournalEntry.of(delta.getSkuId(), delta.getWarehouseId(),
+                JournalChangeType.LEDGER_FLUSH, delta.getAvailableDelta(), delta.getReservedDelta(),
+                delta.getOccupiedDelta(), nodeId, "内存账本回写"))
+            .collect(Collectors.toList()));
+        checkpointMapper.upsert(nodeId, upToSeq);
+        return rejected;
+    }
+
+    private static boolean overdraws(Inventory row, LedgerDelta delta) {
+        return row.getAvailableQuantity() + delta.getAvailableDelta() < 0
+            || row.getReservedQuantity() + delta.getReservedDelta() < 0
+            || row.getOccupiedQuantity() + delta.getOccupiedDelta() < 0;
+    }
+
+    /**
+     * 查询节点已回写的最大日志序号
+     */
+    public long loadCheckpoint(String nodeId) {
+        Long lastSeq = checkpointMapper.selectLastSeq(nodeId);
+        return lastSeq == null ? 0L : lastSeq;
+    }
+}
@@ -0,0 +1,62 @@
+package com.restaurant.management.inventory.infrastructure.ledger;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 库存账本增量
+ * 记录单个库存（SKU + 仓库）在可用、预留、占用三个数量上的变化量
+ */
+@Getter
+@EqualsAndHashCode
+@ToString
+public final class LedgerDelta {
+
+    private final String skuId;
+    private final String warehouseId;
+    private final int availableDelta;
+    private final int reservedDelta;
+    private final int occupiedDelta;
+
+    public LedgerDelta(String skuId, String warehouseId, int availableDelta, int reservedDelta, int occupiedDelta) {
+        this.skuId = skuId;
+        this.warehouseId = warehouseId;
+        this.availableDelta = availableDelta;
+        this.reservedDelta = reservedDelta;
+        this.occupiedDelta = occupiedDelta;
+    }
+
+    public static LedgerDelta zero(InventoryKey key) {
+        return new LedgerDelta(key.getSkuId(), key.getWarehouseId(), 0, 0, 0);
+    }
+
+    public InventoryKey key() {
+        return new InventoryKey(skuId, warehouseId);
+    }
+
+    /**
+     * 合并同一库存的增量
+     */
+    public LedgerDelta plus(LedgerDelta other) {
+        if (!key().equals(other.key())) {
+            throw new IllegalArgumentException("只能合并同一库存的增量");
+        }
+        return new LedgerDelta(skuId, warehouseId,
+            availableDelta + other.availableDelta,
+            reservedDelta + other.reservedDelta,
+            occupiedDelta + other.occupiedDelta);
+    }
+
+    /**
+     * 反向增量，用于回滚补偿
+     */
+    public LedgerDelta negate() {
+        return new LedgerDelta(skuId, warehouseId, -availableDelta, -reservedDelta, -occupiedDelta);
+    }
+
+    public boolean isEmpty() {
+        return availableDelta == 0 && reservedDelta == 0 && occupiedDelta == 0;
+    }
+}
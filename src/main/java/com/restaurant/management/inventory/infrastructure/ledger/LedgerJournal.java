@@ -0,0 +1,179 @@
+package com.restaurant.management.inventory.infrastructure.ledger;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Consumer;
+
+/**
+ * 库存账本本地日志
+ * 每个增量以 "seq\tskuId\twarehouseId\tavailable\treserved\toccupied" 的文本行追加到分段文件，
+ * 回写前切换分段，回写成功并记录检查点后删除已覆盖的分段
+ */
+@Slf4j
+class LedgerJournal {
+
+    private static final String SEGMENT_PREFIX = "ledger-";
+    private static final String SEGMENT_SUFFIX = ".journal";
+
+    private final Path directory;
+    private final boolean fsync;
+
+    /**
+     * 已关闭的分段：分段内最大序号 -> 文件
+     */
+    private final TreeMap<Long, Path> closedSegments = new TreeMap<>();
+
+    private long lastSeq;
+    private FileChannel current;
+    private Path currentPath;
+
+    LedgerJournal(Path directory, boolean fsync) {
+        this.directory = directory;
+        this.fsync = fsync;
+    }
+
+    /**
+     * 重放序号大于 afterSeq 的日志
+     * 崩溃时写了一半的末行会被忽略
+     *
+     * @return 日志中出现的最大序号，没有日志时返回 afterSeq
+     */
+    synchronized long replay(long afterSeq, Consumer<LedgerDelta> consumer) throws IOException {
+        long maxSeq = afterSeq;
+        for (Path segment : listSegments()) {
+            try (BufferedReader reader = Files.newBufferedReader(segment, StandardCharsets.UTF_8)) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] fields = line.split("\t");
+                    if (fields.length != 6) {
+                        log.warn("忽略不完整的库存账本日志: segment={}, line={}", segment, line);
+                        break;
+                    }
+                    long seq = Long.parseLong(fields[0]);
+                    maxSeq = Math.max(maxSeq, seq);
+                    if (seq <= afterSeq) {
+                        continue;
+                    }
+                    consumer.accept(new LedgerDelta(fields[1], fields[2],
+                        Integer.parseInt(fields[3]), Integer.parseInt(fields[4]), Integer.parseInt(fields[5])));
+                }
+            }
+        }
+        return maxSeq;
+    }
+
+    /**
+     * 丢弃现有分段，从 lastSeq 之后继续编号
+     * 仅在恢复完成、现有日志均已回写后调用
+     */
+    synchronized void open(long lastSeq) throws IOException {
+        Files.createDirectories(directory);
+        for (Path segment : listSegments()) {
+            Files.deleteIfExists(segment);
+        }
+        closedSegments.clear();
+        this.lastSeq = lastSeq;
+    }
+
+    /**
+     * 追加一组增量，整组写入后按配置刷盘
+     * 写入失败时截断本次写入的内容并恢复序号
+     */
+    synchronized void append(List<LedgerDelta> deltas) throws IOException {
+        if (current == null) {
+            currentPath = directory.resolve(String.format("%s%020d%s", SEGMENT_PREFIX, lastSeq + 1, SEGMENT_SUFFIX));
+            current = FileChannel.open(currentPath,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+
+        long seq = lastSeq;
+        StringBuilder lines = new StringBuilder();
+        for (LedgerDelta delta : deltas) {
+            lines.append(++seq).append('\t')
+                .append(delta.getSkuId()).append('\t')
+                .append(delta.getWarehouseId()).append('\t')
+                .append(delta.getAvailableDelta()).append('\t')
+                .append(delta.getReservedDelta()).append('\t')
+                .append(delta.getOccupiedDelta()).append('\n');
+        }
+
+        long position = current.size();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                current.write(buffer);
+            }
+            if (fsync) {
+                current.force(false);
+            }
+        } catch (IOException e) {
+            current.truncate(position);
+            throw e;
+        }
+        lastSeq = seq;
+    }
+
+    /**
+     * 关闭当前分段，之后的追加写入新分段
+     *
+     * @return 当前最大序号
+     */
+    synchronized long rotate() throws IOException {
+        if (current != null) {
+            current.close();
+            closedSegments.put(lastSeq, currentPath);
+            current = null;
+            currentPath = null;
+        }
+        return lastSeq;
+    }
+
+    /**
+     * 删除最大序号不超过 seq 的已关闭分段
+     */
+    synchronized void deleteSegmentsUpTo(long seq) {
+        Map<Long, Path> covered = closedSegments.headMap(seq, true);
+        for (Path segment : covered.values()) {
+            try {
+                Files.deleteIfExists(segment);
+            } catch (IOException e) {
+                log.warn("删除库存账本日志分段失败: {}", segment, e);
+            }
+        }
+        covered.clear();
+    }
+
+    synchronized void close() throws IOException {
+        if (current != null) {
+            current.close();
+            current = null;
+        }
+    }
+
+    private List<Path> listSegments() throws IOException {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        // 文件名按起始序号补零，字典序即序号顺序
+        Collections.sort(segments);
+        return segments;
+    }
+}
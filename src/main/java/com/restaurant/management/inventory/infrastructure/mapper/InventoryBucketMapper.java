@@ -0,0 +1,186 @@
+package com.restaurant.management.inventory.infrastructure.mapper;
+
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.infrastructure.bucket.InventoryBucket;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 库存分桶Mapper
+ */
+@Mapper
+public interface InventoryBucketMapper {
+    
+    /**
+     * 统计分桶数量（0 表示未拆分）
+     */
+    @Select("SELECT COUNT(*) FROM inventory_buckets WHERE sku_id = #{skuId} AND warehouse_id = #{warehouseId}")
+    int countBuckets(@Param("skuId") String skuId, @Param("warehouseId") String warehouseId);
+    
+    /**
+     * 条件预留单个分桶：分桶可用库存充足且主行状态正常时，可用转预留
+     * @return 受影响行数（0 表示分桶余量不足或库存已冻结）
+     */
+    @Update("""
+        UPDATE inventory_buckets b
+        JOIN inventories i ON i.sku_id = b.sku_id AND i.warehouse_id = b.warehouse_id
+        SET b.available_quantity = b.available_quantity - #{quantity},
+            b.reserved_quantity = b.reserved_quantity + #{quantity},
+            b.update_time = NOW()
+        WHERE b.sku_id = #{skuId}
+          AND b.warehouse_id = #{warehouseId}
+          AND b.bucket_no = #{bucketNo}
+          AND b.available_quantity >= #{quantity}
+          AND i.status = 'NORMAL'
+    """)
+    int reserveInBucket(@Param("skuId") String skuId,
+                        @Param("warehouseId") String warehouseId,
+                        @Param("bucketNo") int bucketNo,
+                        @Param("quantity") int quantity);
+    
+    /**
+     * 条件释放单个分桶：分桶预留库存充足时，预留转可用
+     */
+    @Update("""
+        UPDATE inventory_buckets
+        SET reserved_quantity = reserved_quantity - #{quantity},
+            available_quantity = available_quantity + #{quantity},
+            update_time = NOW()
+        WHERE sku_id = #{skuId}
+          AND warehouse_id = #{warehouseId}
+          AND bucket_no = #{bucketNo}
+          AND reserved_quantity >= #{quantity}
+    """)
+    int releaseInBucket(@Param("skuId") String skuId,
+                        @Param("warehouseId") String warehouseId,
+                        @Param("bucketNo") int bucketNo,
+                        @Param("quantity") int quantity);
+    
+    /**
+     * 条件确认单个分桶：分桶预留库存充足时，预留转占用
+     */
+    @Update("""
+        UPDATE inventory_buckets
+        SET reserved_quantity = reserved_quantity - #{quantity},
+            occupied_quantity = occupied_quantity + #{quantity},
+            update_time = NOW()
+        WHERE sku_id = #{skuId}
+          AND warehouse_id = #{warehouseId}
+          AND bucket_no = #{bucketNo}
+          AND reserved_quantity >= #{quantity}
+    """)
+    int confirmInBucket(@Param("skuId") String skuId,
+                        @Param("warehouseId") String warehouseId,
+                        @Param("bucketNo") int bucketNo,
+                        @Param("quantity") int quantity);
+    
+    /**
+     * 锁定主行
+     */
+    @Select("SELECT * FROM inventories WHERE sku_id = #{skuId} AND warehouse_id = #{warehouseId} FOR UPDATE")
+    Inventory lockInventory(@Param("skuId") String skuId, @Param("warehouseId") String warehouseId);
+    
+    /**
+     * 按分桶序号锁定全部分桶
+     */
+    @Select("""
+        SELECT * FROM inventory_buckets
+        WHERE sku_id = #{skuId} AND warehouse_id = #{warehouseId}
+        ORDER BY bucket_no
+        FOR UPDATE
+    """)
+    List<InventoryBucket> lockBuckets(@Param("skuId") String skuId, @Param("warehouseId") String warehouseId);
+    
+    /**
+     * 汇总单个库存的全部分桶
+     */
+    @Select("""
+        SELECT COALESCE(SUM(available_quantity), 0) AS available_quantity,
+               COALESCE(SUM(reserved_quantity), 0) AS reserved_quantity,
+               COALESCE(SUM(occupied_quantity), 0) AS occupied_quantity
+        FROM inventory_buckets
+        WHERE sku_id = #{skuId} AND warehouse_id = #{warehouseId}
+    """)
+    InventoryBucket sumBuckets(@Param("skuId") String skuId, @Param("warehouseId") String warehouseId);
+    
+    /**
+     * 汇总 SKU 在所有仓库的分桶
+     */
+    @Select("""
+        SELECT COALESCE(SUM(available_quantity), 0) AS available_quantity,
+               COALESCE(SUM(reserved_quantity), 0) AS reserved_quantity,
+               COALESCE(SUM(occupied_quantity), 0) AS occupied_quantity
+        FROM inventory_buckets
+        WHERE sku_id = #{skuId}
+    """)
+    InventoryBucket sumBucketsBySkuId(@Param("skuId") String skuId);
+    
+    /**
+     * 多行插入分桶
+     */
+    @Insert("""
+        <script>
+        INSERT INTO inventory_buckets (sku_id, warehouse_id, bucket_no, available_quantity,
+                                       reserved_quantity, occupied_quantity, create_time, update_time)
+        VALUES
+        <foreach collection="buckets" item="bucket" separator=",">
+            (#{bucket.skuId}, #{bucket.warehouseId}, #{bucket.bucketNo}, #{bucket.availableQuantity},
+             #{bucket.reservedQuantity}, #{bucket.occupiedQuantity}, NOW(), NOW())
+        </foreach>
+        </script>
+    """)
+    int insertBuckets(@Param("buckets") List<InventoryBucket> buckets);
+    
+    /**
+     * 写回分桶数量（调用方须已锁定）
+     */
+    @Update("""
+        UPDATE inventory_buckets
+        SET available_quantity = #{bucket.availableQuantity},
+            reserved_quantity = #{bucket.reservedQuantity},
+            occupied_quantity = #{bucket.occupiedQuantity},
+            update_time = NOW()
+        WHERE id = #{bucket.id}
+    """)
+    int updateBucket(@Param("bucket") InventoryBucket bucket);
+    
+    /**
+     * 写回主行数量（调用方须已锁定），递增版本号使读取-修改-保存的写入失效
+     */
+    @Update("""
+        UPDATE inventories
+        SET available_quantity = #{availableQuantity},
+            reserved_quantity = #{reservedQuantity},
+            occupied_quantity = #{occupiedQuantity},
+            version = version + 1,
+            update_time = NOW()
+        WHERE sku_id = #{skuId} AND warehouse_id = #{warehouseId}
+    """)
+    int updateInventoryCounters(InventoryBucket counters);
+    
+    /**
+     * 拆分/合并时写回主行数量（调用方须已锁定）
+     * 只在主行与分桶之间搬移，库存总量不变，不递增版本号，合并后仍可按拆分前读到的版本保存
+     */
+    @Update("""
+        UPDATE inventories
+        SET available_quantity = #{availableQuantity},
+            reserved_quantity = #{reservedQuantity},
+            occupied_quantity = #{occupiedQuantity},
+            update_time = NOW()
+        WHERE sku_id = #{skuId} AND warehouse_id = #{warehouseId}
+    """)
+    int rebalanceInventoryCounters(InventoryBucket counters);
+    
+    /**
+     * 删除库存的全部分桶
+     */
+    @Delete("DELETE FROM inventory_buckets WHERE sku_id = #{skuId} AND warehouse_id = #{warehouseId}")
+    int deleteBuckets(@Param("skuId") String skuId, @Param("warehouseId") String warehouseId);
+}
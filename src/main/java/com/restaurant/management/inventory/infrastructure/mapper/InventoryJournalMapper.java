@@ -0,0 +1,82 @@
+package com.restaurant.management.inventory.infrastructure.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.restaurant.management.inventory.domain.model.InventoryJournalEntry;
+import com.restaurant.management.inventory.infrastructure.journal.JournalDeltaSum;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 库存流水Mapper接口
+ */
+@Mapper
+public interface InventoryJournalMapper extends BaseMapper<InventoryJournalEntry> {
+
+    /**
+     * 单条语句批量追加流水（create_time 由数据库填充）
+     */
+    @Insert("""
+        <script>
+        INSERT INTO inventory_journal
+            (sku_id, warehouse_id, change_type, available_delta, reserved_delta, occupied_delta, ref_no, reason)
+        VALUES
+        <foreach collection="entries" item="e" separator=",">
+            (#{e.skuId}, #{e.warehouseId}, #{e.changeType}, #{e.availableDelta}, #{e.reservedDelta},
+             #{e.occupiedDelta}, #{e.refNo}, #{e.reason})
+        </foreach>
+        </script>
+    """)
+    int insertAll(@Param("entries") List<InventoryJournalEntry> entries);
+
+    /**
+     * 某库存在序号 afterId 之后、时间 at 之前（含）的流水增量合计（走 idx_journal_key_id）
+     */
+    @Select("""
+        SELECT COUNT(*) AS entries,
+               COALESCE(SUM(available_delta), 0) AS available_delta,
+               COALESCE(SUM(reserved_delta), 0) AS reserved_delta,
+               COALESCE(SUM(occupied_delta), 0) AS occupied_delta
+        FROM inventory_journal
+        WHERE sku_id = #{skuId} AND warehouse_id = #{warehouseId}
+          AND id > #{afterId}
+          AND create_time <= #{at}
+    """)
+    JournalDeltaSum sumAfter(@Param("skuId") String skuId,
+                             @Param("warehouseId") String warehouseId,
+                             @Param("afterId") long afterId,
+                             @Param("at") LocalDateTime at);
+
+    /**
+     * 按时间区间查询流水（走 idx_journal_key_time）
+     */
+    @Select("""
+        SELECT * FROM inventory_journal
+        WHERE sku_id = #{skuId} AND warehouse_id = #{warehouseId}
+          AND create_time >= #{from} AND create_time < #{to}
+        ORDER BY id
+        LIMIT #{limit}
+    """)
+    List<InventoryJournalEntry> selectHistory(@Param("skuId") String skuId,
+                                              @Param("warehouseId") String warehouseId,
+                                              @Param("from") LocalDateTime from,
+                                              @Param("to") LocalDateTime to,
+                                              @Param("limit") int limit);
+
+    /**
+     * 不晚于 cutoff 写入的最大序号（走 idx_journal_time）
+     */
+    @Select("SELECT MAX(id) FROM inventory_journal WHERE create_time <= #{cutoff}")
+    Long selectMaxIdBefore(@Param("cutoff") LocalDateTime cutoff);
+
+    /**
+     * 删除已被快照覆盖的流水（按序号前缀，每次至多 limit 条）
+     */
+    @Delete("DELETE FROM inventory_journal WHERE id <= #{upToId} ORDER BY id LIMIT #{limit}")
+    int deleteUpTo(@Param("upToId") long upToId, @Param("limit") int limit);
+}
@@ -0,0 +1,29 @@
+package com.restaurant.management.inventory.infrastructure.mapper;
+
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+/**
+ * 内存库存账本检查点Mapper
+ */
+@Mapper
+public interface InventoryLedgerCheckpointMapper {
+    
+    /**
+     * 查询节点已回写的最大日志序号
+     */
+    @Select("SELECT last_seq FROM inventory_ledger_checkpoints WHERE node_id = #{nodeId}")
+    Long selectLastSeq(@Param("nodeId") String nodeId);
+    
+    /**
+     * 记录节点已回写的最大日志序号
+     */
+    @Insert("""
+        INSERT INTO inventory_ledger_checkpoints (node_id, last_seq, update_time)
+        VALUES (#{nodeId}, #{lastSeq}, NOW())
+        ON DUPLICATE KEY UPDATE last_seq = VALUES(last_seq), update_time = NOW()
+    """)
+    int upsert(@Param("nodeId") String nodeId, @Param("lastSeq") long lastSeq);
+}
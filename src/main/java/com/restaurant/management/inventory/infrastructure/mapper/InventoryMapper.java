@@ -2,10 +2,23 @@ package com.restaurant.management.inventory.infrastructure.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.InventorySummaryTotals;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+import com.restaurant.management.inventory.infrastructure.allocation.WarehouseAvailabilityRow;
+import com.restaurant.management.inventory.infrastructure.ledger.LedgerDelta;
+import com.restaurant.management.inventory.infrastructure.replenishment.StockLevelRow;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
 import org.apache.ibatis.annotations.Param;
 import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+import org.apache.ibatis.cursor.Cursor;
+import org.apache.ibatis.mapping.ResultSetType;
 
+import java.util.Collection;
 import java.util.List;
 
 /**
@@ -25,12 +38,24 @@ public interface InventoryMapper extends BaseMapper<Inventory> {
     """)
     List<Inventory> findBySpuId(@Param("spuId") String spuId);
     
+    /**
+     * SPU 下有库存记录的 SKU
+     */
+    @Select("""
+        SELECT DISTINCT i.sku_id FROM inventories i
+        INNER JOIN product_sku ps ON i.sku_id = ps.sku_id
+        WHERE ps.spu_id = #{spuId}
+        ORDER BY i.sku_id
+    """)
+    List<String> selectSkuIdsBySpuId(@Param("spuId") String spuId);
+    
     /**
      * 查找需要补货的库存
+     * total_quantity 为存储生成列（见 sql/inventory_total_quantity.sql）
      */
     @Select("""
         SELECT * FROM inventories
-        WHERE (available_quantity + reserved_quantity + occupied_quantity) <= safety_stock
+        WHERE total_quantity <= safety_stock
         AND status = 'NORMAL'
     """)
     List<Inventory> findInventoriesNeedingReplenishment();
@@ -40,59 +65,382 @@ public interface InventoryMapper extends BaseMapper<Inventory> {
      */
     @Select("""
         SELECT * FROM inventories
-        WHERE (available_quantity + reserved_quantity + occupied_quantity) >= max_stock
+        WHERE total_quantity >= max_stock
         AND status = 'NORMAL'
     """)
     List<Inventory> findOverstockedInventories();
     
     /**
-     * 获取库存汇总统计
+     * 有库存记录的仓库（走 idx_inventories_stock_level 的松散索引扫描）
+     */
+    @Select("SELECT DISTINCT warehouse_id FROM inventories")
+    List<String> selectWarehouseIds();
+    
+    /**
+     * 流式读取单个仓库中低于安全库存或达到上限的库存（未拆分热点分桶的行）
+     * 条件全部落在覆盖索引 idx_inventories_stock_level 上，不回表；
+     * fetchSize = Integer.MIN_VALUE 让 MySQL 驱动逐行返回，内存占用与结果行数无关。须在事务内消费游标
+     */
+    @Select("""
+        SELECT i.sku_id, i.warehouse_id, i.total_quantity, i.safety_stock, i.max_stock
+        FROM inventories i
+        WHERE i.warehouse_id = #{warehouseId}
+          AND i.status = 'NORMAL'
+          AND (i.total_quantity <= i.safety_stock OR i.total_quantity >= i.max_stock)
+          AND NOT EXISTS (
+              SELECT 1 FROM inventory_buckets b
+              WHERE b.sku_id = i.sku_id AND b.warehouse_id = i.warehouse_id
+          )
+    """)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<StockLevelRow> streamStockLevelAlerts(@Param("warehouseId") String warehouseId);
+    
+    /**
+     * 单个仓库中已拆分热点分桶的库存水位（主行 + 全部分桶），热点库存数量很少，一次读出
+     */
+    @Select("""
+        SELECT i.sku_id, i.warehouse_id,
+               i.total_quantity + SUM(b.available_quantity + b.reserved_quantity + b.occupied_quantity) AS total_quantity,
+               i.safety_stock, i.max_stock
+        FROM inventories i
+        INNER JOIN inventory_buckets b ON b.sku_id = i.sku_id AND b.warehouse_id = i.warehouse_id
+        WHERE i.warehouse_id = #{warehouseId}
+          AND i.status = 'NORMAL'
+        GROUP BY i.id, i.sku_id, i.warehouse_id, i.total_quantity, i.safety_stock, i.max_stock
+    """)
+    List<StockLevelRow> selectSplitStockLevels(@Param("warehouseId") String warehouseId);
+    
+    /**
+     * 流式读取状态正常的库存可用量（主行 + 热点分桶合计），用于重建分仓索引；须在事务内消费游标
+     */
+    @Select("""
+        SELECT i.sku_id, i.warehouse_id,
+               i.available_quantity + COALESCE(b.available_quantity, 0) AS available_quantity
+        FROM inventories i
+        LEFT JOIN (
+            SELECT sku_id, warehouse_id, SUM(available_quantity) AS available_quantity
+            FROM inventory_buckets
+            GROUP BY sku_id, warehouse_id
+        ) b ON b.sku_id = i.sku_id AND b.warehouse_id = i.warehouse_id
+        WHERE i.status = 'NORMAL'
+    """)
+    @Options(resultSetType = ResultSetType.FORWARD_ONLY, fetchSize = Integer.MIN_VALUE)
+    Cursor<WarehouseAvailabilityRow> streamWarehouseAvailability();
+    
+    /**
+     * 条件预留库存：可用库存充足且状态正常时，可用转预留
+     * @return 受影响行数（0 表示不存在、已冻结或可用库存不足）
+     */
+    @Update("""
+        UPDATE inventories
+        SET available_quantity = available_quantity - #{quantity},
+            reserved_quantity = reserved_quantity + #{quantity},
+            version = version + 1,
+            update_time = NOW()
+        WHERE sku_id = #{skuId}
+          AND warehouse_id = #{warehouseId}
+          AND available_quantity >= #{quantity}
+          AND status = 'NORMAL'
+    """)
+    int reserveIfAvailable(@Param("skuId") String skuId,
+                           @Param("warehouseId") String warehouseId,
+                           @Param("quantity") int quantity);
+    
+    /**
+     * 条件释放预留库存：预留库存充足时，预留转可用
+     * @return 受影响行数（0 表示不存在或预留库存不足）
+     */
+    @Update("""
+        UPDATE inventories
+        SET reserved_quantity = reserved_quantity - #{quantity},
+            available_quantity = available_quantity + #{quantity},
+            version = version + 1,
+            update_time = NOW()
+        WHERE sku_id = #{skuId}
+          AND warehouse_id = #{warehouseId}
+          AND reserved_quantity >= #{quantity}
+    """)
+    int releaseReservedIfEnough(@Param("skuId") String skuId,
+                                @Param("warehouseId") String warehouseId,
+                                @Param("quantity") int quantity);
+    
+    /**
+     * 条件确认预留库存：预留库存充足时，预留转占用
+     * @return 受影响行数（0 表示不存在或预留库存不足）
+     */
+    @Update("""
+        UPDATE inventories
+        SET reserved_quantity = reserved_quantity - #{quantity},
+            occupied_quantity = occupied_quantity + #{quantity},
+            version = version + 1,
+            update_time = NOW()
+        WHERE sku_id = #{skuId}
+          AND warehouse_id = #{warehouseId}
+          AND reserved_quantity >= #{quantity}
+    """)
+    int confirmReservedIfEnough(@Param("skuId") String skuId,
+                                @Param("warehouseId") String warehouseId,
+                                @Param("quantity") int quantity);
+    
+    /**
+     * 一次查询锁定多条库存记录
+     * 按 (sku_id, warehouse_id) 排序加锁，所有事务以相同顺序获取行锁，避免死锁
+     */
+    @Select("""
+        <script>
+        SELECT * FROM inventories
+        WHERE (sku_id, warehouse_id) IN
+        <foreach collection="lines" item="line" open="(" separator="," close=")">
+            (#{line.skuId}, #{line.warehouseId})
+        </foreach>
+        ORDER BY sku_id, warehouse_id
+        FOR UPDATE
+        </script>
+    """)
+    List<Inventory> selectForUpdateByLines(@Param("lines") List<ReservationLine> lines);
+    
+    /**
+     * 一次查询多个 (SKU, 仓库) 的库存，不加锁
      */
     @Select("""
+        <script>
+        SELECT * FROM inventories
+        WHERE (sku_id, warehouse_id) IN
+        <foreach collection="keys" item="key" open="(" separator="," close=")">
+            (#{key.skuId}, #{key.warehouseId})
+        </foreach>
+        </script>
+    """)
+    List<Inventory> selectByKeys(@Param("keys") Collection<InventoryKey> keys);
+    
+    /**
+     * 一次查询锁定多个 (SKU, 仓库) 的库存
+     * 按 (sku_id, warehouse_id) 排序加锁，与预留锁定库存的顺序一致，避免死锁
+     */
+    @Select("""
+        <script>
+        SELECT * FROM inventories
+        WHERE (sku_id, warehouse_id) IN
+        <foreach collection="keys" item="key" open="(" separator="," close=")">
+            (#{key.skuId}, #{key.warehouseId})
+        </foreach>
+        ORDER BY sku_id, warehouse_id
+        FOR UPDATE
+        </script>
+    """)
+    List<Inventory> selectByKeysForUpdate(@Param("keys") List<InventoryKey> keys);
+    
+    /**
+     * 多行插入库存，回填自增主键
+     */
+    @Insert("""
+        <script>
+        INSERT INTO inventories (sku_id, warehouse_id, available_quantity, reserved_quantity, occupied_quantity,
+                                 unit_cost, safety_stock, max_stock, status, version, create_time, update_time)
+        VALUES
+        <foreach collection="inventories" item="inventory" separator=",">
+            (#{inventory.skuId}, #{inventory.warehouseId}, #{inventory.availableQuantity},
+             #{inventory.reservedQuantity}, #{inventory.occupiedQuantity}, #{inventory.unitCost},
+             #{inventory.safetyStock}, #{inventory.maxStock}, #{inventory.status}, #{inventory.version}, NOW(), NOW())
+        </foreach>
+        </script>
+    """)
+    @Options(useGeneratedKeys = true, keyProperty = "inventories.id", keyColumn = "id")
+    int insertAll(@Param("inventories") List<Inventory> inventories);
+    
+    /**
+     * 单条语句按主键写回多条库存的数量、成本和状态，并递增版本号
+     * 只更新版本号与读取时一致的行，受影响行数少于条数说明有库存被并发修改
+     * @return 受影响行数
+     */
+    @Update("""
+        <script>
+        UPDATE inventories
+        SET available_quantity = CASE id
+            <foreach collection="inventories" item="inventory">
+                WHEN #{inventory.id} THEN #{inventory.availableQuantity}
+            </foreach>
+            END,
+            reserved_quantity = CASE id
+            <foreach collection="inventories" item="inventory">
+                WHEN #{inventory.id} THEN #{inventory.reservedQuantity}
+            </foreach>
+            END,
+            occupied_quantity = CASE id
+            <foreach collection="inventories" item="inventory">
+                WHEN #{inventory.id} THEN #{inventory.occupiedQuantity}
+            </foreach>
+            END,
+            unit_cost = CASE id
+            <foreach collection="inventories" item="inventory">
+                WHEN #{inventory.id} THEN #{inventory.unitCost}
+            </foreach>
+            END,
+            status = CASE id
+            <foreach collection="inventories" item="inventory">
+                WHEN #{inventory.id} THEN #{inventory.status}
+            </foreach>
+            END,
+            version = version + 1,
+            update_time = NOW()
+        WHERE (id, version) IN
+        <foreach collection="inventories" item="inventory" open="(" separator="," close=")">
+            (#{inventory.id}, #{inventory.version})
+        </foreach>
+        </script>
+    """)
+    int updateAllIfVersionMatches(@Param("inventories") List<Inventory> inventories);
+    
+    /**
+     * 单条语句批量预留（可用转预留），调用方须已持有对应行锁并完成校验
+     * @return 受影响行数
+     */
+    @Update("""
+        <script>
+        UPDATE inventories
+        SET available_quantity = CASE id
+            <foreach collection="deltas" item="delta">
+                WHEN #{delta.inventoryId} THEN available_quantity - #{delta.quantity}
+            </foreach>
+            END,
+            reserved_quantity = CASE id
+            <foreach collection="deltas" item="delta">
+                WHEN #{delta.inventoryId} THEN reserved_quantity + #{delta.quantity}
+            </foreach>
+            END,
+            version = version + 1,
+            update_time = NOW()
+        WHERE id IN
+        <foreach collection="deltas" item="delta" open="(" separator="," close=")">
+            #{delta.inventoryId}
+        </foreach>
+        </script>
+    """)
+    int batchReserve(@Param("deltas") List<QuantityDelta> deltas);
+    
+    /**
+     * 单条语句回写内存账本合并后的增量（按 SKU + 仓库定位）
+     * 回写递增版本号：回写前读取该行的乐观锁写入随之冲突，不会用旧值覆盖已回写的增量
+     * 只更新回写后各数量都不为负的行
+     * @return 受影响行数
+     */
+    @Update("""
+        <script>
+        UPDATE inventories
+        SET available_quantity = available_quantity + CASE
+            <foreach collection="deltas" item="delta">
+                WHEN sku_id = #{delta.skuId} AND warehouse_id = #{delta.warehouseId} THEN #{delta.availableDelta}
+            </foreach>
+            ELSE 0 END,
+            reserved_quantity = reserved_quantity + CASE
+            <foreach collection="deltas" item="delta">
+                WHEN sku_id = #{delta.skuId} AND warehouse_id = #{delta.warehouseId} THEN #{delta.reservedDelta}
+            </foreach>
+            ELSE 0 END,
+            occupied_quantity = occupied_quantity + CASE
+            <foreach collection="deltas" item="delta">
+                WHEN sku_id = #{delta.skuId} AND warehouse_id = #{delta.warehouseId} THEN #{delta.occupiedDelta}
+            </foreach>
+            ELSE 0 END,
+            version = version + 1,
+            update_time = NOW()
+        WHERE (sku_id, warehouse_id) IN
+        <foreach collection="deltas" item="delta" open="(" separator="," close=")">
+            (#{delta.skuId}, #{delta.warehouseId})
+        </foreach>
+        AND
+        <foreach collection="deltas" item="delta" open="(" separator=" OR " close=")">
+            (sku_id = #{delta.skuId} AND warehouse_id = #{delta.warehouseId}
+             AND available_quantity + #{delta.availableDelta} >= 0
+             AND reserved_quantity + #{delta.reservedDelta} >= 0
+             AND occupied_quantity + #{delta.occupiedDelta} >= 0)
+        </foreach>
+        </script>
+    """)
+    int applyLedgerDeltas(@Param("deltas") List<LedgerDelta> deltas);
+    
+    /**
+     * 一批 SKU 的库存汇总统计（含热点库存分桶），在数据库中聚合，未启用汇总表时使用
+     * 没有库存行的 SKU 不返回
+     */
+    @Select("""
+        <script>
         SELECT
             sku_id,
             SUM(available_quantity) as total_available,
             SUM(reserved_quantity) as total_reserved,
             SUM(occupied_quantity) as total_occupied
-        FROM inventories
-        WHERE sku_id = #{skuId}
+        FROM (
+            SELECT sku_id, available_quantity, reserved_quantity, occupied_quantity
+            FROM inventories
+            WHERE sku_id IN
+            <foreach collection="skuIds" item="skuId" open="(" separator="," close=")">
+                #{skuId}
+            </foreach>
+            UNION ALL
+            SELECT sku_id, available_quantity, reserved_quantity, occupied_quantity
+            FROM inventory_buckets
+            WHERE sku_id IN
+            <foreach collection="skuIds" item="skuId" open="(" separator="," close=")">
+                #{skuId}
+            </foreach>
+        ) t
         GROUP BY sku_id
+        </script>
     """)
-    InventorySummaryDto getInventorySummary(@Param("skuId") String skuId);
+    List<InventorySummaryTotals> getInventorySummaries(@Param("skuIds") List<String> skuIds);
     
     /**
-     * 批量更新库存状态
+     * 锁定一批 SKU 中状态需要变更的库存行（按主键顺序加锁），只读取定位列
      */
     @Select("""
-        UPDATE inventories
-        SET status = #{status}
+        <script>
+        SELECT id, sku_id, warehouse_id FROM inventories
         WHERE sku_id IN
         <foreach collection="skuIds" item="skuId" open="(" separator="," close=")">
             #{skuId}
         </foreach>
+          AND status &lt;&gt; #{status}
+        ORDER BY id
+        FOR UPDATE
+        </script>
     """)
-    void batchUpdateStatus(@Param("skuIds") List<String> skuIds, @Param("status") String status);
+    List<Inventory> selectForStatusChange(@Param("skuIds") List<String> skuIds,
+                                          @Param("status") InventoryStatus status);
     
     /**
-     * 库存汇总DTO
+     * 单条语句批量更新库存状态
+     * 递增版本号，使并发的读取-修改-保存按乐观锁冲突重试，而不是覆盖新状态
+     * @return 受影响行数
      */
-    class InventorySummaryDto {
-        private String skuId;
-        private Integer totalAvailable;
-        private Integer totalReserved;
-        private Integer totalOccupied;
-        
-        // getters and setters
-        public String getSkuId() { return skuId; }
-        public void setSkuId(String skuId) { this.skuId = skuId; }
-        
-        public Integer getTotalAvailable() { return totalAvailable; }
-        public void setTotalAvailable(Integer totalAvailable) { this.totalAvailable = totalAvailable; }
+    @Update("""
+        <script>
+        UPDATE inventories
+        SET status = #{status},
+            version = version + 1,
+            update_time = NOW()
+        WHERE id IN
+        <foreach collection="ids" item="id" open="(" separator="," close=")">
+            #{id}
+        </foreach>
+          AND status &lt;&gt; #{status}
+        </script>
+    """)
+    int batchUpdateStatus(@Param("ids") List<Long> ids, @Param("status") InventoryStatus status);
+    
+    /**
+     * 库存数量变更DTO（按主键）
+     */
+    class QuantityDelta {
+        private final Long inventoryId;
+        private final Integer quantity;
         
-        public Integer getTotalReserved() { return totalReserved; }
-        public void setTotalReserved(Integer totalReserved) { this.totalReserved = totalReserved; }
+        public QuantityDelta(Long inventoryId, Integer quantity) {
+            this.inventoryId = inventoryId;
+            this.quantity = quantity;
+        }
         
-        public Integer getTotalOccupied() { return totalOccupied; }
-        public void setTotalOccupied(Integer totalOccupied) { this.totalOccupied = totalOccupied; }
+        public Long getInventoryId() { return inventoryId; }
+        public Integer getQuantity() { return quantity; }
     }
 }
\ No newline at end of file
@@ -0,0 +1,132 @@
+package com.restaurant.management.inventory.infrastructure.mapper;
+
+import com.restaurant.management.inventory.infrastructure.quota.QuotaLease;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
+
+/**
+ * 节点库存配额租约Mapper
+ * 到期时间统一取数据库时钟，各节点之间不受本地时钟偏差影响
+ */
+@Mapper
+public interface InventoryQuotaLeaseMapper {
+    
+    /**
+     * 追加租借配额并顺延到期时间
+     */
+    @Insert("""
+        INSERT INTO inventory_quota_leases (sku_id, warehouse_id, node_id, quantity, expire_time,
+                                            create_time, update_time)
+        VALUES (#{skuId}, #{warehouseId}, #{nodeId}, #{quantity},
+                NOW() + INTERVAL #{ttlSeconds} SECOND, NOW(), NOW())
+        ON DUPLICATE KEY UPDATE
+            quantity = quantity + VALUES(quantity),
+            expire_time = VALUES(expire_time),
+            update_time = NOW()
+    """)
+    int grant(@Param("skuId") String skuId,
+              @Param("warehouseId") String warehouseId,
+              @Param("nodeId") String nodeId,
+              @Param("quantity") int quantity,
+              @Param("ttlSeconds") long ttlSeconds);
+    
+    /**
+     * 条件扣减本节点租约：余量充足且未到期
+     * 只锁定本节点自己的租约行，不同节点之间没有行锁竞争
+     * @return 受影响行数（0 表示余量不足、已到期或已被回收）
+     */
+    @Update("""
+        UPDATE inventory_quota_leases
+        SET quantity = quantity - #{quantity},
+            update_time = NOW()
+        WHERE sku_id = #{skuId}
+          AND warehouse_id = #{warehouseId}
+          AND node_id = #{nodeId}
+          AND quantity >= #{quantity}
+          AND expire_time > NOW()
+    """)
+    int consume(@Param("skuId") String skuId,
+                @Param("warehouseId") String warehouseId,
+                @Param("nodeId") String nodeId,
+                @Param("quantity") int quantity);
+    
+    /**
+     * 扣减租约余量（归还/回收），调用方须已持有租约行锁
+     */
+    @Update("""
+        UPDATE inventory_quota_leases
+        SET quantity = quantity - #{quantity},
+            update_time = NOW()
+        WHERE id = #{id}
+          AND quantity >= #{quantity}
+    """)
+    int deduct(@Param("id") Long id, @Param("quantity") int quantity);
+    
+    /**
+     * 顺延节点未到期租约的到期时间
+     * 已到期的租约不再续约，其余量只能由回收归还库存行，节点本地计数随之作废
+     */
+    @Update("""
+        UPDATE inventory_quota_leases
+        SET expire_time = NOW() + INTERVAL #{ttlSeconds} SECOND,
+            update_time = NOW()
+        WHERE node_id = #{nodeId}
+          AND expire_time > NOW()
+    """)
+    int renew(@Param("nodeId") String nodeId, @Param("ttlSeconds") long ttlSeconds);
+    
+    /**
+     * 查询节点的全部租约
+     */
+    @Select("SELECT * FROM inventory_quota_leases WHERE node_id = #{nodeId}")
+    List<QuotaLease> selectByNode(@Param("nodeId") String nodeId);
+    
+    /**
+     * 锁定节点在指定库存上的租约
+     */
+    @Select("""
+        SELECT * FROM inventory_quota_leases
+        WHERE sku_id = #{skuId}
+          AND warehouse_id = #{warehouseId}
+          AND node_id = #{nodeId}
+        FOR UPDATE
+    """)
+    QuotaLease selectForUpdate(@Param("skuId") String skuId,
+                               @Param("warehouseId") String warehouseId,
+                               @Param("nodeId") String nodeId);
+    
+    /**
+     * 查询已到期的租约（不加锁，回收时按库存行、租约行的顺序逐条加锁复核）
+     */
+    @Select("""
+        SELECT * FROM inventory_quota_leases
+        WHERE expire_time <= NOW()
+        ORDER BY expire_time
+        LIMIT #{limit}
+    """)
+    List<QuotaLease> selectExpired(@Param("limit") int limit);
+    
+    /**
+     * 锁定节点在指定库存上仍处于到期状态的租约
+     */
+    @Select("""
+        SELECT * FROM inventory_quota_leases
+        WHERE sku_id = #{skuId}
+          AND warehouse_id = #{warehouseId}
+          AND node_id = #{nodeId}
+          AND expire_time <= NOW()
+        FOR UPDATE
+    """)
+    QuotaLease selectExpiredForUpdate(@Param("skuId") String skuId,
+                                      @Param("warehouseId") String warehouseId,
+                                      @Param("nodeId") String nodeId);
+    
+    @Delete("DELETE FROM inventory_quota_leases WHERE id = #{id}")
+    int deleteById(@Param("id") Long id);
+}
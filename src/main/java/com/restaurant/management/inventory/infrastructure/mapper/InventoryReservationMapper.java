@@ -0,0 +1,111 @@
+package com.restaurant.management.inventory.infrastructure.mapper;
+
+import com.restaurant.management.inventory.infrastructure.reservation.InventoryReservation;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+import org.apache.ibatis.annotations.Update;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 库存预留记录Mapper
+ */
+@Mapper
+public interface InventoryReservationMapper {
+    
+    /**
+     * 多行写入预留记录
+     * 同一订单再次预留同一库存时累加数量并顺延过期时间；已结束的记录重新进入预留中
+     */
+    @Insert("""
+        <script>
+        INSERT INTO inventory_reservations (order_id, sku_id, warehouse_id, quantity, status,
+                                            expire_time, create_time, update_time)
+        VALUES
+        <foreach collection="reservations" item="r" separator=",">
+            (#{r.orderId}, #{r.skuId}, #{r.warehouseId}, #{r.quantity}, 'RESERVED', #{r.expireTime}, NOW(), NOW())
+        </foreach>
+        ON DUPLICATE KEY UPDATE
+            quantity = IF(status = 'RESERVED', quantity + VALUES(quantity), VALUES(quantity)),
+            status = 'RESERVED',
+            expire_time = VALUES(expire_time),
+            update_time = NOW()
+        </script>
+    """)
+    int upsertAll(@Param("reservations") List<InventoryReservation> reservations);
+    
+    /**
+     * 扣减未结预留数量，扣完时置为终态（RELEASED / CONFIRMED）
+     * status 先于 quantity 赋值，判断使用扣减前的数量
+     */
+    @Update("""
+        UPDATE inventory_reservations
+        SET status = IF(quantity <= #{quantity}, #{finalStatus}, status),
+            quantity = GREATEST(quantity - #{quantity}, 0),
+            update_time = NOW()
+        WHERE order_id = #{orderId}
+          AND sku_id = #{skuId}
+          AND warehouse_id = #{warehouseId}
+          AND status = 'RESERVED'
+    """)
+    int settle(@Param("orderId") String orderId,
+               @Param("skuId") String skuId,
+               @Param("warehouseId") String warehouseId,
+               @Param("quantity") int quantity,
+               @Param("finalStatus") String finalStatus);
+    
+    /**
+     * 条件标记过期（仍为预留中且已到期），多节点并发处理时只有一个成功
+     */
+    @Update("""
+        UPDATE inventory_reservations
+        SET status = 'EXPIRED', update_time = NOW()
+        WHERE id = #{id}
+          AND status = 'RESERVED'
+          AND expire_time <= #{now}
+    """)
+    int markExpired(@Param("id") Long id, @Param("now") LocalDateTime now);
+    
+    /**
+     * 查询指定订单中已到期的预留
+     */
+    @Select("""
+        <script>
+        SELECT * FROM inventory_reservations
+        WHERE status = 'RESERVED'
+          AND expire_time &lt;= #{now}
+          AND order_id IN
+        <foreach collection="orderIds" item="orderId" open="(" separator="," close=")">
+            #{orderId}
+        </foreach>
+        </script>
+    """)
+    List<InventoryReservation> selectExpiredByOrderIds(@Param("orderIds") Collection<String> orderIds,
+                                                       @Param("now") LocalDateTime now);
+    
+    /**
+     * 按过期时间查询已到期的预留（兜底扫描，覆盖其它节点写入的记录）
+     */
+    @Select("""
+        SELECT * FROM inventory_reservations
+        WHERE status = 'RESERVED' AND expire_time <= #{now}
+        ORDER BY expire_time
+        LIMIT #{limit}
+    """)
+    List<InventoryReservation> selectExpired(@Param("now") LocalDateTime now, @Param("limit") int limit);
+    
+    /**
+     * 按主键游标分页查询预留中的记录（重建时间轮）
+     */
+    @Select("""
+        SELECT id, order_id, expire_time FROM inventory_reservations
+        WHERE status = 'RESERVED' AND id > #{afterId}
+        ORDER BY id
+        LIMIT #{limit}
+    """)
+    List<InventoryReservation> selectReservedAfter(@Param("afterId") long afterId, @Param("limit") int limit);
+}
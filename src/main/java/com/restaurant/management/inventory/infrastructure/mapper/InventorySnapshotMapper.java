@@ -0,0 +1,76 @@
+package com.restaurant.management.inventory.infrastructure.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.restaurant.management.inventory.infrastructure.journal.InventorySnapshot;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存快照Mapper接口
+ */
+@Mapper
+public interface InventorySnapshotMapper extends BaseMapper<InventorySnapshot> {
+
+    /**
+     * 不晚于 at 的最近快照（走 idx_snapshot_key_time）
+     */
+    @Select("""
+        SELECT * FROM inventory_snapshots
+        WHERE sku_id = #{skuId} AND warehouse_id = #{warehouseId}
+          AND as_of_time <= #{at}
+        ORDER BY as_of_time DESC, last_journal_id DESC
+        LIMIT 1
+    """)
+    InventorySnapshot selectLatestAt(@Param("skuId") String skuId,
+                                     @Param("warehouseId") String warehouseId,
+                                     @Param("at") LocalDateTime at);
+
+    /**
+     * 已生成快照覆盖到的最大流水序号
+     */
+    @Select("SELECT COALESCE(MAX(last_journal_id), 0) FROM inventory_snapshots")
+    long selectLastJournalId();
+
+    /**
+     * 截止时间早于 before 的快照轮次中最大的流水序号，不大于该序号的流水可以删除
+     */
+    @Select("SELECT MAX(last_journal_id) FROM inventory_snapshots WHERE as_of_time < #{before}")
+    Long selectLastJournalIdBefore(@Param("before") LocalDateTime before);
+
+    /**
+     * 生成一轮快照：对 (fromId, toId] 内有流水的库存，在其不晚于 fromId 的最近快照上累加增量
+     * 基准只取不晚于 fromId 的快照，多个节点同时生成时各自结果仍然正确；重复轮次由唯一键忽略
+     */
+    @Insert("""
+        INSERT IGNORE INTO inventory_snapshots
+            (sku_id, warehouse_id, available_quantity, reserved_quantity, occupied_quantity, last_journal_id, as_of_time)
+        SELECT d.sku_id, d.warehouse_id,
+               COALESCE(s.available_quantity, 0) + d.available_delta,
+               COALESCE(s.reserved_quantity, 0) + d.reserved_delta,
+               COALESCE(s.occupied_quantity, 0) + d.occupied_delta,
+               #{toId}, #{asOfTime}
+        FROM (
+            SELECT sku_id, warehouse_id,
+                   SUM(available_delta) AS available_delta,
+                   SUM(reserved_delta) AS reserved_delta,
+                   SUM(occupied_delta) AS occupied_delta
+            FROM inventory_journal
+            WHERE id > #{fromId} AND id <= #{toId}
+            GROUP BY sku_id, warehouse_id
+        ) d
+        LEFT JOIN inventory_snapshots s
+          ON s.sku_id = d.sku_id AND s.warehouse_id = d.warehouse_id
+         AND s.last_journal_id = (
+             SELECT MAX(s2.last_journal_id) FROM inventory_snapshots s2
+             WHERE s2.sku_id = d.sku_id AND s2.warehouse_id = d.warehouse_id
+               AND s2.last_journal_id <= #{fromId}
+         )
+    """)
+    int insertRound(@Param("fromId") long fromId,
+                    @Param("toId") long toId,
+                    @Param("asOfTime") LocalDateTime asOfTime);
+}
@@ -0,0 +1,56 @@
+package com.restaurant.management.inventory.infrastructure.mapper;
+
+import com.restaurant.management.inventory.domain.model.InventorySummaryTotals;
+import com.restaurant.management.inventory.infrastructure.summary.SummaryDelta;
+import org.apache.ibatis.annotations.Insert;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Select;
+
+import java.util.List;
+
+/**
+ * SKU 库存汇总Mapper
+ */
+@Mapper
+public interface InventorySummaryMapper {
+
+    /**
+     * 累加一批汇总增量，汇总行不存在时以增量为初值插入
+     * 调用方按 (sku_id, stripe) 排序，多个事务加锁顺序一致
+     */
+    @Insert("""
+        <script>
+        INSERT INTO inventory_sku_summary (sku_id, stripe, total_available, total_reserved, total_occupied)
+        VALUES
+        <foreach collection="deltas" item="delta" separator=",">
+            (#{delta.skuId}, #{delta.stripe}, #{delta.availableDelta}, #{delta.reservedDelta}, #{delta.occupiedDelta})
+        </foreach>
+        ON DUPLICATE KEY UPDATE
+            total_available = total_available + VALUES(total_available),
+            total_reserved = total_reserved + VALUES(total_reserved),
+            total_occupied = total_occupied + VALUES(total_occupied)
+        </script>
+    """)
+    int upsertDeltas(@Param("deltas") List<SummaryDelta> deltas);
+
+    /**
+     * 一批 SKU 的汇总（各汇总行求和，走主键），没有汇总行的 SKU 不返回
+     */
+    @Select("""
+        <script>
+        SELECT
+            sku_id,
+            SUM(total_available) as total_available,
+            SUM(total_reserved) as total_reserved,
+            SUM(total_occupied) as total_occupied
+        FROM inventory_sku_summary
+        WHERE sku_id IN
+        <foreach collection="skuIds" item="skuId" open="(" separator="," close=")">
+            #{skuId}
+        </foreach>
+        GROUP BY sku_id
+        </script>
+    """)
+    List<InventorySummaryTotals> selectBySkuIds(@Param("skuIds") List<String> skuIds);
+}
@@ -2,7 +2,14 @@ package com.restaurant.management.inventory.infrastructure.mapper;
 
 import com.baomidou.mybatisplus.core.mapper.BaseMapper;
 import com.restaurant.management.inventory.domain.model.StockDocumentItem;
+import org.apache.ibatis.annotations.Delete;
+import org.apache.ibatis.annotations.Insert;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Options;
+import org.apache.ibatis.annotations.Param;
+import org.apache.ibatis.annotations.Update;
+
+import java.util.List;
 
 /**
  * 库存单据明细Mapper接口
@@ -11,4 +18,76 @@ import org.apache.ibatis.annotations.Mapper;
 @Mapper
 public interface StockDocumentItemMapper extends BaseMapper<StockDocumentItem> {
     
-}
\ No newline at end of file
+    /**
+     * 多行插入明细，回填自增主键
+     */
+    @Insert("""
+        <script>
+        INSERT INTO stock_document_item (document_id, sku_id, quantity, unit_price, subtotal_amount, remark,
+                                         create_time, update_time)
+        VALUES
+        <foreach collection="items" item="item" separator=",">
+            (#{item.documentId}, #{item.skuId}, #{item.quantity}, #{item.unitPrice}, #{item.subtotalAmount},
+             #{item.remark}, NOW(), NOW())
+        </foreach>
+        </script>
+    """)
+    @Options(useGeneratedKeys = true, keyProperty = "items.id", keyColumn = "id")
+    int insertAll(@Param("items") List<StockDocumentItem> items);
+    
+    /**
+     * 单条语句按主键更新多条明细
+     * @return 受影响行数
+     */
+    @Update("""
+        <script>
+        UPDATE stock_document_item
+        SET sku_id = CASE id
+            <foreach collection="items" item="item">
+                WHEN #{item.id} THEN #{item.skuId}
+            </foreach>
+            END,
+            quantity = CASE id
+            <foreach collection="items" item="item">
+                WHEN #{item.id} THEN #{item.quantity}
+            </foreach>
+            END,
+            unit_price = CASE id
+            <foreach collection="items" item="item">
+                WHEN #{item.id} THEN #{item.unitPrice}
+            </foreach>
+            END,
+            subtotal_amount = CASE id
+            <foreach collection="items" item="item">
+                WHEN #{item.id} THEN #{item.subtotalAmount}
+            </foreach>
+            END,
+            remark = CASE id
+            <foreach collection="items" item="item">
+                WHEN #{item.id} THEN #{item.remark}
+            </foreach>
+            END,
+            update_time = NOW()
+        WHERE id IN
+        <foreach collection="items" item="item" open="(" separator="," close=")">
+            #{item.id}
+        </foreach>
+        </script>
+    """)
+    int updateAll(@Param("items") List<StockDocumentItem> items);
+    
+    /**
+     * 按主键删除多条明细
+     * @return 受影响行数
+     */
+    @Delete("""
+        <script>
+        DELETE FROM stock_document_item
+        WHERE id IN
+        <foreach collection="ids" item="id" open="(" separator="," close=")">
+            #{id}
+        </foreach>
+        </script>
+    """)
+    int deleteAllByIds(@Param("ids") List<Long> ids);
+}
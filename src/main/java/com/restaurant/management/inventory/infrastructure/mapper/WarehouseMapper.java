@@ -0,0 +1,12 @@
+package com.restaurant.management.inventory.infrastructure.mapper;
+
+import com.baomidou.mybatisplus.core.mapper.BaseMapper;
+import com.restaurant.management.inventory.domain.model.Warehouse;
+import org.apache.ibatis.annotations.Mapper;
+
+/**
+ * 仓库Mapper接口
+ */
+@Mapper
+public interface WarehouseMapper extends BaseMapper<Warehouse> {
+}
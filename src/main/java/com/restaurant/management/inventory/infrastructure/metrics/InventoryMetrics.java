@@ -0,0 +1,300 @@
+package com.restaurant.management.inventory.infrastructure.metrics;
+
+import com.restaurant.management.inventory.domain.port.InventoryMetricsPort;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * 库存指标
+ * 统一维护库存相关的 Micrometer 指标，通过 /actuator/prometheus 暴露
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryMetrics implements InventoryMetricsPort {
+
+    private final MeterRegistry meterRegistry;
+
+    /**
+     * 记录一次条件 UPDATE 的结果
+     *
+     * @param operation 操作类型（reserve / release / confirm）
+     * @param outcome   结果（success / not_found / frozen / insufficient / contention / split）
+     */
+    @Override
+    public void recordAtomicUpdate(String operation, String outcome) {
+        Counter.builder("inventory.atomic.update")
+                .description("库存条件更新次数")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 记录一次内存账本回写
+     *
+     * @param outcome 结果（success / failure）
+     * @param rows    本次回写的库存行数
+     */
+    public void recordLedgerFlush(String outcome, int rows) {
+        Counter.builder("inventory.ledger.flush.rows")
+                .description("内存库存账本回写行数")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment(rows);
+    }
+
+    /**
+     * 记录一次秒杀预扣或回写的结果
+     *
+     * @param operation 操作类型（reserve / reconcile）
+     * @param outcome   结果（success / insufficient / duplicate / failure）
+     */
+    public void recordFlashSale(String operation, String outcome) {
+        Counter.builder("inventory.flash_sale")
+                .description("秒杀库存预扣次数")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 记录一次分桶操作的路由结果
+     *
+     * @param operation 操作类型（reserve / release / confirm）
+     * @param route     路由结果（first / sibling / spanning / insufficient）
+     */
+    public void recordBucketRoute(String operation, String route) {
+        Counter.builder("inventory.bucket.route")
+                .description("热点库存分桶路由次数")
+                .tag("operation", operation)
+                .tag("route", route)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 记录一次热点行拆分或合并
+     *
+     * @param action 动作（split / merge）
+     */
+    public void recordHotRow(String action) {
+        Counter.builder("inventory.hot_row")
+                .description("热点库存拆分/合并次数")
+                .tag("action", action)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 记录一条过期预留的处理结果
+     *
+     * @param outcome 结果（success / duplicate / failure）
+     */
+    public void recordReservationExpiry(String outcome) {
+        Counter.builder("inventory.reservation.expiry")
+                .description("过期预留释放次数")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 记录过期预留从到期到实际释放的延迟
+     */
+    public void recordReservationExpiryLag(Duration lag) {
+        Timer.builder("inventory.reservation.expiry.lag")
+                .description("过期预留释放延迟")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(lag.isNegative() ? Duration.ZERO : lag);
+    }
+
+    /**
+     * 注册时间轮中待过期预留数
+     */
+    public void gaugeScheduledReservations(Supplier<Number> size) {
+        Gauge.builder("inventory.reservation.scheduled", size)
+                .description("时间轮中待过期的预留订单数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 记录一次分仓
+     *
+     * @param result       分仓结果（single_warehouse / per_line / split / shortage）
+     * @param elapsedNanos 耗时（纳秒）
+     */
+    public void recordAllocation(String result, long elapsedNanos) {
+        Timer.builder("inventory.allocation")
+                .description("分仓耗时")
+                .tag("result", result)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(Duration.ofNanos(elapsedNanos));
+    }
+
+    /**
+     * 记录一个合并预留批次
+     *
+     * @param size         批次中的请求数
+     * @param accepted     预留成功的请求数
+     * @param elapsedNanos 批次事务耗时（纳秒）
+     */
+    public void recordCoalescedReservation(int size, int accepted, long elapsedNanos) {
+        DistributionSummary.builder("inventory.reserve.coalesced.batch.size")
+                .description("合并预留批次大小")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(size);
+        Counter.builder("inventory.reserve.coalesced.requests")
+                .description("合并预留请求数")
+                .tag("outcome", OUTCOME_SUCCESS)
+                .register(meterRegistry)
+                .increment(accepted);
+        Counter.builder("inventory.reserve.coalesced.requests")
+                .description("合并预留请求数")
+                .tag("outcome", "rejected")
+                .register(meterRegistry)
+                .increment(size - accepted);
+        Timer.builder("inventory.reserve.coalesced.commit")
+                .description("合并预留批次事务耗时")
+                .register(meterRegistry)
+                .record(Duration.ofNanos(elapsedNanos));
+    }
+
+    /**
+     * 记录一次配额租约预留
+     *
+     * @param outcome local（本地余量满足）、topped_up（同步补租后满足）、rejected（补租后仍不足）、lost（租约已失效）
+     */
+    public void recordQuotaReservation(String outcome) {
+        Counter.builder("inventory.quota.reservations")
+                .description("配额租约预留次数")
+                .tag("outcome", outcome)
+                .register(meterRegistry)
+                .increment();
+    }
+
+    /**
+     * 记录一次配额变动
+     *
+     * @param action   grant（租借）、return（归还）、reclaim（回收过期租约）
+     * @param quantity 数量
+     */
+    public void recordQuotaMovement(String action, int quantity) {
+        Counter.builder("inventory.quota.quantity")
+                .description("配额租借/归还/回收的数量")
+                .tag("action", action)
+                .register(meterRegistry)
+                .increment(quantity);
+    }
+
+    /**
+     * 记录一次批量状态变更
+     *
+     * @param status    目标状态
+     * @param rows      状态实际变化的库存行数
+     * @param elapsedMs 耗时（毫秒）
+     */
+    public void recordBulkStatusChange(String status, int rows, long elapsedMs) {
+        Counter.builder("inventory.status.bulk.rows")
+                .description("批量状态变更的库存行数")
+                .tag("status", status)
+                .register(meterRegistry)
+                .increment(rows);
+        Timer.builder("inventory.status.bulk")
+                .description("批量状态变更耗时")
+                .tag("status", status)
+                .register(meterRegistry)
+                .record(Duration.ofMillis(elapsedMs));
+    }
+
+    /**
+     * 记录一次单据执行的领域事件发布
+     *
+     * @param collected 聚合根产生的事件数
+     * @param published 合并后实际发布的事件数
+     */
+    @Override
+    public void recordEventCoalescing(int collected, int published) {
+        Counter.builder("inventory.events.collected")
+                .description("批量操作中聚合根产生的领域事件数")
+                .register(meterRegistry)
+                .increment(collected);
+        Counter.builder("inventory.events.published")
+                .description("批量操作合并后发布的领域事件数")
+                .register(meterRegistry)
+                .increment(published);
+    }
+
+    /**
+     * 记录一次补货扫描
+     *
+     * @param reorders   补货建议数
+     * @param overstocks 积压建议数
+     * @param elapsedMs  扫描耗时（毫秒）
+     */
+    public void recordReplenishmentScan(long reorders, long overstocks, long elapsedMs) {
+        Counter.builder("inventory.replenishment.suggestions")
+                .description("补货扫描产生的建议数")
+                .tag("type", "reorder")
+                .register(meterRegistry)
+                .increment(reorders);
+        Counter.builder("inventory.replenishment.suggestions")
+                .description("补货扫描产生的建议数")
+                .tag("type", "overstock")
+                .register(meterRegistry)
+                .increment(overstocks);
+        Timer.builder("inventory.replenishment.scan")
+                .description("补货扫描耗时")
+                .register(meterRegistry)
+                .record(Duration.ofMillis(elapsedMs));
+    }
+
+    /**
+     * 记录批量审核/执行中的一张单据
+     *
+     * @param operation    批量操作（approve / execute）
+     * @param outcome      结果（success / failure）
+     * @param elapsedNanos 单据耗时（纳秒，含乐观锁重试）
+     */
+    public void recordBatchDocument(String operation, String outcome, long elapsedNanos) {
+        Timer.builder("inventory.document.batch.item")
+                .description("批量审核/执行中单张单据的耗时")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry)
+                .record(Duration.ofNanos(elapsedNanos));
+    }
+
+    /**
+     * 记录一次批量审核/执行
+     *
+     * @param operation  批量操作（approve / execute）
+     * @param partitions 并行执行的分区数
+     * @param elapsedMs  整批耗时（毫秒）
+     */
+    public void recordDocumentBatch(String operation, int partitions, long elapsedMs) {
+        DistributionSummary.builder("inventory.document.batch.partitions")
+                .description("批量审核/执行的分区数")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(partitions);
+        Timer.builder("inventory.document.batch")
+                .description("批量审核/执行的整批耗时")
+                .tag("operation", operation)
+                .register(meterRegistry)
+                .record(Duration.ofMillis(elapsedMs));
+    }
+}
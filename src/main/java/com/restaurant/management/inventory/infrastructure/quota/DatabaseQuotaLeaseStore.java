@@ -0,0 +1,141 @@
+package com.restaurant.management.inventory.infrastructure.quota;
+
+import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryJournalEntry;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.model.JournalChangeType;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+import com.restaurant.management.inventory.domain.repository.InventoryJournalRepository;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryMapper;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryQuotaLeaseMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 基于数据库的配额租约存储
+ * 租借、归还、回收统一先锁库存行再锁租约行，并在独立事务中提交：同步补租发生在预留事务之内，
+ * 不能让库存行锁持有到预留事务结束，也不能随预留事务回滚。预留扣减只触及本节点的租约行
+ */
+@Component
+@RequiredArgsConstructor
+public class DatabaseQuotaLeaseStore implements QuotaLeaseStore {
+
+    private final InventoryMapper inventoryMapper;
+    private final InventoryQuotaLeaseMapper leaseMapper;
+    private final InventoryJournalRepository journalRepository;
+
+    @Override
+    public List<QuotaLease> findByNode(String nodeId) {
+        return leaseMapper.selectByNode(nodeId);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int grant(InventoryKey key, String nodeId, int minQuantity, int maxQuantity, long ttlSeconds) {
+        List<Inventory> locked = inventoryMapper.selectForUpdateByLines(
+            List.of(new ReservationLine(key.getSkuId(), key.getWarehouseId(), maxQuantity)));
+        if (locked.isEmpty() || locked.get(0).getStatus() != InventoryStatus.NORMAL) {
+            return 0;
+        }
+        int available = locked.get(0).getAvailableQuantity();
+        QuotaLease expired = leaseMapper.selectExpiredForUpdate(key.getSkuId(), key.getWarehouseId(), nodeId);
+        if (expired != null && expired.getQuantity() > 0) {
+            // 到期的余量先归还再重新租借，否则顺延到期时间会把本地已作废的余量一并续上
+            returnToInventory(expired, expired.getQuantity(), "过期租约回收");
+            available += expired.getQuantity();
+        }
+        int quantity = Math.min(maxQuantity, available);
+        if (quantity < minQuantity || quantity <= 0) {
+            return 0;
+        }
+        if (inventoryMapper.reserveIfAvailable(key.getSkuId(), key.getWarehouseId(), quantity) != 1) {
+            return 0;
+        }
+        leaseMapper.grant(key.getSkuId(), key.getWarehouseId(), nodeId, quantity, ttlSeconds);
+        journalRepository.appendAll(List.of(InventoryJournalEntry.of(key.getSkuId(), key.getWarehouseId(),
+            JournalChangeType.QUOTA_GRANT, -quantity, quantity, 0, nodeId, "节点配额租借")));
+        return quantity;
+    }
+
+    @Override
+    public boolean consume(InventoryKey key, String nodeId, int quantity) {
+        return leaseMapper.consume(key.getSkuId(), key.getWarehouseId(), nodeId, quantity) == 1;
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int giveBack(InventoryKey key, String nodeId) {
+        inventoryMapper.selectForUpdateByLines(
+            List.of(new ReservationLine(key.getSkuId(), key.getWarehouseId(), 1)));
+        QuotaLease lease = leaseMapper.selectForUpdate(key.getSkuId(), key.getWarehouseId(), nodeId);
+        if (lease == null || lease.getQuantity() <= 0) {
+            return 0;
+        }
+        returnToInventory(lease, lease.getQuantity(), "节点配额归还");
+        return lease.getQuantity();
+    }
+
+    @Override
+    public void renew(String nodeId, long ttlSeconds) {
+        leaseMapper.renew(nodeId, ttlSeconds);
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public int reclaimExpired(int limit) {
+        int reclaimed = 0;
+        for (QuotaLease candidate : leaseMapper.selectExpired(limit)) {
+            inventoryMapper.selectForUpdateByLines(
+                List.of(new ReservationLine(candidate.getSkuId(), candidate.getWarehouseId(), 1)));
+            // 加锁后复核：其它节点可能已回收，或持有者在此之前续约
+            QuotaLease lease = leaseMapper.selectExpiredForUpdate(
+                candidate.getSkuId(), candidate.getWarehouseId(), candidate.getNodeId());
+            if (lease == null) {
+                continue;
+            }
+            if (lease.getQuantity() > 0) {
+                returnToInventory(lease, lease.getQuantity(), "过期租约回收");
+                reclaimed += lease.getQuantity();
+            }
+            leaseMapper.deleteById(lease.getId());
+        }
+        return reclaimed;
+    }
+
+    @Override
+    public Set<InventoryKey> findUnsellable(Collection<InventoryKey> keys) {
+        if (keys.isEmpty()) {
+            return Set.of();
+        }
+        Set<String> skuIds = keys.stream().map(InventoryKey::getSkuId).collect(Collectors.toSet());
+        Set<InventoryKey> sellable = inventoryMapper.selectList(new LambdaQueryWrapper<Inventory>()
+                .in(Inventory::getSkuId, skuIds)
+                .eq(Inventory::getStatus, InventoryStatus.NORMAL))
+            .stream()
+            .map(InventoryKey::of)
+            .collect(Collectors.toSet());
+        Set<InventoryKey> unsellable = new HashSet<>(keys);
+        unsellable.removeAll(sellable);
+        return unsellable;
+    }
+
+    private void returnToInventory(QuotaLease lease, int quantity, String reason) {
+        leaseMapper.deduct(lease.getId(), quantity);
+        if (inventoryMapper.releaseReservedIfEnough(lease.getSkuId(), lease.getWarehouseId(), quantity) != 1) {
+            throw new IllegalStateException(String.format("归还配额失败，库存预留数量不足: %s@%s, quantity=%d",
+                lease.getSkuId(), lease.getWarehouseId(), quantity));
+        }
+        journalRepository.appendAll(List.of(InventoryJournalEntry.of(lease.getSkuId(), lease.getWarehouseId(),
+            JournalChangeType.QUOTA_RETURN, quantity, -quantity, 0, lease.getNodeId(), reason)));
+    }
+}
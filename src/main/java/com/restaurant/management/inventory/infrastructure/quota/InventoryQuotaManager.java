@@ -0,0 +1,282 @@
+package com.restaurant.management.inventory.infrastructure.quota;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.port.InventoryQuotaPort;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 节点库存配额租约（按 SKU 启用）
+ *
+ * 1. 节点从库存行租借一段配额：库存行可用转预留，余量登记在本节点的租约行上
+ * 2. 预留先在本地计数器上 CAS 扣减（无锁准入），再在调用方事务中条件扣减本节点租约行；
+ *    各节点只写自己的租约行，多实例之间不再争用同一库存行，订单的释放/确认仍按普通预留处理
+ * 3. 后台任务定期续约、低于水位时补租、归还空闲或已冻结库存的租约，并回收其它节点的过期租约
+ * 4. 节点宕机后租约不再续约，到期后由存活节点把余量归还库存行；正常停机时主动归还
+ *
+ * 本地计数只会小于等于租约行余量：扣减租约行失败说明租约已到期被回收或计数失真，
+ * 此时归还该库存上的全部余量并丢弃本地计数，由下一笔预留重新租借
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class InventoryQuotaManager implements InventoryQuotaPort {
+
+    private final QuotaLeaseStore leaseStore;
+    private final InventoryProperties inventoryProperties;
+    private final InventoryMetrics inventoryMetrics;
+
+    private final Map<InventoryKey, LocalQuota> quotas = new ConcurrentHashMap<>();
+
+    private volatile boolean started;
+
+    @PostConstruct
+    public void start() {
+        InventoryProperties.Quota config = inventoryProperties.getQuota();
+        if (!config.isEnabled()) {
+            return;
+        }
+        // 先续约再接管：重启前已到期的租约不再续上，留给回收
+        leaseStore.renew(config.getNodeId(), config.getLeaseTtlSeconds());
+        for (QuotaLease lease : leaseStore.findByNode(config.getNodeId())) {
+            if (lease.getQuantity() > 0) {
+                quotas.computeIfAbsent(new InventoryKey(lease.getSkuId(), lease.getWarehouseId()),
+                    key -> new LocalQuota()).remaining.addAndGet(lease.getQuantity());
+            }
+        }
+        started = true;
+        log.info("库存配额租约已启用: nodeId={}, skuIds={}, adopted={}",
+            config.getNodeId(), config.getSkuIds(), quotas.keySet());
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (!started) {
+            return;
+        }
+        started = false;
+        quotas.keySet().forEach(this::evict);
+    }
+
+    /**
+     * 指定 SKU 是否使用配额租约
+     */
+    @Override
+    public boolean handles(String skuId) {
+        return started && inventoryProperties.getQuota().getSkuIds().contains(skuId);
+    }
+
+    /**
+     * 租约 SKU 所在仓库
+     */
+    @Override
+    public String warehouseId() {
+        String warehouseId = inventoryProperties.getQuota().getWarehouseId();
+        return warehouseId == null || warehouseId.isBlank()
+            ? inventoryProperties.getAllocation().getDefaultWarehouseId()
+            : warehouseId;
+    }
+
+    /**
+     * 从本节点配额中预留，租约行的扣减加入调用方事务，调用方事务回滚时归还本地计数
+     *
+     * @throws IllegalStateException 补租后配额仍不足，或租约已失效
+     */
+    @Override
+    public void reserve(String skuId, String warehouseId, int quantity) {
+        InventoryKey key = new InventoryKey(skuId, warehouseId);
+        LocalQuota quota = quotas.computeIfAbsent(key, k -> new LocalQuota());
+        String outcome = "local";
+        if (!quota.tryTake(quantity)) {
+            topUp(key, quota, quantity);
+            if (!quota.tryTake(quantity)) {
+                inventoryMetrics.recordQuotaReservation("rejected");
+                throw new IllegalStateException(
+                    String.format("可用库存不足，需要: %d, 本节点配额: %d", quantity, quota.remaining.get()));
+            }
+            outcome = "topped_up";
+        }
+
+        boolean consumed;
+        try {
+            consumed = leaseStore.consume(key, nodeId(), quantity);
+        } catch (RuntimeException e) {
+            quota.remaining.addAndGet(quantity);
+            throw e;
+        }
+        if (!consumed) {
+            inventoryMetrics.recordQuotaReservation("lost");
+            log.warn("库存配额租约已失效，丢弃本地计数: key={}, nodeId={}", key, nodeId());
+            dropLocal(key);
+            // 调用方事务可能仍持有租约行锁，归还在其结束后进行
+            afterCompletion(() -> giveBack(key));
+            throw new IllegalStateException("库存配额租约已失效，请稍后重试");
+        }
+        quota.touch();
+        restoreOnRollback(quota, quantity);
+        inventoryMetrics.recordQuotaReservation(outcome);
+    }
+
+    /**
+     * 归还本节点在该库存上的全部配额并丢弃本地计数（删除库存前、库存冻结后）
+     */
+    @Override
+    public void evict(InventoryKey key) {
+        dropLocal(key);
+        giveBack(key);
+    }
+
+    private void dropLocal(InventoryKey key) {
+        LocalQuota quota = quotas.remove(key);
+        if (quota != null) {
+            quota.remaining.set(0);
+        }
+    }
+
+    private void giveBack(InventoryKey key) {
+        int returned = leaseStore.giveBack(key, nodeId());
+        if (returned > 0) {
+            inventoryMetrics.recordQuotaMovement("return", returned);
+            log.info("归还库存配额: key={}, nodeId={}, quantity={}", key, nodeId(), returned);
+        }
+    }
+
+    /**
+     * 续约、归还不可售或空闲的租约、补租，并回收其它节点的过期租约
+     * 各步骤独立容错：续约失败时租约到期由其它节点回收，本节点后续扣减失败而不会超卖
+     */
+    @Scheduled(fixedDelayString = "${inventory.quota.maintain-interval-ms:5000}")
+    public void maintain() {
+        if (!started) {
+            return;
+        }
+        InventoryProperties.Quota config = inventoryProperties.getQuota();
+        try {
+            leaseStore.renew(nodeId(), config.getLeaseTtlSeconds());
+        } catch (RuntimeException e) {
+            log.warn("库存配额续约失败: nodeId={}", nodeId(), e);
+        }
+
+        try {
+            Set<InventoryKey> unsellable = leaseStore.findUnsellable(quotas.keySet());
+            unsellable.forEach(this::evict);
+            long idleBefore = System.currentTimeMillis() - config.getIdleReturnMs();
+            int lowWatermark = (int) Math.ceil(config.getLeaseSize() * config.getLowWatermarkRatio());
+            quotas.forEach((key, quota) -> {
+                if (quota.lastUsedMillis < idleBefore) {
+                    evict(key);
+                } else if (quota.remaining.get() < lowWatermark) {
+                    topUp(key, quota, 0);
+                }
+            });
+        } catch (RuntimeException e) {
+            log.warn("库存配额补租/归还失败: nodeId={}", nodeId(), e);
+        }
+
+        try {
+            int reclaimed = leaseStore.reclaimExpired(config.getReclaimBatchSize());
+            if (reclaimed > 0) {
+                inventoryMetrics.recordQuotaMovement("reclaim", reclaimed);
+                log.info("回收过期库存配额: quantity={}", reclaimed);
+            }
+        } catch (RuntimeException e) {
+            log.warn("回收过期库存配额失败", e);
+        }
+    }
+
+    /**
+     * 补租到 leaseSize；同一库存同时只有一个补租请求访问库存行
+     *
+     * @param needed 同步补租时本笔预留需要的数量，后台补租为 0
+     */
+    private void topUp(InventoryKey key, LocalQuota quota, int needed) {
+        InventoryProperties.Quota config = inventoryProperties.getQuota();
+        synchronized (quota) {
+            int remaining = quota.remaining.get();
+            if (needed > 0 && remaining >= needed) {
+                // 等锁期间已由其它线程补足
+                return;
+            }
+            int minQuantity = Math.max(1, needed - remaining);
+            int maxQuantity = Math.max(minQuantity, config.getLeaseSize() - remaining);
+            int granted = leaseStore.grant(key, nodeId(), minQuantity, maxQuantity, config.getLeaseTtlSeconds());
+            if (granted > 0) {
+                quota.remaining.addAndGet(granted);
+                inventoryMetrics.recordQuotaMovement("grant", granted);
+            }
+        }
+    }
+
+    private void restoreOnRollback(LocalQuota quota, int quantity) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status == STATUS_ROLLED_BACK) {
+                    quota.remaining.addAndGet(quantity);
+                }
+            }
+        });
+    }
+
+    private void afterCompletion(Runnable action) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            action.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                try {
+                    action.run();
+                } catch (RuntimeException e) {
+                    log.warn("归还失效的库存配额失败，留待过期回收", e);
+                }
+            }
+        });
+    }
+
+    private String nodeId() {
+        return inventoryProperties.getQuota().getNodeId();
+    }
+
+    /**
+     * 节点在单个库存上的本地配额计数
+     */
+    private static final class LocalQuota {
+
+        private final AtomicInteger remaining = new AtomicInteger();
+
+        private volatile long lastUsedMillis = System.currentTimeMillis();
+
+        boolean tryTake(int quantity) {
+            int current;
+            do {
+                current = remaining.get();
+                if (current < quantity) {
+                    return false;
+                }
+            } while (!remaining.compareAndSet(current, current - quantity));
+            return true;
+        }
+
+        void touch() {
+            lastUsedMillis = System.currentTimeMillis();
+        }
+    }
+}
@@ -0,0 +1,20 @@
+package com.restaurant.management.inventory.infrastructure.quota;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 节点库存配额租约
+ * 每个 (SKU, 仓库, 节点) 一行，quantity 为节点尚未用掉的租借配额（已计入库存行的 reserved_quantity）
+ */
+@Data
+public class QuotaLease {
+
+    private Long id;
+    private String skuId;
+    private String warehouseId;
+    private String nodeId;
+    private Integer quantity;
+    private LocalDateTime expireTime;
+}
@@ -0,0 +1,60 @@
+package com.restaurant.management.inventory.infrastructure.quota;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 配额租约存储
+ * 租借、归还、回收须在存储端原子完成：库存行的可用/预留数量与租约余量同时变化，任何时刻
+ * 库存行的 reserved_quantity 都包含全部租约余量
+ */
+public interface QuotaLeaseStore {
+    
+    /**
+     * 查询节点的全部租约
+     */
+    List<QuotaLease> findByNode(String nodeId);
+    
+    /**
+     * 从库存行租借配额：可用转预留，并累加到节点租约上；节点原租约已到期时先回收其余量
+     * 在独立事务中提交，返回时租借已生效
+     *
+     * @param minQuantity 至少租借的数量，可用库存不足时不租借
+     * @param maxQuantity 至多租借的数量
+     * @param ttlSeconds  租约有效期
+     * @return 实际租借的数量，0 表示库存不存在、已冻结或可用库存不足 minQuantity
+     */
+    int grant(InventoryKey key, String nodeId, int minQuantity, int maxQuantity, long ttlSeconds);
+    
+    /**
+     * 扣减节点租约余量，加入调用方事务
+     * @return 是否扣减成功（失败表示租约已到期或已被回收）
+     */
+    boolean consume(InventoryKey key, String nodeId, int quantity);
+    
+    /**
+     * 归还节点在该库存上的全部租约余量：预留转可用，在独立事务中提交
+     * 尚未提交的本地扣减随后会因余量不足而失败
+     * @return 归还的数量
+     */
+    int giveBack(InventoryKey key, String nodeId);
+    
+    /**
+     * 顺延节点未到期租约的到期时间
+     */
+    void renew(String nodeId, long ttlSeconds);
+    
+    /**
+     * 回收已到期的租约（任意节点），余量归还库存行，在独立事务中提交
+     * @return 回收的配额数量
+     */
+    int reclaimExpired(int limit);
+    
+    /**
+     * 筛选已冻结或已删除、不应继续售卖的库存
+     */
+    Set<InventoryKey> findUnsellable(Collection<InventoryKey> keys);
+}
@@ -0,0 +1,62 @@
+package com.restaurant.management.inventory.infrastructure.replenishment;
+
+import lombok.Getter;
+
+/**
+ * 补货/积压建议
+ */
+@Getter
+public class ReorderSuggestion {
+
+    /**
+     * 未设置上限时 max_stock 的取值（见 Inventory.create）
+     */
+    private static final int UNBOUNDED_MAX_STOCK = Integer.MAX_VALUE;
+
+    public enum Type {
+        /** 低于安全库存，需要补货 */
+        REORDER,
+        /** 达到库存上限，需要消化积压 */
+        OVERSTOCK
+    }
+
+    private final Type type;
+    private final String skuId;
+    private final String warehouseId;
+    private final int currentQuantity;
+    private final int safetyStock;
+    private final int maxStock;
+
+    /**
+     * 补货：补到库存上限（未设上限时补到安全库存的两倍）所需数量；积压：超出上限的数量
+     */
+    private final int suggestedQuantity;
+
+    private ReorderSuggestion(Type type, StockLevelRow row, int suggestedQuantity) {
+        this.type = type;
+        this.skuId = row.getSkuId();
+        this.warehouseId = row.getWarehouseId();
+        this.currentQuantity = row.getTotalQuantity();
+        this.safetyStock = row.getSafetyStock();
+        this.maxStock = row.getMaxStock();
+        this.suggestedQuantity = suggestedQuantity;
+    }
+
+    /**
+     * 按库存水位生成建议，水位正常或建议数量为 0 时返回 null
+     */
+    public static ReorderSuggestion evaluate(StockLevelRow row) {
+        int total = row.getTotalQuantity();
+        int safetyStock = row.getSafetyStock();
+        int maxStock = row.getMaxStock();
+        if (total <= safetyStock) {
+            long target = maxStock == UNBOUNDED_MAX_STOCK ? 2L * safetyStock : maxStock;
+            long quantity = target - total;
+            return quantity > 0 ? new ReorderSuggestion(Type.REORDER, row, (int) Math.min(quantity, Integer.MAX_VALUE)) : null;
+        }
+        if (total >= maxStock) {
+            return new ReorderSuggestion(Type.OVERSTOCK, row, total - maxStock);
+        }
+        return null;
+    }
+}
@@ -0,0 +1,162 @@
+package com.restaurant.management.inventory.infrastructure.replenishment;
+
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryMapper;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.ibatis.cursor.Cursor;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 补货/积压扫描
+ *
+ * 按仓库并行扫描，每个仓库一个只读事务：先读出已拆分热点分桶的少量库存（按主行 + 分桶合计判断），
+ * 再用游标流式读取其余触发水位的库存。建议逐条交给调用方，不在内存中累积，内存占用与库存行数无关
+ */
+@Slf4j
+@Component
+public class ReplenishmentScanner {
+
+    private final InventoryMapper inventoryMapper;
+    private final InventoryProperties inventoryProperties;
+    private final InventoryMetrics inventoryMetrics;
+    private final TransactionTemplate readOnlyTransaction;
+
+    public ReplenishmentScanner(InventoryMapper inventoryMapper,
+                                InventoryProperties inventoryProperties,
+                                InventoryMetrics inventoryMetrics,
+                                PlatformTransactionManager transactionManager) {
+        this.inventoryMapper = inventoryMapper;
+        this.inventoryProperties = inventoryProperties;
+        this.inventoryMetrics = inventoryMetrics;
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+    }
+
+    /**
+     * 定时扫描，建议写入日志并记录指标
+     */
+    @Scheduled(cron = "${inventory.replenishment.cron:0 0 2 * * *}")
+    public void scheduledScan() {
+        if (!inventoryProperties.getReplenishment().isEnabled()) {
+            return;
+        }
+        ScanResult result = scan(suggestion -> log.info("{}建议: skuId={}, warehouseId={}, 当前={}, 安全库存={}, 上限={}, 建议数量={}",
+            suggestion.getType(), suggestion.getSkuId(), suggestion.getWarehouseId(), suggestion.getCurrentQuantity(),
+            suggestion.getSafetyStock(), suggestion.getMaxStock(), suggestion.getSuggestedQuantity()));
+        log.info("补货扫描完成: 仓库数={}, 补货建议={}, 积压建议={}, 耗时={}ms",
+            result.getWarehouses(), result.getReorders(), result.getOverstocks(), result.getElapsedMs());
+    }
+
+    /**
+     * 扫描全部仓库
+     *
+     * @param sink 建议接收方，会被多个扫描线程并发调用，须线程安全
+     */
+    public ScanResult scan(Consumer<ReorderSuggestion> sink) {
+        long start = System.currentTimeMillis();
+        List<String> warehouseIds = inventoryMapper.selectWarehouseIds();
+        LongAdder reorders = new LongAdder();
+        LongAdder overstocks = new LongAdder();
+        Consumer<ReorderSuggestion> counting = suggestion -> {
+            (suggestion.getType() == ReorderSuggestion.Type.REORDER ? reorders : overstocks).increment();
+            sink.accept(suggestion);
+        };
+
+        int parallelism = Math.max(1, Math.min(inventoryProperties.getReplenishment().getParallelism(), warehouseIds.size()));
+        AtomicInteger threadNo = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "replenishment-scan-" + threadNo.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            List<Future<?>> futures = new ArrayList<>(warehouseIds.size());
+            for (String warehouseId : warehouseIds) {
+                futures.add(executor.submit(() -> scanWarehouse(warehouseId, counting)));
+            }
+            for (Future<?> future : futures) {
+                await(future);
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+
+        ScanResult result = new ScanResult(warehouseIds.size(), reorders.sum(), overstocks.sum(),
+            System.currentTimeMillis() - start);
+        inventoryMetrics.recordReplenishmentScan(result.getReorders(), result.getOverstocks(), result.getElapsedMs());
+        return result;
+    }
+
+    /**
+     * 扫描单个仓库；MySQL 流式结果集占用连接期间不能再执行其它语句，分桶库存须在打开游标之前读出
+     */
+    void scanWarehouse(String warehouseId, Consumer<ReorderSuggestion> sink) {
+        readOnlyTransaction.executeWithoutResult(status -> {
+            for (StockLevelRow row : inventoryMapper.selectSplitStockLevels(warehouseId)) {
+                emit(row, sink);
+            }
+            try (Cursor<StockLevelRow> cursor = inventoryMapper.streamStockLevelAlerts(warehouseId)) {
+                cursor.forEach(row -> emit(row, sink));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    private void emit(StockLevelRow row, Consumer<ReorderSuggestion> sink) {
+        ReorderSuggestion suggestion = ReorderSuggestion.evaluate(row);
+        if (suggestion != null) {
+            sink.accept(suggestion);
+        }
+    }
+
+    private void await(Future<?> future) {
+        try {
+            future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("补货扫描被中断", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException("补货扫描失败", cause);
+        }
+    }
+
+    /**
+     * 扫描结果统计
+     */
+    @Getter
+    public static class ScanResult {
+        private final int warehouses;
+        private final long reorders;
+        private final long overstocks;
+        private final long elapsedMs;
+
+        public ScanResult(int warehouses, long reorders, long overstocks, long elapsedMs) {
+            this.warehouses = warehouses;
+            this.reorders = reorders;
+            this.overstocks = overstocks;
+            this.elapsedMs = elapsedMs;
+        }
+    }
+}
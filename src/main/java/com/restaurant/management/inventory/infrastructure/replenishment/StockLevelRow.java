@@ -0,0 +1,16 @@
+package com.restaurant.management.inventory.infrastructure.replenishment;
+
+import lombok.Data;
+
+/**
+ * 补货扫描读取的库存水位投影（只取判断所需的列，流式读取时每行占用固定内存）
+ */
+@Data
+public class StockLevelRow {
+
+    private String skuId;
+    private String warehouseId;
+    private Integer totalQuantity;
+    private Integer safetyStock;
+    private Integer maxStock;
+}
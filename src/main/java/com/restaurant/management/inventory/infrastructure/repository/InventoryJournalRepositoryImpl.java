@@ -0,0 +1,72 @@
+package com.restaurant.management.inventory.infrastructure.repository;
+
+import com.restaurant.management.inventory.domain.model.InventoryJournalEntry;
+import com.restaurant.management.inventory.domain.model.InventoryPointInTime;
+import com.restaurant.management.inventory.domain.repository.InventoryJournalRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.journal.InventorySnapshot;
+import com.restaurant.management.inventory.infrastructure.journal.JournalDeltaSum;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryJournalMapper;
+import com.restaurant.management.inventory.infrastructure.mapper.InventorySnapshotMapper;
+import com.restaurant.management.inventory.infrastructure.summary.InventorySummaryStore;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 库存流水仓储实现类
+ * 所有库存增量都经由 appendAll 写入，SKU 汇总表在同一处累加
+ */
+@Repository
+@RequiredArgsConstructor
+public class InventoryJournalRepositoryImpl implements InventoryJournalRepository {
+    
+    private final InventoryJournalMapper journalMapper;
+    private final InventorySnapshotMapper snapshotMapper;
+    private final InventoryProperties inventoryProperties;
+    private final InventorySummaryStore summaryStore;
+    
+    @Override
+    public void appendAll(List<InventoryJournalEntry> entries) {
+        if (entries.isEmpty()) {
+            return;
+        }
+        summaryStore.apply(entries);
+        if (!inventoryProperties.getJournal().isEnabled()) {
+            return;
+        }
+        journalMapper.insertAll(entries);
+    }
+    
+    @Override
+    public Optional<InventoryPointInTime> findAt(String skuId, String warehouseId, LocalDateTime at) {
+        InventorySnapshot snapshot = snapshotMapper.selectLatestAt(skuId, warehouseId, at);
+        LocalDateTime retainedSince = LocalDateTime.now().minusDays(inventoryProperties.getJournal().getRetentionDays());
+        if (snapshot != null && at.isBefore(retainedSince)) {
+            // 流水已压缩，只能给出快照粒度的结果
+            return Optional.of(new InventoryPointInTime(skuId, warehouseId, snapshot.getAsOfTime(),
+                snapshot.getAvailableQuantity(), snapshot.getReservedQuantity(), snapshot.getOccupiedQuantity()));
+        }
+        long afterId = snapshot == null ? 0L : snapshot.getLastJournalId();
+        JournalDeltaSum sum = journalMapper.sumAfter(skuId, warehouseId, afterId, at);
+        if (snapshot == null && sum.getEntries() == 0) {
+            return Optional.empty();
+        }
+        int available = snapshot == null ? 0 : snapshot.getAvailableQuantity();
+        int reserved = snapshot == null ? 0 : snapshot.getReservedQuantity();
+        int occupied = snapshot == null ? 0 : snapshot.getOccupiedQuantity();
+        return Optional.of(new InventoryPointInTime(skuId, warehouseId, at,
+            available + sum.getAvailableDelta(),
+            reserved + sum.getReservedDelta(),
+            occupied + sum.getOccupiedDelta()));
+    }
+    
+    @Override
+    public List<InventoryJournalEntry> findHistory(String skuId, String warehouseId,
+                                                   LocalDateTime from, LocalDateTime to, int limit) {
+        return journalMapper.selectHistory(skuId, warehouseId, from, to, limit);
+    }
+}
@@ -2,14 +2,26 @@ package com.restaurant.management.inventory.infrastructure.repository;
 
 import com.baomidou.mybatisplus.core.conditions.query.LambdaQueryWrapper;
 import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryJournalEntry;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
 import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+import com.restaurant.management.inventory.domain.repository.InventoryJournalRepository;
 import com.restaurant.management.inventory.domain.repository.InventoryRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
 import com.restaurant.management.inventory.infrastructure.mapper.InventoryMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Repository;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.stream.Collectors;
 
 /**
  * 库存仓储实现类
@@ -19,17 +31,58 @@ import java.util.Optional;
 public class InventoryRepositoryImpl implements InventoryRepository {
     
     private final InventoryMapper inventoryMapper;
+    private final InventoryJournalRepository journalRepository;
+    private final InventoryProperties inventoryProperties;
     
     @Override
     public Inventory save(Inventory inventory) {
         if (inventory.getId() == null) {
             inventoryMapper.insert(inventory);
-        } else {
-            inventoryMapper.updateById(inventory);
+        } else if (inventoryMapper.updateById(inventory) == 0) {
+            throw new OptimisticLockingFailureException(String.format(
+                "库存已被并发修改: skuId=%s, warehouseId=%s, version=%d",
+                inventory.getSkuId(), inventory.getWarehouseId(), inventory.getVersion()));
         }
+        // 流水与库存行在同一事务中写入
+        journalRepository.appendAll(inventory.getJournalEntries());
+        inventory.clearJournalEntries();
         return inventory;
     }
     
+    @Override
+    public void saveAll(Collection<Inventory> inventories) {
+        List<Inventory> inserts = new ArrayList<>();
+        List<Inventory> updates = new ArrayList<>();
+        List<InventoryJournalEntry> entries = new ArrayList<>();
+        for (Inventory inventory : inventories) {
+            (inventory.getId() == null ? inserts : updates).add(inventory);
+            entries.addAll(inventory.getJournalEntries());
+        }
+        // 按加锁顺序写入，分多条语句时各事务之间也以相同顺序获取行锁
+        Comparator<Inventory> lockOrder = Comparator.comparing(InventoryKey::of, InventoryKey.LOCK_ORDER);
+        inserts.sort(lockOrder);
+        updates.sort(lockOrder);
+        
+        int batchSize = Math.max(1, inventoryProperties.getDocumentExecution().getWriteBatchSize());
+        for (int from = 0; from < inserts.size(); from += batchSize) {
+            inventoryMapper.insertAll(inserts.subList(from, Math.min(from + batchSize, inserts.size())));
+        }
+        for (int from = 0; from < updates.size(); from += batchSize) {
+            List<Inventory> chunk = updates.subList(from, Math.min(from + batchSize, updates.size()));
+            int updated = inventoryMapper.updateAllIfVersionMatches(chunk);
+            if (updated != chunk.size()) {
+                throw new OptimisticLockingFailureException(String.format(
+                    "库存已被并发修改: 批量保存 %d 条，版本号一致的 %d 条", chunk.size(), updated));
+            }
+        }
+        // 与 updateById 的乐观锁插件一致，保存成功后内存中的版本号随之递增
+        updates.forEach(inventory -> inventory.setVersion(inventory.getVersion() + 1));
+        
+        // 流水与库存行在同一事务中写入
+        journalRepository.appendAll(entries);
+        inventories.forEach(Inventory::clearJournalEntries);
+    }
+    
     @Override
     public Optional<Inventory> findBySkuIdAndWarehouseId(String skuId, String warehouseId) {
         LambdaQueryWrapper<Inventory> queryWrapper = new LambdaQueryWrapper<Inventory>()
@@ -40,6 +93,97 @@ public class InventoryRepositoryImpl implements InventoryRepository {
         return Optional.ofNullable(inventory);
     }
     
+    @Override
+    public List<Inventory> findBySkuIdsAndWarehouseId(Collection<String> skuIds, String warehouseId) {
+        if (skuIds.isEmpty()) {
+            return List.of();
+        }
+        LambdaQueryWrapper<Inventory> queryWrapper = new LambdaQueryWrapper<Inventory>()
+            .eq(Inventory::getWarehouseId, warehouseId)
+            .in(Inventory::getSkuId, skuIds);
+        
+        return inventoryMapper.selectList(queryWrapper);
+    }
+    
+    @Override
+    public List<Inventory> findAllByKeys(Collection<InventoryKey> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        return inventoryMapper.selectByKeys(keys);
+    }
+    
+    @Override
+    public List<Inventory> findAllByKeysForUpdate(Collection<InventoryKey> keys) {
+        if (keys.isEmpty()) {
+            return List.of();
+        }
+        // 先整体排序再分批，多条语句之间同样按全局加锁顺序推进
+        List<InventoryKey> sorted = new ArrayList<>(new LinkedHashSet<>(keys));
+        sorted.sort(InventoryKey.LOCK_ORDER);
+        int batchSize = Math.max(1, inventoryProperties.getDocumentExecution().getWriteBatchSize());
+        List<Inventory> locked = new ArrayList<>(sorted.size());
+        for (int from = 0; from < sorted.size(); from += batchSize) {
+            locked.addAll(inventoryMapper.selectByKeysForUpdate(sorted.subList(from, Math.min(from + batchSize, sorted.size()))));
+        }
+        return locked;
+    }
+    
+    @Override
+    public boolean reserveIfAvailable(String skuId, String warehouseId, int quantity) {
+        return inventoryMapper.reserveIfAvailable(skuId, warehouseId, quantity) == 1;
+    }
+    
+    @Override
+    public boolean releaseReservedIfEnough(String skuId, String warehouseId, int quantity) {
+        return inventoryMapper.releaseReservedIfEnough(skuId, warehouseId, quantity) == 1;
+    }
+    
+    @Override
+    public boolean confirmReservedIfEnough(String skuId, String warehouseId, int quantity) {
+        return inventoryMapper.confirmReservedIfEnough(skuId, warehouseId, quantity) == 1;
+    }
+    
+    @Override
+    public List<Inventory> findAllForUpdate(List<ReservationLine> lines) {
+        if (lines.isEmpty()) {
+            return List.of();
+        }
+        return inventoryMapper.selectForUpdateByLines(lines);
+    }
+    
+    @Override
+    public int batchReserve(Map<Long, Integer> quantityByInventoryId) {
+        if (quantityByInventoryId.isEmpty()) {
+            return 0;
+        }
+        List<InventoryMapper.QuantityDelta> deltas = quantityByInventoryId.entrySet().stream()
+            .map(entry -> new InventoryMapper.QuantityDelta(entry.getKey(), entry.getValue()))
+            .collect(Collectors.toList());
+        return inventoryMapper.batchReserve(deltas);
+    }
+    
+    @Override
+    public List<Inventory> findAllForStatusChange(List<String> skuIds, InventoryStatus status) {
+        if (skuIds.isEmpty()) {
+            return List.of();
+        }
+        return inventoryMapper.selectForStatusChange(skuIds, status);
+    }
+    
+    @Override
+    public int batchUpdateStatus(List<Long> inventoryIds, InventoryStatus status) {
+        if (inventoryIds.isEmpty()) {
+            return 0;
+        }
+        return inventoryMapper.batchUpdateStatus(inventoryIds, status);
+    }
+    
+    @Override
+    public List<String> findSkuIdsBySpuId(String spuId) {
+        return inventoryMapper.selectSkuIdsBySpuId(spuId);
+    }
+    
     @Override
     public List<Inventory> findBySkuId(String skuId) {
         LambdaQueryWrapper<Inventory> queryWrapper = new LambdaQueryWrapper<Inventory>()
@@ -1,23 +1,37 @@
 package com.restaurant.management.inventory.infrastructure.repository;
 
 import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
 import com.restaurant.management.inventory.domain.model.DocumentStatus;
 import com.restaurant.management.inventory.domain.model.DocumentType;
 import com.restaurant.management.inventory.domain.model.StockDocument;
+import com.restaurant.management.inventory.domain.model.StockDocumentCounts;
+import com.restaurant.management.inventory.domain.model.StockDocumentCursor;
 import com.restaurant.management.inventory.domain.model.StockDocumentItem;
+import com.restaurant.management.inventory.domain.model.StockDocumentPage;
 import com.restaurant.management.inventory.domain.repository.StockDocumentRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
 import com.restaurant.management.inventory.infrastructure.mapper.StockDocumentMapper;
 import com.restaurant.management.inventory.infrastructure.mapper.StockDocumentItemMapper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Repository;
 
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 /**
  * 库存单据仓储实现
  * 基于MyBatis-Plus实现库存单据的持久化操作
+ * 经由本仓储加载或保存的单据记录明细的持久化状态，再次保存时只写入变化的明细（多行语句）
+ * 列表查询一次加载整批单据的明细；不需要明细的场景（如审核队列）使用只含主表的查询
  */
 @Repository
 public class StockDocumentRepositoryImpl implements StockDocumentRepository {
@@ -28,6 +42,9 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
     @Autowired
     private StockDocumentItemMapper stockDocumentItemMapper;
     
+    @Autowired
+    private InventoryProperties inventoryProperties;
+    
     @Override
     public StockDocument save(StockDocument document) {
         if (document.getId() == null) {
@@ -35,34 +52,86 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
             stockDocumentMapper.insert(document);
             
             // 保存单据明细
-            if (document.getItems() != null && !document.getItems().isEmpty()) {
-                for (StockDocumentItem item : document.getItems()) {
-                    item.setDocumentId(document.getDocumentId());
-                    stockDocumentItemMapper.insert(item);
-                }
-            }
+            document.getItems().forEach(item -> item.setDocumentId(document.getDocumentId()));
+            insertItems(document.getItems());
         } else {
-            // 更新单据
-            stockDocumentMapper.updateById(document);
-            
-            // 删除原有明细
-            QueryWrapper<StockDocumentItem> deleteWrapper = new QueryWrapper<>();
-            deleteWrapper.eq("document_id", document.getDocumentId());
-            stockDocumentItemMapper.delete(deleteWrapper);
+            // 更新单据（版本号不符说明单据已被并发修改）
+            if (stockDocumentMapper.updateById(document) == 0) {
+                throw new OptimisticLockingFailureException(String.format(
+                    "库存单据已被并发修改: documentId=%s, version=%d", document.getDocumentId(), document.getVersion()));
+            }
             
-            // 重新保存明细
-            if (document.getItems() != null && !document.getItems().isEmpty()) {
-                for (StockDocumentItem item : document.getItems()) {
-                    item.setDocumentId(document.getDocumentId());
-                    item.setId(null); // 确保是新增
-                    stockDocumentItemMapper.insert(item);
-                }
+            if (document.isHeaderOnly()) {
+                // 只加载了主表的单据不改动明细
+                return document;
+            }
+            if (document.itemsTracked()) {
+                saveItemChanges(document);
+            } else {
+                replaceItems(document);
             }
         }
         
+        document.markItemsPersisted();
         return document;
     }
     
+    /**
+     * 只写入自加载以来有变化的明细：删除被移除的、插入新增的、更新修改过的，明细主键保持不变
+     * 状态流转（提交、审核、执行、取消）不改动明细，只更新主表
+     */
+    private void saveItemChanges(StockDocument document) {
+        List<Long> removedIds = document.removedItemIds();
+        int batchSize = batchSize();
+        for (int from = 0; from < removedIds.size(); from += batchSize) {
+            stockDocumentItemMapper.deleteAllByIds(removedIds.subList(from, Math.min(from + batchSize, removedIds.size())));
+        }
+        
+        List<StockDocumentItem> inserts = new ArrayList<>();
+        List<StockDocumentItem> updates = new ArrayList<>();
+        for (StockDocumentItem item : document.getItems()) {
+            item.setDocumentId(document.getDocumentId());
+            if (item.getId() == null) {
+                inserts.add(item);
+            } else if (item.changedSincePersisted()) {
+                updates.add(item);
+            }
+        }
+        insertItems(inserts);
+        for (int from = 0; from < updates.size(); from += batchSize) {
+            stockDocumentItemMapper.updateAll(updates.subList(from, Math.min(from + batchSize, updates.size())));
+        }
+    }
+    
+    /**
+     * 明细未被跟踪（不是经由本仓储加载的单据）时整体替换
+     */
+    private void replaceItems(StockDocument document) {
+        QueryWrapper<StockDocumentItem> deleteWrapper = new QueryWrapper<>();
+        deleteWrapper.eq("document_id", document.getDocumentId());
+        stockDocumentItemMapper.delete(deleteWrapper);
+        
+        for (StockDocumentItem item : document.getItems()) {
+            item.setDocumentId(document.getDocumentId());
+            item.setId(null); // 确保是新增
+        }
+        insertItems(document.getItems());
+    }
+    
+    /**
+     * 多行插入明细，回填主键
+     */
+    private void insertItems(List<StockDocumentItem> items) {
+        int batchSize = batchSize();
+        for (int from = 0; from < items.size(); from += batchSize) {
+            stockDocumentItemMapper.insertAll(items.subList(from, Math.min(from + batchSize, items.size())));
+        }
+    }
+    
+    private int batchSize() {
+        return Math.max(1, inventoryProperties.getDocumentExecution().getWriteBatchSize());
+    }
+    
     @Override
     public Optional<StockDocument> findById(Long id) {
         StockDocument document = stockDocumentMapper.selectById(id);
@@ -120,7 +189,7 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
         QueryWrapper<StockDocument> wrapper = new QueryWrapper<>();
         wrapper.eq("document_status", status);
         List<StockDocument> documents = stockDocumentMapper.selectList(wrapper);
-        documents.forEach(this::loadDocumentItems);
+        loadDocumentItems(documents);
         return documents;
     }
     
@@ -129,7 +198,7 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
         QueryWrapper<StockDocument> wrapper = new QueryWrapper<>();
         wrapper.eq("document_type", type);
         List<StockDocument> documents = stockDocumentMapper.selectList(wrapper);
-        documents.forEach(this::loadDocumentItems);
+        loadDocumentItems(documents);
         return documents;
     }
     
@@ -138,7 +207,7 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
         QueryWrapper<StockDocument> wrapper = new QueryWrapper<>();
         wrapper.eq("warehouse_id", warehouseId);
         List<StockDocument> documents = stockDocumentMapper.selectList(wrapper);
-        documents.forEach(this::loadDocumentItems);
+        loadDocumentItems(documents);
         return documents;
     }
     
@@ -147,7 +216,7 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
         QueryWrapper<StockDocument> wrapper = new QueryWrapper<>();
         wrapper.eq("operator_id", operatorId);
         List<StockDocument> documents = stockDocumentMapper.selectList(wrapper);
-        documents.forEach(this::loadDocumentItems);
+        loadDocumentItems(documents);
         return documents;
     }
     
@@ -156,7 +225,7 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
         QueryWrapper<StockDocument> wrapper = new QueryWrapper<>();
         wrapper.between("create_time", startTime, endTime);
         List<StockDocument> documents = stockDocumentMapper.selectList(wrapper);
-        documents.forEach(this::loadDocumentItems);
+        loadDocumentItems(documents);
         return documents;
     }
     
@@ -166,7 +235,7 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
         wrapper.between("create_time", startTime, endTime)
                .eq("document_status", status);
         List<StockDocument> documents = stockDocumentMapper.selectList(wrapper);
-        documents.forEach(this::loadDocumentItems);
+        loadDocumentItems(documents);
         return documents;
     }
     
@@ -176,7 +245,28 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
         wrapper.between("create_time", startTime, endTime)
                .eq("document_type", type);
         List<StockDocument> documents = stockDocumentMapper.selectList(wrapper);
-        documents.forEach(this::loadDocumentItems);
+        loadDocumentItems(documents);
+        return documents;
+    }
+    
+    @Override
+    public List<StockDocument> findHeadersByStatus(DocumentStatus status) {
+        QueryWrapper<StockDocument> wrapper = new QueryWrapper<>();
+        wrapper.eq("document_status", status);
+        List<StockDocument> documents = stockDocumentMapper.selectList(wrapper);
+        documents.forEach(StockDocument::markHeaderOnly);
+        return documents;
+    }
+    
+    @Override
+    public List<StockDocument> findHeadersByDocumentIds(Collection<String> documentIds) {
+        if (documentIds.isEmpty()) {
+            return new ArrayList<>();
+        }
+        QueryWrapper<StockDocument> wrapper = new QueryWrapper<>();
+        wrapper.in("document_id", documentIds);
+        List<StockDocument> documents = stockDocumentMapper.selectList(wrapper);
+        documents.forEach(StockDocument::markHeaderOnly);
         return documents;
     }
     
@@ -185,6 +275,11 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
         return findByStatus(DocumentStatus.PENDING);
     }
     
+    @Override
+    public List<StockDocument> findPendingDocumentHeaders() {
+        return findHeadersByStatus(DocumentStatus.PENDING);
+    }
+    
     @Override
     public List<StockDocument> findApprovedButNotExecutedDocuments() {
         return findByStatus(DocumentStatus.APPROVED);
@@ -197,7 +292,7 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
         wrapper.eq("warehouse_id", warehouseId)
                .exists("SELECT 1 FROM stock_document_item sdi WHERE sdi.document_id = stock_document.document_id AND sdi.sku_id = {0}", skuId);
         List<StockDocument> documents = stockDocumentMapper.selectList(wrapper);
-        documents.forEach(this::loadDocumentItems);
+        loadDocumentItems(documents);
         return documents;
     }
     
@@ -222,6 +317,23 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
         return stockDocumentMapper.selectCount(wrapper);
     }
     
+    @Override
+    public StockDocumentCounts countByStatusAndType(LocalDateTime startTime, LocalDateTime endTime) {
+        // 一条 GROUP BY 代替按总数、按各状态分别 COUNT，各项计数来自同一时刻的同一时间窗口
+        QueryWrapper<StockDocument> wrapper = new QueryWrapper<>();
+        wrapper.select("document_status", "document_type", "COUNT(*) AS document_count")
+               .ge(startTime != null, "create_time", startTime)
+               .le(endTime != null, "create_time", endTime)
+               .groupBy("document_status", "document_type");
+        long[][] counts = new long[DocumentStatus.values().length][DocumentType.values().length];
+        for (Map<String, Object> row : stockDocumentMapper.selectMaps(wrapper)) {
+            DocumentStatus status = DocumentStatus.valueOf((String) row.get("document_status"));
+            DocumentType type = DocumentType.valueOf((String) row.get("document_type"));
+            counts[status.ordinal()][type.ordinal()] += ((Number) row.get("document_count")).longValue();
+        }
+        return StockDocumentCounts.of(counts);
+    }
+    
     @Override
     public boolean existsByDocumentNo(String documentNo) {
         QueryWrapper<StockDocument> wrapper = new QueryWrapper<>();
@@ -242,7 +354,7 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
         wrapper.orderByDesc("create_time")
                .last("LIMIT " + offset + ", " + limit);
         List<StockDocument> documents = stockDocumentMapper.selectList(wrapper);
-        documents.forEach(this::loadDocumentItems);
+        loadDocumentItems(documents);
         return documents;
     }
     
@@ -269,18 +381,74 @@ public class StockDocumentRepositoryImpl implements StockDocumentRepository {
                .last("LIMIT " + offset + ", " + limit);
         
         List<StockDocument> documents = stockDocumentMapper.selectList(wrapper);
-        documents.forEach(this::loadDocumentItems);
+        loadDocumentItems(documents);
         return documents;
     }
     
+    @Override
+    public StockDocumentPage searchByConditions(DocumentType type, DocumentStatus status, String warehouseId,
+                                                String pageToken, int limit) {
+        QueryWrapper<StockDocument> wrapper = new QueryWrapper<>();
+        
+        if (type != null) {
+            wrapper.eq("document_type", type);
+        }
+        if (status != null) {
+            wrapper.eq("document_status", status);
+        }
+        if (warehouseId != null && !warehouseId.trim().isEmpty()) {
+            wrapper.eq("warehouse_id", warehouseId);
+        }
+        if (pageToken != null && !pageToken.isEmpty()) {
+            // 键集条件：(create_time, id) < 游标，展开为 OR 以便走 (..., create_time) 索引的范围扫描
+            StockDocumentCursor after = StockDocumentCursor.decode(pageToken);
+            wrapper.and(w -> w.lt("create_time", after.getCreateTime())
+                .or(o -> o.eq("create_time", after.getCreateTime()).lt("id", after.getId())));
+        }
+        
+        wrapper.orderByDesc("create_time")
+               .orderByDesc("id");
+        
+        // 多取一条判断是否还有下一页；LIMIT 由分页插件参数化生成，不统计总数
+        List<StockDocument> documents = new ArrayList<>(
+            stockDocumentMapper.selectPage(new Page<>(1, limit + 1, false), wrapper).getRecords());
+        String nextPageToken = null;
+        if (documents.size() > limit) {
+            documents = new ArrayList<>(documents.subList(0, limit));
+            nextPageToken = StockDocumentCursor.of(documents.get(limit - 1)).encode();
+        }
+        loadDocumentItems(documents);
+        return new StockDocumentPage(documents, nextPageToken);
+    }
+    
     /**
      * 加载单据明细
      */
     private void loadDocumentItems(StockDocument document) {
+        loadDocumentItems(List.of(document));
+    }
+    
+    /**
+     * 一次查询加载一批单据的明细（document_id IN），按单据分组后回填，避免逐张单据查询
+     */
+    private void loadDocumentItems(List<StockDocument> documents) {
+        if (documents.isEmpty()) {
+            return;
+        }
+        
+        Set<String> documentIds = new LinkedHashSet<>();
+        documents.forEach(document -> documentIds.add(document.getDocumentId()));
         QueryWrapper<StockDocumentItem> wrapper = new QueryWrapper<>();
-        wrapper.eq("document_id", document.getDocumentId())
+        wrapper.in("document_id", documentIds)
                .orderByAsc("id");
-        List<StockDocumentItem> items = stockDocumentItemMapper.selectList(wrapper);
-        document.setItems(items);
+        Map<String, List<StockDocumentItem>> itemsByDocument = new HashMap<>();
+        for (StockDocumentItem item : stockDocumentItemMapper.selectList(wrapper)) {
+            itemsByDocument.computeIfAbsent(item.getDocumentId(), key -> new ArrayList<>()).add(item);
+        }
+        
+        for (StockDocument document : documents) {
+            document.setItems(itemsByDocument.getOrDefault(document.getDocumentId(), new ArrayList<>()));
+            document.markItemsPersisted();
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,45 @@
+package com.restaurant.management.inventory.infrastructure.reservation;
+
+import com.restaurant.management.inventory.domain.model.ReservationRequest;
+import lombok.AccessLevel;
+import lombok.Getter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 合并批次中的一笔预留请求
+ */
+@Getter
+public class CoalescedReservation extends ReservationRequest {
+
+    /**
+     * 批次提交后完成：正常完成表示已预留，异常完成为拒绝原因或整批失败的异常
+     */
+    private final CompletableFuture<Void> result = new CompletableFuture<>();
+
+    @Getter(AccessLevel.NONE)
+    private final AtomicInteger state = new AtomicInteger(PENDING);
+
+    private static final int PENDING = 0;
+    private static final int CLAIMED = 1;
+    private static final int ABANDONED = 2;
+
+    public CoalescedReservation(int quantity, String orderId) {
+        super(quantity, orderId);
+    }
+
+    /**
+     * 领头者开始执行批次时认领；已被放弃的请求不再执行
+     */
+    boolean claim() {
+        return state.compareAndSet(PENDING, CLAIMED);
+    }
+
+    /**
+     * 等待超时时放弃；已被认领的请求不能放弃，结果以批次提交为准
+     */
+    boolean abandon() {
+        return state.compareAndSet(PENDING, ABANDONED);
+    }
+}
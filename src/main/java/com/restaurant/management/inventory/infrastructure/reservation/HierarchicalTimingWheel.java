@@ -0,0 +1,116 @@
+package com.restaurant.management.inventory.infrastructure.reservation;
+
+import java.util.ArrayDeque;
+import java.util.function.Consumer;
+
+/**
+ * 分层时间轮
+ *
+ * 第一层每格 tickMs、共 wheelSize 格；超出本层跨度的任务放入上一层（每格为下一层的总跨度），
+ * 上层格子到期时把任务降级放回下层。添加为 O(1)，每个任务至多在各层之间移动一次
+ * 到期时间向上取整到刻度，任务不会早于到期时间回调，至多晚一个刻度
+ *
+ * 非线程安全，由调用方同步
+ */
+class HierarchicalTimingWheel<T> {
+
+    private final long tickMs;
+    private final int wheelSize;
+    private final long interval;
+    private final ArrayDeque<Entry<T>>[] buckets;
+
+    /**
+     * 当前时间（tickMs 的整数倍），不晚于 currentTime 的任务即到期
+     */
+    private long currentTime;
+    private int size;
+    private HierarchicalTimingWheel<T> overflowWheel;
+
+    @SuppressWarnings("unchecked")
+    HierarchicalTimingWheel(long tickMs, int wheelSize, long startMs) {
+        if (tickMs <= 0 || wheelSize <= 1) {
+            throw new IllegalArgumentException("时间轮刻度必须大于0且格数必须大于1");
+        }
+        this.tickMs = tickMs;
+        this.wheelSize = wheelSize;
+        this.interval = tickMs * wheelSize;
+        this.currentTime = startMs - (startMs % tickMs);
+        this.buckets = new ArrayDeque[wheelSize];
+        for (int i = 0; i < wheelSize; i++) {
+            buckets[i] = new ArrayDeque<>();
+        }
+    }
+
+    /**
+     * 添加任务
+     *
+     * @return false 表示任务已到期，未加入时间轮
+     */
+    boolean add(T task, long deadlineMs) {
+        long dueMs = Math.floorDiv(deadlineMs + tickMs - 1, tickMs) * tickMs;
+        return add(new Entry<>(task, dueMs));
+    }
+
+    /**
+     * 推进到指定时间，依次回调到期任务
+     */
+    void advanceTo(long nowMs, Consumer<T> expired) {
+        advanceTo(nowMs, null, expired);
+    }
+
+    /**
+     * 时间轮中（含各上层）尚未到期的任务数
+     */
+    int size() {
+        return size + (overflowWheel == null ? 0 : overflowWheel.size());
+    }
+
+    private boolean add(Entry<T> entry) {
+        if (entry.dueMs <= currentTime) {
+            return false;
+        }
+        if (entry.dueMs < currentTime + interval) {
+            buckets[bucketIndex(entry.dueMs)].add(entry);
+            size++;
+            return true;
+        }
+        if (overflowWheel == null) {
+            overflowWheel = new HierarchicalTimingWheel<>(interval, wheelSize, currentTime);
+        }
+        return overflowWheel.add(entry);
+    }
+
+    /**
+     * 逐格推进；上层到期格子中的任务从第一层重新加入（各层当前时间已先推进），加不回（已到期）的直接回调
+     */
+    private void advanceTo(long nowMs, HierarchicalTimingWheel<T> root, Consumer<T> expired) {
+        while (currentTime + tickMs <= nowMs) {
+            currentTime += tickMs;
+            ArrayDeque<Entry<T>> bucket = buckets[bucketIndex(currentTime)];
+            Entry<T> entry;
+            while ((entry = bucket.poll()) != null) {
+                size--;
+                if (root == null || !root.add(entry)) {
+                    expired.accept(entry.task);
+                }
+            }
+            if (overflowWheel != null) {
+                overflowWheel.advanceTo(currentTime, root == null ? this : root, expired);
+            }
+        }
+    }
+
+    private int bucketIndex(long timeMs) {
+        return (int) ((timeMs / tickMs) % wheelSize);
+    }
+
+    private static final class Entry<T> {
+        private final T task;
+        private final long dueMs;
+
+        private Entry(T task, long dueMs) {
+            this.task = task;
+            this.dueMs = dueMs;
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.restaurant.management.inventory.infrastructure.reservation;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 库存预留记录
+ * 每个订单在每个库存上一行，quantity 为尚未确认/释放的预留数量
+ */
+@Data
+public class InventoryReservation {
+
+    public static final String STATUS_RESERVED = "RESERVED";
+    public static final String STATUS_RELEASED = "RELEASED";
+    public static final String STATUS_CONFIRMED = "CONFIRMED";
+    public static final String STATUS_EXPIRED = "EXPIRED";
+
+    private Long id;
+    private String orderId;
+    private String skuId;
+    private String warehouseId;
+    private Integer quantity;
+    private String status;
+    private LocalDateTime expireTime;
+}
@@ -0,0 +1,90 @@
+package com.restaurant.management.inventory.infrastructure.reservation;
+
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+import com.restaurant.management.inventory.domain.port.ReservationTrackerPort;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryReservationMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * 库存预留记录
+ * 预留时写入带过期时间的记录并登记到时间轮，确认/释放时扣减未结数量
+ */
+@Component
+@RequiredArgsConstructor
+public class InventoryReservationTracker implements ReservationTrackerPort {
+
+    private final InventoryReservationMapper reservationMapper;
+    private final ReservationExpiryScheduler expiryScheduler;
+    private final InventoryProperties inventoryProperties;
+
+    /**
+     * 记录订单预留，事务提交后登记过期时间
+     */
+    @Override
+    public void recordReserved(String orderId, List<ReservationLine> lines) {
+        InventoryProperties.Expiry config = inventoryProperties.getExpiry();
+        if (!config.isEnabled() || orderId == null || lines.isEmpty()) {
+            return;
+        }
+        LocalDateTime expireTime = LocalDateTime.now().plusSeconds(config.getTtlSeconds());
+        List<InventoryReservation> reservations = lines.stream()
+            .map(line -> newReservation(orderId, line, expireTime))
+            .collect(Collectors.toList());
+        reservationMapper.upsertAll(reservations);
+
+        long deadlineMs = expireTime.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    expiryScheduler.schedule(orderId, deadlineMs);
+                }
+            });
+        } else {
+            expiryScheduler.schedule(orderId, deadlineMs);
+        }
+    }
+
+    /**
+     * 记录释放预留
+     */
+    @Override
+    public void recordReleased(String orderId, String skuId, String warehouseId, int quantity) {
+        settle(orderId, skuId, warehouseId, quantity, InventoryReservation.STATUS_RELEASED);
+    }
+
+    /**
+     * 记录确认预留
+     */
+    @Override
+    public void recordConfirmed(String orderId, String skuId, String warehouseId, int quantity) {
+        settle(orderId, skuId, warehouseId, quantity, InventoryReservation.STATUS_CONFIRMED);
+    }
+
+    private void settle(String orderId, String skuId, String warehouseId, int quantity, String finalStatus) {
+        if (!inventoryProperties.getExpiry().isEnabled() || orderId == null) {
+            return;
+        }
+        reservationMapper.settle(orderId, skuId, warehouseId, quantity, finalStatus);
+    }
+
+    private InventoryReservation newReservation(String orderId, ReservationLine line, LocalDateTime expireTime) {
+        InventoryReservation reservation = new InventoryReservation();
+        reservation.setOrderId(orderId);
+        reservation.setSkuId(line.getSkuId());
+        reservation.setWarehouseId(line.getWarehouseId());
+        reservation.setQuantity(line.getQuantity());
+        reservation.setStatus(InventoryReservation.STATUS_RESERVED);
+        reservation.setExpireTime(expireTime);
+        return reservation;
+    }
+}
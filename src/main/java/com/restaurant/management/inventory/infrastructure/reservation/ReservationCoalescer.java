@@ -0,0 +1,182 @@
+package com.restaurant.management.inventory.infrastructure.reservation;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.ReservationRequest;
+import com.restaurant.management.inventory.domain.port.ReservationCoalescerPort;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BiFunction;
+
+/**
+ * 同一库存预留的组提交
+ *
+ * 同一 (SKU, 仓库) 在 window-micros 内到达的预留合并为一个批次：第一笔请求的线程作为领头者等待窗口结束，
+ * 在一个新事务中执行整批（一次加锁读取、一条合并的 UPDATE），再按到达顺序把成功/拒绝结果分发给每笔请求。
+ * 行锁每批只争用一次，而不是每笔订单一次
+ *
+ * 批次在独立事务中提交，与调用方事务无关：调用方事务回滚时在新事务中执行补偿（释放本笔预留）。
+ * 等待超时时，批次尚未开始执行的请求被放弃（领头者不再执行它）后抛出超时；
+ * 批次已开始执行的请求继续等待批次结果，不会出现调用方看到失败、批次却提交了预留的情况
+ */
+@Slf4j
+@Component
+public class ReservationCoalescer implements ReservationCoalescerPort {
+
+    private final InventoryProperties inventoryProperties;
+    private final InventoryMetrics inventoryMetrics;
+    private final TransactionTemplate newTransaction;
+
+    private final Map<InventoryKey, List<CoalescedReservation>> openBatches = new ConcurrentHashMap<>();
+
+    public ReservationCoalescer(InventoryProperties inventoryProperties,
+                                InventoryMetrics inventoryMetrics,
+                                PlatformTransactionManager transactionManager) {
+        this.inventoryProperties = inventoryProperties;
+        this.inventoryMetrics = inventoryMetrics;
+        this.newTransaction = new TransactionTemplate(transactionManager);
+        this.newTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return inventoryProperties.getCoalescer().isEnabled();
+    }
+
+    /**
+     * 提交一笔预留并等待所在批次提交
+     *
+     * @param executor     在新事务中执行一个批次，按到达顺序返回每笔请求的拒绝原因（null 表示成功）
+     * @param compensation 调用方事务回滚时撤销本笔预留
+     * @throws RuntimeException 本笔请求的拒绝原因，或整批执行失败的异常
+     */
+    @Override
+    public void reserve(InventoryKey key, int quantity, String orderId,
+                        BiFunction<InventoryKey, List<ReservationRequest>, List<RuntimeException>> executor,
+                        Runnable compensation) {
+        InventoryProperties.Coalescer config = inventoryProperties.getCoalescer();
+        int maxBatchSize = Math.max(1, config.getMaxBatchSize());
+        CoalescedReservation request = new CoalescedReservation(quantity, orderId);
+        boolean[] leader = new boolean[1];
+        // 加入与关闭批次都在 ConcurrentHashMap 的同一个桶锁下进行，关闭后不会再有请求加入
+        List<CoalescedReservation> batch = openBatches.compute(key, (k, open) -> {
+            if (open != null && open.size() < maxBatchSize) {
+                open.add(request);
+                return open;
+            }
+            leader[0] = true;
+            List<CoalescedReservation> created = new ArrayList<>();
+            created.add(request);
+            return created;
+        });
+        if (leader[0]) {
+            LockSupport.parkNanos(TimeUnit.MICROSECONDS.toNanos(config.getWindowMicros()));
+            openBatches.computeIfPresent(key, (k, open) -> open == batch ? null : open);
+            execute(key, batch, executor);
+        }
+        await(request, config.getWaitTimeoutMs());
+        compensateOnRollback(compensation);
+    }
+
+    private void execute(InventoryKey key, List<CoalescedReservation> batch,
+                         BiFunction<InventoryKey, List<ReservationRequest>, List<RuntimeException>> executor) {
+        List<CoalescedReservation> claimed = new ArrayList<>(batch.size());
+        for (CoalescedReservation request : batch) {
+            if (request.claim()) {
+                claimed.add(request);
+            }
+        }
+        if (claimed.isEmpty()) {
+            return;
+        }
+
+        long startNanos = System.nanoTime();
+        int accepted = 0;
+        try {
+            List<RuntimeException> rejections = newTransaction.execute(status -> executor.apply(key, Collections.unmodifiableList(claimed)));
+            for (int i = 0; i < claimed.size(); i++) {
+                RuntimeException rejection = rejections.get(i);
+                if (rejection == null) {
+                    accepted++;
+                    claimed.get(i).getResult().complete(null);
+                } else {
+                    claimed.get(i).getResult().completeExceptionally(rejection);
+                }
+            }
+        } catch (RuntimeException e) {
+            log.warn("合并预留批次执行失败: key={}, size={}", key, claimed.size(), e);
+            claimed.forEach(request -> request.getResult().completeExceptionally(e));
+        }
+        inventoryMetrics.recordCoalescedReservation(claimed.size(), accepted, System.nanoTime() - startNanos);
+    }
+
+    private void await(CoalescedReservation request, long timeoutMs) {
+        try {
+            request.getResult().get(timeoutMs, TimeUnit.MILLISECONDS);
+            return;
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (TimeoutException e) {
+            if (request.abandon()) {
+                throw new IllegalStateException("合并预留等待超时: orderId=" + request.getOrderId(), e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (request.abandon()) {
+                throw new IllegalStateException("合并预留等待被中断: orderId=" + request.getOrderId(), e);
+            }
+        }
+        // 批次已开始执行，本笔是否预留以批次提交结果为准，不可中断地等到批次结束
+        log.warn("合并预留等待超时，批次已在执行，继续等待批次结果: orderId={}", request.getOrderId());
+        try {
+            request.getResult().join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    private static RuntimeException unwrap(Throwable cause) {
+        return cause instanceof RuntimeException
+            ? (RuntimeException) cause
+            : new IllegalStateException("合并预留失败", cause);
+    }
+
+    /**
+     * 调用方事务回滚时在新事务中撤销本笔预留；没有事务时预留即为最终结果
+     */
+    private void compensateOnRollback(Runnable compensation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_ROLLED_BACK) {
+                    return;
+                }
+                try {
+                    newTransaction.executeWithoutResult(txStatus -> compensation.run());
+                } catch (RuntimeException e) {
+                    log.error("合并预留补偿释放失败，等待预留过期释放", e);
+                }
+            }
+        });
+    }
+}
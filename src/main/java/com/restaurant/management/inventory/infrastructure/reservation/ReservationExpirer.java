@@ -0,0 +1,36 @@
+package com.restaurant.management.inventory.infrastructure.reservation;
+
+import com.restaurant.management.inventory.domain.service.InventoryDomainService;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryReservationMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+
+/**
+ * 过期预留释放
+ * 先条件标记过期再释放库存，二者在同一事务中，多节点重复处理时只有一个生效
+ */
+@Component
+@RequiredArgsConstructor
+public class ReservationExpirer {
+
+    private final InventoryReservationMapper reservationMapper;
+    private final InventoryDomainService inventoryDomainService;
+
+    /**
+     * 释放一条过期预留
+     *
+     * @return false 表示已被确认/释放或由其它节点处理
+     */
+    @Transactional
+    public boolean expire(InventoryReservation reservation, LocalDateTime now) {
+        if (reservationMapper.markExpired(reservation.getId(), now) != 1) {
+            return false;
+        }
+        inventoryDomainService.releaseReservedInventory(reservation.getSkuId(), reservation.getWarehouseId(),
+            reservation.getQuantity(), reservation.getOrderId());
+        return true;
+    }
+}
@@ -0,0 +1,128 @@
+package com.restaurant.management.inventory.infrastructure.reservation;
+
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryReservationMapper;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 预留过期引擎
+ *
+ * 1. 启动时按主键游标扫描预留中的记录，重建时间轮
+ * 2. 每个刻度推进时间轮，到期订单按批回查仍为预留中的记录并逐条释放
+ * 3. 定期按过期时间兜底扫描，覆盖其它节点登记的预留和释放失败的记录
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReservationExpiryEngine {
+
+    private final ReservationExpiryScheduler expiryScheduler;
+    private final InventoryReservationMapper reservationMapper;
+    private final ReservationExpirer reservationExpirer;
+    private final InventoryProperties inventoryProperties;
+    private final InventoryMetrics inventoryMetrics;
+
+    /**
+     * 已到期、尚未回查的订单号（仅由定时任务线程访问）
+     */
+    private final Set<String> dueOrderIds = new LinkedHashSet<>();
+
+    @PostConstruct
+    public void start() {
+        if (!inventoryProperties.getExpiry().isEnabled()) {
+            return;
+        }
+        inventoryMetrics.gaugeScheduledReservations(expiryScheduler::size);
+        rebuild();
+    }
+
+    /**
+     * 推进时间轮并释放到期预留
+     */
+    @Scheduled(fixedDelayString = "${inventory.expiry.tick-ms:1000}")
+    public void tick() {
+        if (!inventoryProperties.getExpiry().isEnabled()) {
+            return;
+        }
+        dueOrderIds.addAll(expiryScheduler.advanceTo(System.currentTimeMillis()));
+        if (dueOrderIds.isEmpty()) {
+            return;
+        }
+
+        int batchSize = Math.max(1, inventoryProperties.getExpiry().getBatchSize());
+        List<String> orderIds = new ArrayList<>(dueOrderIds);
+        dueOrderIds.clear();
+        for (int from = 0; from < orderIds.size(); from += batchSize) {
+            List<String> batch = orderIds.subList(from, Math.min(from + batchSize, orderIds.size()));
+            LocalDateTime now = LocalDateTime.now();
+            expireAll(reservationMapper.selectExpiredByOrderIds(batch, now), now);
+        }
+    }
+
+    /**
+     * 兜底扫描已到期的预留
+     */
+    @Scheduled(fixedDelayString = "${inventory.expiry.sweep-interval-ms:60000}")
+    public void sweep() {
+        if (!inventoryProperties.getExpiry().isEnabled()) {
+            return;
+        }
+        LocalDateTime now = LocalDateTime.now();
+        expireAll(reservationMapper.selectExpired(now, Math.max(1, inventoryProperties.getExpiry().getBatchSize())), now);
+    }
+
+    /**
+     * 从预留记录重建时间轮，已过期的记录在下一个刻度处理
+     */
+    void rebuild() {
+        int pageSize = Math.max(1, inventoryProperties.getExpiry().getRebuildPageSize());
+        long afterId = 0;
+        int scheduled = 0;
+        List<InventoryReservation> page;
+        do {
+            page = reservationMapper.selectReservedAfter(afterId, pageSize);
+            for (InventoryReservation reservation : page) {
+                long deadlineMs = reservation.getExpireTime().atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+                if (!expiryScheduler.schedule(reservation.getOrderId(), deadlineMs)) {
+                    dueOrderIds.add(reservation.getOrderId());
+                }
+                afterId = reservation.getId();
+                scheduled++;
+            }
+        } while (page.size() == pageSize);
+        log.info("重建预留过期时间轮: reservations={}, due={}", scheduled, dueOrderIds.size());
+    }
+
+    private void expireAll(List<InventoryReservation> reservations, LocalDateTime now) {
+        for (InventoryReservation reservation : reservations) {
+            try {
+                if (reservationExpirer.expire(reservation, now)) {
+                    inventoryMetrics.recordReservationExpiry(InventoryMetrics.OUTCOME_SUCCESS);
+                    inventoryMetrics.recordReservationExpiryLag(Duration.between(reservation.getExpireTime(), now));
+                    log.info("释放过期预留: orderId={}, skuId={}, warehouseId={}, quantity={}",
+                        reservation.getOrderId(), reservation.getSkuId(), reservation.getWarehouseId(),
+                        reservation.getQuantity());
+                } else {
+                    inventoryMetrics.recordReservationExpiry(InventoryMetrics.OUTCOME_DUPLICATE);
+                }
+            } catch (Exception e) {
+                inventoryMetrics.recordReservationExpiry(InventoryMetrics.OUTCOME_FAILURE);
+                log.error("释放过期预留失败，等待兜底扫描重试: orderId={}, skuId={}, warehouseId={}",
+                    reservation.getOrderId(), reservation.getSkuId(), reservation.getWarehouseId(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.restaurant.management.inventory.infrastructure.reservation;
+
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 预留过期时间轮
+ * 以订单号为任务登记过期时间，到期后交由 {@link ReservationExpiryEngine} 回查并释放
+ */
+@Component
+public class ReservationExpiryScheduler {
+
+    private final HierarchicalTimingWheel<String> wheel;
+
+    public ReservationExpiryScheduler(InventoryProperties inventoryProperties) {
+        InventoryProperties.Expiry config = inventoryProperties.getExpiry();
+        this.wheel = new HierarchicalTimingWheel<>(config.getTickMs(), config.getWheelSize(), System.currentTimeMillis());
+    }
+
+    /**
+     * 登记订单预留的过期时间
+     *
+     * @return false 表示已到期，需要立即处理
+     */
+    public synchronized boolean schedule(String orderId, long deadlineMs) {
+        return wheel.add(orderId, deadlineMs);
+    }
+
+    /**
+     * 推进时间轮，返回到期的订单号（可能重复）
+     */
+    public synchronized List<String> advanceTo(long nowMs) {
+        List<String> expired = new ArrayList<>();
+        wheel.advanceTo(nowMs, expired::add);
+        return expired;
+    }
+
+    /**
+     * 尚未到期的任务数
+     */
+    public synchronized int size() {
+        return wheel.size();
+    }
+}
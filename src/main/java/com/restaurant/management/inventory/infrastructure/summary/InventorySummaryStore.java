@@ -0,0 +1,84 @@
+package com.restaurant.management.inventory.infrastructure.summary;
+
+import com.restaurant.management.inventory.domain.model.InventoryJournalEntry;
+import com.restaurant.management.inventory.domain.model.InventorySummaryTotals;
+import com.restaurant.management.inventory.domain.port.InventorySummaryPort;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryMapper;
+import com.restaurant.management.inventory.infrastructure.mapper.InventorySummaryMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * SKU 库存汇总
+ *
+ * 写入：库存增量（与流水同一批 {@link InventoryJournalEntry}）按 SKU 合并后一条 upsert 累加到 inventory_sku_summary，
+ * 与库存变更在同一事务中提交；每批随机选一个汇总行，热点 SKU 的并发事务分散到 stripes 行上
+ * 读取：一条按主键的聚合查询回答一批 SKU，不读取各仓库的库存行
+ * 未启用时不写汇总表，读取退回对 inventories + inventory_buckets 的 SQL 聚合
+ */
+@Component
+@RequiredArgsConstructor
+public class InventorySummaryStore implements InventorySummaryPort {
+
+    private final InventorySummaryMapper summaryMapper;
+    private final InventoryMapper inventoryMapper;
+    private final InventoryProperties inventoryProperties;
+
+    /**
+     * 累加一批库存增量，须在库存变更所在的事务中调用
+     */
+    public void apply(List<InventoryJournalEntry> entries) {
+        if (entries.isEmpty() || !inventoryProperties.getSummary().isEnabled()) {
+            return;
+        }
+        // 按 SKU 排序合并，多 SKU 事务之间加锁顺序一致
+        Map<String, int[]> bySku = new TreeMap<>();
+        for (InventoryJournalEntry entry : entries) {
+            int[] sum = bySku.computeIfAbsent(entry.getSkuId(), skuId -> new int[3]);
+            sum[0] += entry.getAvailableDelta();
+            sum[1] += entry.getReservedDelta();
+            sum[2] += entry.getOccupiedDelta();
+        }
+        int stripe = ThreadLocalRandom.current().nextInt(Math.max(1, inventoryProperties.getSummary().getStripes()));
+        List<SummaryDelta> deltas = new ArrayList<>(bySku.size());
+        bySku.forEach((skuId, sum) -> {
+            if (sum[0] != 0 || sum[1] != 0 || sum[2] != 0) {
+                deltas.add(new SummaryDelta(skuId, stripe, sum[0], sum[1], sum[2]));
+            }
+        });
+        if (!deltas.isEmpty()) {
+            summaryMapper.upsertDeltas(deltas);
+        }
+    }
+
+    /**
+     * 一批 SKU 的汇总，结果只包含有库存的 SKU
+     */
+    @Override
+    public Map<String, InventorySummaryTotals> findBySkuIds(Collection<String> skuIds) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(skuIds));
+        distinct.sort(Comparator.naturalOrder());
+        boolean fromSummary = inventoryProperties.getSummary().isEnabled();
+        int chunkSize = Math.max(1, inventoryProperties.getSummary().getQueryChunkSize());
+        Map<String, InventorySummaryTotals> result = new HashMap<>(distinct.size() * 2);
+        for (int from = 0; from < distinct.size(); from += chunkSize) {
+            List<String> chunk = distinct.subList(from, Math.min(from + chunkSize, distinct.size()));
+            List<InventorySummaryTotals> rows = fromSummary
+                ? summaryMapper.selectBySkuIds(chunk)
+                : inventoryMapper.getInventorySummaries(chunk);
+            rows.forEach(row -> result.put(row.getSkuId(), row));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,20 @@
+package com.restaurant.management.inventory.infrastructure.summary;
+
+import lombok.Data;
+
+/**
+ * 一个 SKU 汇总行的增量（同一事务内同一 SKU 的流水已合并）
+ */
+@Data
+public class SummaryDelta {
+
+    private final String skuId;
+
+    private final int stripe;
+
+    private final int availableDelta;
+
+    private final int reservedDelta;
+
+    private final int occupiedDelta;
+}
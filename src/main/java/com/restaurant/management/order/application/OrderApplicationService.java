@@ -1,7 +1,7 @@
 package com.restaurant.management.order.application;
 
 import com.restaurant.management.common.exception.DomainException;
-import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.AllocationPlan;
 import com.restaurant.management.inventory.domain.service.InventoryDomainService;
 import com.restaurant.management.order.application.command.CreateOrderCommand;
 import com.restaurant.management.order.domain.model.Order;
@@ -16,6 +16,7 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -38,7 +39,7 @@ public class OrderApplicationService {
     
     private final OrderDomainService orderDomainService;
     private final ProductDomainService productDomainService;  // 用于验证商品
-    private final InventoryDomainService inventoryDomainService;  // 用于验证库存
+    private final InventoryDomainService inventoryDomainService;  // 用于分仓和预留库存
     
     /**
      * 创建订单
@@ -46,16 +47,19 @@ public class OrderApplicationService {
      * 
      * 应用层编排：
      * 1. 验证商品（存在性、状态、价格）
-     * 2. 验证库存（可用数量）
-     * 3. 预留库存
-     * 4. 创建订单
+     * 2. 分仓并验证库存（可用数量）
+     * 3. 创建订单
+     * 4. 按分仓结果预留库存
      */
     @Transactional
     public Order createOrder(CreateOrderCommand command) {
-        // 1. 验证商品和库存（强一致性，必须同步验证）
-        Map<String, ProductSku> skuMap = validateProductsAndInventory(command);
+        // 1. 验证商品（强一致性，必须同步验证）
+        Map<String, ProductSku> skuMap = validateProducts(command);
         
-        // 2. 转换命令为领域对象（这是应用层的职责：适配外部输入）
+        // 2. 分仓并验证库存
+        AllocationPlan allocation = allocateInventory(command, skuMap);
+        
+        // 3. 转换命令为领域对象（这是应用层的职责：适配外部输入）
         List<OrderItem> items = command.getItems().stream()
                 .map(item -> {
                     ProductSku sku = skuMap.get(item.getSkuId());
@@ -69,20 +73,20 @@ public class OrderApplicationService {
                 })
                 .collect(Collectors.toList());
         
-        // 3. 创建订单（调用领域服务）
+        // 4. 创建订单（调用领域服务）
         Order order = orderDomainService.createOrder(command.getUserId(), items);
         
-        // 4. 预留库存（强一致性，必须同步预留）
-        reserveInventory(command, order.getId().toString());
+        // 5. 预留库存（强一致性，必须同步预留）
+        inventoryDomainService.reserveAll(allocation.getLines(), order.getId().toString());
         
         return order;
     }
     
     /**
-     * 验证商品和库存
+     * 验证商品
      * 强一致性：必须同步验证，确保数据一致性
      */
-    private Map<String, ProductSku> validateProductsAndInventory(CreateOrderCommand command) {
+    private Map<String, ProductSku> validateProducts(CreateOrderCommand command) {
         Map<String, ProductSku> skuCache = new HashMap<>();
         Map<String, ProductSpu> spuCache = new HashMap<>();
         for (CreateOrderCommand.OrderItemCommand item : command.getItems()) {
@@ -105,38 +109,30 @@ public class OrderApplicationService {
                 throw new DomainException("PRODUCT_PRICE_CHANGED", 
                         "SKU[" + productSku.getSkuName() + "]价格已变更，请刷新后重试");
             }
-            
-            // 验证库存（使用默认仓库）
-            String defaultWarehouseId = "DEFAULT_WAREHOUSE";
-            Inventory inventory = inventoryDomainService.getInventory(item.getSkuId(), defaultWarehouseId)
-                .orElseThrow(() -> new DomainException("INVENTORY_NOT_FOUND", 
-                    "SKU[" + productSku.getSkuName() + "]库存记录不存在"));
-            
-            // 验证库存数量
-            if (inventory.getAvailableQuantity() < item.getQuantity()) {
-                throw new DomainException("INVENTORY_INSUFFICIENT", 
-                        "SKU[" + productSku.getSkuName() + "]库存不足，当前可用库存：" + 
-                        inventory.getAvailableQuantity());
-            }
         }
         return skuCache;
     }
     
     /**
-     * 预留库存
-     * 强一致性：必须同步预留，确保库存被锁定
+     * 分仓并验证库存
+     * 分仓只读内存索引（中央厨房、各门店库房共同承担），索引显示不足时以数据库为准再分一次；
+     * 同一 SKU 可拆分到多个仓库，最终以预留时的加锁校验为准；配额租约 SKU 固定在租约仓库，从本节点配额预留
      */
-    private void reserveInventory(CreateOrderCommand command, String orderId) {
-        String defaultWarehouseId = "DEFAULT_WAREHOUSE";
+    private AllocationPlan allocateInventory(CreateOrderCommand command, Map<String, ProductSku> skuMap) {
+        Map<String, Integer> quantityBySku = new LinkedHashMap<>();
         for (CreateOrderCommand.OrderItemCommand item : command.getItems()) {
-            // 预留库存（强一致性，同步操作）
-            inventoryDomainService.reserveInventory(
-                item.getSkuId(), 
-                defaultWarehouseId, 
-                item.getQuantity(), 
-                orderId
-            );
+            quantityBySku.merge(item.getSkuId(), item.getQuantity(), Integer::sum);
+        }
+        AllocationPlan allocation = inventoryDomainService.allocate(quantityBySku);
+        if (!allocation.isFulfilled()) {
+            Map.Entry<String, Integer> shortage = allocation.getShortages().entrySet().iterator().next();
+            ProductSku productSku = skuMap.get(shortage.getKey());
+            int required = quantityBySku.get(shortage.getKey());
+            throw new DomainException("INVENTORY_INSUFFICIENT", 
+                    "SKU[" + productSku.getSkuName() + "]库存不足，当前可分配库存：" + 
+                    (required - shortage.getValue()));
         }
+        return allocation;
     }
     
     /**
@@ -1,5 +1,6 @@
 package com.restaurant.management.payment.application;
 
+import com.restaurant.management.common.infrastructure.retry.OptimisticRetryTemplate;
 import com.restaurant.management.payment.application.command.CreatePaymentCommand;
 import com.restaurant.management.payment.domain.model.PaymentChannel;
 import com.restaurant.management.payment.domain.model.PaymentOrder;
@@ -14,12 +15,16 @@ import java.time.LocalDateTime;
 /**
  * 支付应用服务
  * 负责编排领域服务，供接口层调用
+ * 状态流转（渠道回调可能并发到达）走乐观锁重试，每次尝试一个新事务
  */
 @Service
 @RequiredArgsConstructor
 public class PaymentApplicationService {
 
+    private static final String AGGREGATE_TYPE = "PaymentOrder";
+
     private final PaymentDomainService paymentDomainService;
+    private final OptimisticRetryTemplate optimisticRetryTemplate;
 
     /**
      * 创建支付单
@@ -37,41 +42,41 @@ public class PaymentApplicationService {
     /**
      * 渠道下单成功（返回预支付信息）
      */
-    @Transactional
     public PaymentOrder markPending(String paymentNo, String credential, String channelTradeNo) {
-        return paymentDomainService.markPending(paymentNo, credential, channelTradeNo);
+        return optimisticRetryTemplate.execute(AGGREGATE_TYPE,
+                () -> paymentDomainService.markPending(paymentNo, credential, channelTradeNo));
     }
 
     /**
      * 支付成功回调
      */
-    @Transactional
     public PaymentOrder handleSuccessCallback(String paymentNo, String channelTradeNo, BigDecimal amount) {
-        return paymentDomainService.onSuccess(paymentNo, channelTradeNo, amount);
+        return optimisticRetryTemplate.execute(AGGREGATE_TYPE,
+                () -> paymentDomainService.onSuccess(paymentNo, channelTradeNo, amount));
     }
 
     /**
      * 支付失败回调
      */
-    @Transactional
     public PaymentOrder handleFailedCallback(String paymentNo, String reason) {
-        return paymentDomainService.onFailed(paymentNo, reason);
+        return optimisticRetryTemplate.execute(AGGREGATE_TYPE,
+                () -> paymentDomainService.onFailed(paymentNo, reason));
     }
 
     /**
      * 关闭支付单
      */
-    @Transactional
     public PaymentOrder closePayment(String paymentNo, String reason) {
-        return paymentDomainService.close(paymentNo, reason);
+        return optimisticRetryTemplate.execute(AGGREGATE_TYPE,
+                () -> paymentDomainService.close(paymentNo, reason));
     }
 
     /**
      * 退款成功
      */
-    @Transactional
     public PaymentOrder refundSuccess(String paymentNo, String reason) {
-        return paymentDomainService.refundSuccess(paymentNo, reason);
+        return optimisticRetryTemplate.execute(AGGREGATE_TYPE,
+                () -> paymentDomainService.refundSuccess(paymentNo, reason));
     }
 
     private LocalDateTime defaultExpireTime(LocalDateTime expireTime, PaymentChannel channel) {
@@ -1,6 +1,7 @@
 package com.restaurant.management.payment.domain.model;
 
 import com.baomidou.mybatisplus.annotation.TableName;
+import com.baomidou.mybatisplus.annotation.Version;
 import com.restaurant.management.common.domain.AggregateRoot;
 import com.restaurant.management.common.domain.BaseEntity;
 import lombok.Getter;
@@ -69,6 +70,12 @@ public class PaymentOrder extends BaseEntity implements AggregateRoot {
      */
     private String reason;
 
+    /**
+     * 乐观锁版本号
+     */
+    @Version
+    private Integer version = 0;
+
     /**
      * 创建支付单
      */
@@ -5,6 +5,7 @@ import com.restaurant.management.payment.domain.model.PaymentOrder;
 import com.restaurant.management.payment.domain.repository.PaymentRepository;
 import com.restaurant.management.payment.infrastructure.mapper.PaymentOrderMapper;
 import lombok.RequiredArgsConstructor;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Repository;
 
 import java.util.Optional;
@@ -19,8 +20,9 @@ public class PaymentRepositoryImpl implements PaymentRepository {
     public PaymentOrder save(PaymentOrder paymentOrder) {
         if (paymentOrder.getId() == null) {
             paymentOrderMapper.insert(paymentOrder);
-        } else {
-            paymentOrderMapper.updateById(paymentOrder);
+        } else if (paymentOrderMapper.updateById(paymentOrder) == 0) {
+            throw new OptimisticLockingFailureException(String.format(
+                "支付单已被并发修改: paymentNo=%s, version=%d", paymentOrder.getPaymentNo(), paymentOrder.getVersion()));
         }
         return paymentOrder;
     }
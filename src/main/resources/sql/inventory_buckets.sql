@@ -0,0 +1,15 @@
+-- 热点库存分桶表
+-- 热点 (sku_id, warehouse_id) 的可用库存拆分到多行，预留/释放/确认分散到不同行，避免所有请求争用 inventories 的同一行
+-- 库存总量 = inventories 主行 + 全部分桶之和
+CREATE TABLE IF NOT EXISTS `inventory_buckets` (
+    `id` BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
+    `sku_id` VARCHAR(64) NOT NULL COMMENT 'SKU ID',
+    `warehouse_id` VARCHAR(64) NOT NULL COMMENT '仓库ID',
+    `bucket_no` INT NOT NULL COMMENT '分桶序号（从 0 开始）',
+    `available_quantity` INT NOT NULL DEFAULT 0 COMMENT '可用库存',
+    `reserved_quantity` INT NOT NULL DEFAULT 0 COMMENT '预留库存',
+    `occupied_quantity` INT NOT NULL DEFAULT 0 COMMENT '占用库存',
+    `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY `uk_sku_warehouse_bucket` (`sku_id`, `warehouse_id`, `bucket_no`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='热点库存分桶表';
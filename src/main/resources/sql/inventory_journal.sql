@@ -0,0 +1,46 @@
+-- 库存流水表 + 库存快照表
+-- 每次库存变更在同一事务中追加一条流水（只追加不修改），定期按流水序号区间生成快照，
+-- 快照覆盖且超出保留期的流水由压缩任务删除。某一时刻的库存 = 不晚于该时刻的最近快照 + 之后的流水
+CREATE TABLE IF NOT EXISTS `inventory_journal` (
+    `id` BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '流水序号',
+    `sku_id` VARCHAR(64) NOT NULL COMMENT 'SKU ID',
+    `warehouse_id` VARCHAR(64) NOT NULL COMMENT '仓库ID',
+    `change_type` VARCHAR(20) NOT NULL COMMENT '变更类型：CREATE/RESERVE/RELEASE/CONFIRM/INCREASE/DEDUCT/ADJUST/DELETE/LEDGER_FLUSH/QUOTA_GRANT/QUOTA_RETURN',
+    `available_delta` INT NOT NULL DEFAULT 0 COMMENT '可用库存增量',
+    `reserved_delta` INT NOT NULL DEFAULT 0 COMMENT '预留库存增量',
+    `occupied_delta` INT NOT NULL DEFAULT 0 COMMENT '占用库存增量',
+    `ref_no` VARCHAR(64) NULL COMMENT '关联单号（订单号/单据号/节点标识）',
+    `reason` VARCHAR(255) NULL COMMENT '变更原因',
+    `create_time` DATETIME(3) NOT NULL DEFAULT CURRENT_TIMESTAMP(3) COMMENT '创建时间',
+    KEY `idx_journal_key_time` (`sku_id`, `warehouse_id`, `create_time`),
+    KEY `idx_journal_key_id` (`sku_id`, `warehouse_id`, `id`),
+    KEY `idx_journal_time` (`create_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='库存流水表';
+
+CREATE TABLE IF NOT EXISTS `inventory_snapshots` (
+    `id` BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
+    `sku_id` VARCHAR(64) NOT NULL COMMENT 'SKU ID',
+    `warehouse_id` VARCHAR(64) NOT NULL COMMENT '仓库ID',
+    `available_quantity` INT NOT NULL DEFAULT 0 COMMENT '可用库存',
+    `reserved_quantity` INT NOT NULL DEFAULT 0 COMMENT '预留库存',
+    `occupied_quantity` INT NOT NULL DEFAULT 0 COMMENT '占用库存',
+    `last_journal_id` BIGINT NOT NULL COMMENT '已累计到的流水序号（含）',
+    `as_of_time` DATETIME(3) NOT NULL COMMENT '快照对应的时间',
+    `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    UNIQUE KEY `uk_snapshot_key_journal` (`sku_id`, `warehouse_id`, `last_journal_id`),
+    KEY `idx_snapshot_key_time` (`sku_id`, `warehouse_id`, `as_of_time`),
+    KEY `idx_snapshot_time` (`as_of_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='库存快照表';
+
+-- 以现有库存（含热点分桶）作为初始快照，须在启用流水写入前执行
+INSERT IGNORE INTO `inventory_snapshots`
+    (`sku_id`, `warehouse_id`, `available_quantity`, `reserved_quantity`, `occupied_quantity`, `last_journal_id`, `as_of_time`)
+SELECT t.sku_id, t.warehouse_id,
+       SUM(t.available_quantity), SUM(t.reserved_quantity), SUM(t.occupied_quantity),
+       0, NOW(3)
+FROM (
+    SELECT sku_id, warehouse_id, available_quantity, reserved_quantity, occupied_quantity FROM inventories
+    UNION ALL
+    SELECT sku_id, warehouse_id, available_quantity, reserved_quantity, occupied_quantity FROM inventory_buckets
+) t
+GROUP BY t.sku_id, t.warehouse_id;
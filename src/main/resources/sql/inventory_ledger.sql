@@ -0,0 +1,7 @@
+-- 内存库存账本回写检查点（每个节点一行）
+-- last_seq 与库存增量在同一事务中更新，崩溃恢复时只重放序号更大的本地日志
+CREATE TABLE IF NOT EXISTS `inventory_ledger_checkpoints` (
+    `node_id` VARCHAR(64) NOT NULL PRIMARY KEY COMMENT '节点标识',
+    `last_seq` BIGINT NOT NULL DEFAULT 0 COMMENT '已回写的最大日志序号',
+    `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间'
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='内存库存账本回写检查点';
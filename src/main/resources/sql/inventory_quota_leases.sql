@@ -0,0 +1,16 @@
+-- 节点库存配额租约表
+-- 租借时在库存行上把配额从 available_quantity 转入 reserved_quantity，本表记录每个节点尚未用掉的部分；
+-- 节点预留只扣减自己的行，节点失联超过 expire_time 后由其它节点把剩余配额归还库存行
+CREATE TABLE IF NOT EXISTS `inventory_quota_leases` (
+    `id` BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
+    `sku_id` VARCHAR(64) NOT NULL COMMENT 'SKU ID',
+    `warehouse_id` VARCHAR(64) NOT NULL COMMENT '仓库ID',
+    `node_id` VARCHAR(64) NOT NULL COMMENT '节点标识',
+    `quantity` INT NOT NULL DEFAULT 0 COMMENT '未用完的租借配额',
+    `expire_time` DATETIME NOT NULL COMMENT '租约到期时间',
+    `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY `uk_sku_warehouse_node` (`sku_id`, `warehouse_id`, `node_id`),
+    KEY `idx_node_id` (`node_id`),
+    KEY `idx_expire_time` (`expire_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='节点库存配额租约表';
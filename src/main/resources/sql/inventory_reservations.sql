@@ -0,0 +1,15 @@
+-- 库存预留记录表
+-- 每个订单在每个库存上的一条预留，超过 expire_time 仍未确认/释放时由过期引擎自动释放
+CREATE TABLE IF NOT EXISTS `inventory_reservations` (
+    `id` BIGINT AUTO_INCREMENT PRIMARY KEY COMMENT '主键ID',
+    `order_id` VARCHAR(64) NOT NULL COMMENT '订单ID',
+    `sku_id` VARCHAR(64) NOT NULL COMMENT 'SKU ID',
+    `warehouse_id` VARCHAR(64) NOT NULL COMMENT '仓库ID',
+    `quantity` INT NOT NULL COMMENT '未结预留数量',
+    `status` VARCHAR(20) NOT NULL DEFAULT 'RESERVED' COMMENT '状态：RESERVED-预留中，RELEASED-已释放，CONFIRMED-已确认，EXPIRED-已过期释放',
+    `expire_time` DATETIME NOT NULL COMMENT '过期时间',
+    `create_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+    `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    UNIQUE KEY `uk_order_sku_warehouse` (`order_id`, `sku_id`, `warehouse_id`),
+    KEY `idx_status_expire_time` (`status`, `expire_time`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='库存预留记录表';
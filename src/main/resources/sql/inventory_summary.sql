@@ -0,0 +1,23 @@
+-- SKU 库存汇总表
+-- 库存增量在同一事务中累加到汇总行，每个 SKU 有至多 stripes 行（每次写入随机选一行，避免热点 SKU 争用同一行），
+-- SKU 汇总 = 该 SKU 全部汇总行之和 = inventories 主行 + 热点分桶之和（内存账本未回写的增量除外）
+CREATE TABLE IF NOT EXISTS `inventory_sku_summary` (
+    `sku_id` VARCHAR(64) NOT NULL COMMENT 'SKU ID',
+    `stripe` INT NOT NULL COMMENT '汇总行序号（从 0 开始）',
+    `total_available` INT NOT NULL DEFAULT 0 COMMENT '可用库存合计',
+    `total_reserved` INT NOT NULL DEFAULT 0 COMMENT '预留库存合计',
+    `total_occupied` INT NOT NULL DEFAULT 0 COMMENT '占用库存合计',
+    `update_time` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+    PRIMARY KEY (`sku_id`, `stripe`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='SKU库存汇总表';
+
+-- 以现有库存（含热点分桶）回填，须在启用 inventory.summary.enabled 前执行
+DELETE FROM `inventory_sku_summary`;
+INSERT INTO `inventory_sku_summary` (`sku_id`, `stripe`, `total_available`, `total_reserved`, `total_occupied`)
+SELECT t.sku_id, 0, SUM(t.available_quantity), SUM(t.reserved_quantity), SUM(t.occupied_quantity)
+FROM (
+    SELECT sku_id, available_quantity, reserved_quantity, occupied_quantity FROM inventories
+    UNION ALL
+    SELECT sku_id, available_quantity, reserved_quantity, occupied_quantity FROM inventory_buckets
+) t
+GROUP BY t.sku_id;
@@ -0,0 +1,6 @@
+-- 库存总量存储生成列 + 补货扫描覆盖索引
+-- 补货/积压判断原先对三列求和，无法走索引只能全表扫描；改为生成列后条件可在索引内求值（不回表）
+-- 预留/释放/确认不改变总量，不会触及该索引
+ALTER TABLE `inventories`
+    ADD COLUMN `total_quantity` INT AS (`available_quantity` + `reserved_quantity` + `occupied_quantity`) STORED COMMENT '库存总量（生成列）',
+    ADD INDEX `idx_inventories_stock_level` (`warehouse_id`, `status`, `total_quantity`, `safety_stock`, `max_stock`, `sku_id`);
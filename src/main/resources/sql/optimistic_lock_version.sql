@@ -0,0 +1,5 @@
+-- 乐观锁版本号（库存、库存单据、支付单）
+-- MyBatis-Plus OptimisticLockerInnerInterceptor 在 updateById 时校验并递增 version
+ALTER TABLE `inventories` ADD COLUMN `version` INT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号';
+ALTER TABLE `stock_document` ADD COLUMN `version` INT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号';
+ALTER TABLE `payments` ADD COLUMN `version` INT NOT NULL DEFAULT 0 COMMENT '乐观锁版本号';
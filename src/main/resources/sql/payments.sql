@@ -11,6 +11,7 @@ CREATE TABLE IF NOT EXISTS payments (
     channel_trade_no VARCHAR(128),
     expire_time DATETIME,
     reason VARCHAR(255),
+    version INT NOT NULL DEFAULT 0,
     create_time DATETIME DEFAULT CURRENT_TIMESTAMP,
     update_time DATETIME DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP
 );
@@ -0,0 +1,11 @@
+-- 库存单据游标分页索引
+-- 查询按 (create_time DESC, id DESC) 排序，键集条件为 (create_time, id) < 上一页最后一张单据
+-- 每个索引以等值过滤列开头、create_time 结尾；InnoDB 二级索引隐含主键 id，因此在等值前缀内正好按 (create_time, id) 有序，
+-- 翻页时从游标位置反向扫描 limit + 1 条即可，不再像 LIMIT offset 那样扫描并丢弃前面的所有行
+-- 索引覆盖过滤、排序与游标条件，每页只回表 limit + 1 行
+-- 仓库+状态、状态、类型+状态、无条件可直接按索引顺序读取；只按仓库或只按类型过滤时需在该仓库/类型内排序
+ALTER TABLE `stock_document`
+    ADD INDEX `idx_stock_document_warehouse_status_time` (`warehouse_id`, `document_status`, `create_time`),
+    ADD INDEX `idx_stock_document_status_time` (`document_status`, `create_time`),
+    ADD INDEX `idx_stock_document_type_status_time` (`document_type`, `document_status`, `create_time`),
+    ADD INDEX `idx_stock_document_time` (`create_time`);
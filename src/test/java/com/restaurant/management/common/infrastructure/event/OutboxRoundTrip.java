@@ -0,0 +1,116 @@
+package com.restaurant.management.common.infrastructure.event;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.restaurant.management.common.domain.DomainEvent;
+import com.restaurant.management.common.infrastructure.config.JacksonConfig;
+import org.springframework.context.PayloadApplicationEvent;
+import org.springframework.context.annotation.AnnotationConfigUtils;
+import org.springframework.context.support.GenericApplicationContext;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 发件箱往返测试辅助
+ * 事件经 SpringDomainEventPublisher 序列化写入发件箱（Mapper 为内存替身），
+ * 再由 DomainEventOutboxProcessor 反序列化后投递给监听器的 @EventListener 方法，
+ * 序列化使用与生产环境相同的 JacksonConfig
+ */
+public class OutboxRoundTrip {
+
+    private final List<DomainEventEntity> rows = new ArrayList<>();
+    private final List<DomainEvent> delivered = new ArrayList<>();
+    private final AtomicLong ids = new AtomicLong();
+    private final SpringDomainEventPublisher publisher;
+    private final DomainEventOutboxProcessor processor;
+
+    private OutboxRoundTrip(Object... listeners) {
+        ObjectMapper objectMapper = new JacksonConfig().objectMapper();
+        // 替身 Mapper 的桩只按需命中（无失败时不会调用 markPending/markFailed），宽松模式避免严格桩检查误报
+        DomainEventMapper domainEventMapper = mock(DomainEventMapper.class);
+        lenient().when(domainEventMapper.insert(any(DomainEventEntity.class))).thenAnswer(invocation -> {
+            DomainEventEntity entity = invocation.getArgument(0);
+            entity.setId(ids.incrementAndGet());
+            rows.add(entity);
+            return 1;
+        });
+        lenient().when(domainEventMapper.findPendingEvents(anyInt())).thenAnswer(invocation -> rows.stream()
+            .filter(row -> DomainEventStatus.PENDING.name().equals(row.getStatus()))
+            .collect(Collectors.toList()));
+        lenient().when(domainEventMapper.markProcessing(anyLong())).thenReturn(1);
+        lenient().when(domainEventMapper.markPublished(anyLong())).thenAnswer(invocation ->
+            mark(invocation.getArgument(0), DomainEventStatus.PUBLISHED.name(), null));
+        lenient().when(domainEventMapper.markPending(anyLong(), any())).thenAnswer(invocation ->
+            mark(invocation.getArgument(0), DomainEventStatus.FAILED.name(), invocation.getArgument(1)));
+        lenient().when(domainEventMapper.markFailed(anyLong(), any())).thenAnswer(invocation ->
+            mark(invocation.getArgument(0), DomainEventStatus.FAILED.name(), invocation.getArgument(1)));
+
+        GenericApplicationContext context = new GenericApplicationContext();
+        AnnotationConfigUtils.registerAnnotationConfigProcessors(context);
+        for (int i = 0; i < listeners.length; i++) {
+            Object listener = listeners[i];
+            register(context, "listener" + i, listener);
+        }
+        context.refresh();
+        context.addApplicationListener(event -> {
+            if (event instanceof PayloadApplicationEvent<?> payload
+                && payload.getPayload() instanceof DomainEvent domainEvent) {
+                delivered.add(domainEvent);
+            }
+        });
+
+        publisher = new SpringDomainEventPublisher(domainEventMapper, objectMapper);
+        processor = new DomainEventOutboxProcessor(domainEventMapper, objectMapper, context);
+        ReflectionTestUtils.setField(processor, "batchSize", 50);
+        ReflectionTestUtils.setField(processor, "maxRetry", 1);
+    }
+
+    /**
+     * 投递给给定监听器（按 @EventListener 方法分发）
+     */
+    public static OutboxRoundTrip deliveringTo(Object... listeners) {
+        return new OutboxRoundTrip(listeners);
+    }
+
+    /**
+     * 写入发件箱并执行一轮出库，返回投递出的事件；有事件反序列化或投递失败时抛出 AssertionError
+     */
+    @SuppressWarnings("unchecked")
+    public <T extends DomainEvent> T replay(T event) {
+        List<DomainEvent> replayed = replayAll(List.of(event));
+        return (T) replayed.get(0);
+    }
+
+    public List<DomainEvent> replayAll(List<? extends DomainEvent> events) {
+        delivered.clear();
+        publisher.publishAll(new ArrayList<>(events));
+        processor.publishPendingEvents();
+        for (DomainEventEntity row : rows) {
+            if (DomainEventStatus.FAILED.name().equals(row.getStatus())) {
+                throw new AssertionError("发件箱事件投递失败: " + row.getEventType() + ": " + row.getErrorMessage());
+            }
+        }
+        return new ArrayList<>(delivered);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> void register(GenericApplicationContext context, String name, T listener) {
+        context.registerBean(name, (Class<T>) listener.getClass(), () -> listener);
+    }
+
+    private int mark(Long id, String status, String errorMessage) {
+        for (DomainEventEntity row : rows) {
+            if (row.getId().equals(id)) {
+                row.setStatus(status);
+                row.setErrorMessage(errorMessage);
+            }
+        }
+        return 1;
+    }
+}
@@ -0,0 +1,133 @@
+package com.restaurant.management.common.infrastructure.retry;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+/**
+ * 乐观锁重试模板测试
+ * 覆盖冲突后重试成功、重试耗尽、外层事务内不重试，以及死锁/锁等待超时的重试与计数
+ */
+@ExtendWith(MockitoExtension.class)
+class OptimisticRetryTemplateTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private OptimisticRetryTemplate retryTemplate;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        retryTemplate = new OptimisticRetryTemplate(transactionManager, meterRegistry, 3, 1, 2);
+    }
+
+    @AfterEach
+    void tearDown() {
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+    }
+
+    @Test
+    void testRetriesInNewTransactionUntilSuccess() {
+        // Given: 前两次版本冲突
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        String result = retryTemplate.execute("Inventory", () -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw new OptimisticLockingFailureException("库存已被并发修改");
+            }
+            return "OK";
+        });
+
+        // Then
+        assertEquals("OK", result);
+        verify(transactionManager, times(3)).getTransaction(any());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+        assertEquals(2.0, count("optimistic_lock.conflict"));
+        assertEquals(2.0, count("optimistic_lock.retry"));
+        assertEquals(0.0, count("optimistic_lock.exhausted"));
+    }
+
+    @Test
+    void testGivesUpAfterMaxAttempts() {
+        // Given
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+
+        // When & Then
+        assertThrows(OptimisticLockingFailureException.class, () -> retryTemplate.execute("Inventory", () -> {
+            throw new OptimisticLockingFailureException("库存已被并发修改");
+        }));
+        verify(transactionManager, times(3)).getTransaction(any());
+        assertEquals(3.0, count("optimistic_lock.conflict"));
+        assertEquals(2.0, count("optimistic_lock.retry"));
+        assertEquals(1.0, count("optimistic_lock.exhausted"));
+    }
+
+    @Test
+    void testNoRetryInsideActiveTransaction() {
+        // Given: 外层已有事务，重试只会读到同一快照
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When & Then
+        assertThrows(OptimisticLockingFailureException.class, () -> retryTemplate.execute("Inventory", () -> {
+            attempts.incrementAndGet();
+            throw new OptimisticLockingFailureException("库存已被并发修改");
+        }));
+        assertEquals(1, attempts.get());
+        verifyNoInteractions(transactionManager);
+        assertEquals(1.0, count("optimistic_lock.conflict"));
+        assertEquals(0.0, count("optimistic_lock.retry"));
+    }
+
+    @Test
+    void testRetriesDeadlockAndLockTimeout() {
+        // Given: 第一次死锁，第二次锁等待超时
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        AtomicInteger attempts = new AtomicInteger();
+
+        // When
+        String result = retryTemplate.execute("Inventory", () -> {
+            int attempt = attempts.incrementAndGet();
+            if (attempt == 1) {
+                throw new PessimisticLockingFailureException("Deadlock found when trying to get lock");
+            }
+            if (attempt == 2) {
+                throw new CannotAcquireLockException("Lock wait timeout exceeded");
+            }
+            return "OK";
+        });
+
+        // Then
+        assertEquals("OK", result);
+        verify(transactionManager, times(2)).rollback(any());
+        assertEquals(1.0, meterRegistry.counter("lock.deadlock", "aggregate", "Inventory", "type", "deadlock").count());
+        assertEquals(1.0, meterRegistry.counter("lock.deadlock", "aggregate", "Inventory", "type", "lock_timeout").count());
+        assertEquals(2.0, count("optimistic_lock.retry"));
+        assertEquals(0.0, count("optimistic_lock.conflict"));
+    }
+
+    private double count(String name) {
+        return meterRegistry.counter(name, "aggregate", "Inventory").count();
+    }
+}
@@ -0,0 +1,92 @@
+package com.restaurant.management.inventory.application;
+
+import com.restaurant.management.common.infrastructure.retry.OptimisticRetryTemplate;
+import com.restaurant.management.inventory.application.query.InventoryQueryService;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.service.InventoryDomainService;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 库存应用服务测试
+ * 覆盖批量冻结/解冻的分批提交
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryApplicationServiceTest {
+
+    @Mock
+    private InventoryDomainService inventoryDomainService;
+
+    @Mock
+    private OptimisticRetryTemplate optimisticRetryTemplate;
+
+    @Mock
+    private InventoryQueryService inventoryQueryService;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InventoryApplicationService applicationService;
+
+    @BeforeEach
+    @SuppressWarnings("unchecked")
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        InventoryProperties inventoryProperties = new InventoryProperties();
+        inventoryProperties.getBulkStatus().setChunkSize(500);
+        applicationService = new InventoryApplicationService(inventoryDomainService, optimisticRetryTemplate,
+            inventoryQueryService, inventoryProperties, new InventoryMetrics(meterRegistry));
+        when(optimisticRetryTemplate.execute(anyString(), any(Supplier.class)))
+            .thenAnswer(invocation -> invocation.<Supplier<?>>getArgument(1).get());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFreezeTenThousandSkusInChunks() {
+        // Given: 整个分类下架，10000 个 SKU
+        List<String> skuIds = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            skuIds.add(String.format("SKU%05d", i));
+        }
+        when(inventoryDomainService.findSkuIdsBySpuId("SPU001")).thenReturn(skuIds);
+        when(inventoryDomainService.changeStatusInBulk(anyList(), eq(InventoryStatus.FROZEN), anyString()))
+            .thenAnswer(invocation -> invocation.<List<String>>getArgument(0).size());
+
+        // When
+        int changed = applicationService.changeStatusBySpuId("SPU001", InventoryStatus.FROZEN, "商品下架: SPU001");
+
+        // Then: 20 个批次（每批一个事务、一次加锁查询、一条 UPDATE、一个事件），而不是 10000 次读取-修改-保存
+        assertEquals(10000, changed);
+        verify(optimisticRetryTemplate, times(20)).execute(eq("Inventory"), any(Supplier.class));
+        verify(inventoryDomainService, times(20)).changeStatusInBulk(anyList(), eq(InventoryStatus.FROZEN), anyString());
+        assertEquals(10000.0, meterRegistry.counter("inventory.status.bulk.rows", "status", "FROZEN").count());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDuplicateSkusCollapsedBeforeChunking() {
+        // Given
+        when(inventoryDomainService.changeStatusInBulk(anyList(), eq(InventoryStatus.NORMAL), anyString()))
+            .thenAnswer(invocation -> invocation.<List<String>>getArgument(0).size());
+
+        // When
+        int changed = applicationService.changeStatusBySkuIds(
+            List.of("SKU002", "SKU001", "SKU002"), InventoryStatus.NORMAL, "商品上架");
+
+        // Then
+        assertEquals(2, changed);
+        verify(inventoryDomainService).changeStatusInBulk(List.of("SKU001", "SKU002"), InventoryStatus.NORMAL, "商品上架");
+    }
+}
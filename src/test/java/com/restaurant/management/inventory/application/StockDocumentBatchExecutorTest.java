@@ -0,0 +1,125 @@
+package com.restaurant.management.inventory.application;
+
+import com.restaurant.management.inventory.domain.model.DocumentStatus;
+import com.restaurant.management.inventory.domain.model.DocumentType;
+import com.restaurant.management.inventory.domain.model.StockDocument;
+import com.restaurant.management.inventory.domain.repository.StockDocumentRepository;
+import com.restaurant.management.inventory.domain.service.StockDocumentExecutionEngine;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 单据批量处理测试
+ * 覆盖按仓库分区（调拨单两端仓库合并）、分区间并行、分区内保持请求顺序，以及逐张单据的结果与失败隔离
+ */
+@ExtendWith(MockitoExtension.class)
+class StockDocumentBatchExecutorTest {
+    
+    @Mock
+    private StockDocumentRepository stockDocumentRepository;
+    
+    private StockDocumentBatchExecutor batchExecutor;
+    
+    @BeforeEach
+    void setUp() {
+        batchExecutor = new StockDocumentBatchExecutor(stockDocumentRepository, new StockDocumentExecutionEngine(),
+            new InventoryProperties(), new InventoryMetrics(new SimpleMeterRegistry()));
+    }
+    
+    @Test
+    void testPartitionMergesTransferWarehousesAndKeepsRequestOrder() {
+        // Given
+        StockDocument inbound1 = document("DOC001", DocumentType.INBOUND_PURCHASE, "WH001", null);
+        StockDocument outbound3 = document("DOC002", DocumentType.OUTBOUND_SALE, "WH003", null);
+        StockDocument inbound2 = document("DOC003", DocumentType.INBOUND_PURCHASE, "WH002", null);
+        StockDocument transfer = document("DOC004", DocumentType.TRANSFER, "WH002", "调拨 [目标仓库: WH001]");
+        StockDocument outbound1 = document("DOC005", DocumentType.OUTBOUND_SALE, "WH001", null);
+        
+        // When
+        List<List<String>> partitions = batchExecutor.partition(
+            List.of(inbound1, outbound3, inbound2, transfer, outbound1));
+        
+        // Then
+        assertEquals(2, partitions.size());
+        assertTrue(partitions.contains(List.of("DOC001", "DOC003", "DOC004", "DOC005")));
+        assertTrue(partitions.contains(List.of("DOC002")));
+    }
+    
+    @Test
+    void testRunIsolatesFailuresAndReportsEachDocumentInRequestOrder() {
+        // Given
+        when(stockDocumentRepository.findHeadersByDocumentIds(anyCollection())).thenReturn(List.of(
+            document("DOC001", DocumentType.INBOUND_PURCHASE, "WH001", null),
+            document("DOC002", DocumentType.OUTBOUND_SALE, "WH001", null),
+            document("DOC003", DocumentType.INBOUND_PURCHASE, "WH001", null)));
+        
+        // When
+        StockDocumentBatchResult result = batchExecutor.run("execute",
+            List.of("DOC001", "DOC002", "DOC404", "DOC003", "DOC001"), documentId -> {
+                if (documentId.equals("DOC002")) {
+                    throw new IllegalStateException("库存不足");
+                }
+            });
+        
+        // Then
+        assertEquals(List.of("DOC001", "DOC002", "DOC404", "DOC003"),
+            result.getItems().stream().map(StockDocumentBatchResult.Item::getDocumentId).toList());
+        assertEquals(2, result.getSucceededCount());
+        assertEquals(2, result.getFailedCount());
+        assertEquals("库存不足", result.getItems().get(1).getErrorMessage());
+        assertEquals("单据不存在: DOC404", result.getItems().get(2).getErrorMessage());
+        assertTrue(result.getItems().get(3).isSuccess());
+        assertEquals(1, result.getPartitions());
+    }
+    
+    @Test
+    void testRunExecutesPartitionsConcurrently() {
+        // Given: 两个仓库各一张单据，两张单据必须同时在处理中才能越过屏障
+        when(stockDocumentRepository.findHeadersByDocumentIds(anyCollection())).thenReturn(List.of(
+            document("DOC001", DocumentType.INBOUND_PURCHASE, "WH001", null),
+            document("DOC002", DocumentType.INBOUND_PURCHASE, "WH002", null)));
+        CyclicBarrier barrier = new CyclicBarrier(2);
+        Map<String, String> threads = new ConcurrentHashMap<>();
+        
+        // When
+        StockDocumentBatchResult result = batchExecutor.run("execute", List.of("DOC001", "DOC002"), documentId -> {
+            threads.put(documentId, Thread.currentThread().getName());
+            try {
+                barrier.await(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                throw new IllegalStateException(e);
+            }
+        });
+        
+        // Then
+        assertTrue(result.isAllSucceeded());
+        assertEquals(2, result.getPartitions());
+        assertNotEquals(threads.get("DOC001"), threads.get("DOC002"));
+    }
+    
+    private static StockDocument document(String documentId, DocumentType type, String warehouseId, String remark) {
+        StockDocument document = new StockDocument();
+        document.setDocumentId(documentId);
+        document.setType(type);
+        document.setStatus(DocumentStatus.APPROVED);
+        document.setWarehouseId(warehouseId);
+        document.setRemark(remark);
+        return document;
+    }
+}
@@ -1,13 +1,18 @@
 package com.restaurant.management.inventory.application;
 
+import com.restaurant.management.inventory.application.query.StockDocumentLiveCounters;
 import com.restaurant.management.inventory.domain.model.DocumentStatus;
 import com.restaurant.management.inventory.domain.model.DocumentType;
 import com.restaurant.management.inventory.domain.model.StockDocument;
+import com.restaurant.management.inventory.domain.model.StockDocumentCounts;
+import com.restaurant.management.inventory.domain.model.StockDocumentItem;
 import com.restaurant.management.inventory.domain.repository.StockDocumentRepository;
+import com.restaurant.management.inventory.domain.service.DocumentInventories;
 import com.restaurant.management.inventory.domain.service.StockDocumentExecutionEngine;
 import com.restaurant.management.inventory.domain.service.StockDocumentFactory;
 import com.restaurant.management.inventory.domain.service.StockDocumentStateMachine;
 import com.restaurant.management.common.domain.DomainEventPublisher;
+import com.restaurant.management.common.infrastructure.retry.OptimisticRetryTemplate;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -19,6 +24,7 @@ import java.math.BigDecimal;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Consumer;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.*;
@@ -46,6 +52,15 @@ class StockDocumentServiceTest {
     @Mock
     private DomainEventPublisher domainEventPublisher;
     
+    @Mock
+    private OptimisticRetryTemplate optimisticRetryTemplate;
+    
+    @Mock
+    private StockDocumentBatchExecutor batchExecutor;
+    
+    @Mock
+    private StockDocumentLiveCounters liveCounters;
+    
     @InjectMocks
     private StockDocumentService stockDocumentService;
     
@@ -96,7 +111,8 @@ class StockDocumentServiceTest {
     
     @Test
     void testSubmitDocumentForApproval() {
-        // Given
+        // Given: 提交审核要求单据至少有一行明细
+        testDocument.addItem(StockDocumentItem.create("SKU001", 10, BigDecimal.valueOf(50.00), null));
         when(stockDocumentRepository.findByDocumentId("DOC123456789")).thenReturn(Optional.of(testDocument));
         doNothing().when(stateMachine).validateSubmitForApproval(testDocument);
         when(stockDocumentRepository.save(any(StockDocument.class))).thenReturn(testDocument);
@@ -133,17 +149,24 @@ class StockDocumentServiceTest {
         testDocument.setStatus(DocumentStatus.APPROVED);
         when(stockDocumentRepository.findByDocumentId("DOC123456789")).thenReturn(Optional.of(testDocument));
         doNothing().when(stateMachine).validateExecution(testDocument);
-        doNothing().when(executionEngine).validateInventoryBeforeExecution(testDocument);
-        doNothing().when(executionEngine).executeDocument(testDocument);
+        DocumentInventories inventories = mock(DocumentInventories.class);
+        when(executionEngine.loadInventories(testDocument)).thenReturn(inventories);
+        doNothing().when(executionEngine).validateInventoryBeforeExecution(testDocument, inventories);
+        doNothing().when(executionEngine).executeDocument(testDocument, inventories);
         when(stockDocumentRepository.save(any(StockDocument.class))).thenReturn(testDocument);
+        doAnswer(invocation -> {
+            invocation.<Runnable>getArgument(1).run();
+            return null;
+        }).when(optimisticRetryTemplate).execute(eq("StockDocument"), any(Runnable.class));
         
         // When
         stockDocumentService.executeDocument("DOC123456789");
         
         // Then
         verify(stateMachine).validateExecution(testDocument);
-        verify(executionEngine).validateInventoryBeforeExecution(testDocument);
-        verify(executionEngine).executeDocument(testDocument);
+        verify(executionEngine).loadInventories(testDocument);
+        verify(executionEngine).validateInventoryBeforeExecution(testDocument, inventories);
+        verify(executionEngine).executeDocument(testDocument, inventories);
         verify(stockDocumentRepository).save(testDocument);
         verify(domainEventPublisher).publishAll(testDocument.getDomainEvents());
     }
@@ -251,11 +274,21 @@ class StockDocumentServiceTest {
         
         doNothing().when(stateMachine).validateApproval(any(StockDocument.class), eq("APPROVER001"));
         when(stockDocumentRepository.save(any(StockDocument.class))).thenAnswer(invocation -> invocation.getArgument(0));
+        doAnswer(invocation -> {
+            ((Runnable) invocation.getArgument(1)).run();
+            return null;
+        }).when(optimisticRetryTemplate).execute(eq("StockDocument"), any(Runnable.class));
+        when(batchExecutor.run(eq("approve"), eq(documentIds), any())).thenAnswer(invocation -> {
+            Consumer<String> action = invocation.getArgument(2);
+            documentIds.forEach(action);
+            return new StockDocumentBatchResult("approve", List.of(), 1, 0);
+        });
         
         // When
         stockDocumentService.batchApproveDocuments(documentIds, "APPROVER001");
         
         // Then
+        verify(optimisticRetryTemplate, times(3)).execute(eq("StockDocument"), any(Runnable.class));
         verify(stockDocumentRepository, times(3)).save(any(StockDocument.class));
         verify(domainEventPublisher, times(3)).publishAll(anyList());
     }
@@ -263,23 +296,45 @@ class StockDocumentServiceTest {
     @Test
     void testGetDocumentStatistics() {
         // Given
-        when(stockDocumentRepository.countByCreateTimeBetween(any(), any())).thenReturn(100L);
-        when(stockDocumentRepository.countByStatus(DocumentStatus.PENDING)).thenReturn(10L);
-        when(stockDocumentRepository.countByStatus(DocumentStatus.APPROVED)).thenReturn(20L);
-        when(stockDocumentRepository.countByStatus(DocumentStatus.EXECUTED)).thenReturn(60L);
-        when(stockDocumentRepository.countByStatus(DocumentStatus.CANCELLED)).thenReturn(10L);
+        long[][] counts = new long[DocumentStatus.values().length][DocumentType.values().length];
+        counts[DocumentStatus.PENDING.ordinal()][DocumentType.INBOUND_PURCHASE.ordinal()] = 10;
+        counts[DocumentStatus.APPROVED.ordinal()][DocumentType.INBOUND_PURCHASE.ordinal()] = 20;
+        counts[DocumentStatus.EXECUTED.ordinal()][DocumentType.INBOUND_PURCHASE.ordinal()] = 40;
+        counts[DocumentStatus.EXECUTED.ordinal()][DocumentType.TRANSFER.ordinal()] = 20;
+        counts[DocumentStatus.CANCELLED.ordinal()][DocumentType.TRANSFER.ordinal()] = 10;
+        when(stockDocumentRepository.countByStatusAndType(any(), any())).thenReturn(StockDocumentCounts.of(counts));
         
         // When
         StockDocumentService.DocumentStatistics result = stockDocumentService.getDocumentStatistics(
             java.time.LocalDateTime.now().minusDays(30), java.time.LocalDateTime.now());
         
-        // Then
+        // Then: 一次分组查询，各项计数都在时间窗口内
+        verify(stockDocumentRepository, times(1)).countByStatusAndType(any(), any());
+        verify(stockDocumentRepository, never()).countByStatus(any());
         assertNotNull(result);
         assertEquals(100L, result.getTotalCount());
         assertEquals(10L, result.getPendingCount());
         assertEquals(20L, result.getApprovedCount());
         assertEquals(60L, result.getExecutedCount());
         assertEquals(10L, result.getCancelledCount());
+        assertEquals(70L, result.getTypeCounts().get(DocumentType.INBOUND_PURCHASE));
+        assertEquals(30L, result.getTypeCounts().get(DocumentType.TRANSFER));
+    }
+    
+    @Test
+    void testGetLiveDocumentStatisticsReadsCountersWithoutQuery() {
+        // Given
+        long[][] counts = new long[DocumentStatus.values().length][DocumentType.values().length];
+        counts[DocumentStatus.PENDING.ordinal()][DocumentType.OUTBOUND_SALE.ordinal()] = 7;
+        when(liveCounters.snapshot()).thenReturn(StockDocumentCounts.of(counts));
+        
+        // When
+        StockDocumentService.DocumentStatistics result = stockDocumentService.getLiveDocumentStatistics();
+        
+        // Then
+        assertEquals(7L, result.getPendingCount());
+        assertEquals(7L, result.getTotalCount());
+        verifyNoInteractions(stockDocumentRepository);
     }
     
     private StockDocument createTestDocument(String documentId, DocumentStatus status) {
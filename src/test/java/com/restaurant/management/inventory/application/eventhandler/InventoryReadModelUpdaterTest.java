@@ -0,0 +1,192 @@
+package com.restaurant.management.inventory.application.eventhandler;
+
+import com.restaurant.management.common.infrastructure.event.OutboxRoundTrip;
+import com.restaurant.management.inventory.application.query.InventoryAvailabilityView;
+import com.restaurant.management.inventory.application.query.InventoryQueryService;
+import com.restaurant.management.inventory.domain.event.InventoryBatchChangedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryChangedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryReleasedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryReservedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryStatusChangedEvent;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.model.Warehouse;
+import com.restaurant.management.inventory.domain.model.WarehouseStatus;
+import com.restaurant.management.inventory.domain.model.WarehouseType;
+import com.restaurant.management.inventory.infrastructure.allocation.WarehouseAvailabilityIndex;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryMapper;
+import com.restaurant.management.inventory.infrastructure.mapper.WarehouseMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 库存读模型写穿更新测试
+ * 覆盖事件经发件箱序列化、反序列化后投递到读模型更新器，刷新缓存和分仓索引
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryReadModelUpdaterTest {
+
+    @Mock
+    private InventoryQueryService inventoryQueryService;
+
+    @Mock
+    private InventoryMapper inventoryMapper;
+
+    @Mock
+    private WarehouseMapper warehouseMapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private WarehouseAvailabilityIndex availabilityIndex;
+    private OutboxRoundTrip outbox;
+
+    @BeforeEach
+    void setUp() {
+        availabilityIndex = new WarehouseAvailabilityIndex(
+            inventoryMapper, warehouseMapper, new InventoryProperties(), transactionManager);
+        outbox = OutboxRoundTrip.deliveringTo(new InventoryReadModelUpdater(inventoryQueryService, availabilityIndex));
+    }
+
+    @Test
+    void testReservedEventReplayedFromOutboxRefreshesIndex() {
+        // Given
+        when(inventoryQueryService.getFreshAvailability("SKU001", "WH001")).thenReturn(Optional.of(view(7)));
+
+        // When
+        InventoryReservedEvent replayed = outbox.replay(new InventoryReservedEvent("SKU001", "WH001", 3, "ORDER001"));
+
+        // Then
+        assertEquals("SKU001", replayed.getSkuId());
+        assertEquals("WH001", replayed.getWarehouseId());
+        assertEquals(3, replayed.getQuantity());
+        assertEquals("ORDER001", replayed.getOrderId());
+        assertEquals(7, availabilityIndex.totalAvailableOf("SKU001"));
+    }
+
+    @Test
+    void testReleasedEventReplayedFromOutboxRefreshesIndex() {
+        // Given
+        when(inventoryQueryService.getFreshAvailability("SKU001", "WH001")).thenReturn(Optional.of(view(10)));
+
+        // When
+        InventoryReleasedEvent replayed = outbox.replay(new InventoryReleasedEvent("SKU001", "WH001", 3, "ORDER001"));
+
+        // Then
+        assertEquals(3, replayed.getQuantity());
+        assertEquals("ORDER001", replayed.getOrderId());
+        assertEquals(10, availabilityIndex.totalAvailableOf("SKU001"));
+    }
+
+    @Test
+    void testChangedEventReplayedFromOutboxRefreshesIndex() {
+        // Given
+        when(inventoryQueryService.getFreshAvailability("SKU001", "WH001")).thenReturn(Optional.of(view(15)));
+
+        // When
+        InventoryChangedEvent replayed = outbox.replay(new InventoryChangedEvent("SKU001", "WH001", 5, 15, "入库"));
+
+        // Then
+        assertEquals(5, replayed.getChangeQuantity());
+        assertEquals(15, replayed.getCurrentQuantity());
+        assertEquals("入库", replayed.getReason());
+        assertNotNull(replayed.getOccurredOn());
+        assertEquals(15, availabilityIndex.totalAvailableOf("SKU001"));
+    }
+
+    @Test
+    void testBatchChangedEventReplayedFromOutboxRefreshesEveryInventory() {
+        // Given
+        when(inventoryQueryService.getFreshAvailability("SKU001", "WH001")).thenReturn(Optional.of(view(12)));
+        when(inventoryQueryService.getFreshAvailability("SKU002", "WH001")).thenReturn(Optional.of(view(4)));
+        InventoryBatchChangedEvent event = new InventoryBatchChangedEvent("DOC001", "单据执行", List.of(
+            new InventoryBatchChangedEvent.Change("SKU001", "WH001", 7, 12, List.of(5, 2)),
+            new InventoryBatchChangedEvent.Change("SKU002", "WH001", -1, 4, List.of(-1))));
+
+        // When
+        InventoryBatchChangedEvent replayed = outbox.replay(event);
+
+        // Then
+        assertEquals("DOC001", replayed.getRefNo());
+        assertEquals("单据执行", replayed.getReason());
+        assertEquals(2, replayed.getChanges().size());
+        InventoryBatchChangedEvent.Change first = replayed.getChanges().get(0);
+        assertEquals("SKU001", first.getSkuId());
+        assertEquals("WH001", first.getWarehouseId());
+        assertEquals(7, first.getChangeQuantity());
+        assertEquals(12, first.getCurrentQuantity());
+        assertEquals(List.of(5, 2), first.getLineChanges());
+        assertEquals(12, availabilityIndex.totalAvailableOf("SKU001"));
+        assertEquals(4, availabilityIndex.totalAvailableOf("SKU002"));
+    }
+
+    @Test
+    void testStatusChangedEventReplayedFromOutboxEvictsAndDropsFrozen() {
+        // Given
+        availabilityIndex.update("SKU001", "WH001", 8);
+        availabilityIndex.update("SKU001", "WH002", 4);
+        List<InventoryKey> keys = List.of(new InventoryKey("SKU001", "WH001"), new InventoryKey("SKU001", "WH002"));
+
+        // When
+        InventoryStatusChangedEvent replayed = outbox.replay(
+            new InventoryStatusChangedEvent(keys, InventoryStatus.FROZEN, "盘点冻结"));
+
+        // Then
+        assertEquals(keys, replayed.getInventoryKeys());
+        assertEquals(InventoryStatus.FROZEN, replayed.getStatus());
+        assertEquals("盘点冻结", replayed.getReason());
+        verify(inventoryQueryService).evict("SKU001", "WH001");
+        verify(inventoryQueryService).evict("SKU001", "WH002");
+        assertEquals(0, availabilityIndex.totalAvailableOf("SKU001"));
+    }
+
+    @Test
+    void testWarehouseDeactivationReplayedFromOutboxDropsWarehouseFromIndex() {
+        // Given: 两个启用仓库都有库存
+        Warehouse warehouse = Warehouse.create("二号门店", "STORE02", "地址", "MGR001", WarehouseType.STORE);
+        String warehouseId = warehouse.getWarehouseId();
+        availabilityIndex.updateWarehouse("WH001", WarehouseStatus.ACTIVE, WarehouseType.CENTRAL);
+        availabilityIndex.updateWarehouse(warehouseId, WarehouseStatus.ACTIVE, WarehouseType.STORE);
+        availabilityIndex.update("SKU001", "WH001", 5);
+        availabilityIndex.update("SKU001", warehouseId, 6);
+        assertEquals(11, availabilityIndex.totalAvailableOf("SKU001"));
+
+        // When: 停用仓库，聚合产生的事件经发件箱投递
+        warehouse.deactivate("装修停业");
+        outbox.replayAll(warehouse.getDomainEvents());
+
+        // Then
+        assertFalse(availabilityIndex.isActive(warehouseId));
+        assertEquals(5, availabilityIndex.totalAvailableOf("SKU001"));
+        assertEquals(WarehouseType.STORE, availabilityIndex.typeOf(warehouseId));
+
+        // When: 重新启用
+        warehouse.clearDomainEvents();
+        warehouse.activate();
+        outbox.replayAll(warehouse.getDomainEvents());
+
+        // Then
+        assertTrue(availabilityIndex.isActive(warehouseId));
+        assertEquals(11, availabilityIndex.totalAvailableOf("SKU001"));
+    }
+
+    private InventoryAvailabilityView view(int available) {
+        InventoryAvailabilityView view = new InventoryAvailabilityView();
+        view.setSkuId("SKU001");
+        view.setWarehouseId("WH001");
+        view.setAvailableQuantity(available);
+        view.setStatus(InventoryStatus.NORMAL.name());
+        return view;
+    }
+}
@@ -0,0 +1,138 @@
+package com.restaurant.management.inventory.application.query;
+
+import com.restaurant.management.common.infrastructure.cache.MultiLevelCacheManager;
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.service.InventoryDomainService;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 库存读模型查询测试
+ * 覆盖缓存命中、超出陈旧度重新加载、写穿更新以及批量读取
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryQueryServiceTest {
+
+    private static final String CACHE_KEY = "inventory:availability:SKU001:WH001";
+
+    @Mock
+    private InventoryDomainService inventoryDomainService;
+
+    @Mock
+    private MultiLevelCacheManager cacheManager;
+
+    private InventoryQueryService queryService;
+
+    @BeforeEach
+    void setUp() {
+        InventoryProperties inventoryProperties = new InventoryProperties();
+        inventoryProperties.getReadCache().setMaxStalenessMs(5000);
+        queryService = new InventoryQueryService(inventoryDomainService, cacheManager, inventoryProperties);
+    }
+
+    @Test
+    void testReturnsCachedViewWithinStaleness() {
+        // Given
+        InventoryAvailabilityView cached = view(8, System.currentTimeMillis() - 1000);
+        when(cacheManager.get(eq(CACHE_KEY), any())).thenReturn(cached);
+
+        // When
+        Optional<InventoryAvailabilityView> result = queryService.getAvailability("SKU001", "WH001");
+
+        // Then
+        assertSame(cached, result.orElseThrow());
+        verifyNoInteractions(inventoryDomainService);
+        verify(cacheManager, never()).put(anyString(), any());
+    }
+
+    @Test
+    void testReloadsViewBeyondStaleness() {
+        // Given
+        when(cacheManager.get(eq(CACHE_KEY), any())).thenReturn(view(8, System.currentTimeMillis() - 10_000));
+        when(inventoryDomainService.getInventory("SKU001", "WH001"))
+            .thenReturn(Optional.of(Inventory.create("SKU001", "WH001", 3)));
+
+        // When
+        Optional<InventoryAvailabilityView> result = queryService.getAvailability("SKU001", "WH001");
+
+        // Then
+        assertEquals(3, result.orElseThrow().getAvailableQuantity());
+        ArgumentCaptor<Object> written = ArgumentCaptor.forClass(Object.class);
+        verify(cacheManager).put(eq(CACHE_KEY), written.capture());
+        assertEquals(3, ((InventoryAvailabilityView) written.getValue()).getAvailableQuantity());
+    }
+
+    @Test
+    void testFreshReadEvictsMissingInventory() {
+        // Given
+        when(inventoryDomainService.getInventory("SKU001", "WH001")).thenReturn(Optional.empty());
+
+        // When
+        Optional<InventoryAvailabilityView> result = queryService.getFreshAvailability("SKU001", "WH001");
+
+        // Then
+        assertTrue(result.isEmpty());
+        verify(cacheManager).evict(CACHE_KEY);
+        verify(cacheManager, never()).put(anyString(), any());
+    }
+
+    @Test
+    void testBulkReadLoadsMissesAndStaleInOneQuery() {
+        // Given: SKU001 缓存新鲜，SKU002 缓存陈旧，SKU003 未缓存
+        InventoryAvailabilityView fresh = view(8, System.currentTimeMillis() - 1000);
+        when(cacheManager.getAllPresent(Set.of(CACHE_KEY, "inventory:availability:SKU002:WH001",
+                "inventory:availability:SKU003:WH001")))
+            .thenReturn(Map.of(CACHE_KEY, fresh,
+                "inventory:availability:SKU002:WH001", view(8, System.currentTimeMillis() - 10_000)));
+        when(inventoryDomainService.getInventories(argThat(skuIds -> Set.copyOf(skuIds).equals(Set.of("SKU002", "SKU003"))),
+                eq("WH001")))
+            .thenReturn(List.of(Inventory.create("SKU002", "WH001", 0), Inventory.create("SKU003", "WH001", 5)));
+
+        // When
+        Map<String, InventoryAvailabilityView> result =
+            queryService.getAvailabilities(List.of("SKU001", "SKU002", "SKU003"), "WH001");
+
+        // Then: 一次缓存批量读取 + 一次数据库查询，重新加载的结果写穿缓存
+        assertSame(fresh, result.get("SKU001"));
+        assertEquals(0, result.get("SKU002").getAvailableQuantity());
+        assertEquals(5, result.get("SKU003").getAvailableQuantity());
+        verify(inventoryDomainService, times(1)).getInventories(anyCollection(), eq("WH001"));
+        verify(cacheManager).put(eq("inventory:availability:SKU002:WH001"), any());
+        verify(cacheManager).put(eq("inventory:availability:SKU003:WH001"), any());
+        verify(cacheManager, never()).get(anyString(), any());
+    }
+
+    @Test
+    void testBulkReadAllCachedSkipsDatabase() {
+        // Given
+        InventoryAvailabilityView fresh = view(8, System.currentTimeMillis() - 1000);
+        when(cacheManager.getAllPresent(Set.of(CACHE_KEY))).thenReturn(Map.of(CACHE_KEY, fresh));
+
+        // When
+        Map<String, InventoryAvailabilityView> result = queryService.getAvailabilities(List.of("SKU001"), "WH001");
+
+        // Then
+        assertSame(fresh, result.get("SKU001"));
+        verifyNoInteractions(inventoryDomainService);
+    }
+
+    private InventoryAvailabilityView view(int available, long loadedAt) {
+        InventoryAvailabilityView view = InventoryAvailabilityView.from(Inventory.create("SKU001", "WH001", available), loadedAt);
+        assertEquals(available, view.getTotalQuantity());
+        return view;
+    }
+}
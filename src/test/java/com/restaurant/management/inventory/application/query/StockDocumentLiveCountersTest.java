@@ -0,0 +1,151 @@
+package com.restaurant.management.inventory.application.query;
+
+import com.restaurant.management.common.domain.DomainEvent;
+import com.restaurant.management.common.infrastructure.event.OutboxRoundTrip;
+import com.restaurant.management.inventory.domain.event.StockDocumentApprovedEvent;
+import com.restaurant.management.inventory.domain.event.StockDocumentCancelledEvent;
+import com.restaurant.management.inventory.domain.event.StockDocumentCreatedEvent;
+import com.restaurant.management.inventory.domain.event.StockDocumentExecutedEvent;
+import com.restaurant.management.inventory.domain.event.StockDocumentRejectedEvent;
+import com.restaurant.management.inventory.domain.model.DocumentStatus;
+import com.restaurant.management.inventory.domain.model.DocumentType;
+import com.restaurant.management.inventory.domain.model.StockDocumentCounts;
+import com.restaurant.management.inventory.domain.model.StockDocumentItem;
+import com.restaurant.management.inventory.domain.repository.StockDocumentRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 实时单据计数测试
+ * 覆盖重建后按单据事件迁移计数且读取不再查询、事件经发件箱往返后照常迁移计数、取消按原状态扣减、计数不减为负，
+ * 以及首次重建前与关闭时退回分组统计
+ */
+@ExtendWith(MockitoExtension.class)
+class StockDocumentLiveCountersTest {
+
+    @Mock
+    private StockDocumentRepository stockDocumentRepository;
+
+    private InventoryProperties inventoryProperties;
+    private StockDocumentLiveCounters liveCounters;
+
+    @BeforeEach
+    void setUp() {
+        inventoryProperties = new InventoryProperties();
+        liveCounters = new StockDocumentLiveCounters(stockDocumentRepository, inventoryProperties);
+    }
+
+    @Test
+    void testEventsMoveCountsWithoutQueryingDocuments() {
+        // Given: 已有 2 张待审核的采购入库单
+        when(stockDocumentRepository.countByStatusAndType(null, null))
+            .thenReturn(counts(DocumentStatus.PENDING, DocumentType.INBOUND_PURCHASE, 2));
+        liveCounters.rebuild();
+
+        // When: 新建并提交一张，审核两张，执行一张，拒绝一张
+        liveCounters.onCreated(new StockDocumentCreatedEvent("DOC003", DocumentType.INBOUND_PURCHASE, DocumentStatus.DRAFT));
+        liveCounters.onCreated(new StockDocumentCreatedEvent("DOC003", DocumentType.INBOUND_PURCHASE, DocumentStatus.PENDING));
+        liveCounters.onApproved(new StockDocumentApprovedEvent("DOC001", DocumentType.INBOUND_PURCHASE, "APPROVER001"));
+        liveCounters.onApproved(new StockDocumentApprovedEvent("DOC002", DocumentType.INBOUND_PURCHASE, "APPROVER001"));
+        liveCounters.onExecuted(new StockDocumentExecutedEvent("DOC001", DocumentType.INBOUND_PURCHASE, List.of()));
+        liveCounters.onRejected(new StockDocumentRejectedEvent("DOC003", DocumentType.INBOUND_PURCHASE, "APPROVER001", "数量有误"));
+        StockDocumentCounts snapshot = liveCounters.snapshot();
+
+        // Then
+        assertEquals(3, snapshot.total());
+        assertEquals(0, snapshot.count(DocumentStatus.DRAFT));
+        assertEquals(0, snapshot.count(DocumentStatus.PENDING));
+        assertEquals(1, snapshot.count(DocumentStatus.APPROVED));
+        assertEquals(1, snapshot.count(DocumentStatus.EXECUTED));
+        assertEquals(1, snapshot.count(DocumentStatus.REJECTED));
+        verify(stockDocumentRepository, times(1)).countByStatusAndType(any(), any());
+    }
+
+    @Test
+    void testEventsReplayedFromOutboxMoveCounts() {
+        // Given: 已有 1 张待审核、1 张已审核的调拨单
+        long[][] initial = new long[DocumentStatus.values().length][DocumentType.values().length];
+        initial[DocumentStatus.PENDING.ordinal()][DocumentType.TRANSFER.ordinal()] = 1;
+        initial[DocumentStatus.APPROVED.ordinal()][DocumentType.TRANSFER.ordinal()] = 1;
+        when(stockDocumentRepository.countByStatusAndType(null, null)).thenReturn(StockDocumentCounts.of(initial));
+        liveCounters.rebuild();
+        OutboxRoundTrip outbox = OutboxRoundTrip.deliveringTo(liveCounters);
+
+        // When: 单据事件写入发件箱后由出库处理器反序列化投递
+        List<DomainEvent> replayed = outbox.replayAll(List.of(
+            new StockDocumentCreatedEvent("DOC003", DocumentType.TRANSFER, DocumentStatus.DRAFT),
+            new StockDocumentCreatedEvent("DOC003", DocumentType.TRANSFER, DocumentStatus.PENDING),
+            new StockDocumentRejectedEvent("DOC003", DocumentType.TRANSFER, "APPROVER001", "数量有误"),
+            new StockDocumentApprovedEvent("DOC001", DocumentType.TRANSFER, "APPROVER001"),
+            new StockDocumentExecutedEvent("DOC001", DocumentType.TRANSFER,
+                List.of(StockDocumentItem.create("SKU001", 5, new BigDecimal("2.50"), "调拨"))),
+            new StockDocumentCancelledEvent("DOC002", DocumentType.TRANSFER, "作废", DocumentStatus.APPROVED)));
+        StockDocumentCounts snapshot = liveCounters.snapshot();
+
+        // Then
+        assertEquals(6, replayed.size());
+        StockDocumentExecutedEvent executed = (StockDocumentExecutedEvent) replayed.get(4);
+        assertEquals("SKU001", executed.getItems().get(0).getSkuId());
+        assertEquals(5, executed.getItems().get(0).getQuantity());
+        assertEquals(0, new BigDecimal("12.50").compareTo(executed.getItems().get(0).getSubtotalAmount()));
+        assertEquals(DocumentStatus.APPROVED, ((StockDocumentCancelledEvent) replayed.get(5)).getPreviousStatus());
+        assertEquals(0, snapshot.count(DocumentStatus.DRAFT));
+        assertEquals(0, snapshot.count(DocumentStatus.PENDING));
+        assertEquals(0, snapshot.count(DocumentStatus.APPROVED));
+        assertEquals(1, snapshot.count(DocumentStatus.REJECTED));
+        assertEquals(1, snapshot.count(DocumentStatus.EXECUTED));
+        assertEquals(1, snapshot.count(DocumentStatus.CANCELLED));
+    }
+
+    @Test
+    void testCancelMovesFromPreviousStatusAndNeverGoesNegative() {
+        // Given
+        when(stockDocumentRepository.countByStatusAndType(null, null))
+            .thenReturn(counts(DocumentStatus.APPROVED, DocumentType.TRANSFER, 1));
+        liveCounters.rebuild();
+
+        // When: 取消一张已审核的调拨单；重复投递的审核事件不会把待审核减成负数
+        liveCounters.onCancelled(new StockDocumentCancelledEvent("DOC001", DocumentType.TRANSFER, "作废", DocumentStatus.APPROVED));
+        liveCounters.onApproved(new StockDocumentApprovedEvent("DOC002", DocumentType.TRANSFER, "APPROVER001"));
+        liveCounters.onCancelled(new StockDocumentCancelledEvent("DOC003", DocumentType.TRANSFER, "作废", null));
+        StockDocumentCounts snapshot = liveCounters.snapshot();
+
+        // Then
+        assertEquals(1, snapshot.count(DocumentStatus.APPROVED));
+        assertEquals(1, snapshot.count(DocumentStatus.CANCELLED));
+        assertEquals(0, snapshot.count(DocumentStatus.PENDING));
+    }
+
+    @Test
+    void testFallsBackToGroupedQueryBeforeFirstRebuildAndWhenDisabled() {
+        // Given
+        StockDocumentCounts queried = counts(DocumentStatus.PENDING, DocumentType.OUTBOUND_SALE, 5);
+        when(stockDocumentRepository.countByStatusAndType(null, null)).thenReturn(queried);
+
+        // When & Then: 尚未重建
+        assertSame(queried, liveCounters.snapshot());
+
+        // When & Then: 关闭后不重建、每次查询
+        inventoryProperties.getDocumentCounters().setEnabled(false);
+        liveCounters.scheduledRebuild();
+        assertSame(queried, liveCounters.snapshot());
+        verify(stockDocumentRepository, times(2)).countByStatusAndType(null, null);
+    }
+
+    private static StockDocumentCounts counts(DocumentStatus status, DocumentType type, long count) {
+        long[][] counts = new long[DocumentStatus.values().length][DocumentType.values().length];
+        counts[status.ordinal()][type.ordinal()] = count;
+        return StockDocumentCounts.of(counts);
+    }
+}
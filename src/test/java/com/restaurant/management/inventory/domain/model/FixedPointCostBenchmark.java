@@ -0,0 +1,103 @@
+package com.restaurant.management.inventory.domain.model;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+import java.util.function.IntUnaryOperator;
+
+/**
+ * 定点成本运算压测：加权平均成本与单据合计，对比原 BigDecimal 路径的单次耗时
+ *
+ * 输入为采购单常见的 2~4 位小数单价；每轮先预热再计时，结果累加到 sink 防止被优化掉
+ * 默认不运行：mvn test -Dtest=FixedPointCostBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class FixedPointCostBenchmark {
+
+    private static final int INPUTS = 4096;
+    private static final int WARMUP_ROUNDS = 200;
+    private static final int MEASURE_ROUNDS = 500;
+    private static final int DOCUMENT_LINES = 200;
+
+    private final BigDecimal[] unitCosts = new BigDecimal[INPUTS];
+    private final BigDecimal[] inboundCosts = new BigDecimal[INPUTS];
+    private final int[] quantities = new int[INPUTS];
+
+    private long sink;
+
+    @Test
+    void compareWithBigDecimal() {
+        Random random = new Random(42);
+        for (int i = 0; i < INPUTS; i++) {
+            unitCosts[i] = BigDecimal.valueOf(random.nextInt(10_000_000), 4);
+            inboundCosts[i] = BigDecimal.valueOf(1 + random.nextInt(100_000), 2 + random.nextInt(3));
+            quantities[i] = 1 + random.nextInt(5000);
+        }
+
+        System.out.printf("%-28s %14s %14s %10s%n", "operation", "BigDecimal(ns)", "fixed(ns)", "speedup");
+        report("weighted average cost",
+            measure(i -> bigDecimalWeightedAverage(i).hashCode()),
+            measure(i -> fixedPointWeightedAverage(i).hashCode()));
+        report("document total (" + DOCUMENT_LINES + " lines)",
+            measure(i -> bigDecimalTotal(i).hashCode()) / DOCUMENT_LINES,
+            measure(i -> fixedPointTotal(i).hashCode()) / DOCUMENT_LINES);
+        System.out.println("sink=" + sink);
+    }
+
+    private BigDecimal bigDecimalWeightedAverage(int i) {
+        int currentQuantity = quantities[i];
+        int inboundQuantity = quantities[(i + 1) % INPUTS];
+        return unitCosts[i].multiply(BigDecimal.valueOf(currentQuantity))
+            .add(inboundCosts[i].multiply(BigDecimal.valueOf(inboundQuantity)))
+            .divide(BigDecimal.valueOf(currentQuantity + inboundQuantity), 4, RoundingMode.HALF_UP);
+    }
+
+    private BigDecimal fixedPointWeightedAverage(int i) {
+        return FixedPointCost.weightedAverage(unitCosts[i], quantities[i],
+            inboundCosts[i], quantities[(i + 1) % INPUTS]);
+    }
+
+    private BigDecimal bigDecimalTotal(int start) {
+        BigDecimal total = BigDecimal.ZERO;
+        for (int line = 0; line < DOCUMENT_LINES; line++) {
+            int i = (start + line) % INPUTS;
+            total = total.add(inboundCosts[i].multiply(BigDecimal.valueOf(quantities[i])));
+        }
+        return total;
+    }
+
+    private BigDecimal fixedPointTotal(int start) {
+        FixedPointCost.Sum total = new FixedPointCost.Sum();
+        for (int line = 0; line < DOCUMENT_LINES; line++) {
+            int i = (start + line) % INPUTS;
+            total.add(inboundCosts[i], quantities[i]);
+        }
+        return total.toBigDecimal();
+    }
+
+    /**
+     * @return 每次调用的平均耗时（纳秒）
+     */
+    private double measure(IntUnaryOperator operation) {
+        for (int round = 0; round < WARMUP_ROUNDS; round++) {
+            for (int i = 0; i < INPUTS; i++) {
+                sink += operation.applyAsInt(i);
+            }
+        }
+        long start = System.nanoTime();
+        for (int round = 0; round < MEASURE_ROUNDS; round++) {
+            for (int i = 0; i < INPUTS; i++) {
+                sink += operation.applyAsInt(i);
+            }
+        }
+        return (System.nanoTime() - start) / (double) (MEASURE_ROUNDS * INPUTS);
+    }
+
+    private static void report(String operation, double bigDecimalNanos, double fixedPointNanos) {
+        System.out.printf("%-28s %14.1f %14.1f %9.2fx%n",
+            operation, bigDecimalNanos, fixedPointNanos, bigDecimalNanos / fixedPointNanos);
+    }
+}
@@ -0,0 +1,156 @@
+package com.restaurant.management.inventory.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 定点成本运算测试
+ * 覆盖随机输入下加权平均成本、单据合计与 BigDecimal 路径逐位相同（含 scale）、HALF_UP 的进位边界，以及小数位过多/溢出时的回退
+ */
+class FixedPointCostTest {
+    
+    private static final int CASES = 20_000;
+    
+    @Test
+    void testWeightedAverageMatchesBigDecimalForRandomInputs() {
+        Random random = new Random(20240601L);
+        for (int i = 0; i < CASES; i++) {
+            // Given
+            BigDecimal unitCost = randomAmount(random, 1_000_000);
+            int currentQuantity = random.nextInt(100_000);
+            BigDecimal cost = randomAmount(random, 10_000).add(new BigDecimal("0.0001"));
+            int inboundQuantity = 1 + random.nextInt(10_000);
+            
+            // When
+            BigDecimal actual = FixedPointCost.weightedAverage(unitCost, currentQuantity, cost, inboundQuantity);
+            
+            // Then
+            assertEquals(referenceWeightedAverage(unitCost, currentQuantity, cost, inboundQuantity), actual,
+                () -> String.format("unitCost=%s, currentQuantity=%d, cost=%s, inboundQuantity=%d",
+                    unitCost, currentQuantity, cost, inboundQuantity));
+        }
+    }
+    
+    @Test
+    void testWeightedAverageRoundsHalfUp() {
+        // 0.00005 -> 0.0001
+        assertEquals(new BigDecimal("0.0001"),
+            FixedPointCost.weightedAverage(BigDecimal.ZERO, 1, new BigDecimal("0.0001"), 1));
+        // 0.00004 -> 0.0000
+        assertEquals(new BigDecimal("0.0000"),
+            FixedPointCost.weightedAverage(BigDecimal.ZERO, 4, new BigDecimal("0.0002"), 1));
+        // -0.00005 -> -0.0001（远离 0 进位）
+        assertEquals(new BigDecimal("-0.0001"),
+            FixedPointCost.weightedAverage(new BigDecimal("-0.0003"), 1, new BigDecimal("0.0002"), 1));
+        // 10 / 3 = 3.33333... -> 3.3333
+        assertEquals(new BigDecimal("3.3333"),
+            FixedPointCost.weightedAverage(BigDecimal.ZERO, 2, new BigDecimal("10"), 1));
+    }
+    
+    @Test
+    void testWeightedAverageFallsBackForExcessScaleAndOverflow() {
+        // 超过 4 位小数
+        BigDecimal fineCost = new BigDecimal("1.234567");
+        assertEquals(referenceWeightedAverage(new BigDecimal("2.5"), 7, fineCost, 3),
+            FixedPointCost.weightedAverage(new BigDecimal("2.5"), 7, fineCost, 3));
+        // 多余的尾随 0 不影响定点表示
+        BigDecimal trailingZeros = new BigDecimal("1.230000");
+        assertEquals(referenceWeightedAverage(new BigDecimal("2.5"), 7, trailingZeros, 3),
+            FixedPointCost.weightedAverage(new BigDecimal("2.5"), 7, trailingZeros, 3));
+        // 数值过大
+        BigDecimal huge = new BigDecimal("123456789012345678.9");
+        assertEquals(referenceWeightedAverage(huge, 5, BigDecimal.ONE, 1),
+            FixedPointCost.weightedAverage(huge, 5, BigDecimal.ONE, 1));
+        // 乘积溢出 long
+        BigDecimal large = new BigDecimal("99999999999999.9999");
+        assertEquals(referenceWeightedAverage(large, Integer.MAX_VALUE / 2, large, 1000),
+            FixedPointCost.weightedAverage(large, Integer.MAX_VALUE / 2, large, 1000));
+    }
+    
+    @Test
+    void testSumMatchesBigDecimalForRandomInputs() {
+        Random random = new Random(20240602L);
+        for (int i = 0; i < CASES / 10; i++) {
+            // Given
+            List<BigDecimal> prices = new ArrayList<>();
+            List<Integer> quantities = new ArrayList<>();
+            int lines = 1 + random.nextInt(50);
+            for (int line = 0; line < lines; line++) {
+                prices.add(random.nextInt(20) == 0 ? new BigDecimal("0.123456") : randomAmount(random, 100_000));
+                quantities.add(1 + random.nextInt(1000));
+            }
+            
+            // When
+            FixedPointCost.Sum sum = new FixedPointCost.Sum();
+            BigDecimal expectedTotal = BigDecimal.ZERO;
+            for (int line = 0; line < lines; line++) {
+                BigDecimal price = prices.get(line);
+                int quantity = quantities.get(line);
+                sum.add(price, quantity);
+                expectedTotal = expectedTotal.add(price.multiply(BigDecimal.valueOf(quantity)));
+            }
+            
+            // Then: 合计相同（含 scale）
+            assertEquals(expectedTotal, sum.toBigDecimal());
+        }
+    }
+    
+    @Test
+    void testSumFallsBackOnOverflow() {
+        // Given
+        BigDecimal large = new BigDecimal("99999999999999.99");
+        FixedPointCost.Sum sum = new FixedPointCost.Sum();
+        BigDecimal expected = BigDecimal.ZERO;
+        
+        // When
+        for (int i = 0; i < 3; i++) {
+            sum.add(large, Integer.MAX_VALUE);
+            expected = expected.add(large.multiply(BigDecimal.valueOf(Integer.MAX_VALUE)));
+        }
+        sum.add(new BigDecimal("0.5"), 1);
+        expected = expected.add(new BigDecimal("0.5"));
+        
+        // Then
+        assertEquals(expected, sum.toBigDecimal());
+    }
+    
+    @Test
+    void testInventoryIncreaseKeepsWeightedAverageCost() {
+        // Given
+        Inventory inventory = Inventory.create("SKU001", "WH001", 3, new BigDecimal("10.0000"));
+        
+        // When
+        inventory.increase(2, new BigDecimal("12.50"), "采购入库");
+        inventory.increase(1, BigDecimal.ZERO, "赠品入库");
+        
+        // Then: (10 × 3 + 12.5 × 2) / 5 = 11，零成本入库不改变成本
+        assertEquals(new BigDecimal("11.0000"), inventory.getUnitCost());
+        assertEquals(6, inventory.getAvailableQuantity());
+    }
+    
+    /**
+     * 原 Inventory.increase 中的 BigDecimal 计算
+     */
+    private static BigDecimal referenceWeightedAverage(BigDecimal unitCost, int currentQuantity,
+                                                       BigDecimal cost, int inboundQuantity) {
+        BigDecimal totalCost = unitCost.multiply(BigDecimal.valueOf(currentQuantity))
+            .add(cost.multiply(BigDecimal.valueOf(inboundQuantity)));
+        return totalCost.divide(BigDecimal.valueOf(currentQuantity + inboundQuantity), 4, RoundingMode.HALF_UP);
+    }
+    
+    /**
+     * 0 到 max 之间、0 到 4 位小数的随机金额
+     */
+    private static BigDecimal randomAmount(Random random, int max) {
+        int scale = random.nextInt(5);
+        long unscaled = (long) (random.nextDouble() * max * Math.pow(10, scale));
+        return BigDecimal.valueOf(unscaled, scale);
+    }
+}
@@ -0,0 +1,35 @@
+package com.restaurant.management.inventory.domain.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 单据分页游标测试
+ * 覆盖分页令牌的编码往返（含整分钟与微秒时间）以及无效令牌的拒绝
+ */
+class StockDocumentCursorTest {
+    
+    @Test
+    void testEncodeDecodeRoundTrip() {
+        // Given
+        StockDocumentCursor wholeMinute = new StockDocumentCursor(LocalDateTime.of(2024, 6, 1, 10, 30), 42L);
+        StockDocumentCursor micros = new StockDocumentCursor(LocalDateTime.of(2024, 6, 1, 10, 30, 15, 123_456_000), 7L);
+        
+        // When & Then
+        assertEquals(wholeMinute, StockDocumentCursor.decode(wholeMinute.encode()));
+        assertEquals(micros, StockDocumentCursor.decode(micros.encode()));
+        assertFalse(micros.encode().contains("|"));
+    }
+    
+    @Test
+    void testDecodeRejectsInvalidToken() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class, () -> StockDocumentCursor.decode("not a token"));
+        assertThrows(IllegalArgumentException.class, () -> StockDocumentCursor.decode("MjAyNA"));
+        assertThrows(IllegalArgumentException.class, () -> StockDocumentCursor.decode(
+            new StockDocumentCursor(LocalDateTime.of(2024, 6, 1, 10, 30), 42L).encode().substring(2)));
+    }
+}
@@ -0,0 +1,809 @@
+package com.restaurant.management.inventory.domain.service;
+
+import com.restaurant.management.common.domain.DomainEvent;
+import com.restaurant.management.common.domain.DomainEventPublisher;
+import com.restaurant.management.inventory.domain.event.FlashSaleReservedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryReleasedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryReservedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryStatusChangedEvent;
+import com.restaurant.management.inventory.domain.model.AllocationPlan;
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryJournalEntry;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.model.InventorySummaryTotals;
+import com.restaurant.management.inventory.domain.model.JournalChangeType;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+import com.restaurant.management.inventory.domain.model.ReservationRequest;
+import com.restaurant.management.inventory.domain.port.AvailabilityIndexPort;
+import com.restaurant.management.inventory.domain.port.FlashSalePort;
+import com.restaurant.management.inventory.domain.port.HotRowPort;
+import com.restaurant.management.inventory.domain.port.InventoryBucketPort;
+import com.restaurant.management.inventory.domain.port.InventoryLedgerPort;
+import com.restaurant.management.inventory.domain.port.InventoryQuotaPort;
+import com.restaurant.management.inventory.domain.port.InventorySummaryPort;
+import com.restaurant.management.inventory.domain.port.ReservationCoalescerPort;
+import com.restaurant.management.inventory.domain.port.ReservationTrackerPort;
+import com.restaurant.management.inventory.domain.port.WarehouseAllocationPort;
+import com.restaurant.management.inventory.domain.repository.InventoryJournalRepository;
+import com.restaurant.management.inventory.domain.repository.InventoryRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 库存领域服务测试
+ * 覆盖条件 UPDATE 原子预留路径、批量预留路径、内存账本路由、秒杀预扣路由、热点分桶路由、预留过期记录、库存流水、批量状态变更、分仓、SKU 汇总、合并预留批次和配额租约路由
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryDomainServiceTest {
+    
+    @Mock
+    private InventoryRepository inventoryRepository;
+    
+    @Mock
+    private DomainEventPublisher domainEventPublisher;
+    
+    @Mock
+    private InventoryLedgerPort inventoryLedger;
+    
+    @Mock
+    private FlashSalePort flashSaleInventory;
+    
+    @Mock
+    private InventoryBucketPort inventoryBucketRouter;
+    
+    @Mock
+    private HotRowPort hotRowDetector;
+    
+    @Mock
+    private ReservationTrackerPort reservationTracker;
+    
+    @Mock
+    private InventoryJournalRepository journalRepository;
+    
+    @Mock
+    private WarehouseAllocationPort warehouseAllocator;
+    
+    @Mock
+    private AvailabilityIndexPort availabilityIndex;
+    
+    @Mock
+    private InventorySummaryPort summaryStore;
+    
+    @Mock
+    private ReservationCoalescerPort reservationCoalescer;
+    
+    @Mock
+    private InventoryQuotaPort quotaManager;
+    
+    private SimpleMeterRegistry meterRegistry;
+    private InventoryProperties inventoryProperties;
+    private InventoryDomainService inventoryDomainService;
+    
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        inventoryProperties = new InventoryProperties();
+        inventoryDomainService = new InventoryDomainService(
+            inventoryRepository, domainEventPublisher, inventoryProperties, new InventoryMetrics(meterRegistry),
+            inventoryLedger, flashSaleInventory, inventoryBucketRouter, hotRowDetector, reservationTracker,
+            journalRepository, warehouseAllocator, availabilityIndex, summaryStore, reservationCoalescer,
+            quotaManager);
+    }
+    
+    @Test
+    void testReserveInventoryAtomically() {
+        // Given
+        when(inventoryRepository.reserveIfAvailable("SKU001", "WH001", 2)).thenReturn(true);
+        
+        // When
+        inventoryDomainService.reserveInventory("SKU001", "WH001", 2, "ORDER001");
+        
+        // Then
+        verify(inventoryRepository, never()).findBySkuIdAndWarehouseId(anyString(), anyString());
+        verify(inventoryRepository, never()).save(any());
+        ArgumentCaptor<InventoryReservedEvent> captor = ArgumentCaptor.forClass(InventoryReservedEvent.class);
+        verify(domainEventPublisher).publish(captor.capture());
+        assertEquals("SKU001", captor.getValue().getSkuId());
+        assertEquals(2, captor.getValue().getQuantity());
+        assertEquals("ORDER001", captor.getValue().getOrderId());
+        assertEquals(1.0, counter("reserve", InventoryMetrics.OUTCOME_SUCCESS));
+    }
+    
+    @Test
+    void testReserveInventoryAtomicallyInsufficient() {
+        // Given
+        when(inventoryRepository.reserveIfAvailable("SKU001", "WH001", 5)).thenReturn(false);
+        when(inventoryRepository.findBySkuIdAndWarehouseId("SKU001", "WH001"))
+            .thenReturn(Optional.of(Inventory.create("SKU001", "WH001", 3)));
+        
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> inventoryDomainService.reserveInventory("SKU001", "WH001", 5, "ORDER001"));
+        assertEquals("可用库存不足，需要: 5, 可用: 3", exception.getMessage());
+        verify(domainEventPublisher, never()).publish(any());
+        assertEquals(1.0, counter("reserve", InventoryMetrics.OUTCOME_INSUFFICIENT));
+    }
+    
+    @Test
+    void testReserveInventoryAtomicallyFrozen() {
+        // Given
+        Inventory frozen = Inventory.create("SKU001", "WH001", 10);
+        frozen.setStatus(InventoryStatus.FROZEN);
+        when(inventoryRepository.reserveIfAvailable("SKU001", "WH001", 1)).thenReturn(false);
+        when(inventoryRepository.findBySkuIdAndWarehouseId("SKU001", "WH001")).thenReturn(Optional.of(frozen));
+        
+        // When & Then
+        assertThrows(IllegalStateException.class,
+            () -> inventoryDomainService.reserveInventory("SKU001", "WH001", 1, "ORDER001"));
+        assertEquals(1.0, counter("reserve", InventoryMetrics.OUTCOME_FROZEN));
+    }
+    
+    @Test
+    void testReserveInventoryAtomicallyRetriesOnContention() {
+        // Given
+        when(inventoryRepository.reserveIfAvailable("SKU001", "WH001", 2)).thenReturn(false, true);
+        when(inventoryRepository.findBySkuIdAndWarehouseId("SKU001", "WH001"))
+            .thenReturn(Optional.of(Inventory.create("SKU001", "WH001", 10)));
+        
+        // When
+        inventoryDomainService.reserveInventory("SKU001", "WH001", 2, "ORDER001");
+        
+        // Then
+        verify(inventoryRepository, times(2)).reserveIfAvailable("SKU001", "WH001", 2);
+        verify(hotRowDetector).recordContention("SKU001", "WH001");
+        assertEquals(1.0, counter("reserve", InventoryMetrics.OUTCOME_CONTENTION));
+        assertEquals(1.0, counter("reserve", InventoryMetrics.OUTCOME_SUCCESS));
+    }
+    
+    @Test
+    void testReserveInventoryAtomicallyNotFound() {
+        // Given
+        when(inventoryRepository.reserveIfAvailable("SKU404", "WH001", 1)).thenReturn(false);
+        when(inventoryRepository.findBySkuIdAndWarehouseId("SKU404", "WH001")).thenReturn(Optional.empty());
+        
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+            () -> inventoryDomainService.reserveInventory("SKU404", "WH001", 1, "ORDER001"));
+        assertEquals(1.0, counter("reserve", InventoryMetrics.OUTCOME_NOT_FOUND));
+    }
+    
+    @Test
+    void testReserveInventoryLoadModifySave() {
+        // Given
+        inventoryProperties.getReservation().setAtomicUpdate(false);
+        Inventory inventory = Inventory.create("SKU001", "WH001", 10);
+        inventory.clearDomainEvents();
+        when(inventoryRepository.findBySkuIdAndWarehouseId("SKU001", "WH001")).thenReturn(Optional.of(inventory));
+        
+        // When
+        inventoryDomainService.reserveInventory("SKU001", "WH001", 4, "ORDER001");
+        
+        // Then
+        assertEquals(6, inventory.getAvailableQuantity());
+        assertEquals(4, inventory.getReservedQuantity());
+        verify(inventoryRepository).save(inventory);
+        verify(domainEventPublisher).publishAll(anyList());
+        verify(inventoryRepository, never()).reserveIfAvailable(anyString(), anyString(), anyInt());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReserveAllLocksInSkuOrderAndWritesOnce() {
+        // Given
+        List<Inventory> locked = Arrays.asList(
+            inventory(1L, "SKU001", 10), inventory(2L, "SKU002", 10), inventory(3L, "SKU003", 10));
+        when(inventoryRepository.findAllForUpdate(anyList())).thenReturn(locked);
+        when(inventoryRepository.batchReserve(anyMap())).thenReturn(3);
+        
+        // When
+        List<Inventory> result = inventoryDomainService.reserveAll(Arrays.asList(
+            new ReservationLine("SKU003", "WH001", 1),
+            new ReservationLine("SKU001", "WH001", 2),
+            new ReservationLine("SKU002", "WH001", 3),
+            new ReservationLine("SKU001", "WH001", 4)), "ORDER001");
+        
+        // Then
+        ArgumentCaptor<List<ReservationLine>> linesCaptor = ArgumentCaptor.forClass(List.class);
+        verify(inventoryRepository).findAllForUpdate(linesCaptor.capture());
+        assertEquals(Arrays.asList(
+            new ReservationLine("SKU001", "WH001", 6),
+            new ReservationLine("SKU002", "WH001", 3),
+            new ReservationLine("SKU003", "WH001", 1)), linesCaptor.getValue());
+        
+        ArgumentCaptor<Map<Long, Integer>> deltaCaptor = ArgumentCaptor.forClass(Map.class);
+        verify(inventoryRepository).batchReserve(deltaCaptor.capture());
+        assertEquals(Map.of(1L, 6, 2L, 3, 3L, 1), deltaCaptor.getValue());
+        
+        assertEquals(3, result.size());
+        assertEquals(4, result.get(0).getAvailableQuantity());
+        verify(inventoryRepository, never()).save(any());
+        verify(domainEventPublisher, times(3)).publishAll(anyList());
+    }
+    
+    @Test
+    void testReserveAllIsAllOrNothing() {
+        // Given
+        when(inventoryRepository.findAllForUpdate(anyList())).thenReturn(Arrays.asList(
+            inventory(1L, "SKU001", 10), inventory(2L, "SKU002", 1)));
+        
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> inventoryDomainService.reserveAll(Arrays.asList(
+            new ReservationLine("SKU001", "WH001", 2),
+            new ReservationLine("SKU002", "WH001", 5)), "ORDER001"));
+        verify(inventoryRepository, never()).batchReserve(anyMap());
+        verify(domainEventPublisher, never()).publishAll(anyList());
+    }
+    
+    @Test
+    void testReserveAllStatementCountIndependentOfItemCount() {
+        // Given: 一张 12 个菜品的桌单
+        List<ReservationLine> lines = new ArrayList<>();
+        List<Inventory> locked = new ArrayList<>();
+        for (int i = 1; i <= 12; i++) {
+            String skuId = String.format("SKU%03d", i);
+            lines.add(new ReservationLine(skuId, "WH001", 1));
+            locked.add(inventory((long) i, skuId, 5));
+        }
+        when(inventoryRepository.findAllForUpdate(anyList())).thenReturn(locked);
+        when(inventoryRepository.batchReserve(anyMap())).thenReturn(12);
+        
+        // When
+        inventoryDomainService.reserveAll(lines, "ORDER001");
+        
+        // Then: 一次加锁查询 + 一次批量更新，而不是 12 次 SELECT + 12 次 UPDATE
+        verify(inventoryRepository, times(1)).findAllForUpdate(anyList());
+        verify(inventoryRepository, times(1)).batchReserve(anyMap());
+        verify(inventoryRepository, never()).findBySkuIdAndWarehouseId(anyString(), anyString());
+        verify(inventoryRepository, never()).save(any());
+    }
+    
+    @Test
+    void testReserveMissOnMainRowReroutesWhenSplitElsewhere() {
+        // Given: 本节点的分桶数缓存陈旧，库存已被其它节点拆分，主行上没有可用数量
+        when(inventoryRepository.reserveIfAvailable("SKU001", "WH001", 2)).thenReturn(false);
+        when(inventoryBucketRouter.refreshSplit("SKU001", "WH001")).thenReturn(true);
+        
+        // When
+        inventoryDomainService.reserveInventory("SKU001", "WH001", 2, "ORDER001");
+        
+        // Then: 不判定库存不足，改走分桶
+        verify(inventoryBucketRouter).reserve("SKU001", "WH001", 2, "ORDER001");
+        verify(inventoryRepository, never()).findBySkuIdAndWarehouseId(anyString(), anyString());
+        verify(domainEventPublisher).publish(any(InventoryReservedEvent.class));
+    }
+    
+    @Test
+    void testReserveInventoryRoutedToLedger() {
+        // Given
+        Inventory snapshot = Inventory.create("SKU001", "WH_HOT", 10);
+        snapshot.clearDomainEvents();
+        snapshot.reserve(2, "ORDER001");
+        when(inventoryLedger.handles("WH_HOT")).thenReturn(true);
+        when(inventoryLedger.apply(eq("SKU001"), eq("WH_HOT"), any())).thenReturn(snapshot);
+        // 发布后聚合根会清空事件列表，在调用时记下发布的事件
+        List<DomainEvent> published = new ArrayList<>();
+        doAnswer(invocation -> published.addAll(invocation.getArgument(0)))
+            .when(domainEventPublisher).publishAll(anyList());
+        
+        // When
+        inventoryDomainService.reserveInventory("SKU001", "WH_HOT", 2, "ORDER001");
+        
+        // Then
+        verify(inventoryRepository, never()).reserveIfAvailable(anyString(), anyString(), anyInt());
+        verify(inventoryRepository, never()).save(any());
+        assertEquals(1, published.size());
+        assertInstanceOf(InventoryReservedEvent.class, published.get(0));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReserveAllSplitsLedgerAndDatabaseLines() {
+        // Given
+        when(inventoryLedger.handles("WH001")).thenReturn(false);
+        when(inventoryLedger.handles("WH_HOT")).thenReturn(true);
+        when(inventoryRepository.findAllForUpdate(anyList())).thenReturn(List.of(inventory(1L, "SKU001", 10)));
+        when(inventoryRepository.batchReserve(anyMap())).thenReturn(1);
+        Inventory hot = Inventory.create("SKU002", "WH_HOT", 10);
+        hot.clearDomainEvents();
+        when(inventoryLedger.applyAll(anyList(), any())).thenReturn(List.of(hot));
+        
+        // When
+        List<Inventory> result = inventoryDomainService.reserveAll(Arrays.asList(
+            new ReservationLine("SKU002", "WH_HOT", 3),
+            new ReservationLine("SKU001", "WH001", 2)), "ORDER001");
+        
+        // Then
+        ArgumentCaptor<List<ReservationLine>> dbLines = ArgumentCaptor.forClass(List.class);
+        verify(inventoryRepository).findAllForUpdate(dbLines.capture());
+        assertEquals(List.of(new ReservationLine("SKU001", "WH001", 2)), dbLines.getValue());
+        
+        ArgumentCaptor<List<ReservationLine>> ledgerLines = ArgumentCaptor.forClass(List.class);
+        verify(inventoryLedger).applyAll(ledgerLines.capture(), any());
+        assertEquals(List.of(new ReservationLine("SKU002", "WH_HOT", 3)), ledgerLines.getValue());
+        assertEquals(2, result.size());
+    }
+    
+    @Test
+    void testReserveInventoryFlashSalePublishesReconciliationEvent() {
+        // Given
+        when(flashSaleInventory.handles("SKU_HOT")).thenReturn(true);
+        when(flashSaleInventory.reserve("SKU_HOT", "WH001", 1, "ORDER001")).thenReturn(true);
+        
+        // When
+        inventoryDomainService.reserveInventory("SKU_HOT", "WH001", 1, "ORDER001");
+        
+        // Then: 不触碰数据库行，回写事件进入发件箱
+        verify(inventoryRepository, never()).reserveIfAvailable(anyString(), anyString(), anyInt());
+        ArgumentCaptor<FlashSaleReservedEvent> captor = ArgumentCaptor.forClass(FlashSaleReservedEvent.class);
+        verify(domainEventPublisher).publish(captor.capture());
+        assertEquals("SKU_HOT", captor.getValue().getSkuId());
+        assertEquals(1, captor.getValue().getQuantity());
+    }
+    
+    @Test
+    void testReserveInventoryFlashSaleDuplicateIsIdempotent() {
+        // Given
+        when(flashSaleInventory.handles("SKU_HOT")).thenReturn(true);
+        when(flashSaleInventory.reserve("SKU_HOT", "WH001", 1, "ORDER001")).thenReturn(false);
+        
+        // When
+        inventoryDomainService.reserveInventory("SKU_HOT", "WH001", 1, "ORDER001");
+        
+        // Then
+        verify(domainEventPublisher, never()).publish(any());
+        verify(reservationTracker, never()).recordReserved(anyString(), anyList());
+    }
+    
+    @Test
+    void testReserveInventoryFromQuotaLeaseSkipsInventoryRow() {
+        // Given
+        when(quotaManager.handles("SKU_LEASED")).thenReturn(true);
+    
+        // When
+        inventoryDomainService.reserveInventory("SKU_LEASED", "WH001", 2, "ORDER001");
+    
+        // Then: 只扣减本节点配额，库存行不变，预留记录与事件照常
+        verify(quotaManager).reserve("SKU_LEASED", "WH001", 2);
+        verify(inventoryRepository, never()).reserveIfAvailable(anyString(), anyString(), anyInt());
+        verify(reservationTracker).recordReserved("ORDER001", List.of(new ReservationLine("SKU_LEASED", "WH001", 2)));
+        verify(domainEventPublisher).publish(any(InventoryReservedEvent.class));
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReserveAllRoutesQuotaLinesThroughQuotaManager() {
+        // Given: 订单中一个配额租约 SKU、一个普通 SKU
+        when(quotaManager.handles(anyString())).thenAnswer(invocation -> "SKU_LEASED".equals(invocation.getArgument(0)));
+        when(inventoryRepository.findAllForUpdate(anyList())).thenReturn(List.of(inventory(1L, "SKU001", 10)));
+        when(inventoryRepository.batchReserve(anyMap())).thenReturn(1);
+        
+        // When
+        List<Inventory> result = inventoryDomainService.reserveAll(Arrays.asList(
+            new ReservationLine("SKU_LEASED", "WH001", 2),
+            new ReservationLine("SKU001", "WH001", 3)), "ORDER001");
+        
+        // Then: 配额 SKU 只扣减本节点配额，不锁定也不写库存行
+        verify(quotaManager).reserve("SKU_LEASED", "WH001", 2);
+        ArgumentCaptor<List<ReservationLine>> locked = ArgumentCaptor.forClass(List.class);
+        verify(inventoryRepository).findAllForUpdate(locked.capture());
+        assertEquals(List.of(new ReservationLine("SKU001", "WH001", 3)), locked.getValue());
+        assertEquals(1, result.size());
+        verify(domainEventPublisher).publish(any(InventoryReservedEvent.class));
+        verify(reservationTracker).recordReserved(eq("ORDER001"), argThat(lines -> lines.size() == 2));
+    }
+    
+    @Test
+    void testApplyFlashSaleReservationReservesInDatabase() {
+        // Given
+        when(flashSaleInventory.beginWriteBack("SKU_HOT", "WH001", 1, "ORDER001")).thenReturn(true);
+        when(inventoryRepository.reserveIfAvailable("SKU_HOT", "WH001", 1)).thenReturn(true);
+        
+        // When
+        inventoryDomainService.applyFlashSaleReservation("SKU_HOT", "WH001", 1, "ORDER001");
+        
+        // Then
+        verify(flashSaleInventory, never()).reserve(anyString(), anyString(), anyInt(), anyString());
+        verify(domainEventPublisher).publish(any(InventoryReservedEvent.class));
+    }
+    
+    @Test
+    void testFlashSaleReleaseBeforeWriteBackSkipsDatabaseAndLaterWriteBack() {
+        // Given: 秒杀预扣已写入 Redis，发件箱尚未回写
+        when(flashSaleInventory.handles("SKU_HOT")).thenReturn(true);
+        when(flashSaleInventory.reserve("SKU_HOT", "WH001", 1, "ORDER001")).thenReturn(true);
+        when(flashSaleInventory.releaseBeforeWriteBack("SKU_HOT", "WH001", 1, "ORDER001")).thenReturn(true);
+        when(flashSaleInventory.beginWriteBack("SKU_HOT", "WH001", 1, "ORDER001")).thenReturn(false);
+        inventoryDomainService.reserveInventory("SKU_HOT", "WH001", 1, "ORDER001");
+        
+        // When: 回写前释放，之后回写到达
+        inventoryDomainService.releaseReservedInventory("SKU_HOT", "WH001", 1, "ORDER001");
+        inventoryDomainService.applyFlashSaleReservation("SKU_HOT", "WH001", 1, "ORDER001");
+        
+        // Then: 数据库行既不释放也不预留，秒杀余量只归还一次，预留记录已清除
+        verify(inventoryRepository, never()).releaseReservedIfEnough(anyString(), anyString(), anyInt());
+        verify(inventoryRepository, never()).reserveIfAvailable(anyString(), anyString(), anyInt());
+        verify(flashSaleInventory, never()).release(anyString(), anyString(), anyInt(), anyString());
+        verify(reservationTracker).recordReleased("ORDER001", "SKU_HOT", "WH001", 1);
+        verify(domainEventPublisher, never()).publish(any(InventoryReleasedEvent.class));
+    }
+    
+    @Test
+    void testFlashSaleReleaseAfterWriteBackReleasesDatabaseThenStore() {
+        // Given: 预扣已回写
+        when(flashSaleInventory.handles("SKU_HOT")).thenReturn(true);
+        when(flashSaleInventory.releaseBeforeWriteBack("SKU_HOT", "WH001", 1, "ORDER001")).thenReturn(false);
+        when(inventoryRepository.releaseReservedIfEnough("SKU_HOT", "WH001", 1)).thenReturn(true);
+        
+        // When
+        inventoryDomainService.releaseReservedInventory("SKU_HOT", "WH001", 1, "ORDER001");
+        
+        // Then
+        InOrder inOrder = inOrder(inventoryRepository, flashSaleInventory);
+        inOrder.verify(inventoryRepository).releaseReservedIfEnough("SKU_HOT", "WH001", 1);
+        inOrder.verify(flashSaleInventory).release("SKU_HOT", "WH001", 1, "ORDER001");
+        verify(reservationTracker).recordReleased("ORDER001", "SKU_HOT", "WH001", 1);
+    }
+    
+    @Test
+    void testReserveInventoryRoutedToBuckets() {
+        // Given
+        when(inventoryBucketRouter.isSplit("SKU001", "WH001")).thenReturn(true);
+        
+        // When
+        inventoryDomainService.reserveInventory("SKU001", "WH001", 2, "ORDER001");
+        
+        // Then
+        verify(inventoryBucketRouter).reserve("SKU001", "WH001", 2, "ORDER001");
+        verify(inventoryRepository, never()).reserveIfAvailable(anyString(), anyString(), anyInt());
+        verify(domainEventPublisher).publish(any(InventoryReservedEvent.class));
+    }
+    
+    @Test
+    void testReserveAllRoutesSplitLinesToBuckets() {
+        // Given
+        when(inventoryBucketRouter.isSplit("SKU001", "WH001")).thenReturn(false);
+        when(inventoryBucketRouter.isSplit("SKU002", "WH001")).thenReturn(true);
+        when(inventoryRepository.findAllForUpdate(anyList())).thenReturn(List.of(inventory(1L, "SKU001", 10)));
+        when(inventoryRepository.batchReserve(anyMap())).thenReturn(1);
+        
+        // When
+        List<Inventory> result = inventoryDomainService.reserveAll(Arrays.asList(
+            new ReservationLine("SKU001", "WH001", 2),
+            new ReservationLine("SKU002", "WH001", 3)), "ORDER001");
+        
+        // Then
+        verify(inventoryRepository).findAllForUpdate(List.of(new ReservationLine("SKU001", "WH001", 2)));
+        verify(inventoryBucketRouter).reserve("SKU002", "WH001", 3, "ORDER001");
+        verify(domainEventPublisher).publish(argThat(event -> event instanceof InventoryReservedEvent
+            && "SKU002".equals(((InventoryReservedEvent) event).getSkuId())));
+        assertEquals(1, result.size());
+    }
+    
+    @Test
+    void testUpdateInventoryMergesBucketsFirst() {
+        // Given
+        Inventory inventory = inventory(1L, "SKU001", 10);
+        when(inventoryBucketRouter.isSplit("SKU001", "WH001")).thenReturn(true);
+        
+        // When
+        inventoryDomainService.updateInventory(inventory);
+        
+        // Then
+        InOrder order = inOrder(inventoryBucketRouter, inventoryRepository);
+        order.verify(inventoryBucketRouter).merge("SKU001", "WH001");
+        order.verify(inventoryRepository).save(inventory);
+    }
+    
+    @Test
+    void testReserveInventoryRecordsReservation() {
+        // Given
+        when(inventoryRepository.reserveIfAvailable("SKU001", "WH001", 2)).thenReturn(true);
+        
+        // When
+        inventoryDomainService.reserveInventory("SKU001", "WH001", 2, "ORDER001");
+        
+        // Then
+        verify(reservationTracker).recordReserved("ORDER001", List.of(new ReservationLine("SKU001", "WH001", 2)));
+    }
+    
+    @Test
+    void testReserveAllFailureRecordsNothing() {
+        // Given
+        when(inventoryRepository.findAllForUpdate(anyList())).thenReturn(List.of(inventory(1L, "SKU001", 1)));
+        
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> inventoryDomainService.reserveAll(
+            List.of(new ReservationLine("SKU001", "WH001", 2)), "ORDER001"));
+        verify(reservationTracker, never()).recordReserved(anyString(), anyList());
+    }
+    
+    @Test
+    void testReleaseAndConfirmSettleReservation() {
+        // Given
+        when(inventoryRepository.releaseReservedIfEnough("SKU001", "WH001", 1)).thenReturn(true);
+        when(inventoryRepository.confirmReservedIfEnough("SKU001", "WH001", 2)).thenReturn(true);
+        when(inventoryRepository.findBySkuIdAndWarehouseId("SKU001", "WH001"))
+            .thenReturn(Optional.of(inventory(1L, "SKU001", 10)));
+        
+        // When
+        inventoryDomainService.releaseReservedInventory("SKU001", "WH001", 1, "ORDER001");
+        inventoryDomainService.confirmReservedInventory("SKU001", "WH001", 2, "ORDER001");
+        
+        // Then
+        verify(reservationTracker).recordReleased("ORDER001", "SKU001", "WH001", 1);
+        verify(reservationTracker).recordConfirmed("ORDER001", "SKU001", "WH001", 2);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testAtomicReserveAppendsJournal() {
+        // Given
+        when(inventoryRepository.reserveIfAvailable("SKU001", "WH001", 2)).thenReturn(true);
+        
+        // When
+        inventoryDomainService.reserveInventory("SKU001", "WH001", 2, "ORDER001");
+        
+        // Then: 条件更新绕过聚合根，流水由领域服务显式追加
+        ArgumentCaptor<List<InventoryJournalEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(journalRepository).appendAll(captor.capture());
+        InventoryJournalEntry entry = captor.getValue().get(0);
+        assertEquals(JournalChangeType.RESERVE, entry.getChangeType());
+        assertEquals(-2, entry.getAvailableDelta());
+        assertEquals(2, entry.getReservedDelta());
+        assertEquals(0, entry.getTotalDelta());
+        assertEquals("ORDER001", entry.getRefNo());
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testReserveAllAppendsJournalInOneBatch() {
+        // Given
+        List<Inventory> locked = Arrays.asList(inventory(1L, "SKU001", 10), inventory(2L, "SKU002", 10));
+        when(inventoryRepository.findAllForUpdate(anyList())).thenReturn(locked);
+        when(inventoryRepository.batchReserve(anyMap())).thenReturn(2);
+        
+        // When
+        List<Inventory> result = inventoryDomainService.reserveAll(Arrays.asList(
+            new ReservationLine("SKU001", "WH001", 1),
+            new ReservationLine("SKU002", "WH001", 3)), "ORDER001");
+        
+        // Then
+        ArgumentCaptor<List<InventoryJournalEntry>> captor = ArgumentCaptor.forClass(List.class);
+        verify(journalRepository, times(1)).appendAll(captor.capture());
+        assertEquals(2, captor.getValue().size());
+        assertEquals("SKU002", captor.getValue().get(1).getSkuId());
+        assertEquals(3, captor.getValue().get(1).getReservedDelta());
+        result.forEach(inventory -> assertTrue(inventory.getJournalEntries().isEmpty()));
+    }
+    
+    @Test
+    void testChangeStatusInBulkUpdatesOnceAndPublishesOneEvent() {
+        // Given: 3 个 SKU 中有 2 行需要冻结
+        List<String> skuIds = List.of("SKU001", "SKU002", "SKU003");
+        when(inventoryRepository.findAllForStatusChange(skuIds, InventoryStatus.FROZEN))
+            .thenReturn(List.of(inventory(1L, "SKU001", 10), inventory(3L, "SKU003", 5)));
+        when(inventoryRepository.batchUpdateStatus(List.of(1L, 3L), InventoryStatus.FROZEN)).thenReturn(2);
+        
+        // When
+        int changed = inventoryDomainService.changeStatusInBulk(skuIds, InventoryStatus.FROZEN, "商品下架: SPU001");
+        
+        // Then: 一次加锁查询 + 一条 UPDATE + 一个汇总事件，不逐行读取-修改-保存
+        assertEquals(2, changed);
+        verify(inventoryRepository, never()).save(any());
+        // 内存账本的回写在独立事务中等待行锁，须在加锁之前移出
+        InOrder inOrder = inOrder(inventoryLedger, inventoryRepository);
+        inOrder.verify(inventoryLedger).evictSkus(skuIds);
+        inOrder.verify(inventoryRepository).findAllForStatusChange(skuIds, InventoryStatus.FROZEN);
+        ArgumentCaptor<InventoryStatusChangedEvent> captor = ArgumentCaptor.forClass(InventoryStatusChangedEvent.class);
+        verify(domainEventPublisher, times(1)).publish(captor.capture());
+        assertEquals(InventoryStatus.FROZEN, captor.getValue().getStatus());
+        assertEquals(2, captor.getValue().getInventoryKeys().size());
+        verify(flashSaleInventory).syncStatusOnCommit(captor.getValue().getInventoryKeys(), InventoryStatus.FROZEN);
+    }
+    
+    @Test
+    void testLockForDirectWriteEvictsLedgerBeforeLocking() {
+        // Given
+        List<InventoryKey> keys = List.of(new InventoryKey("SKU001", "WH_HOT"), new InventoryKey("SKU002", "WH001"));
+        List<Inventory> locked = List.of(inventory(1L, "SKU001", 10));
+        when(inventoryRepository.findAllByKeysForUpdate(keys)).thenReturn(locked);
+        
+        // When
+        List<Inventory> result = inventoryDomainService.lockForDirectWrite(keys);
+        
+        // Then: 账本增量先在独立事务中回写，加锁后读到的是最新数量
+        assertSame(locked, result);
+        InOrder inOrder = inOrder(inventoryLedger, inventoryRepository);
+        inOrder.verify(inventoryLedger).evictAll(keys);
+        inOrder.verify(inventoryRepository).findAllByKeysForUpdate(keys);
+    }
+    
+    @Test
+    void testLockForDirectWriteMergesSplitInventoriesAndRereads() {
+        // Given: SKU001 已拆分，主行只剩预留，可用数量都在分桶中
+        List<InventoryKey> keys = List.of(new InventoryKey("SKU001", "WH001"), new InventoryKey("SKU002", "WH001"));
+        Inventory mainRow = inventory(1L, "SKU001", 0);
+        Inventory merged = inventory(1L, "SKU001", 50);
+        Inventory plain = inventory(2L, "SKU002", 10);
+        when(inventoryRepository.findAllByKeysForUpdate(keys))
+            .thenReturn(List.of(mainRow, plain), List.of(merged, plain));
+        when(inventoryBucketRouter.isSplit("SKU001", "WH001")).thenReturn(true);
+        when(inventoryBucketRouter.merge("SKU001", "WH001")).thenReturn(true);
+        
+        // When
+        List<Inventory> result = inventoryDomainService.lockForDirectWrite(keys);
+        
+        // Then: 单据按合并后的主行校验和写回，秒杀余量按合并后的行登记同步
+        assertEquals(50, result.get(0).getAvailableQuantity());
+        verify(flashSaleInventory).syncOnCommit(result);
+        verify(inventoryBucketRouter, never()).merge("SKU002", "WH001");
+        verify(inventoryRepository, times(2)).findAllByKeysForUpdate(keys);
+    }
+    
+    @Test
+    void testChangeStatusInBulkNoopWhenAlreadyInStatus() {
+        // Given
+        when(inventoryRepository.findAllForStatusChange(anyList(), eq(InventoryStatus.NORMAL))).thenReturn(List.of());
+        
+        // When
+        int changed = inventoryDomainService.changeStatusInBulk(List.of("SKU001"), InventoryStatus.NORMAL, "商品上架");
+        
+        // Then
+        assertEquals(0, changed);
+        verify(inventoryRepository, never()).batchUpdateStatus(anyList(), any());
+        verify(domainEventPublisher, never()).publish(any());
+    }
+    
+    @Test
+    void testAllocateReloadsShortSkuFromDatabase() {
+        // Given: 索引陈旧显示不足，数据库中另一仓库有货
+        Map<String, Integer> quantities = Map.of("SKU001", 5);
+        AllocationPlan shortage = new AllocationPlan(List.of(), Map.of("SKU001", 5), AllocationPlan.RESULT_SHORTAGE);
+        AllocationPlan fulfilled = new AllocationPlan(List.of(new ReservationLine("SKU001", "WH002", 5)),
+            Map.of(), AllocationPlan.RESULT_SINGLE_WAREHOUSE);
+        when(warehouseAllocator.allocate(quantities)).thenReturn(shortage, fulfilled);
+        List<Inventory> fromDatabase = List.of(inventory(2L, "SKU001", 8));
+        when(inventoryRepository.findBySkuId("SKU001")).thenReturn(fromDatabase);
+        
+        // When
+        AllocationPlan plan = inventoryDomainService.allocate(quantities);
+        
+        // Then
+        assertTrue(plan.isFulfilled());
+        verify(availabilityIndex).replaceSku("SKU001", fromDatabase);
+        verify(warehouseAllocator, times(2)).allocate(quantities);
+    }
+    
+    @Test
+    void testAllocatePinsQuotaSkusToQuotaWarehouse() {
+        // Given
+        when(quotaManager.handles(anyString())).thenAnswer(invocation -> "SKU_LEASED".equals(invocation.getArgument(0)));
+        when(quotaManager.warehouseId()).thenReturn("WH_QUOTA");
+        when(warehouseAllocator.allocate(Map.of("SKU001", 1))).thenReturn(new AllocationPlan(
+            List.of(new ReservationLine("SKU001", "WH001", 1)), Map.of(), AllocationPlan.RESULT_SINGLE_WAREHOUSE));
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        quantities.put("SKU_LEASED", 2);
+        quantities.put("SKU001", 1);
+        
+        // When
+        AllocationPlan plan = inventoryDomainService.allocate(quantities);
+        
+        // Then: 配额 SKU 不经过分仓索引（租出的配额在库存行上计为预留）
+        assertTrue(plan.isFulfilled());
+        assertEquals(List.of(new ReservationLine("SKU001", "WH001", 1), new ReservationLine("SKU_LEASED", "WH_QUOTA", 2)),
+            plan.getLines());
+        verify(warehouseAllocator, times(1)).allocate(anyMap());
+    }
+    
+    @Test
+    void testAllocateFulfilledFromIndexWithoutQuery() {
+        // Given
+        Map<String, Integer> quantities = Map.of("SKU001", 1);
+        when(warehouseAllocator.allocate(quantities)).thenReturn(new AllocationPlan(
+            List.of(new ReservationLine("SKU001", "WH001", 1)), Map.of(), AllocationPlan.RESULT_SINGLE_WAREHOUSE));
+        
+        // When
+        inventoryDomainService.allocate(quantities);
+        
+        // Then
+        verifyNoInteractions(inventoryRepository);
+    }
+    
+    @Test
+    void testInventorySummariesFromSummaryStore() {
+        // Given: SKU002 没有库存
+        InventorySummaryTotals row = new InventorySummaryTotals();
+        row.setSkuId("SKU001");
+        row.setTotalAvailable(30);
+        row.setTotalReserved(5);
+        row.setTotalOccupied(2);
+        when(summaryStore.findBySkuIds(List.of("SKU002", "SKU001"))).thenReturn(Map.of("SKU001", row));
+        
+        // When
+        Map<String, InventoryDomainService.InventorySummary> summaries =
+            inventoryDomainService.getInventorySummaries(List.of("SKU002", "SKU001"));
+        
+        // Then: 按入参顺序返回，不加载库存行
+        assertEquals(List.of("SKU002", "SKU001"), new ArrayList<>(summaries.keySet()));
+        assertEquals(0, summaries.get("SKU002").getTotalQuantity());
+        assertEquals(30, summaries.get("SKU001").getTotalAvailable());
+        assertEquals(37, summaries.get("SKU001").getTotalQuantity());
+        verifyNoInteractions(inventoryRepository, inventoryBucketRouter);
+    }
+    
+    @Test
+    @SuppressWarnings("unchecked")
+    void testCoalescedBatchAcceptsInArrivalOrderWithoutPartialFill() {
+        // Given: 可用 10，依次到达 6、5、4
+        when(inventoryRepository.findAllByKeysForUpdate(List.of(new InventoryKey("SKU001", "WH001")))).thenReturn(List.of(inventory(1L, "SKU001", 10)));
+        when(inventoryRepository.batchReserve(anyMap())).thenReturn(1);
+        List<ReservationRequest> requests = List.of(
+            new ReservationRequest(6, "ORDER001"),
+            new ReservationRequest(5, "ORDER002"),
+            new ReservationRequest(4, "ORDER003"));
+        
+        // When
+        List<RuntimeException> rejections = inventoryDomainService.applyCoalescedReservations(
+            new InventoryKey("SKU001", "WH001"), requests);
+        
+        // Then: 第二笔不足被整笔拒绝，第三笔仍可满足；一条 UPDATE 写入合计 10
+        assertNull(rejections.get(0));
+        assertInstanceOf(IllegalStateException.class, rejections.get(1));
+        assertNull(rejections.get(2));
+        verify(inventoryRepository).batchReserve(Map.of(1L, 10));
+        ArgumentCaptor<List<InventoryJournalEntry>> journalCaptor = ArgumentCaptor.forClass(List.class);
+        verify(journalRepository).appendAll(journalCaptor.capture());
+        assertEquals(List.of("ORDER001", "ORDER003"), journalCaptor.getValue().stream()
+            .map(InventoryJournalEntry::getRefNo).collect(Collectors.toList()));
+        verify(reservationTracker, times(2)).recordReserved(anyString(), anyList());
+        verify(domainEventPublisher, times(2)).publish(any(InventoryReservedEvent.class));
+    }
+    
+    @Test
+    void testCoalescedBatchAllRejectedWritesNothing() {
+        // Given
+        when(inventoryRepository.findAllByKeysForUpdate(List.of(new InventoryKey("SKU001", "WH001")))).thenReturn(List.of(inventory(1L, "SKU001", 2)));
+        
+        // When
+        List<RuntimeException> rejections = inventoryDomainService.applyCoalescedReservations(
+            new InventoryKey("SKU001", "WH001"), List.of(new ReservationRequest(3, "ORDER001")));
+        
+        // Then
+        assertNotNull(rejections.get(0));
+        verify(inventoryRepository, never()).batchReserve(anyMap());
+        verifyNoInteractions(journalRepository, reservationTracker);
+    }
+    
+    private Inventory inventory(Long id, String skuId, int available) {
+        Inventory inventory = Inventory.create(skuId, "WH001", available);
+        inventory.setId(id);
+        inventory.clearDomainEvents();
+        inventory.clearJournalEntries();
+        return inventory;
+    }
+    
+    private double counter(String operation, String outcome) {
+        return meterRegistry.counter("inventory.atomic.update", "operation", operation, "outcome", outcome).count();
+    }
+}
@@ -0,0 +1,260 @@
+package com.restaurant.management.inventory.domain.service;
+
+import com.restaurant.management.common.domain.DomainEvent;
+import com.restaurant.management.common.domain.DomainEventPublisher;
+import com.restaurant.management.inventory.domain.event.InventoryBatchChangedEvent;
+import com.restaurant.management.inventory.domain.event.InventoryChangedEvent;
+import com.restaurant.management.inventory.domain.model.DocumentType;
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.StockDocument;
+import com.restaurant.management.inventory.domain.model.StockDocumentItem;
+import com.restaurant.management.inventory.domain.repository.InventoryRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 库存单据执行引擎测试
+ * 覆盖一次加载、批量写回单据涉及的库存，单独校验只读查询不加锁，以及单据执行后领域事件的发布：
+ * 按库存合并为批量事件、按上限拆分、关闭合并时逐条发布
+ */
+@ExtendWith(MockitoExtension.class)
+class StockDocumentExecutionEngineTest {
+    
+    @Mock
+    private InventoryRepository inventoryRepository;
+    
+    @Mock
+    private InventoryDomainService inventoryDomainService;
+    
+    @Mock
+    private DomainEventPublisher domainEventPublisher;
+    
+    @Spy
+    private InventoryProperties inventoryProperties = new InventoryProperties();
+    
+    @Spy
+    private InventoryMetrics inventoryMetrics = new InventoryMetrics(new SimpleMeterRegistry());
+    
+    @InjectMocks
+    private StockDocumentExecutionEngine executionEngine;
+    
+    @Test
+    void testExecuteDocumentCoalescesInventoryChangesPerSku() {
+        // Given: SKU001 已有库存且出现两行，SKU002 首次入库
+        Inventory existing = existingInventory("SKU001", "WH001", 100);
+        when(inventoryDomainService.lockForDirectWrite(anyCollection())).thenReturn(List.of(existing));
+        StockDocument document = purchaseDocument(
+            StockDocumentItem.create("SKU001", 10, BigDecimal.ONE, null),
+            StockDocumentItem.create("SKU002", 20, BigDecimal.ONE, null),
+            StockDocumentItem.create("SKU001", 5, BigDecimal.ONE, null));
+        
+        // When
+        executionEngine.executeDocument(document);
+        
+        // Then: 一个批量事件，每个库存一条变更
+        List<DomainEvent> published = capturePublished();
+        assertEquals(1, published.size());
+        InventoryBatchChangedEvent event = (InventoryBatchChangedEvent) published.get(0);
+        assertEquals(document.getDocumentNo(), event.getRefNo());
+        assertEquals(2, event.getChanges().size());
+        
+        InventoryBatchChangedEvent.Change sku1 = event.getChanges().get(0);
+        assertEquals("SKU001", sku1.getSkuId());
+        assertEquals(15, sku1.getChangeQuantity());
+        assertEquals(115, sku1.getCurrentQuantity());
+        assertEquals(List.of(10, 5), sku1.getLineChanges());
+        
+        InventoryBatchChangedEvent.Change sku2 = event.getChanges().get(1);
+        assertEquals("SKU002", sku2.getSkuId());
+        assertEquals(20, sku2.getChangeQuantity());
+        assertEquals(20, sku2.getCurrentQuantity());
+        assertEquals(List.of(20), sku2.getLineChanges());
+        assertTrue(existing.getDomainEvents().isEmpty());
+    }
+    
+    @Test
+    void testExecuteDocumentLoadsOnceAndSavesChangedInventoriesInOneBatch() {
+        // Given: SKU001 出现两行，SKU002 首次入库
+        Inventory existing = existingInventory("SKU001", "WH001", 100);
+        when(inventoryDomainService.lockForDirectWrite(anyCollection())).thenReturn(List.of(existing));
+        StockDocument document = purchaseDocument(
+            StockDocumentItem.create("SKU001", 10, BigDecimal.ONE, null),
+            StockDocumentItem.create("SKU002", 20, BigDecimal.ONE, null),
+            StockDocumentItem.create("SKU001", 5, BigDecimal.ONE, null));
+        
+        // When
+        DocumentInventories inventories = executionEngine.loadInventories(document);
+        executionEngine.validateInventoryBeforeExecution(document, inventories);
+        executionEngine.executeDocument(document, inventories);
+        
+        // Then: 一次查询、一次批量写回，不再逐行查询或保存
+        verify(inventoryDomainService, times(1)).lockForDirectWrite(anyCollection());
+        verify(inventoryRepository, never()).findBySkuIdAndWarehouseId(anyString(), anyString());
+        verify(inventoryRepository, never()).save(any(Inventory.class));
+        List<Inventory> saved = captureSaved();
+        assertEquals(2, saved.size());
+        assertSame(existing, saved.get(0));
+        assertEquals(115, existing.getAvailableQuantity());
+        assertNull(saved.get(1).getId());
+        assertEquals("SKU002", saved.get(1).getSkuId());
+        assertEquals(20, saved.get(1).getAvailableQuantity());
+    }
+    
+    @Test
+    void testExecuteTransferLoadsSourceAndTargetWarehouses() {
+        // Given
+        Inventory source = existingInventory("SKU001", "WH001", 30);
+        when(inventoryDomainService.lockForDirectWrite(anyCollection())).thenReturn(List.of(source));
+        StockDocument document = StockDocument.create(DocumentType.TRANSFER, "WH001", "USER001",
+            new ArrayList<>(List.of(StockDocumentItem.create("SKU001", 10, BigDecimal.ONE, null))),
+            "调拨 [目标仓库: WH002]");
+        
+        // When
+        executionEngine.executeDocument(document);
+        
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Collection<InventoryKey>> keys = ArgumentCaptor.forClass(Collection.class);
+        verify(inventoryDomainService).lockForDirectWrite(keys.capture());
+        assertEquals(List.of(new InventoryKey("SKU001", "WH001"), new InventoryKey("SKU001", "WH002")),
+            new ArrayList<>(keys.getValue()));
+        List<Inventory> saved = captureSaved();
+        assertEquals(20, saved.get(0).getAvailableQuantity());
+        assertEquals("WH002", saved.get(1).getWarehouseId());
+        assertEquals(10, saved.get(1).getAvailableQuantity());
+    }
+    
+    @Test
+    void testValidateRejectsMissingInventoryWithoutPerLineQueries() {
+        // Given
+        when(inventoryDomainService.getInventories(anyCollection(), eq("WH001"))).thenReturn(List.of());
+        StockDocument document = StockDocument.create(DocumentType.OUTBOUND_SALE, "WH001", "USER001",
+            new ArrayList<>(List.of(StockDocumentItem.create("SKU001", 1, BigDecimal.ONE, null))), null);
+        
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> executionEngine.validateInventoryBeforeExecution(document));
+        assertEquals("库存记录不存在 - SKU: SKU001, 仓库: WH001", exception.getMessage());
+        verify(inventoryRepository, never()).findBySkuIdAndWarehouseId(anyString(), anyString());
+    }
+    
+    @Test
+    void testStandaloneValidationReadsWithoutLockingForDirectWrite() {
+        // Given: 库存不足
+        when(inventoryDomainService.getInventories(Set.of("SKU001", "SKU002"), "WH001"))
+            .thenReturn(List.of(existingInventory("SKU001", "WH001", 10), existingInventory("SKU002", "WH001", 3)));
+        StockDocument document = StockDocument.create(DocumentType.OUTBOUND_SALE, "WH001", "USER001",
+            new ArrayList<>(List.of(
+                StockDocumentItem.create("SKU001", 5, BigDecimal.ONE, null),
+                StockDocumentItem.create("SKU002", 4, BigDecimal.ONE, null),
+                StockDocumentItem.create("SKU001", 1, BigDecimal.ONE, null))), null);
+        
+        // When & Then: 只读查询，不加锁、不移出内存账本、不登记秒杀同步
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> executionEngine.validateInventoryBeforeExecution(document));
+        assertEquals("库存不足 - SKU: SKU002, 需要: 4, 可用: 3", exception.getMessage());
+        verify(inventoryDomainService, never()).lockForDirectWrite(anyCollection());
+    }
+    
+    @Test
+    void testStandaloneValidationSkipsInboundDocuments() {
+        // Given
+        StockDocument document = purchaseDocument(StockDocumentItem.create("SKU001", 10, BigDecimal.ONE, null));
+        
+        // When
+        executionEngine.validateInventoryBeforeExecution(document);
+        
+        // Then
+        verifyNoInteractions(inventoryDomainService);
+    }
+    
+    @Test
+    void testExecuteDocumentSplitsBatchEventsByMaxChanges() {
+        // Given
+        inventoryProperties.getEventCoalescing().setMaxChangesPerEvent(2);
+        List<StockDocumentItem> items = new ArrayList<>();
+        List<Inventory> loaded = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            items.add(StockDocumentItem.create("SKU00" + i, i, BigDecimal.ONE, null));
+            loaded.add(existingInventory("SKU00" + i, "WH001", 10));
+        }
+        when(inventoryDomainService.lockForDirectWrite(anyCollection())).thenReturn(loaded);
+        StockDocument document = purchaseDocument(items.toArray(new StockDocumentItem[0]));
+        
+        // When
+        executionEngine.executeDocument(document);
+        
+        // Then
+        List<DomainEvent> published = capturePublished();
+        assertEquals(3, published.size());
+        assertEquals(List.of(2, 2, 1), published.stream()
+            .map(event -> ((InventoryBatchChangedEvent) event).getChanges().size())
+            .toList());
+    }
+    
+    @Test
+    void testExecuteDocumentPublishesEachEventWhenCoalescingDisabled() {
+        // Given
+        inventoryProperties.getEventCoalescing().setEnabled(false);
+        Inventory existing = existingInventory("SKU001", "WH001", 100);
+        when(inventoryDomainService.lockForDirectWrite(anyCollection())).thenReturn(List.of(existing));
+        StockDocument document = purchaseDocument(
+            StockDocumentItem.create("SKU001", 10, BigDecimal.ONE, null),
+            StockDocumentItem.create("SKU001", 5, BigDecimal.ONE, null));
+        
+        // When
+        executionEngine.executeDocument(document);
+        
+        // Then
+        List<DomainEvent> published = capturePublished();
+        assertEquals(2, published.size());
+        assertTrue(published.stream().allMatch(InventoryChangedEvent.class::isInstance));
+        assertEquals(115, ((InventoryChangedEvent) published.get(1)).getCurrentQuantity());
+    }
+    
+    private StockDocument purchaseDocument(StockDocumentItem... items) {
+        return StockDocument.create(DocumentType.INBOUND_PURCHASE, "WH001", "USER001",
+            new ArrayList<>(List.of(items)), null);
+    }
+    
+    private static Inventory existingInventory(String skuId, String warehouseId, int quantity) {
+        Inventory inventory = Inventory.create(skuId, warehouseId, quantity);
+        inventory.setId((long) skuId.hashCode());
+        inventory.clearDomainEvents();
+        inventory.clearJournalEntries();
+        return inventory;
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<Inventory> captureSaved() {
+        ArgumentCaptor<Collection<Inventory>> captor = ArgumentCaptor.forClass(Collection.class);
+        verify(inventoryRepository).saveAll(captor.capture());
+        return new ArrayList<>(captor.getValue());
+    }
+    
+    @SuppressWarnings("unchecked")
+    private List<DomainEvent> capturePublished() {
+        ArgumentCaptor<List<DomainEvent>> captor = ArgumentCaptor.forClass(List.class);
+        verify(domainEventPublisher).publishAll(captor.capture());
+        return captor.getValue();
+    }
+}
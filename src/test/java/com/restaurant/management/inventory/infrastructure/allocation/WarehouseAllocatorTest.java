@@ -0,0 +1,154 @@
+package com.restaurant.management.inventory.infrastructure.allocation;
+
+import com.restaurant.management.inventory.domain.model.AllocationPlan;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+import com.restaurant.management.inventory.domain.model.WarehouseStatus;
+import com.restaurant.management.inventory.domain.model.WarehouseType;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryMapper;
+import com.restaurant.management.inventory.infrastructure.mapper.WarehouseMapper;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分仓引擎测试
+ * 覆盖整单单仓、按行选仓、拆分、停用仓库排除以及可用量不足
+ */
+@ExtendWith(MockitoExtension.class)
+class WarehouseAllocatorTest {
+
+    @Mock
+    private InventoryMapper inventoryMapper;
+
+    @Mock
+    private WarehouseMapper warehouseMapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private InventoryProperties inventoryProperties;
+    private WarehouseAvailabilityIndex availabilityIndex;
+    private WarehouseAllocator allocator;
+
+    @BeforeEach
+    void setUp() {
+        inventoryProperties = new InventoryProperties();
+        availabilityIndex = new WarehouseAvailabilityIndex(
+            inventoryMapper, warehouseMapper, inventoryProperties, transactionManager);
+        allocator = new WarehouseAllocator(
+            availabilityIndex, inventoryProperties, new InventoryMetrics(new SimpleMeterRegistry()));
+        availabilityIndex.updateWarehouse("KITCHEN", WarehouseStatus.ACTIVE, WarehouseType.CENTRAL);
+        availabilityIndex.updateWarehouse("STORE01", WarehouseStatus.ACTIVE, WarehouseType.STORE);
+        availabilityIndex.updateWarehouse("STORE02", WarehouseStatus.ACTIVE, WarehouseType.STORE);
+    }
+
+    @Test
+    void testWholeOrderPrefersCentralKitchen() {
+        // Given: 中央厨房和门店都能满足整单
+        availabilityIndex.update("SKU001", "KITCHEN", 10);
+        availabilityIndex.update("SKU001", "STORE01", 20);
+        availabilityIndex.update("SKU002", "KITCHEN", 5);
+        availabilityIndex.update("SKU002", "STORE01", 5);
+
+        // When
+        AllocationPlan plan = allocator.allocate(quantities("SKU001", 3, "SKU002", 2));
+
+        // Then
+        assertEquals(AllocationPlan.RESULT_SINGLE_WAREHOUSE, plan.getResult());
+        assertEquals(List.of(new ReservationLine("SKU001", "KITCHEN", 3), new ReservationLine("SKU002", "KITCHEN", 2)),
+            plan.getLines());
+    }
+
+    @Test
+    void testPreferredWarehouseOverridesType() {
+        // Given
+        inventoryProperties.getAllocation().setPreferredWarehouseIds(List.of("STORE02"));
+        availabilityIndex.update("SKU001", "KITCHEN", 10);
+        availabilityIndex.update("SKU001", "STORE02", 10);
+
+        // When
+        AllocationPlan plan = allocator.allocate(quantities("SKU001", 3));
+
+        // Then
+        assertEquals("STORE02", plan.getLines().get(0).getWarehouseId());
+    }
+
+    @Test
+    void testEachLineFromOneWarehouseWhenNoneCoversOrder() {
+        // Given
+        availabilityIndex.update("SKU001", "KITCHEN", 10);
+        availabilityIndex.update("SKU002", "STORE01", 10);
+
+        // When
+        AllocationPlan plan = allocator.allocate(quantities("SKU001", 3, "SKU002", 2));
+
+        // Then
+        assertEquals(AllocationPlan.RESULT_PER_LINE, plan.getResult());
+        assertEquals(List.of(new ReservationLine("SKU001", "KITCHEN", 3), new ReservationLine("SKU002", "STORE01", 2)),
+            plan.getLines());
+    }
+
+    @Test
+    void testSplitsLargestFirst() {
+        // Given: 没有单个仓库够 9 份
+        availabilityIndex.update("SKU001", "KITCHEN", 4);
+        availabilityIndex.update("SKU001", "STORE01", 6);
+        availabilityIndex.update("SKU001", "STORE02", 2);
+
+        // When
+        AllocationPlan plan = allocator.allocate(quantities("SKU001", 9));
+
+        // Then
+        assertEquals(AllocationPlan.RESULT_SPLIT, plan.getResult());
+        assertEquals(List.of(new ReservationLine("SKU001", "STORE01", 6), new ReservationLine("SKU001", "KITCHEN", 3)),
+            plan.getLines());
+    }
+
+    @Test
+    void testDeactivatedWarehouseExcluded() {
+        // Given
+        availabilityIndex.update("SKU001", "KITCHEN", 10);
+        availabilityIndex.update("SKU001", "STORE01", 10);
+        availabilityIndex.updateWarehouse("KITCHEN", WarehouseStatus.INACTIVE, null);
+
+        // When
+        AllocationPlan plan = allocator.allocate(quantities("SKU001", 3));
+
+        // Then
+        assertEquals("STORE01", plan.getLines().get(0).getWarehouseId());
+    }
+
+    @Test
+    void testShortageReported() {
+        // Given
+        availabilityIndex.update("SKU001", "KITCHEN", 2);
+        availabilityIndex.update("SKU001", "STORE01", 1);
+
+        // When
+        AllocationPlan plan = allocator.allocate(quantities("SKU001", 5));
+
+        // Then
+        assertFalse(plan.isFulfilled());
+        assertEquals(Map.of("SKU001", 2), plan.getShortages());
+    }
+
+    private Map<String, Integer> quantities(Object... skuAndQuantity) {
+        Map<String, Integer> quantities = new LinkedHashMap<>();
+        for (int i = 0; i < skuAndQuantity.length; i += 2) {
+            quantities.put((String) skuAndQuantity[i], (Integer) skuAndQuantity[i + 1]);
+        }
+        return quantities;
+    }
+}
@@ -0,0 +1,199 @@
+package com.restaurant.management.inventory.infrastructure.bucket;
+
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryBucketMapper;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 热点库存分桶路由测试
+ * 覆盖单桶预留、相邻分桶回退、跨桶合并扣减、绕过陈旧的分桶数缓存以及拆分/合并
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryBucketRouterTest {
+
+    @Mock
+    private InventoryBucketMapper bucketMapper;
+
+    private SimpleMeterRegistry meterRegistry;
+    private InventoryBucketRouter bucketRouter;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        InventoryProperties inventoryProperties = new InventoryProperties();
+        bucketRouter = new InventoryBucketRouter(bucketMapper, inventoryProperties, new InventoryMetrics(meterRegistry));
+    }
+
+    @Test
+    void testReserveHitsHashedBucket() {
+        // Given
+        when(bucketMapper.countBuckets("SKU001", "WH001")).thenReturn(4);
+        int expectedBucket = ("ORDER001".hashCode() & Integer.MAX_VALUE) % 4;
+        when(bucketMapper.reserveInBucket("SKU001", "WH001", expectedBucket, 2)).thenReturn(1);
+
+        // When
+        bucketRouter.reserve("SKU001", "WH001", 2, "ORDER001");
+
+        // Then
+        verify(bucketMapper, times(1)).reserveInBucket(anyString(), anyString(), anyInt(), anyInt());
+        verify(bucketMapper, never()).lockInventory(anyString(), anyString());
+        assertEquals(1.0, route("reserve", InventoryBucketRouter.ROUTE_FIRST));
+    }
+
+    @Test
+    void testRefreshSplitBypassesStaleCount() {
+        // Given: 本节点缓存了“未拆分”，随后其它节点拆分了该库存
+        when(bucketMapper.countBuckets("SKU001", "WH001")).thenReturn(0, 4);
+        assertFalse(bucketRouter.isSplit("SKU001", "WH001"));
+
+        // When & Then
+        assertFalse(bucketRouter.isSplit("SKU001", "WH001"));
+        assertTrue(bucketRouter.refreshSplit("SKU001", "WH001"));
+        assertTrue(bucketRouter.isSplit("SKU001", "WH001"));
+        verify(bucketMapper, times(2)).countBuckets("SKU001", "WH001");
+    }
+
+    @Test
+    void testReserveFallsBackToSibling() {
+        // Given: 只有一个分桶还有余量
+        when(bucketMapper.countBuckets("SKU001", "WH001")).thenReturn(4);
+        int start = ("ORDER001".hashCode() & Integer.MAX_VALUE) % 4;
+        int sibling = (start + 2) % 4;
+        when(bucketMapper.reserveInBucket(eq("SKU001"), eq("WH001"), anyInt(), eq(2)))
+            .thenAnswer(invocation -> invocation.<Integer>getArgument(2) == sibling ? 1 : 0);
+
+        // When
+        bucketRouter.reserve("SKU001", "WH001", 2, "ORDER001");
+
+        // Then
+        verify(bucketMapper, times(3)).reserveInBucket(anyString(), anyString(), anyInt(), anyInt());
+        assertEquals(1.0, route("reserve", InventoryBucketRouter.ROUTE_SIBLING));
+    }
+
+    @Test
+    void testReserveSpansBucketsAndMainRow() {
+        // Given: 每个分桶各剩 1，主行剩 2，需要 5
+        when(bucketMapper.countBuckets("SKU001", "WH001")).thenReturn(3);
+        when(bucketMapper.lockInventory("SKU001", "WH001")).thenReturn(Inventory.create("SKU001", "WH001", 2));
+        when(bucketMapper.lockBuckets("SKU001", "WH001"))
+            .thenReturn(List.of(bucket(0, 1), bucket(1, 1), bucket(2, 1)));
+
+        // When
+        bucketRouter.reserve("SKU001", "WH001", 5, "ORDER001");
+
+        // Then
+        ArgumentCaptor<InventoryBucket> buckets = ArgumentCaptor.forClass(InventoryBucket.class);
+        verify(bucketMapper, times(3)).updateBucket(buckets.capture());
+        buckets.getAllValues().forEach(bucket -> {
+            assertEquals(0, bucket.getAvailableQuantity());
+            assertEquals(1, bucket.getReservedQuantity());
+        });
+        ArgumentCaptor<InventoryBucket> main = ArgumentCaptor.forClass(InventoryBucket.class);
+        verify(bucketMapper).updateInventoryCounters(main.capture());
+        assertEquals(0, main.getValue().getAvailableQuantity());
+        assertEquals(2, main.getValue().getReservedQuantity());
+        assertEquals(1.0, route("reserve", InventoryBucketRouter.ROUTE_SPANNING));
+    }
+
+    @Test
+    void testReserveInsufficientAcrossBuckets() {
+        // Given
+        when(bucketMapper.countBuckets("SKU001", "WH001")).thenReturn(2);
+        when(bucketMapper.lockInventory("SKU001", "WH001")).thenReturn(Inventory.create("SKU001", "WH001", 0));
+        when(bucketMapper.lockBuckets("SKU001", "WH001")).thenReturn(List.of(bucket(0, 1), bucket(1, 2)));
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> bucketRouter.reserve("SKU001", "WH001", 4, "ORDER001"));
+        assertEquals("可用库存不足，需要: 4, 可用: 3", exception.getMessage());
+        verify(bucketMapper, never()).updateBucket(any());
+        verify(bucketMapper, never()).updateInventoryCounters(any());
+        assertEquals(1.0, route("reserve", InventoryBucketRouter.ROUTE_INSUFFICIENT));
+    }
+
+    @Test
+    void testReserveRejectedWhenFrozen() {
+        // Given
+        Inventory frozen = Inventory.create("SKU001", "WH001", 10);
+        frozen.setStatus(InventoryStatus.FROZEN);
+        when(bucketMapper.countBuckets("SKU001", "WH001")).thenReturn(2);
+        when(bucketMapper.lockInventory("SKU001", "WH001")).thenReturn(frozen);
+
+        // When & Then
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> bucketRouter.reserve("SKU001", "WH001", 1, "ORDER001"));
+        assertEquals("库存已冻结，无法预留", exception.getMessage());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testSplitDistributesAvailableEvenly() {
+        // Given
+        when(bucketMapper.lockInventory("SKU001", "WH001")).thenReturn(Inventory.create("SKU001", "WH001", 10));
+        when(bucketMapper.countBuckets("SKU001", "WH001")).thenReturn(0);
+
+        // When
+        assertTrue(bucketRouter.split("SKU001", "WH001", 4));
+
+        // Then
+        ArgumentCaptor<List<InventoryBucket>> buckets = ArgumentCaptor.forClass(List.class);
+        verify(bucketMapper).insertBuckets(buckets.capture());
+        List<Integer> quantities = new ArrayList<>();
+        buckets.getValue().forEach(bucket -> quantities.add(bucket.getAvailableQuantity()));
+        assertEquals(List.of(3, 3, 2, 2), quantities);
+        ArgumentCaptor<InventoryBucket> main = ArgumentCaptor.forClass(InventoryBucket.class);
+        verify(bucketMapper).rebalanceInventoryCounters(main.capture());
+        assertEquals(0, main.getValue().getAvailableQuantity());
+    }
+
+    @Test
+    void testMergeReturnsBucketsToMainRow() {
+        // Given
+        InventoryBucket reserved = bucket(1, 2);
+        reserved.setReservedQuantity(3);
+        when(bucketMapper.lockInventory("SKU001", "WH001")).thenReturn(Inventory.create("SKU001", "WH001", 1));
+        when(bucketMapper.lockBuckets("SKU001", "WH001")).thenReturn(List.of(bucket(0, 4), reserved));
+
+        // When
+        assertTrue(bucketRouter.merge("SKU001", "WH001"));
+
+        // Then
+        ArgumentCaptor<InventoryBucket> main = ArgumentCaptor.forClass(InventoryBucket.class);
+        verify(bucketMapper).rebalanceInventoryCounters(main.capture());
+        assertEquals(7, main.getValue().getAvailableQuantity());
+        assertEquals(3, main.getValue().getReservedQuantity());
+        verify(bucketMapper).deleteBuckets("SKU001", "WH001");
+    }
+
+    private InventoryBucket bucket(int bucketNo, int available) {
+        InventoryBucket bucket = new InventoryBucket();
+        bucket.setId((long) bucketNo + 1);
+        bucket.setSkuId("SKU001");
+        bucket.setWarehouseId("WH001");
+        bucket.setBucketNo(bucketNo);
+        bucket.setAvailableQuantity(available);
+        bucket.setReservedQuantity(0);
+        bucket.setOccupiedQuantity(0);
+        return bucket;
+    }
+
+    private double route(String operation, String route) {
+        return meterRegistry.counter("inventory.bucket.route", "operation", operation, "route", route).count();
+    }
+}
@@ -0,0 +1,274 @@
+package com.restaurant.management.inventory.infrastructure.flashsale;
+
+import com.restaurant.management.common.infrastructure.config.TrafficSplitProperties;
+import com.restaurant.management.common.infrastructure.feature.TrafficSplitter;
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.InventoryStatus;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+import com.restaurant.management.inventory.domain.repository.InventoryRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 秒杀库存预扣测试（使用本地 Redis 替身）
+ * 覆盖加载与预扣、重复预扣、归还、回写前释放跳过回写、失败回滚、并发不超卖，以及单据与冻结提交后同步存储中的余量和冻结状态
+ */
+@ExtendWith(MockitoExtension.class)
+class FlashSaleInventoryTest {
+    
+    @Mock
+    private InventoryRepository inventoryRepository;
+    
+    private TrafficSplitProperties trafficSplitProperties;
+    private InMemoryFlashSaleStockStore stockStore;
+    private FlashSaleInventory flashSaleInventory;
+    
+    @BeforeEach
+    void setUp() {
+        trafficSplitProperties = new TrafficSplitProperties();
+        TrafficSplitProperties.FeatureConfig feature = new TrafficSplitProperties.FeatureConfig();
+        feature.setEnabled(true);
+        feature.setPercentage(100);
+        trafficSplitProperties.getFeatures().put("inventory-flash-sale", feature);
+        
+        InventoryProperties inventoryProperties = new InventoryProperties();
+        inventoryProperties.getFlashSale().setSkuIds(Set.of("SKU_HOT"));
+        
+        stockStore = new InMemoryFlashSaleStockStore();
+        flashSaleInventory = new FlashSaleInventory(stockStore, inventoryRepository,
+            new TrafficSplitter(trafficSplitProperties), inventoryProperties,
+            new InventoryMetrics(new SimpleMeterRegistry()));
+    }
+    
+    @Test
+    void testHandlesOnlyFlaggedSkuWhenFeatureEnabled() {
+        assertTrue(flashSaleInventory.handles("SKU_HOT"));
+        assertFalse(flashSaleInventory.handles("SKU_OTHER"));
+        
+        trafficSplitProperties.getFeatureConfig("inventory-flash-sale").setEnabled(false);
+        assertFalse(flashSaleInventory.handles("SKU_HOT"));
+    }
+    
+    @Test
+    void testReserveLoadsStockOnceThenDeductsInStore() {
+        // Given
+        stubInventory(10);
+        
+        // When
+        assertTrue(flashSaleInventory.reserve("SKU_HOT", "WH001", 3, "ORDER001"));
+        assertTrue(flashSaleInventory.reserve("SKU_HOT", "WH001", 2, "ORDER002"));
+        
+        // Then
+        verify(inventoryRepository, times(1)).findBySkuIdAndWarehouseId("SKU_HOT", "WH001");
+        assertEquals(Optional.of(5), stockStore.remaining(new InventoryKey("SKU_HOT", "WH001")));
+    }
+    
+    @Test
+    void testDuplicateReserveIsIgnored() {
+        // Given
+        stubInventory(10);
+        flashSaleInventory.reserve("SKU_HOT", "WH001", 3, "ORDER001");
+        
+        // When
+        boolean reserved = flashSaleInventory.reserve("SKU_HOT", "WH001", 3, "ORDER001");
+        
+        // Then
+        assertFalse(reserved);
+        assertEquals(Optional.of(7), stockStore.remaining(new InventoryKey("SKU_HOT", "WH001")));
+    }
+    
+    @Test
+    void testReleaseIsIdempotent() {
+        // Given
+        stubInventory(10);
+        flashSaleInventory.reserve("SKU_HOT", "WH001", 3, "ORDER001");
+        
+        // When
+        flashSaleInventory.release("SKU_HOT", "WH001", 3, "ORDER001");
+        flashSaleInventory.release("SKU_HOT", "WH001", 3, "ORDER001");
+        
+        // Then
+        assertEquals(Optional.of(10), stockStore.remaining(new InventoryKey("SKU_HOT", "WH001")));
+    }
+    
+    @Test
+    void testReleaseBeforeWriteBackReturnsStockAndSkipsWriteBack() {
+        // Given
+        stubInventory(10);
+        flashSaleInventory.reserve("SKU_HOT", "WH001", 3, "ORDER001");
+        
+        // When: 发件箱回写之前释放
+        boolean released = flashSaleInventory.releaseBeforeWriteBack("SKU_HOT", "WH001", 3, "ORDER001");
+        
+        // Then: 余量归还；之后到达（含重复投递）的回写跳过
+        assertTrue(released);
+        assertEquals(Optional.of(10), stockStore.remaining(new InventoryKey("SKU_HOT", "WH001")));
+        assertFalse(flashSaleInventory.beginWriteBack("SKU_HOT", "WH001", 3, "ORDER001"));
+        assertFalse(flashSaleInventory.beginWriteBack("SKU_HOT", "WH001", 3, "ORDER001"));
+        assertFalse(flashSaleInventory.releaseBeforeWriteBack("SKU_HOT", "WH001", 3, "ORDER001"));
+    }
+    
+    @Test
+    void testReleaseAfterWriteBackIsLeftToDatabase() {
+        // Given: 已回写
+        stubInventory(10);
+        flashSaleInventory.reserve("SKU_HOT", "WH001", 3, "ORDER001");
+        assertTrue(flashSaleInventory.beginWriteBack("SKU_HOT", "WH001", 3, "ORDER001"));
+        
+        // When
+        boolean released = flashSaleInventory.releaseBeforeWriteBack("SKU_HOT", "WH001", 3, "ORDER001");
+        
+        // Then: 存储端不动，由调用方释放数据库后归还
+        assertFalse(released);
+        assertEquals(Optional.of(7), stockStore.remaining(new InventoryKey("SKU_HOT", "WH001")));
+        flashSaleInventory.release("SKU_HOT", "WH001", 3, "ORDER001");
+        assertEquals(Optional.of(10), stockStore.remaining(new InventoryKey("SKU_HOT", "WH001")));
+    }
+    
+    @Test
+    void testRolledBackWriteBackCanStillBeReleasedBeforeRetry() {
+        // Given
+        stubInventory(10);
+        flashSaleInventory.reserve("SKU_HOT", "WH001", 3, "ORDER001");
+        
+        // When: 回写事务回滚
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            assertTrue(flashSaleInventory.beginWriteBack("SKU_HOT", "WH001", 3, "ORDER001"));
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(sync -> sync.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        
+        // Then: 仍视为未回写，发件箱重试前释放时只归还存储
+        assertTrue(flashSaleInventory.releaseBeforeWriteBack("SKU_HOT", "WH001", 3, "ORDER001"));
+        assertEquals(Optional.of(10), stockStore.remaining(new InventoryKey("SKU_HOT", "WH001")));
+    }
+    
+    @Test
+    void testReserveAllReleasesOnFailure() {
+        // Given
+        stubInventory(10);
+        Inventory other = Inventory.create("SKU_HOT", "WH002", 1);
+        when(inventoryRepository.findBySkuIdAndWarehouseId("SKU_HOT", "WH002")).thenReturn(Optional.of(other));
+        
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> flashSaleInventory.reserveAll(Arrays.asList(
+            new ReservationLine("SKU_HOT", "WH001", 4),
+            new ReservationLine("SKU_HOT", "WH002", 2)), "ORDER001"));
+        assertEquals(Optional.of(10), stockStore.remaining(new InventoryKey("SKU_HOT", "WH001")));
+    }
+    
+    @Test
+    void testConcurrentReservationsNeverOversell() throws Exception {
+        // Given: 50 份限量特价，200 个并发请求
+        stubInventory(50);
+        int requests = 200;
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        
+        // When
+        for (int i = 0; i < requests; i++) {
+            String orderId = "ORDER" + i;
+            executor.submit(() -> {
+                start.await();
+                try {
+                    flashSaleInventory.reserve("SKU_HOT", "WH001", 1, orderId);
+                    succeeded.incrementAndGet();
+                } catch (IllegalStateException e) {
+                    rejected.incrementAndGet();
+                }
+                return null;
+            });
+        }
+        start.countDown();
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        
+        // Then
+        assertEquals(50, succeeded.get());
+        assertEquals(150, rejected.get());
+        assertEquals(Optional.of(0), stockStore.remaining(new InventoryKey("SKU_HOT", "WH001")));
+    }
+    
+    @Test
+    void testDirectWriteAdjustsLoadedStockByDeltaAfterCommit() {
+        // Given: 已加载 10 并预扣 3，数据库中的可用库存尚未扣除这 3 件
+        stubInventory(10);
+        flashSaleInventory.reserve("SKU_HOT", "WH001", 3, "ORDER001");
+        Inventory row = Inventory.create("SKU_HOT", "WH001", 10);
+        
+        // When: 入库单增加 20 件后提交
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            flashSaleInventory.syncOnCommit(List.of(row));
+            row.increase(20, BigDecimal.ONE, "采购入库");
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        
+        // Then: 按增量调整，不用数据库的值覆盖已预扣的余量
+        assertEquals(Optional.of(27), stockStore.remaining(new InventoryKey("SKU_HOT", "WH001")));
+    }
+    
+    @Test
+    void testFrozenStockRejectsReservationUntilUnfrozen() {
+        // Given
+        stubInventory(10);
+        InventoryKey key = new InventoryKey("SKU_HOT", "WH001");
+        flashSaleInventory.reserve("SKU_HOT", "WH001", 1, "ORDER001");
+        
+        // When: 批量冻结提交
+        commitStatusChange(List.of(key), InventoryStatus.FROZEN);
+        
+        // Then: 存储端拒绝预扣；解冻后恢复
+        IllegalStateException e = assertThrows(IllegalStateException.class,
+            () -> flashSaleInventory.reserve("SKU_HOT", "WH001", 1, "ORDER002"));
+        assertEquals("库存已冻结，无法预留", e.getMessage());
+        commitStatusChange(List.of(key), InventoryStatus.NORMAL);
+        assertTrue(flashSaleInventory.reserve("SKU_HOT", "WH001", 1, "ORDER002"));
+        assertEquals(Optional.of(8), stockStore.remaining(key));
+    }
+    
+    private void commitStatusChange(List<InventoryKey> keys, InventoryStatus status) {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            flashSaleInventory.syncStatusOnCommit(keys, status);
+            TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+    
+    private void stubInventory(int available) {
+        when(inventoryRepository.findBySkuIdAndWarehouseId("SKU_HOT", "WH001"))
+            .thenReturn(Optional.of(Inventory.create("SKU_HOT", "WH001", available)));
+    }
+}
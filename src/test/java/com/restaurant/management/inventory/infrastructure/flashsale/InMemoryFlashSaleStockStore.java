@@ -0,0 +1,115 @@
+package com.restaurant.management.inventory.infrastructure.flashsale;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * 本地秒杀库存存储（测试用 Redis 替身）
+ * 与 RedisFlashSaleStockStore 的 Lua 脚本语义一致：每个操作整体加锁执行，相当于 Redis 单线程执行脚本
+ */
+class InMemoryFlashSaleStockStore implements FlashSaleStockStore {
+    
+    private final Map<String, Integer> stocks = new HashMap<>();
+    private final Map<String, Integer> orderMarkers = new HashMap<>();
+    private final Set<String> writtenBack = new HashSet<>();
+    private final Set<String> releasedBeforeWriteBack = new HashSet<>();
+    private final Set<String> frozen = new HashSet<>();
+    
+    @Override
+    public synchronized boolean load(InventoryKey key, int quantity) {
+        return stocks.putIfAbsent(key.toString(), quantity) == null;
+    }
+    
+    @Override
+    public synchronized long tryReserve(InventoryKey key, String orderId, int quantity) {
+        if (frozen.contains(key.toString())) {
+            return FROZEN;
+        }
+        Integer stock = stocks.get(key.toString());
+        if (stock == null) {
+            return NOT_LOADED;
+        }
+        if (orderMarkers.containsKey(orderKey(key, orderId))) {
+            return DUPLICATE;
+        }
+        if (stock < quantity) {
+            return INSUFFICIENT;
+        }
+        stocks.put(key.toString(), stock - quantity);
+        orderMarkers.put(orderKey(key, orderId), quantity);
+        releasedBeforeWriteBack.remove(orderKey(key, orderId));
+        return stock - quantity;
+    }
+    
+    @Override
+    public synchronized boolean release(InventoryKey key, String orderId, int quantity) {
+        writtenBack.remove(orderKey(key, orderId));
+        if (orderMarkers.remove(orderKey(key, orderId)) == null) {
+            return false;
+        }
+        stocks.computeIfPresent(key.toString(), (k, stock) -> stock + quantity);
+        return true;
+    }
+    
+    @Override
+    public synchronized boolean releaseBeforeWriteBack(InventoryKey key, String orderId, int quantity) {
+        String orderKey = orderKey(key, orderId);
+        if (!orderMarkers.containsKey(orderKey) || writtenBack.contains(orderKey)) {
+            return false;
+        }
+        orderMarkers.remove(orderKey);
+        stocks.computeIfPresent(key.toString(), (k, stock) -> stock + quantity);
+        releasedBeforeWriteBack.add(orderKey);
+        return true;
+    }
+    
+    @Override
+    public synchronized boolean markWrittenBack(InventoryKey key, String orderId) {
+        String orderKey = orderKey(key, orderId);
+        if (releasedBeforeWriteBack.contains(orderKey)) {
+            return false;
+        }
+        if (orderMarkers.containsKey(orderKey)) {
+            writtenBack.add(orderKey);
+        }
+        return true;
+    }
+    
+    @Override
+    public synchronized void unmarkWrittenBack(InventoryKey key, String orderId, int quantity) {
+        writtenBack.remove(orderKey(key, orderId));
+    }
+    
+    @Override
+    public synchronized boolean adjust(InventoryKey key, int delta) {
+        return stocks.computeIfPresent(key.toString(), (k, stock) -> stock + delta) != null;
+    }
+    
+    @Override
+    public synchronized void setFrozen(InventoryKey key, boolean frozen) {
+        if (frozen) {
+            this.frozen.add(key.toString());
+        } else {
+            this.frozen.remove(key.toString());
+        }
+    }
+    
+    @Override
+    public synchronized Optional<Integer> remaining(InventoryKey key) {
+        return Optional.ofNullable(stocks.get(key.toString()));
+    }
+    
+    @Override
+    public synchronized void unload(InventoryKey key) {
+        stocks.remove(key.toString());
+    }
+    
+    private String orderKey(InventoryKey key, String orderId) {
+        return orderId + ":" + key;
+    }
+}
@@ -0,0 +1,276 @@
+package com.restaurant.management.inventory.infrastructure.ledger;
+
+import com.restaurant.management.inventory.domain.event.InventoryReservedEvent;
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.ReservationLine;
+import com.restaurant.management.inventory.domain.repository.InventoryRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 内存库存账本测试
+ * 覆盖内存预留、增量合并回写、保留回写后为负的增量、移出槽位时立即回写与事务结束后再次移出，以及本地日志恢复
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryLedgerTest {
+
+    @Mock
+    private InventoryRepository inventoryRepository;
+
+    @Mock
+    private InventoryLedgerWriter ledgerWriter;
+
+    @TempDir
+    Path journalDir;
+
+    private InventoryProperties inventoryProperties;
+    private InventoryLedger inventoryLedger;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        inventoryProperties = new InventoryProperties();
+        inventoryProperties.getLedger().setEnabled(true);
+        inventoryProperties.getLedger().setWarehouseIds(Set.of("WH001"));
+        inventoryProperties.getLedger().setJournalDir(journalDir.toString());
+        inventoryProperties.getLedger().setNodeId("node-1");
+        inventoryLedger = newLedger();
+    }
+
+    @Test
+    void testReserveServedFromMemory() {
+        // Given
+        stubInventory("SKU001", 10);
+
+        // When
+        inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(2, "ORDER001"));
+        Inventory snapshot = inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(3, "ORDER002"));
+
+        // Then: 只在首次访问时加载一次，之后不再访问数据库
+        verify(inventoryRepository, times(1)).findBySkuIdAndWarehouseId("SKU001", "WH001");
+        verify(inventoryRepository, never()).save(any());
+        assertEquals(5, snapshot.getAvailableQuantity());
+        assertEquals(5, snapshot.getReservedQuantity());
+        assertEquals(1, snapshot.getDomainEvents().size());
+        assertTrue(snapshot.getDomainEvents().get(0) instanceof InventoryReservedEvent);
+    }
+
+    @Test
+    void testRejectedOperationLeavesSlotUntouched() {
+        // Given
+        stubInventory("SKU001", 3);
+
+        // When & Then
+        assertThrows(IllegalStateException.class,
+            () -> inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(5, "ORDER001")));
+        Inventory snapshot = inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(3, "ORDER002"));
+        assertEquals(0, snapshot.getAvailableQuantity());
+        assertEquals(3, snapshot.getReservedQuantity());
+    }
+
+    @Test
+    void testApplyAllIsAllOrNothing() {
+        // Given
+        stubInventory("SKU001", 10);
+        stubInventory("SKU002", 1);
+
+        // When & Then
+        assertThrows(IllegalStateException.class, () -> inventoryLedger.applyAll(Arrays.asList(
+                new ReservationLine("SKU001", "WH001", 2),
+                new ReservationLine("SKU002", "WH001", 5)),
+            (inventory, line) -> inventory.reserve(line.getQuantity(), "ORDER001")));
+
+        Inventory sku001 = inventoryLedger.overlay(Inventory.create("SKU001", "WH001", 0));
+        assertEquals(10, sku001.getAvailableQuantity());
+        assertEquals(0, sku001.getReservedQuantity());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFlushWritesCoalescedDeltas() throws Exception {
+        // Given
+        stubInventory("SKU001", 10);
+        inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(4, "ORDER001"));
+        inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.releaseReserved(1, "ORDER001"));
+        inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.confirmReserved(3, "ORDER001"));
+
+        // When
+        inventoryLedger.flush();
+
+        // Then: 三次变更合并为一行增量，检查点推进到最后一条日志
+        ArgumentCaptor<List<LedgerDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerWriter).write(captor.capture(), eq("node-1"), eq(3L));
+        assertEquals(List.of(new LedgerDelta("SKU001", "WH001", -3, 0, 3)), captor.getValue());
+        assertEquals(0, countSegments());
+
+        // 没有新变更时不再回写
+        inventoryLedger.flush();
+        verify(ledgerWriter, times(1)).write(anyList(), anyString(), anyLong());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testFailedFlushIsRetried() {
+        // Given
+        stubInventory("SKU001", 10);
+        inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(4, "ORDER001"));
+        doThrow(new IllegalStateException("db down")).doReturn(List.of())
+            .when(ledgerWriter).write(anyList(), anyString(), anyLong());
+
+        // When
+        inventoryLedger.flush();
+        inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(1, "ORDER002"));
+        inventoryLedger.flush();
+
+        // Then
+        ArgumentCaptor<List<LedgerDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerWriter, times(2)).write(captor.capture(), eq("node-1"), anyLong());
+        assertEquals(List.of(new LedgerDelta("SKU001", "WH001", -5, 5, 0)), captor.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testOverdrawingDeltaIsHeldBackAndRetried() throws Exception {
+        // Given: 移出内存期间出库单扣光了库存，回写器拒绝会使可用数量为负的增量
+        stubInventory("SKU001", 10);
+        inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(4, "ORDER001"));
+        LedgerDelta overdraft = new LedgerDelta("SKU001", "WH001", -4, 4, 0);
+        when(ledgerWriter.write(anyList(), anyString(), anyLong())).thenReturn(List.of(overdraft), List.of());
+
+        // When
+        inventoryLedger.flush();
+
+        // Then: 增量保留在槽位中并重新写入本地日志
+        assertEquals(1, countSegments());
+        assertEquals(6, inventoryLedger.overlay(Inventory.create("SKU001", "WH001", 0)).getAvailableQuantity());
+
+        // When: 下一次回写成功
+        inventoryLedger.flush();
+
+        // Then
+        ArgumentCaptor<List<LedgerDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerWriter, times(2)).write(captor.capture(), eq("node-1"), anyLong());
+        assertEquals(List.of(overdraft), captor.getAllValues().get(1));
+        assertEquals(0, countSegments());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEvictFlushesImmediatelyAndFailsWhenFlushFails() {
+        // Given
+        stubInventory("SKU001", 10);
+        inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(4, "ORDER001"));
+        doThrow(new IllegalStateException("db down")).doReturn(List.of())
+            .when(ledgerWriter).write(anyList(), anyString(), anyLong());
+
+        // When & Then: 回写失败时不能让调用方在缺少增量的库存行上直接写入
+        assertThrows(IllegalStateException.class, () -> inventoryLedger.evict("SKU001", "WH001"));
+
+        // When: 再次移出，增量仍在
+        inventoryLedger.evict("SKU001", "WH001");
+
+        // Then
+        ArgumentCaptor<List<LedgerDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerWriter, times(2)).write(captor.capture(), eq("node-1"), anyLong());
+        assertEquals(List.of(new LedgerDelta("SKU001", "WH001", -4, 4, 0)), captor.getValue());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testEvictSkusDetachesAgainAfterTransactionCompletes() {
+        // Given
+        stubInventory("SKU001", 10);
+        inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(4, "ORDER001"));
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            // When: 直接写入事务中移出；提交前又有预留把槽位从旧行重新加载
+            inventoryLedger.evictSkus(List.of("SKU001"));
+            inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(1, "ORDER002"));
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(1, "ORDER003"));
+
+        // Then: 事务结束后槽位被再次移出，从数据库重新加载；重新加载前的增量不丢
+        verify(inventoryRepository, times(3)).findBySkuIdAndWarehouseId("SKU001", "WH001");
+        inventoryLedger.flush();
+        ArgumentCaptor<List<LedgerDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerWriter, times(2)).write(captor.capture(), eq("node-1"), anyLong());
+        assertEquals(List.of(new LedgerDelta("SKU001", "WH001", -4, 4, 0)), captor.getAllValues().get(0));
+        assertEquals(List.of(new LedgerDelta("SKU001", "WH001", -2, 2, 0)), captor.getAllValues().get(1));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testRecoverReplaysUnflushedJournal() throws Exception {
+        // Given: 崩溃前完成了三次预留，其中第一次已回写（检查点 1）
+        stubInventory("SKU001", 10);
+        inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(1, "ORDER001"));
+        inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(2, "ORDER002"));
+        inventoryLedger.apply("SKU001", "WH001", inventory -> inventory.reserve(3, "ORDER003"));
+        when(ledgerWriter.loadCheckpoint("node-1")).thenReturn(1L);
+
+        // When: 新实例启动
+        InventoryLedger restarted = newLedger();
+
+        // Then
+        ArgumentCaptor<List<LedgerDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(ledgerWriter).write(captor.capture(), eq("node-1"), eq(3L));
+        assertEquals(List.of(new LedgerDelta("SKU001", "WH001", -5, 5, 0)), captor.getValue());
+        assertEquals(0, countSegments());
+        assertTrue(restarted.handles("WH001"));
+    }
+
+    @Test
+    void testDisabledLedgerHandlesNothing() throws Exception {
+        // Given
+        inventoryProperties.getLedger().setEnabled(false);
+
+        // When
+        InventoryLedger disabled = newLedger();
+
+        // Then
+        assertFalse(disabled.handles("WH001"));
+    }
+
+    private InventoryLedger newLedger() throws Exception {
+        InventoryLedger ledger = new InventoryLedger(inventoryRepository, ledgerWriter, inventoryProperties,
+            new InventoryMetrics(new SimpleMeterRegistry()));
+        ledger.start();
+        return ledger;
+    }
+
+    private void stubInventory(String skuId, int available) {
+        Inventory inventory = Inventory.create(skuId, "WH001", available);
+        when(inventoryRepository.findBySkuIdAndWarehouseId(skuId, "WH001")).thenReturn(Optional.of(inventory));
+    }
+
+    private long countSegments() throws Exception {
+        try (Stream<Path> files = Files.list(journalDir)) {
+            return files.count();
+        }
+    }
+}
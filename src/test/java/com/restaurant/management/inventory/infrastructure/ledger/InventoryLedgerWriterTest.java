@@ -0,0 +1,71 @@
+package com.restaurant.management.inventory.infrastructure.ledger;
+
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.repository.InventoryJournalRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryLedgerCheckpointMapper;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 内存库存账本回写器测试
+ * 覆盖按加锁顺序锁定后回写、跳过会使数量为负或库存行不存在的增量
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryLedgerWriterTest {
+
+    @Mock
+    private InventoryMapper inventoryMapper;
+
+    @Mock
+    private InventoryLedgerCheckpointMapper checkpointMapper;
+
+    @Mock
+    private InventoryJournalRepository journalRepository;
+
+    private InventoryLedgerWriter ledgerWriter;
+
+    @BeforeEach
+    void setUp() {
+        ledgerWriter = new InventoryLedgerWriter(inventoryMapper, checkpointMapper, new InventoryProperties(), journalRepository);
+    }
+
+    @Test
+    void testOverdraftAndMissingRowsAreReturnedNotWritten() {
+        // Given: SKU002 已被出库单扣到 1，SKU003 的库存行已删除
+        LedgerDelta sku1 = new LedgerDelta("SKU001", "WH001", -2, 2, 0);
+        LedgerDelta sku2 = new LedgerDelta("SKU002", "WH001", -3, 3, 0);
+        LedgerDelta sku3 = new LedgerDelta("SKU003", "WH001", -1, 1, 0);
+        when(inventoryMapper.selectByKeysForUpdate(anyList()))
+            .thenReturn(List.of(row("SKU001", 10), row("SKU002", 1)));
+        when(inventoryMapper.applyLedgerDeltas(List.of(sku1))).thenReturn(1);
+
+        // When
+        List<LedgerDelta> rejected = ledgerWriter.write(List.of(sku3, sku2, sku1), "node-1", 7L);
+
+        // Then: 按加锁顺序锁定，只回写不透支的增量，检查点照常推进
+        assertEquals(List.of(sku2, sku3), rejected);
+        InOrder inOrder = inOrder(inventoryMapper, checkpointMapper);
+        inOrder.verify(inventoryMapper).selectByKeysForUpdate(List.of(
+            new InventoryKey("SKU001", "WH001"), new InventoryKey("SKU002", "WH001"), new InventoryKey("SKU003", "WH001")));
+        inOrder.verify(inventoryMapper).applyLedgerDeltas(List.of(sku1));
+        inOrder.verify(checkpointMapper).upsert("node-1", 7L);
+        verify(journalRepository).appendAll(argThat(entries -> entries.size() == 1));
+    }
+
+    private static Inventory row(String skuId, int available) {
+        return Inventory.create(skuId, "WH001", available);
+    }
+}
@@ -0,0 +1,184 @@
+package com.restaurant.management.inventory.infrastructure.quota;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 本地配额租约存储（测试用数据库替身，多个节点实例共享同一份）
+ * 与 DatabaseQuotaLeaseStore 的语义一致：每个操作整体加锁执行，相当于按库存行、租约行加锁的事务；
+ * 时钟由测试推进，对应数据库的 NOW()
+ */
+class InMemoryQuotaLeaseStore implements QuotaLeaseStore {
+
+    private final Map<InventoryKey, int[]> inventories = new HashMap<>();
+    private final Set<InventoryKey> frozen = new HashSet<>();
+    private final Map<String, QuotaLease> leases = new HashMap<>();
+    private final Map<Long, Long> expireAt = new HashMap<>();
+    private long nowMillis;
+    private long nextId = 1;
+
+    synchronized void stock(InventoryKey key, int available) {
+        inventories.put(key, new int[] {available, 0});
+    }
+
+    synchronized void freeze(InventoryKey key) {
+        frozen.add(key);
+    }
+
+    synchronized void advanceSeconds(long seconds) {
+        nowMillis += seconds * 1000;
+    }
+
+    synchronized int available(InventoryKey key) {
+        return inventories.get(key)[0];
+    }
+
+    synchronized int reserved(InventoryKey key) {
+        return inventories.get(key)[1];
+    }
+
+    synchronized int leased(InventoryKey key) {
+        return leases.values().stream()
+            .filter(lease -> lease.getSkuId().equals(key.getSkuId())
+                && lease.getWarehouseId().equals(key.getWarehouseId()))
+            .mapToInt(QuotaLease::getQuantity)
+            .sum();
+    }
+
+    @Override
+    public synchronized List<QuotaLease> findByNode(String nodeId) {
+        List<QuotaLease> result = new ArrayList<>();
+        for (QuotaLease lease : leases.values()) {
+            if (lease.getNodeId().equals(nodeId)) {
+                result.add(copy(lease));
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public synchronized int grant(InventoryKey key, String nodeId, int minQuantity, int maxQuantity, long ttlSeconds) {
+        int[] row = inventories.get(key);
+        if (row == null || frozen.contains(key)) {
+            return 0;
+        }
+        QuotaLease lease = leases.get(leaseKey(key, nodeId));
+        if (lease != null && expired(lease) && lease.getQuantity() > 0) {
+            returnToInventory(lease, lease.getQuantity());
+        }
+        int quantity = Math.min(maxQuantity, row[0]);
+        if (quantity < minQuantity || quantity <= 0) {
+            return 0;
+        }
+        row[0] -= quantity;
+        row[1] += quantity;
+        if (lease == null) {
+            lease = new QuotaLease();
+            lease.setId(nextId++);
+            lease.setSkuId(key.getSkuId());
+            lease.setWarehouseId(key.getWarehouseId());
+            lease.setNodeId(nodeId);
+            lease.setQuantity(0);
+            leases.put(leaseKey(key, nodeId), lease);
+        }
+        lease.setQuantity(lease.getQuantity() + quantity);
+        expireAt.put(lease.getId(), nowMillis + ttlSeconds * 1000);
+        return quantity;
+    }
+
+    @Override
+    public synchronized boolean consume(InventoryKey key, String nodeId, int quantity) {
+        QuotaLease lease = leases.get(leaseKey(key, nodeId));
+        if (lease == null || lease.getQuantity() < quantity || expired(lease)) {
+            return false;
+        }
+        lease.setQuantity(lease.getQuantity() - quantity);
+        return true;
+    }
+
+    @Override
+    public synchronized int giveBack(InventoryKey key, String nodeId) {
+        QuotaLease lease = leases.get(leaseKey(key, nodeId));
+        if (lease == null || lease.getQuantity() <= 0) {
+            return 0;
+        }
+        int quantity = lease.getQuantity();
+        returnToInventory(lease, quantity);
+        return quantity;
+    }
+
+    @Override
+    public synchronized void renew(String nodeId, long ttlSeconds) {
+        for (QuotaLease lease : leases.values()) {
+            if (lease.getNodeId().equals(nodeId) && !expired(lease)) {
+                expireAt.put(lease.getId(), nowMillis + ttlSeconds * 1000);
+            }
+        }
+    }
+
+    @Override
+    public synchronized int reclaimExpired(int limit) {
+        int reclaimed = 0;
+        int count = 0;
+        Iterator<QuotaLease> iterator = leases.values().iterator();
+        while (iterator.hasNext() && count < limit) {
+            QuotaLease lease = iterator.next();
+            if (!expired(lease)) {
+                continue;
+            }
+            count++;
+            reclaimed += lease.getQuantity();
+            returnToInventory(lease, lease.getQuantity());
+            expireAt.remove(lease.getId());
+            iterator.remove();
+        }
+        return reclaimed;
+    }
+
+    @Override
+    public synchronized Set<InventoryKey> findUnsellable(Collection<InventoryKey> keys) {
+        Set<InventoryKey> unsellable = new HashSet<>();
+        for (InventoryKey key : keys) {
+            if (!inventories.containsKey(key) || frozen.contains(key)) {
+                unsellable.add(key);
+            }
+        }
+        return unsellable;
+    }
+
+    private boolean expired(QuotaLease lease) {
+        return expireAt.get(lease.getId()) <= nowMillis;
+    }
+
+    private void returnToInventory(QuotaLease lease, int quantity) {
+        int[] row = inventories.get(new InventoryKey(lease.getSkuId(), lease.getWarehouseId()));
+        if (row[1] < quantity) {
+            throw new IllegalStateException("归还配额失败，库存预留数量不足");
+        }
+        lease.setQuantity(lease.getQuantity() - quantity);
+        row[0] += quantity;
+        row[1] -= quantity;
+    }
+
+    private static String leaseKey(InventoryKey key, String nodeId) {
+        return key + ":" + nodeId;
+    }
+
+    private static QuotaLease copy(QuotaLease lease) {
+        QuotaLease copy = new QuotaLease();
+        copy.setId(lease.getId());
+        copy.setSkuId(lease.getSkuId());
+        copy.setWarehouseId(lease.getWarehouseId());
+        copy.setNodeId(lease.getNodeId());
+        copy.setQuantity(lease.getQuantity());
+        return copy;
+    }
+}
@@ -0,0 +1,196 @@
+package com.restaurant.management.inventory.infrastructure.quota;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 节点库存配额租约测试
+ * 多个节点实例在同一进程内共享本地租约存储，模拟多实例部署：并发售卖不超卖、宕机节点的租约到期回收、停机归还
+ */
+class InventoryQuotaManagerTest {
+
+    private static final InventoryKey KEY = new InventoryKey("SKU_HOT", "WH001");
+    private static final int STOCK = 1000;
+
+    private InMemoryQuotaLeaseStore leaseStore;
+
+    @BeforeEach
+    void setUp() {
+        leaseStore = new InMemoryQuotaLeaseStore();
+        leaseStore.stock(KEY, STOCK);
+    }
+
+    @Test
+    void testConcurrentNodesNeverOversell() throws InterruptedException {
+        // Given
+        List<InventoryQuotaManager> nodes = List.of(node("node-1"), node("node-2"), node("node-3"));
+        AtomicInteger sold = new AtomicInteger();
+        int threads = 12;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch done = new CountDownLatch(threads);
+
+        // When: 请求总量远超库存
+        for (int t = 0; t < threads; t++) {
+            InventoryQuotaManager node = nodes.get(t % nodes.size());
+            executor.submit(() -> {
+                try {
+                    for (int i = 0; i < 300; i++) {
+                        int quantity = ThreadLocalRandom.current().nextInt(1, 4);
+                        if (tryReserve(node, quantity)) {
+                            sold.addAndGet(quantity);
+                        }
+                    }
+                } finally {
+                    done.countDown();
+                }
+            });
+        }
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        executor.shutdown();
+
+        // Then: 任何时刻已售 + 租约余量 + 可用 = 总库存
+        assertEquals(STOCK, sold.get() + leaseStore.leased(KEY) + leaseStore.available(KEY));
+        assertEquals(sold.get() + leaseStore.leased(KEY), leaseStore.reserved(KEY));
+
+        // When: 各节点卖完手中余量，再停机
+        for (InventoryQuotaManager node : nodes) {
+            while (tryReserve(node, 1)) {
+                sold.incrementAndGet();
+            }
+        }
+        nodes.forEach(InventoryQuotaManager::stop);
+
+        // Then: 恰好售罄，没有滞留在租约中的库存
+        assertEquals(STOCK, sold.get());
+        assertEquals(0, leaseStore.available(KEY));
+        assertEquals(0, leaseStore.leased(KEY));
+    }
+
+    @Test
+    void testExpiredLeaseOfDeadNodeIsReclaimed() {
+        // Given: node-1 租借后宕机（不再续约，也不归还）
+        InventoryQuotaManager dead = node("node-1");
+        InventoryQuotaManager alive = node("node-2");
+        dead.reserve(KEY.getSkuId(), KEY.getWarehouseId(), 1);
+        assertEquals(49, leaseStore.leased(KEY));
+
+        // When: 超过租约有效期后，存活节点执行后台任务
+        leaseStore.advanceSeconds(31);
+        alive.maintain();
+
+        // Then: 余量归还库存行，已售部分保持预留
+        assertEquals(0, leaseStore.leased(KEY));
+        assertEquals(STOCK - 1, leaseStore.available(KEY));
+        assertEquals(1, leaseStore.reserved(KEY));
+
+        // Then: 恢复的旧节点凭本地计数预留会失败，不会超卖
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+            () -> dead.reserve(KEY.getSkuId(), KEY.getWarehouseId(), 1));
+        assertEquals("库存配额租约已失效，请稍后重试", exception.getMessage());
+        assertEquals(STOCK - 1, leaseStore.available(KEY));
+    }
+
+    @Test
+    void testRenewedLeaseSurvivesPastTtl() {
+        // Given
+        InventoryQuotaManager node = node("node-1");
+        InventoryQuotaManager other = node("node-2");
+        node.reserve(KEY.getSkuId(), KEY.getWarehouseId(), 1);
+
+        // When: 按间隔续约，累计时间超过租约有效期
+        for (int i = 0; i < 3; i++) {
+            leaseStore.advanceSeconds(20);
+            node.maintain();
+            other.maintain();
+        }
+
+        // Then
+        assertEquals(49, leaseStore.leased(KEY));
+        node.reserve(KEY.getSkuId(), KEY.getWarehouseId(), 49);
+        assertEquals(0, leaseStore.leased(KEY));
+        assertEquals(STOCK - 50, leaseStore.available(KEY));
+    }
+
+    @Test
+    void testShutdownReturnsLeases() {
+        // Given
+        InventoryQuotaManager node = node("node-1");
+        node.reserve(KEY.getSkuId(), KEY.getWarehouseId(), 3);
+
+        // When
+        node.stop();
+
+        // Then
+        assertFalse(node.handles(KEY.getSkuId()));
+        assertEquals(0, leaseStore.leased(KEY));
+        assertEquals(STOCK - 3, leaseStore.available(KEY));
+        assertEquals(3, leaseStore.reserved(KEY));
+    }
+
+    @Test
+    void testRestartAdoptsOwnUnexpiredLease() {
+        // Given: 进程崩溃重启，租约尚未到期
+        node("node-1").reserve(KEY.getSkuId(), KEY.getWarehouseId(), 10);
+
+        // When
+        InventoryQuotaManager restarted = node("node-1");
+        restarted.reserve(KEY.getSkuId(), KEY.getWarehouseId(), 40);
+
+        // Then: 直接用接管的余量，不再从库存行租借
+        assertEquals(STOCK - 50, leaseStore.available(KEY));
+        assertEquals(0, leaseStore.leased(KEY));
+    }
+
+    @Test
+    void testFrozenInventoryLeaseReturned() {
+        // Given
+        InventoryQuotaManager node = node("node-1");
+        node.reserve(KEY.getSkuId(), KEY.getWarehouseId(), 1);
+
+        // When
+        leaseStore.freeze(KEY);
+        node.maintain();
+
+        // Then
+        assertEquals(0, leaseStore.leased(KEY));
+        assertThrows(IllegalStateException.class, () -> node.reserve(KEY.getSkuId(), KEY.getWarehouseId(), 1));
+    }
+
+    private InventoryQuotaManager node(String nodeId) {
+        InventoryProperties properties = new InventoryProperties();
+        properties.getQuota().setEnabled(true);
+        properties.getQuota().setSkuIds(Set.of(KEY.getSkuId()));
+        properties.getQuota().setNodeId(nodeId);
+        properties.getQuota().setLeaseSize(50);
+        properties.getQuota().setLeaseTtlSeconds(30);
+        InventoryQuotaManager manager = new InventoryQuotaManager(leaseStore, properties,
+            new InventoryMetrics(new SimpleMeterRegistry()));
+        manager.start();
+        return manager;
+    }
+
+    private static boolean tryReserve(InventoryQuotaManager node, int quantity) {
+        try {
+            node.reserve(KEY.getSkuId(), KEY.getWarehouseId(), quantity);
+            return true;
+        } catch (IllegalStateException e) {
+            return false;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package com.restaurant.management.inventory.infrastructure.replenishment;
+
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryMapper;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.apache.ibatis.cursor.Cursor;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 补货扫描测试
+ * 覆盖建议数量计算、分桶库存先于游标读取以及多仓库并行汇总
+ */
+@ExtendWith(MockitoExtension.class)
+class ReplenishmentScannerTest {
+
+    @Mock
+    private InventoryMapper inventoryMapper;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private ReplenishmentScanner scanner;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        scanner = new ReplenishmentScanner(inventoryMapper, new InventoryProperties(),
+            new InventoryMetrics(meterRegistry), transactionManager);
+    }
+
+    @Test
+    void testEvaluateSuggestions() {
+        // 低于安全库存：补到上限
+        ReorderSuggestion reorder = ReorderSuggestion.evaluate(row("SKU001", "WH001", 3, 10, 50));
+        assertEquals(ReorderSuggestion.Type.REORDER, reorder.getType());
+        assertEquals(47, reorder.getSuggestedQuantity());
+
+        // 未设上限：补到安全库存的两倍
+        assertEquals(17, ReorderSuggestion.evaluate(row("SKU001", "WH001", 3, 10, Integer.MAX_VALUE)).getSuggestedQuantity());
+
+        // 达到上限：超出部分
+        ReorderSuggestion overstock = ReorderSuggestion.evaluate(row("SKU001", "WH001", 60, 10, 50));
+        assertEquals(ReorderSuggestion.Type.OVERSTOCK, overstock.getType());
+        assertEquals(10, overstock.getSuggestedQuantity());
+
+        // 水位正常、或安全库存为 0 的空库存
+        assertNull(ReorderSuggestion.evaluate(row("SKU001", "WH001", 20, 10, 50)));
+        assertNull(ReorderSuggestion.evaluate(row("SKU001", "WH001", 0, 0, Integer.MAX_VALUE)));
+    }
+
+    @Test
+    void testSplitRowsReadBeforeCursorOpens() {
+        // Given
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(inventoryMapper.selectSplitStockLevels("WH001")).thenReturn(List.of(row("HOT", "WH001", 2, 10, 50)));
+        Cursor<StockLevelRow> alerts = cursor(List.of(row("SKU001", "WH001", 60, 10, 50)));
+        when(inventoryMapper.streamStockLevelAlerts("WH001")).thenReturn(alerts);
+        List<String> emitted = new ArrayList<>();
+
+        // When
+        scanner.scanWarehouse("WH001", suggestion -> emitted.add(suggestion.getSkuId()));
+
+        // Then
+        assertEquals(List.of("HOT", "SKU001"), emitted);
+        InOrder inOrder = inOrder(inventoryMapper);
+        inOrder.verify(inventoryMapper).selectSplitStockLevels("WH001");
+        inOrder.verify(inventoryMapper).streamStockLevelAlerts("WH001");
+        verify(transactionManager).commit(any());
+    }
+
+    @Test
+    void testScanAggregatesWarehousesInParallel() {
+        // Given
+        when(transactionManager.getTransaction(any())).thenAnswer(invocation -> new SimpleTransactionStatus());
+        when(inventoryMapper.selectWarehouseIds()).thenReturn(List.of("WH001", "WH002", "WH003"));
+        when(inventoryMapper.selectSplitStockLevels(anyString())).thenReturn(List.of());
+        when(inventoryMapper.streamStockLevelAlerts(anyString())).thenAnswer(invocation -> {
+            String warehouseId = invocation.getArgument(0);
+            return cursor(List.of(row("SKU001", warehouseId, 1, 10, 50), row("SKU002", warehouseId, 80, 10, 50)));
+        });
+        Map<String, Integer> perWarehouse = new ConcurrentHashMap<>();
+
+        // When
+        ReplenishmentScanner.ScanResult result = scanner.scan(
+            suggestion -> perWarehouse.merge(suggestion.getWarehouseId(), 1, Integer::sum));
+
+        // Then
+        assertEquals(3, result.getWarehouses());
+        assertEquals(3, result.getReorders());
+        assertEquals(3, result.getOverstocks());
+        assertEquals(Map.of("WH001", 2, "WH002", 2, "WH003", 2), perWarehouse);
+        assertEquals(3.0, meterRegistry.counter("inventory.replenishment.suggestions", "type", "reorder").count());
+    }
+
+    private StockLevelRow row(String skuId, String warehouseId, int total, int safetyStock, int maxStock) {
+        StockLevelRow row = new StockLevelRow();
+        row.setSkuId(skuId);
+        row.setWarehouseId(warehouseId);
+        row.setTotalQuantity(total);
+        row.setSafetyStock(safetyStock);
+        row.setMaxStock(maxStock);
+        return row;
+    }
+
+    @SuppressWarnings("unchecked")
+    private Cursor<StockLevelRow> cursor(List<StockLevelRow> rows) {
+        Cursor<StockLevelRow> cursor = mock(Cursor.class);
+        doAnswer(invocation -> {
+            rows.forEach(invocation.<Consumer<StockLevelRow>>getArgument(0));
+            return null;
+        }).when(cursor).forEach(any());
+        return cursor;
+    }
+}
@@ -0,0 +1,131 @@
+package com.restaurant.management.inventory.infrastructure.repository;
+
+import com.restaurant.management.inventory.domain.model.InventoryJournalEntry;
+import com.restaurant.management.inventory.domain.model.InventoryPointInTime;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.journal.InventorySnapshot;
+import com.restaurant.management.inventory.infrastructure.journal.JournalDeltaSum;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryJournalMapper;
+import com.restaurant.management.inventory.infrastructure.mapper.InventorySnapshotMapper;
+import com.restaurant.management.inventory.infrastructure.summary.InventorySummaryStore;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 库存流水仓储测试
+ * 覆盖快照 + 流水重建某一时刻的库存、超出保留期按快照粒度回答以及关闭流水（汇总照常累加）
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryJournalRepositoryImplTest {
+
+    @Mock
+    private InventoryJournalMapper journalMapper;
+
+    @Mock
+    private InventorySnapshotMapper snapshotMapper;
+
+    @Mock
+    private InventorySummaryStore summaryStore;
+
+    private InventoryProperties inventoryProperties;
+    private InventoryJournalRepositoryImpl journalRepository;
+
+    @BeforeEach
+    void setUp() {
+        inventoryProperties = new InventoryProperties();
+        journalRepository = new InventoryJournalRepositoryImpl(
+            journalMapper, snapshotMapper, inventoryProperties, summaryStore);
+    }
+
+    @Test
+    void testFindAtAddsJournalAfterSnapshot() {
+        // Given: 快照覆盖到序号 100，之后预留 3、确认 2
+        LocalDateTime at = LocalDateTime.now().minusHours(1);
+        when(snapshotMapper.selectLatestAt("SKU001", "WH001", at)).thenReturn(snapshot(at.minusMinutes(5), 100L));
+        when(journalMapper.sumAfter("SKU001", "WH001", 100L, at)).thenReturn(sum(2, -3, 1, 2));
+
+        // When
+        Optional<InventoryPointInTime> result = journalRepository.findAt("SKU001", "WH001", at);
+
+        // Then
+        assertTrue(result.isPresent());
+        assertEquals(at, result.get().getAsOf());
+        assertEquals(7, result.get().getAvailableQuantity());
+        assertEquals(1, result.get().getReservedQuantity());
+        assertEquals(2, result.get().getOccupiedQuantity());
+        assertEquals(10, result.get().getTotalQuantity());
+    }
+
+    @Test
+    void testFindAtBeyondRetentionReturnsSnapshot() {
+        // Given
+        LocalDateTime at = LocalDateTime.now().minusDays(120);
+        LocalDateTime snapshotTime = at.minusMinutes(3);
+        when(snapshotMapper.selectLatestAt("SKU001", "WH001", at)).thenReturn(snapshot(snapshotTime, 100L));
+
+        // When
+        Optional<InventoryPointInTime> result = journalRepository.findAt("SKU001", "WH001", at);
+
+        // Then: 流水已压缩，不再查询流水
+        assertTrue(result.isPresent());
+        assertEquals(snapshotTime, result.get().getAsOf());
+        assertEquals(10, result.get().getAvailableQuantity());
+        verify(journalMapper, never()).sumAfter(anyString(), anyString(), anyLong(), any());
+    }
+
+    @Test
+    void testFindAtWithoutAnyRecordIsEmpty() {
+        // Given
+        LocalDateTime at = LocalDateTime.now();
+        when(journalMapper.sumAfter("SKU001", "WH001", 0L, at)).thenReturn(sum(0, 0, 0, 0));
+
+        // When & Then
+        assertTrue(journalRepository.findAt("SKU001", "WH001", at).isEmpty());
+    }
+
+    @Test
+    void testAppendSkippedWhenDisabled() {
+        // Given
+        inventoryProperties.getJournal().setEnabled(false);
+        List<InventoryJournalEntry> entries = List.of(new InventoryJournalEntry());
+
+        // When
+        journalRepository.appendAll(entries);
+
+        // Then: 关闭流水不影响汇总
+        verify(journalMapper, never()).insertAll(anyList());
+        verify(summaryStore).apply(entries);
+    }
+
+    private InventorySnapshot snapshot(LocalDateTime asOf, long lastJournalId) {
+        InventorySnapshot snapshot = new InventorySnapshot();
+        snapshot.setSkuId("SKU001");
+        snapshot.setWarehouseId("WH001");
+        snapshot.setAvailableQuantity(10);
+        snapshot.setReservedQuantity(0);
+        snapshot.setOccupiedQuantity(0);
+        snapshot.setLastJournalId(lastJournalId);
+        snapshot.setAsOfTime(asOf);
+        return snapshot;
+    }
+
+    private JournalDeltaSum sum(long entries, int available, int reserved, int occupied) {
+        JournalDeltaSum sum = new JournalDeltaSum();
+        sum.setEntries(entries);
+        sum.setAvailableDelta(available);
+        sum.setReservedDelta(reserved);
+        sum.setOccupiedDelta(occupied);
+        return sum;
+    }
+}
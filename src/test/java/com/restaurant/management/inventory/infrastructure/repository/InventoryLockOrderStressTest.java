@@ -0,0 +1,189 @@
+package com.restaurant.management.inventory.infrastructure.repository;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.repository.InventoryJournalRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 库存行锁顺序并发测试
+ * 用带等待超时的可重入锁模拟 InnoDB 行锁（超时即视为死锁/锁等待超时）：
+ * 按单据行顺序加锁时，方向相反的两张调拨单必然互相等待；
+ * 经 findAllByKeysForUpdate 按统一顺序加锁后，多线程随机单据（含双向调拨）不再出现死锁
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryLockOrderStressTest {
+
+    private static final long LOCK_WAIT_MS = 500;
+
+    @Mock
+    private InventoryMapper inventoryMapper;
+
+    @Mock
+    private InventoryJournalRepository journalRepository;
+
+    private InventoryRepositoryImpl inventoryRepository;
+    private final Map<InventoryKey, ReentrantLock> rowLocks = new ConcurrentHashMap<>();
+    private final ThreadLocal<List<ReentrantLock>> heldLocks = ThreadLocal.withInitial(ArrayList::new);
+    private final AtomicInteger lockTimeouts = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        InventoryProperties inventoryProperties = new InventoryProperties();
+        // 批次调小，让一张单据的加锁跨越多条语句
+        inventoryProperties.getDocumentExecution().setWriteBatchSize(2);
+        inventoryRepository = new InventoryRepositoryImpl(inventoryMapper, journalRepository, inventoryProperties);
+    }
+
+    @Test
+    void testDocumentOrderLockingDeadlocksOpposingTransfers() throws Exception {
+        // Given: WH001→WH002 与 WH002→WH001 两张调拨单，各自先锁来源仓库的行
+        List<InventoryKey> forward = List.of(new InventoryKey("SKU001", "WH001"), new InventoryKey("SKU001", "WH002"));
+        List<InventoryKey> backward = List.of(new InventoryKey("SKU001", "WH002"), new InventoryKey("SKU001", "WH001"));
+        CyclicBarrier bothHoldFirstRow = new CyclicBarrier(2);
+
+        // When: 两个事务都拿到第一行后再去锁第二行
+        List<Boolean> committed = runConcurrently(List.of(forward, backward), keys -> {
+            lockRows(keys.subList(0, 1));
+            bothHoldFirstRow.await(5, TimeUnit.SECONDS);
+            lockRows(keys.subList(1, 2));
+        });
+
+        // Then: 互相等待对方持有的行，至少一方等锁超时回滚（与 InnoDB 选择一个牺牲者一致）
+        assertTrue(committed.contains(false));
+        assertTrue(lockTimeouts.get() >= 1);
+    }
+
+    @Test
+    void testLockOrderPreventsDeadlockForOpposingTransfers() throws Exception {
+        // Given
+        when(inventoryMapper.selectByKeysForUpdate(anyList())).thenAnswer(invocation -> {
+            lockRows(invocation.getArgument(0));
+            return List.of();
+        });
+        List<InventoryKey> forward = List.of(new InventoryKey("SKU001", "WH001"), new InventoryKey("SKU001", "WH002"));
+        List<InventoryKey> backward = List.of(new InventoryKey("SKU001", "WH002"), new InventoryKey("SKU001", "WH001"));
+        CyclicBarrier start = new CyclicBarrier(2);
+
+        // When
+        List<Boolean> committed = runConcurrently(List.of(forward, backward), keys -> {
+            start.await(5, TimeUnit.SECONDS);
+            inventoryRepository.findAllByKeysForUpdate(keys);
+        });
+
+        // Then: 后到的事务只是等待先到的事务提交
+        assertEquals(List.of(true, true), committed);
+        assertEquals(0, lockTimeouts.get());
+    }
+
+    @Test
+    void testLockOrderPreventsDeadlockUnderConcurrentRandomDocuments() throws Exception {
+        // Given: 8 个线程各执行 200 张随机单据，行顺序随机且包含双向调拨
+        when(inventoryMapper.selectByKeysForUpdate(anyList())).thenAnswer(invocation -> {
+            lockRows(invocation.getArgument(0));
+            return List.of();
+        });
+        Random random = new Random(42);
+        List<List<InventoryKey>> documents = new ArrayList<>();
+        for (int i = 0; i < 1600; i++) {
+            documents.add(randomDocument(random));
+        }
+
+        // When
+        List<Boolean> committed = runConcurrently(documents, inventoryRepository::findAllByKeysForUpdate);
+
+        // Then
+        assertEquals(0, lockTimeouts.get());
+        assertTrue(committed.stream().allMatch(Boolean::booleanValue));
+    }
+
+    private static List<InventoryKey> randomDocument(Random random) {
+        String source = "WH00" + (1 + random.nextInt(3));
+        String target = "WH00" + (1 + random.nextInt(3));
+        List<InventoryKey> keys = new ArrayList<>();
+        int lines = 1 + random.nextInt(5);
+        for (int i = 0; i < lines; i++) {
+            String skuId = "SKU00" + random.nextInt(8);
+            keys.add(new InventoryKey(skuId, source));
+            if (!target.equals(source)) {
+                keys.add(new InventoryKey(skuId, target));
+            }
+        }
+        return keys;
+    }
+
+    /**
+     * 每张单据一个“事务”：执行加锁动作，正常结束即提交，等锁超时即回滚；最后释放持有的全部行锁
+     */
+    private List<Boolean> runConcurrently(List<List<InventoryKey>> documents, Transaction transaction) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(8, documents.size()));
+        try {
+            List<Future<Boolean>> futures = new ArrayList<>(documents.size());
+            for (List<InventoryKey> keys : documents) {
+                futures.add(executor.submit(() -> {
+                    try {
+                        transaction.run(keys);
+                        return true;
+                    } catch (LockTimeoutException e) {
+                        return false;
+                    } finally {
+                        heldLocks.get().forEach(ReentrantLock::unlock);
+                        heldLocks.get().clear();
+                    }
+                }));
+            }
+            List<Boolean> committed = new ArrayList<>(futures.size());
+            for (Future<Boolean> future : futures) {
+                committed.add(future.get(30, TimeUnit.SECONDS));
+            }
+            return committed;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void lockRows(Collection<InventoryKey> keys) throws InterruptedException {
+        for (InventoryKey key : keys) {
+            ReentrantLock lock = rowLocks.computeIfAbsent(key, k -> new ReentrantLock());
+            if (lock.isHeldByCurrentThread()) {
+                continue;
+            }
+            if (!lock.tryLock(LOCK_WAIT_MS, TimeUnit.MILLISECONDS)) {
+                lockTimeouts.incrementAndGet();
+                throw new LockTimeoutException();
+            }
+            heldLocks.get().add(lock);
+        }
+    }
+
+    @FunctionalInterface
+    private interface Transaction {
+        void run(List<InventoryKey> keys) throws Exception;
+    }
+
+    private static class LockTimeoutException extends RuntimeException {
+    }
+}
@@ -0,0 +1,149 @@
+package com.restaurant.management.inventory.infrastructure.repository;
+
+import com.restaurant.management.inventory.domain.model.Inventory;
+import com.restaurant.management.inventory.domain.model.InventoryJournalEntry;
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.repository.InventoryJournalRepository;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.OptimisticLockingFailureException;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 库存仓储测试
+ * 覆盖批量保存：新建与已有库存分别一条语句写入、按批次拆分、版本号冲突以及流水一次追加；
+ * 批量锁定与批量写入按统一的加锁顺序分批
+ */
+@ExtendWith(MockitoExtension.class)
+class InventoryRepositoryImplTest {
+
+    @Mock
+    private InventoryMapper inventoryMapper;
+
+    @Mock
+    private InventoryJournalRepository journalRepository;
+
+    private InventoryProperties inventoryProperties;
+    private InventoryRepositoryImpl inventoryRepository;
+
+    @BeforeEach
+    void setUp() {
+        inventoryProperties = new InventoryProperties();
+        inventoryRepository = new InventoryRepositoryImpl(inventoryMapper, journalRepository, inventoryProperties);
+    }
+
+    @Test
+    void testSaveAllInsertsNewAndUpdatesExistingInOneStatementEach() {
+        // Given
+        Inventory existing1 = existing(1L, "SKU001");
+        Inventory existing2 = existing(2L, "SKU002");
+        existing1.increase(5, BigDecimal.ONE, "入库", "DOC001");
+        existing2.deduct(3, "出库", "DOC001");
+        Inventory created = Inventory.create("SKU003", "WH001", 0);
+        created.increase(7, BigDecimal.ONE, "入库", "DOC001");
+        when(inventoryMapper.updateAllIfVersionMatches(List.of(existing1, existing2))).thenReturn(2);
+
+        // When
+        inventoryRepository.saveAll(List.of(existing1, created, existing2));
+
+        // Then
+        verify(inventoryMapper).insertAll(List.of(created));
+        verify(inventoryMapper, never()).updateById(any(Inventory.class));
+        assertEquals(4, existing1.getVersion());
+        assertEquals(4, existing2.getVersion());
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<InventoryJournalEntry>> entries = ArgumentCaptor.forClass(List.class);
+        verify(journalRepository).appendAll(entries.capture());
+        assertEquals(3, entries.getValue().size());
+        assertTrue(existing1.getJournalEntries().isEmpty());
+        assertTrue(created.getJournalEntries().isEmpty());
+    }
+
+    @Test
+    void testSaveAllSplitsStatementsByWriteBatchSize() {
+        // Given
+        inventoryProperties.getDocumentExecution().setWriteBatchSize(2);
+        List<Inventory> inventories = List.of(
+            existing(1L, "SKU001"), existing(2L, "SKU002"), existing(3L, "SKU003"));
+        when(inventoryMapper.updateAllIfVersionMatches(anyList()))
+            .thenAnswer(invocation -> invocation.<List<Inventory>>getArgument(0).size());
+
+        // When
+        inventoryRepository.saveAll(inventories);
+
+        // Then
+        verify(inventoryMapper).updateAllIfVersionMatches(inventories.subList(0, 2));
+        verify(inventoryMapper).updateAllIfVersionMatches(inventories.subList(2, 3));
+        verify(inventoryMapper, never()).insertAll(anyList());
+    }
+
+    @Test
+    void testSaveAllThrowsWhenAnyVersionChanged() {
+        // Given
+        Inventory existing1 = existing(1L, "SKU001");
+        Inventory existing2 = existing(2L, "SKU002");
+        when(inventoryMapper.updateAllIfVersionMatches(List.of(existing1, existing2))).thenReturn(1);
+
+        // When & Then
+        assertThrows(OptimisticLockingFailureException.class,
+            () -> inventoryRepository.saveAll(List.of(existing1, existing2)));
+        assertEquals(3, existing1.getVersion());
+        verify(journalRepository, never()).appendAll(anyList());
+    }
+
+    @Test
+    void testFindAllByKeysForUpdateLocksInLockOrderAcrossChunks() {
+        // Given
+        inventoryProperties.getDocumentExecution().setWriteBatchSize(2);
+        List<InventoryKey> keys = List.of(
+            new InventoryKey("SKU002", "WH001"), new InventoryKey("SKU001", "WH002"),
+            new InventoryKey("SKU001", "WH001"), new InventoryKey("SKU002", "WH001"));
+
+        // When
+        inventoryRepository.findAllByKeysForUpdate(keys);
+
+        // Then: 去重后整体排序再分批，批次之间也按加锁顺序推进
+        InOrder inOrder = inOrder(inventoryMapper);
+        inOrder.verify(inventoryMapper).selectByKeysForUpdate(List.of(
+            new InventoryKey("SKU001", "WH001"), new InventoryKey("SKU001", "WH002")));
+        inOrder.verify(inventoryMapper).selectByKeysForUpdate(List.of(new InventoryKey("SKU002", "WH001")));
+        inOrder.verifyNoMoreInteractions();
+    }
+
+    @Test
+    void testSaveAllWritesInLockOrder() {
+        // Given
+        Inventory existing2 = existing(2L, "SKU002");
+        Inventory existing1 = existing(1L, "SKU001");
+        when(inventoryMapper.updateAllIfVersionMatches(anyList())).thenReturn(2);
+
+        // When
+        inventoryRepository.saveAll(List.of(existing2, existing1));
+
+        // Then
+        verify(inventoryMapper).updateAllIfVersionMatches(List.of(existing1, existing2));
+    }
+
+    private static Inventory existing(Long id, String skuId) {
+        Inventory inventory = Inventory.create(skuId, "WH001", 10);
+        inventory.setId(id);
+        inventory.setVersion(3);
+        inventory.clearDomainEvents();
+        inventory.clearJournalEntries();
+        return inventory;
+    }
+}
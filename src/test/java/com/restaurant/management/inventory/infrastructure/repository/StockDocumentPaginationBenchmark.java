@@ -0,0 +1,117 @@
+package com.restaurant.management.inventory.infrastructure.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.Random;
+import java.util.function.LongSupplier;
+
+/**
+ * 单据分页压测：偏移量分页与游标分页在不同翻页深度下的单页耗时
+ *
+ * 以 500 万张单据模拟 stock_document：索引按 (create_time DESC, id DESC) 排好序的两个数组，行数据按主键存放（回表为一次随机访问）
+ * 偏移量分页与 MySQL 的 LIMIT offset, n 一致，沿索引扫描并回表 offset + n 行后丢弃前 offset 行；
+ * 游标分页在索引上二分定位到 (create_time, id) 之后，只读取并回表 n + 1 行
+ * 默认不运行：mvn test -Dtest=StockDocumentPaginationBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class StockDocumentPaginationBenchmark {
+
+    private static final int DOCUMENTS = 5_000_000;
+    private static final int PAGE_SIZE = 50;
+    private static final int[] PAGES = {1, 10, 100, 1_000, 10_000, 50_000};
+    private static final int ROUNDS = 20;
+
+    /**
+     * 索引：按 (create_time DESC, id DESC) 排序
+     */
+    private final long[] indexCreateTime = new long[DOCUMENTS];
+    private final long[] indexId = new long[DOCUMENTS];
+
+    /**
+     * 聚簇索引：按主键存放的行（这里只放一个字段）
+     */
+    private final long[] rows = new long[DOCUMENTS + 1];
+
+    private long sink;
+
+    @Test
+    void compareOffsetWithKeyset() {
+        // 每秒约 3 张单据，同一秒内按 id 倒序
+        Random random = new Random(42);
+        long createTime = 1_700_000_000L;
+        for (int i = 0; i < DOCUMENTS; i++) {
+            if (random.nextInt(3) == 0) {
+                createTime--;
+            }
+            indexCreateTime[i] = createTime;
+            indexId[i] = DOCUMENTS - i;
+        }
+        for (int id = 1; id <= DOCUMENTS; id++) {
+            rows[id] = random.nextLong();
+        }
+
+        System.out.printf("%-8s %12s %14s %14s %10s%n", "page", "offset", "offset(us)", "keyset(us)", "speedup");
+        for (int page : PAGES) {
+            int offset = (page - 1) * PAGE_SIZE;
+            // 游标取上一页最后一行
+            long cursorTime = offset == 0 ? Long.MAX_VALUE : indexCreateTime[offset - 1];
+            long cursorId = offset == 0 ? Long.MAX_VALUE : indexId[offset - 1];
+
+            measure(() -> offsetPage(offset));
+            measure(() -> keysetPage(cursorTime, cursorId));
+            double offsetMicros = measure(() -> offsetPage(offset));
+            double keysetMicros = measure(() -> keysetPage(cursorTime, cursorId));
+            System.out.printf("%-8d %12d %14.1f %14.1f %9.1fx%n",
+                page, offset, offsetMicros, keysetMicros, offsetMicros / keysetMicros);
+        }
+        System.out.println("sink=" + sink);
+    }
+
+    /**
+     * LIMIT offset, n：扫描并回表 offset + n 行
+     */
+    private long offsetPage(int offset) {
+        long checksum = 0;
+        int end = Math.min(DOCUMENTS, offset + PAGE_SIZE);
+        for (int i = 0; i < end; i++) {
+            long row = rows[(int) indexId[i]];
+            if (i >= offset) {
+                checksum += row;
+            }
+        }
+        return checksum;
+    }
+
+    /**
+     * WHERE create_time &lt; ? OR (create_time = ? AND id &lt; ?) LIMIT n + 1：二分定位后读取 n + 1 行
+     */
+    private long keysetPage(long cursorTime, long cursorId) {
+        int low = 0;
+        int high = DOCUMENTS;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            boolean afterCursor = indexCreateTime[mid] < cursorTime
+                || (indexCreateTime[mid] == cursorTime && indexId[mid] < cursorId);
+            if (afterCursor) {
+                high = mid;
+            } else {
+                low = mid + 1;
+            }
+        }
+        long checksum = 0;
+        int end = Math.min(DOCUMENTS, low + PAGE_SIZE + 1);
+        for (int i = low; i < end; i++) {
+            checksum += rows[(int) indexId[i]];
+        }
+        return checksum;
+    }
+
+    private double measure(LongSupplier page) {
+        long start = System.nanoTime();
+        for (int round = 0; round < ROUNDS; round++) {
+            sink += page.getAsLong();
+        }
+        return (System.nanoTime() - start) / 1000.0 / ROUNDS;
+    }
+}
@@ -0,0 +1,316 @@
+package com.restaurant.management.inventory.infrastructure.repository;
+
+import com.baomidou.mybatisplus.core.conditions.query.QueryWrapper;
+import com.baomidou.mybatisplus.extension.plugins.pagination.Page;
+import com.restaurant.management.inventory.domain.model.DocumentStatus;
+import com.restaurant.management.inventory.domain.model.DocumentType;
+import com.restaurant.management.inventory.domain.model.StockDocument;
+import com.restaurant.management.inventory.domain.model.StockDocumentCounts;
+import com.restaurant.management.inventory.domain.model.StockDocumentCursor;
+import com.restaurant.management.inventory.domain.model.StockDocumentItem;
+import com.restaurant.management.inventory.domain.model.StockDocumentPage;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.StockDocumentItemMapper;
+import com.restaurant.management.inventory.infrastructure.mapper.StockDocumentMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 库存单据仓储测试
+ * 覆盖明细按差异保存：状态流转只更新主表、明细增删改各一条多行语句且主键保持不变，未跟踪的单据整体替换明细；
+ * 列表查询一次加载整批明细，只含主表的查询不加载也不改动明细；游标分页的多取一条与下一页令牌；
+ * 单据统计一次分组查询
+ */
+@ExtendWith(MockitoExtension.class)
+class StockDocumentRepositoryImplTest {
+
+    @Mock
+    private StockDocumentMapper stockDocumentMapper;
+
+    @Mock
+    private StockDocumentItemMapper stockDocumentItemMapper;
+
+    @Spy
+    private InventoryProperties inventoryProperties = new InventoryProperties();
+
+    @InjectMocks
+    private StockDocumentRepositoryImpl stockDocumentRepository;
+
+    @Test
+    void testThousandLineLifecycleWritesItemsOnlyOnCreate() {
+        // Given
+        AtomicLong itemIds = new AtomicLong();
+        when(stockDocumentMapper.insert(any(StockDocument.class))).thenAnswer(invocation -> {
+            invocation.<StockDocument>getArgument(0).setId(1L);
+            return 1;
+        });
+        when(stockDocumentItemMapper.insertAll(anyList())).thenAnswer(invocation -> {
+            List<StockDocumentItem> items = invocation.getArgument(0);
+            items.forEach(item -> item.setId(itemIds.incrementAndGet()));
+            return items.size();
+        });
+        when(stockDocumentMapper.updateById(any(StockDocument.class))).thenReturn(1);
+        List<StockDocumentItem> items = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            items.add(StockDocumentItem.create("SKU" + i, i + 1, BigDecimal.ONE, null));
+        }
+        StockDocument document = StockDocument.create(DocumentType.INBOUND_PURCHASE, "WH001", "USER001", items, null);
+
+        // When: 创建、提交、审核、执行
+        stockDocumentRepository.save(document);
+        List<Long> idsAfterCreate = document.getItems().stream().map(StockDocumentItem::getId).toList();
+        document.submitForApproval();
+        stockDocumentRepository.save(document);
+        document.approve("APPROVER001");
+        stockDocumentRepository.save(document);
+        document.execute();
+        stockDocumentRepository.save(document);
+
+        // Then: 主表 1 条插入 + 3 次更新，明细按 500 行一批插入 2 次，之后不再写明细（原实现为 4007 条语句）
+        verify(stockDocumentMapper).insert(document);
+        verify(stockDocumentMapper, times(3)).updateById(document);
+        verify(stockDocumentItemMapper, times(2)).insertAll(anyList());
+        verifyNoMoreInteractions(stockDocumentMapper, stockDocumentItemMapper);
+        assertEquals(idsAfterCreate, document.getItems().stream().map(StockDocumentItem::getId).toList());
+        assertEquals(1000L, idsAfterCreate.get(999));
+    }
+
+    @Test
+    void testSaveWritesOnlyChangedItemsAndKeepsIds() {
+        // Given: 经由仓储加载的草稿单据
+        StockDocumentItem item1 = persistedItem(1L, "SKU001", 10);
+        StockDocumentItem item2 = persistedItem(2L, "SKU002", 20);
+        StockDocumentItem item3 = persistedItem(3L, "SKU003", 30);
+        StockDocument loaded = new StockDocument();
+        loaded.setId(100L);
+        loaded.setDocumentId("DOC001");
+        loaded.setStatus(DocumentStatus.DRAFT);
+        when(stockDocumentMapper.selectOne(any())).thenReturn(loaded);
+        when(stockDocumentItemMapper.selectList(any())).thenReturn(new ArrayList<>(List.of(item1, item2, item3)));
+        when(stockDocumentMapper.updateById(any(StockDocument.class))).thenReturn(1);
+        // 与 useGeneratedKeys 一致，插入后回填主键
+        when(stockDocumentItemMapper.insertAll(anyList())).thenAnswer(invocation -> {
+            List<StockDocumentItem> items = invocation.getArgument(0);
+            items.forEach(item -> item.setId(4L));
+            return items.size();
+        });
+        StockDocument document = stockDocumentRepository.findByDocumentId("DOC001").orElseThrow();
+
+        // When: 修改一行、删除一行、新增一行
+        item2.updateQuantity(25);
+        document.removeItem("SKU003");
+        StockDocumentItem added = StockDocumentItem.create("SKU004", 40, BigDecimal.ONE, null);
+        document.addItem(added);
+        stockDocumentRepository.save(document);
+
+        // Then
+        verify(stockDocumentItemMapper).deleteAllByIds(List.of(3L));
+        verify(stockDocumentItemMapper).updateAll(List.of(item2));
+        verify(stockDocumentItemMapper).insertAll(List.of(added));
+        verify(stockDocumentItemMapper, never()).delete(any(QueryWrapper.class));
+        assertEquals(1L, item1.getId());
+        assertEquals(2L, item2.getId());
+        assertEquals("DOC001", added.getDocumentId());
+        assertEquals(4L, added.getId());
+
+        // When: 再次保存，没有变化
+        clearInvocations(stockDocumentItemMapper);
+        stockDocumentRepository.save(document);
+
+        // Then
+        verifyNoInteractions(stockDocumentItemMapper);
+    }
+
+    @Test
+    void testSaveReplacesItemsOfUntrackedDocument() {
+        // Given: 不是经由仓储加载的单据
+        StockDocument document = new StockDocument();
+        document.setId(100L);
+        document.setDocumentId("DOC001");
+        StockDocumentItem item = StockDocumentItem.create("SKU001", 10, BigDecimal.ONE, null);
+        item.setId(7L);
+        document.setItems(new ArrayList<>(List.of(item)));
+        when(stockDocumentMapper.updateById(document)).thenReturn(1);
+
+        // When
+        stockDocumentRepository.save(document);
+
+        // Then
+        verify(stockDocumentItemMapper).delete(any(QueryWrapper.class));
+        verify(stockDocumentItemMapper).insertAll(List.of(item));
+        assertNull(item.getId());
+        assertTrue(document.itemsTracked());
+    }
+
+    @Test
+    void testListQueryLoadsItemsOfAllDocumentsInOneQuery() {
+        // Given
+        StockDocument document1 = pendingDocument(1L, "DOC001");
+        StockDocument document2 = pendingDocument(2L, "DOC002");
+        StockDocument document3 = pendingDocument(3L, "DOC003");
+        StockDocumentItem item1 = persistedItem(11L, "SKU001", 10);
+        StockDocumentItem item2 = persistedItem(12L, "SKU002", 20);
+        item2.setDocumentId("DOC003");
+        StockDocumentItem item3 = persistedItem(13L, "SKU003", 30);
+        when(stockDocumentMapper.selectList(any())).thenReturn(List.of(document1, document2, document3));
+        when(stockDocumentItemMapper.selectList(any())).thenReturn(List.of(item1, item2, item3));
+
+        // When
+        List<StockDocument> documents = stockDocumentRepository.findPendingDocuments();
+
+        // Then
+        verify(stockDocumentItemMapper, times(1)).selectList(any());
+        assertEquals(3, documents.size());
+        assertEquals(List.of(item1, item3), document1.getItems());
+        assertTrue(document2.getItems().isEmpty());
+        assertTrue(document2.itemsTracked());
+        assertEquals(List.of(item2), document3.getItems());
+    }
+
+    @Test
+    void testListQueryWithoutDocumentsSkipsItemQuery() {
+        // Given
+        when(stockDocumentMapper.selectList(any())).thenReturn(new ArrayList<>());
+
+        // When
+        List<StockDocument> documents = stockDocumentRepository.findByWarehouseId("WH001");
+
+        // Then
+        assertTrue(documents.isEmpty());
+        verifyNoInteractions(stockDocumentItemMapper);
+    }
+
+    @Test
+    void testHeaderOnlyDocumentsNeitherLoadNorWriteItems() {
+        // Given
+        StockDocument header = pendingDocument(1L, "DOC001");
+        when(stockDocumentMapper.selectList(any())).thenReturn(List.of(header));
+        when(stockDocumentMapper.updateById(header)).thenReturn(1);
+
+        // When
+        List<StockDocument> documents = stockDocumentRepository.findPendingDocumentHeaders();
+        documents.get(0).approve("APPROVER001");
+        stockDocumentRepository.save(documents.get(0));
+
+        // Then
+        assertTrue(header.isHeaderOnly());
+        verify(stockDocumentMapper).updateById(header);
+        verifyNoInteractions(stockDocumentItemMapper);
+        assertThrows(IllegalStateException.class, header::execute);
+    }
+
+    @Test
+    void testSearchFetchesOneExtraRowAndReturnsCursorOfLastDocument() {
+        // Given
+        LocalDateTime time = LocalDateTime.of(2024, 6, 1, 10, 0);
+        StockDocument document1 = pendingDocument(3L, "DOC003");
+        document1.setCreateTime(time);
+        StockDocument document2 = pendingDocument(2L, "DOC002");
+        document2.setCreateTime(time);
+        StockDocument document3 = pendingDocument(1L, "DOC001");
+        document3.setCreateTime(time.minusMinutes(1));
+        when(stockDocumentMapper.selectPage(any(), any())).thenAnswer(invocation -> {
+            Page<StockDocument> page = invocation.getArgument(0);
+            page.setRecords(List.of(document1, document2, document3));
+            return page;
+        });
+        when(stockDocumentItemMapper.selectList(any())).thenReturn(List.of());
+
+        // When
+        StockDocumentPage page = stockDocumentRepository.searchByConditions(
+            null, DocumentStatus.PENDING, "WH001", null, 2);
+
+        // Then
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<Page<StockDocument>> request = ArgumentCaptor.forClass(Page.class);
+        verify(stockDocumentMapper).selectPage(request.capture(), any());
+        assertEquals(3, request.getValue().getSize());
+        assertFalse(request.getValue().searchCount());
+        assertEquals(List.of(document1, document2), page.getDocuments());
+        assertTrue(page.hasNext());
+        assertEquals(new StockDocumentCursor(time, 2L), StockDocumentCursor.decode(page.getNextPageToken()));
+    }
+
+    @Test
+    void testSearchLastPageHasNoNextToken() {
+        // Given
+        StockDocument document = pendingDocument(1L, "DOC001");
+        document.setCreateTime(LocalDateTime.of(2024, 6, 1, 10, 0));
+        String pageToken = new StockDocumentCursor(LocalDateTime.of(2024, 6, 2, 10, 0), 9L).encode();
+        when(stockDocumentMapper.selectPage(any(), any())).thenAnswer(invocation -> {
+            Page<StockDocument> page = invocation.getArgument(0);
+            page.setRecords(List.of(document));
+            return page;
+        });
+        when(stockDocumentItemMapper.selectList(any())).thenReturn(List.of());
+
+        // When
+        StockDocumentPage page = stockDocumentRepository.searchByConditions(null, null, null, pageToken, 2);
+
+        // Then
+        assertEquals(List.of(document), page.getDocuments());
+        assertFalse(page.hasNext());
+        assertNull(page.getNextPageToken());
+    }
+
+    @Test
+    void testSearchRejectsInvalidPageToken() {
+        // When & Then
+        assertThrows(IllegalArgumentException.class,
+            () -> stockDocumentRepository.searchByConditions(null, null, null, "bogus", 20));
+        verifyNoInteractions(stockDocumentMapper, stockDocumentItemMapper);
+    }
+
+    @Test
+    void testCountByStatusAndTypeUsesOneGroupedQuery() {
+        // Given
+        when(stockDocumentMapper.selectMaps(any())).thenReturn(List.of(
+            Map.<String, Object>of("document_status", "PENDING", "document_type", "INBOUND_PURCHASE", "document_count", 3L),
+            Map.<String, Object>of("document_status", "PENDING", "document_type", "TRANSFER", "document_count", 2L),
+            Map.<String, Object>of("document_status", "EXECUTED", "document_type", "INBOUND_PURCHASE", "document_count", 10L)));
+
+        // When
+        StockDocumentCounts counts = stockDocumentRepository.countByStatusAndType(
+            LocalDateTime.of(2024, 1, 1, 0, 0), null);
+
+        // Then
+        verify(stockDocumentMapper, times(1)).selectMaps(any());
+        verify(stockDocumentMapper, never()).selectCount(any());
+        assertEquals(15, counts.total());
+        assertEquals(5, counts.count(DocumentStatus.PENDING));
+        assertEquals(13, counts.count(DocumentType.INBOUND_PURCHASE));
+        assertEquals(2, counts.count(DocumentStatus.PENDING, DocumentType.TRANSFER));
+        assertEquals(0, counts.count(DocumentStatus.CANCELLED));
+    }
+
+    private static StockDocument pendingDocument(Long id, String documentId) {
+        StockDocument document = new StockDocument();
+        document.setId(id);
+        document.setDocumentId(documentId);
+        document.setStatus(DocumentStatus.PENDING);
+        return document;
+    }
+
+    private static StockDocumentItem persistedItem(Long id, String skuId, int quantity) {
+        StockDocumentItem item = StockDocumentItem.create(skuId, quantity, BigDecimal.ONE, null);
+        item.setId(id);
+        item.setDocumentId("DOC001");
+        return item;
+    }
+}
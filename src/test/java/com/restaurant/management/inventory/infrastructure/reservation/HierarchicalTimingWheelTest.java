@@ -0,0 +1,85 @@
+package com.restaurant.management.inventory.infrastructure.reservation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * 分层时间轮测试
+ * 覆盖单层到期、跨层降级和大量任务的到期顺序
+ */
+class HierarchicalTimingWheelTest {
+
+    @Test
+    void testTaskExpiresAtDeadline() {
+        // Given
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 0);
+        wheel.add("ORDER001", 350);
+        List<String> expired = new ArrayList<>();
+
+        // When & Then
+        wheel.advanceTo(300, expired::add);
+        assertTrue(expired.isEmpty());
+        wheel.advanceTo(400, expired::add);
+        assertEquals(List.of("ORDER001"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testPastDeadlineIsRejected() {
+        // Given
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 1000);
+
+        // When & Then
+        assertFalse(wheel.add("ORDER001", 1000));
+        assertFalse(wheel.add("ORDER002", 500));
+        assertTrue(wheel.add("ORDER003", 1050));
+    }
+
+    @Test
+    void testOverflowTaskCascadesDown() {
+        // Given: 第一层跨度 800ms，第二层 6400ms，第三层 51200ms
+        HierarchicalTimingWheel<String> wheel = new HierarchicalTimingWheel<>(100, 8, 0);
+        wheel.add("NEAR", 700);
+        wheel.add("MIDDLE", 5_250);
+        wheel.add("FAR", 20_000);
+        assertEquals(3, wheel.size());
+        List<String> expired = new ArrayList<>();
+
+        // When & Then: 每个任务都在到期所在的刻度触发，不早不晚
+        wheel.advanceTo(5_200, expired::add);
+        assertEquals(List.of("NEAR"), expired);
+        wheel.advanceTo(5_300, expired::add);
+        assertEquals(List.of("NEAR", "MIDDLE"), expired);
+        wheel.advanceTo(19_900, expired::add);
+        assertEquals(2, expired.size());
+        wheel.advanceTo(20_000, expired::add);
+        assertEquals(List.of("NEAR", "MIDDLE", "FAR"), expired);
+        assertEquals(0, wheel.size());
+    }
+
+    @Test
+    void testManyTasksExpireInDeadlineOrder() {
+        // Given
+        HierarchicalTimingWheel<Integer> wheel = new HierarchicalTimingWheel<>(10, 64, 0);
+        int tasks = 100_000;
+        for (int i = 0; i < tasks; i++) {
+            wheel.add(i, 10 + (long) i * 7 % 500_000);
+        }
+        assertEquals(tasks, wheel.size());
+        List<Long> deadlines = new ArrayList<>(tasks);
+
+        // When
+        wheel.advanceTo(600_000, task -> deadlines.add(10 + (long) task * 7 % 500_000));
+
+        // Then: 同一刻度内的任务同时到期，刻度之间保持顺序
+        assertEquals(tasks, deadlines.size());
+        for (int i = 1; i < deadlines.size(); i++) {
+            assertTrue((deadlines.get(i - 1) + 9) / 10 <= (deadlines.get(i) + 9) / 10);
+        }
+        assertEquals(0, wheel.size());
+    }
+}
@@ -0,0 +1,131 @@
+package com.restaurant.management.inventory.infrastructure.reservation;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.ReservationRequest;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * 预留组提交压测：同一库存上的吞吐量随合并窗口的变化
+ *
+ * 以一把锁模拟行锁，持锁 ROW_LOCK_HOLD_MICROS 模拟一次 UPDATE + 提交；窗口为 0 的一行是不合并的基线（每笔订单各持锁一次）
+ * 默认不运行：mvn test -Dtest=ReservationCoalescerBenchmark -Dbenchmark=true
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+class ReservationCoalescerBenchmark {
+
+    private static final int THREADS = 64;
+    private static final long ROW_LOCK_HOLD_MICROS = 500;
+    private static final long DURATION_MS = 3000;
+    private static final long[] WINDOWS_MICROS = {0, 100, 250, 500, 1000, 2000, 5000};
+
+    private final ReentrantLock rowLock = new ReentrantLock(true);
+
+    @Test
+    void throughputByWindow() throws Exception {
+        System.out.printf("%-12s %14s %12s %14s %14s%n", "window(us)", "reserves/s", "avg batch", "p50 lat(us)", "p99 lat(us)");
+        for (long windowMicros : WINDOWS_MICROS) {
+            run(windowMicros);
+        }
+    }
+
+    private void run(long windowMicros) throws Exception {
+        InventoryProperties inventoryProperties = new InventoryProperties();
+        inventoryProperties.getCoalescer().setEnabled(true);
+        inventoryProperties.getCoalescer().setWindowMicros(windowMicros);
+        inventoryProperties.getCoalescer().setMaxBatchSize(THREADS);
+        ReservationCoalescer coalescer = new ReservationCoalescer(inventoryProperties,
+            new InventoryMetrics(new SimpleMeterRegistry()), new NoOpTransactionManager());
+        InventoryKey key = new InventoryKey("SKU001", "WH001");
+
+        LongAdder reserved = new LongAdder();
+        LongAdder batches = new LongAdder();
+        BiFunction<InventoryKey, List<ReservationRequest>, List<RuntimeException>> executor = (k, requests) -> {
+            holdRowLock();
+            batches.increment();
+            return Collections.nCopies(requests.size(), null);
+        };
+
+        List<List<Long>> latencies = new ArrayList<>();
+        CountDownLatch done = new CountDownLatch(THREADS);
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(DURATION_MS);
+        for (int t = 0; t < THREADS; t++) {
+            List<Long> threadLatencies = new ArrayList<>();
+            latencies.add(threadLatencies);
+            Thread thread = new Thread(() -> {
+                while (System.nanoTime() < deadline) {
+                    long start = System.nanoTime();
+                    if (windowMicros == 0) {
+                        holdRowLock();
+                        batches.increment();
+                    } else {
+                        coalescer.reserve(key, 1, null, executor, () -> { });
+                    }
+                    threadLatencies.add(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                    reserved.increment();
+                }
+                done.countDown();
+            });
+            thread.start();
+        }
+        done.await();
+
+        List<Long> all = new ArrayList<>();
+        latencies.forEach(all::addAll);
+        Collections.sort(all);
+        System.out.printf("%-12s %14.0f %12.1f %14d %14d%n",
+            windowMicros == 0 ? "0 (direct)" : String.valueOf(windowMicros),
+            reserved.sum() * 1000.0 / DURATION_MS,
+            reserved.sum() / (double) Math.max(1, batches.sum()),
+            all.get(all.size() / 2),
+            all.get((int) (all.size() * 0.99)));
+    }
+
+    private void holdRowLock() {
+        rowLock.lock();
+        try {
+            long until = System.nanoTime() + TimeUnit.MICROSECONDS.toNanos(ROW_LOCK_HOLD_MICROS);
+            while (System.nanoTime() < until) {
+                LockSupport.parkNanos(10_000);
+            }
+        } finally {
+            rowLock.unlock();
+        }
+    }
+
+    /**
+     * 不记录调用的空事务管理器（mock 会保存每次调用，压测中内存持续增长）
+     */
+    private static class NoOpTransactionManager implements PlatformTransactionManager {
+
+        @Override
+        public TransactionStatus getTransaction(TransactionDefinition definition) {
+            return new SimpleTransactionStatus();
+        }
+
+        @Override
+        public void commit(TransactionStatus status) {
+        }
+
+        @Override
+        public void rollback(TransactionStatus status) {
+        }
+    }
+}
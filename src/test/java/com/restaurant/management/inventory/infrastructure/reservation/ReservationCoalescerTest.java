@@ -0,0 +1,202 @@
+package com.restaurant.management.inventory.infrastructure.reservation;
+
+import com.restaurant.management.inventory.domain.model.InventoryKey;
+import com.restaurant.management.inventory.domain.model.ReservationRequest;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.metrics.InventoryMetrics;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BiFunction;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * 预留组提交测试
+ * 覆盖并发请求合并为一个批次、逐笔分发拒绝结果、整批失败、批次容量上限，
+ * 以及等待超时时未执行的请求被放弃、已在执行的请求等到批次结果
+ */
+class ReservationCoalescerTest {
+
+    private static final InventoryKey KEY = new InventoryKey("SKU001", "WH001");
+
+    private InventoryProperties inventoryProperties;
+    private SimpleMeterRegistry meterRegistry;
+    private ReservationCoalescer coalescer;
+    private ExecutorService pool;
+
+    @BeforeEach
+    void setUp() {
+        inventoryProperties = new InventoryProperties();
+        inventoryProperties.getCoalescer().setEnabled(true);
+        inventoryProperties.getCoalescer().setWindowMicros(TimeUnit.MILLISECONDS.toMicros(200));
+        meterRegistry = new SimpleMeterRegistry();
+        coalescer = new ReservationCoalescer(inventoryProperties, new InventoryMetrics(meterRegistry),
+            mock(PlatformTransactionManager.class));
+        pool = Executors.newFixedThreadPool(8);
+    }
+
+    @AfterEach
+    void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    void testConcurrentRequestsShareOneBatch() throws Exception {
+        // Given: 可用 10，5 笔各 3 件在同一窗口内到达
+        AtomicInteger batches = new AtomicInteger();
+        BiFunction<InventoryKey, List<ReservationRequest>, List<RuntimeException>> executor = (key, requests) -> {
+            batches.incrementAndGet();
+            return allocateFirstCome(10, requests);
+        };
+
+        // When
+        List<Future<Boolean>> results = submit(5, executor);
+
+        // Then: 一个批次，3 笔成功、2 笔整笔拒绝
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            succeeded += result.get(5, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        assertEquals(1, batches.get());
+        assertEquals(3, succeeded);
+        assertEquals(5, meterRegistry.summary("inventory.reserve.coalesced.batch.size").max());
+    }
+
+    @Test
+    void testBatchFailurePropagatesToEveryRequest() throws Exception {
+        // Given
+        BiFunction<InventoryKey, List<ReservationRequest>, List<RuntimeException>> executor = (key, requests) -> {
+            throw new IllegalArgumentException("库存不存在");
+        };
+
+        // When
+        List<Future<Boolean>> results = submit(3, executor);
+
+        // Then
+        for (Future<Boolean> result : results) {
+            assertFalse(result.get(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @Test
+    void testFullBatchOpensNewBatch() throws Exception {
+        // Given
+        inventoryProperties.getCoalescer().setMaxBatchSize(2);
+        List<Integer> batchSizes = new ArrayList<>();
+        BiFunction<InventoryKey, List<ReservationRequest>, List<RuntimeException>> executor = (key, requests) -> {
+            synchronized (batchSizes) {
+                batchSizes.add(requests.size());
+            }
+            return allocateFirstCome(100, requests);
+        };
+
+        // When
+        for (Future<Boolean> result : submit(5, executor)) {
+            assertTrue(result.get(5, TimeUnit.SECONDS));
+        }
+
+        // Then: 每批至多 2 笔
+        assertEquals(5, batchSizes.stream().mapToInt(Integer::intValue).sum());
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 2));
+    }
+
+    @Test
+    void testTimedOutRequestIsAbandonedBeforeBatchRuns() throws Exception {
+        // Given: 窗口 400ms，等待超时 100ms，跟随者在领头者执行前超时
+        inventoryProperties.getCoalescer().setWindowMicros(TimeUnit.MILLISECONDS.toMicros(400));
+        inventoryProperties.getCoalescer().setWaitTimeoutMs(100);
+        List<Integer> batchSizes = new ArrayList<>();
+        BiFunction<InventoryKey, List<ReservationRequest>, List<RuntimeException>> executor = (key, requests) -> {
+            synchronized (batchSizes) {
+                batchSizes.add(requests.size());
+            }
+            return allocateFirstCome(100, requests);
+        };
+
+        // When
+        List<Future<Boolean>> results = submit(2, executor);
+
+        // Then: 超时的一笔失败且不进入批次，只有领头者被预留
+        int succeeded = 0;
+        for (Future<Boolean> result : results) {
+            succeeded += result.get(5, TimeUnit.SECONDS) ? 1 : 0;
+        }
+        assertEquals(1, succeeded);
+        assertEquals(List.of(1), batchSizes);
+    }
+
+    @Test
+    void testTimedOutRequestWaitsForRunningBatch() throws Exception {
+        // Given: 窗口 100ms，等待超时 250ms，批次执行 500ms
+        inventoryProperties.getCoalescer().setWindowMicros(TimeUnit.MILLISECONDS.toMicros(100));
+        inventoryProperties.getCoalescer().setWaitTimeoutMs(250);
+        List<Integer> batchSizes = new ArrayList<>();
+        BiFunction<InventoryKey, List<ReservationRequest>, List<RuntimeException>> executor = (key, requests) -> {
+            synchronized (batchSizes) {
+                batchSizes.add(requests.size());
+            }
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return allocateFirstCome(100, requests);
+        };
+
+        // When
+        List<Future<Boolean>> results = submit(2, executor);
+
+        // Then: 超时后继续等待，调用方拿到的是批次已提交的结果
+        for (Future<Boolean> result : results) {
+            assertTrue(result.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(List.of(2), batchSizes);
+    }
+
+    private List<Future<Boolean>> submit(int count,
+                                         BiFunction<InventoryKey, List<ReservationRequest>, List<RuntimeException>> executor) {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Boolean>> results = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            String orderId = "ORDER00" + i;
+            results.add(pool.submit(() -> {
+                start.await();
+                try {
+                    coalescer.reserve(KEY, 3, orderId, executor, () -> { });
+                    return true;
+                } catch (RuntimeException e) {
+                    return false;
+                }
+            }));
+        }
+        start.countDown();
+        return results;
+    }
+
+    private List<RuntimeException> allocateFirstCome(int available, List<ReservationRequest> requests) {
+        List<RuntimeException> rejections = new ArrayList<>();
+        int remaining = available;
+        for (ReservationRequest request : requests) {
+            if (request.getQuantity() > remaining) {
+                rejections.add(new IllegalStateException("可用库存不足"));
+            } else {
+                remaining -= request.getQuantity();
+                rejections.add(null);
+            }
+        }
+        return rejections;
+    }
+}
@@ -0,0 +1,124 @@
+package com.restaurant.management.inventory.infrastructure.summary;
+
+import com.restaurant.management.inventory.domain.model.InventoryJournalEntry;
+import com.restaurant.management.inventory.domain.model.InventorySummaryTotals;
+import com.restaurant.management.inventory.domain.model.JournalChangeType;
+import com.restaurant.management.inventory.infrastructure.config.InventoryProperties;
+import com.restaurant.management.inventory.infrastructure.mapper.InventoryMapper;
+import com.restaurant.management.inventory.infrastructure.mapper.InventorySummaryMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * SKU 库存汇总测试
+ * 覆盖按 SKU 合并增量、抵消为零的 SKU 不写入、关闭汇总以及分批查询
+ */
+@ExtendWith(MockitoExtension.class)
+class InventorySummaryStoreTest {
+
+    @Mock
+    private InventorySummaryMapper summaryMapper;
+
+    @Mock
+    private InventoryMapper inventoryMapper;
+
+    private InventoryProperties inventoryProperties;
+    private InventorySummaryStore summaryStore;
+
+    @BeforeEach
+    void setUp() {
+        inventoryProperties = new InventoryProperties();
+        summaryStore = new InventorySummaryStore(summaryMapper, inventoryMapper, inventoryProperties);
+    }
+
+    @SuppressWarnings("unchecked")
+    @Test
+    void testApplyMergesDeltasPerSku() {
+        // Given: SKU002 在两个仓库各预留，SKU001 预留后又释放
+        List<InventoryJournalEntry> entries = List.of(
+            entry("SKU002", "WH001", JournalChangeType.RESERVE, -3, 3),
+            entry("SKU001", "WH001", JournalChangeType.RESERVE, -2, 2),
+            entry("SKU002", "WH002", JournalChangeType.RESERVE, -1, 1),
+            entry("SKU001", "WH001", JournalChangeType.RELEASE, 2, -2));
+
+        // When
+        summaryStore.apply(entries);
+
+        // Then: 一条 upsert，每个 SKU 一行，同一事务落在同一汇总行
+        ArgumentCaptor<List<SummaryDelta>> captor = ArgumentCaptor.forClass(List.class);
+        verify(summaryMapper).upsertDeltas(captor.capture());
+        List<SummaryDelta> deltas = captor.getValue();
+        assertEquals(1, deltas.size());
+        assertEquals("SKU002", deltas.get(0).getSkuId());
+        assertEquals(-4, deltas.get(0).getAvailableDelta());
+        assertEquals(4, deltas.get(0).getReservedDelta());
+        assertTrue(deltas.get(0).getStripe() >= 0 && deltas.get(0).getStripe() < 4);
+    }
+
+    @Test
+    void testApplySkippedWhenDisabled() {
+        // Given
+        inventoryProperties.getSummary().setEnabled(false);
+
+        // When
+        summaryStore.apply(List.of(entry("SKU001", "WH001", JournalChangeType.RESERVE, -1, 1)));
+
+        // Then
+        verifyNoInteractions(summaryMapper);
+    }
+
+    @Test
+    void testFindBySkuIdsInChunks() {
+        // Given
+        inventoryProperties.getSummary().setQueryChunkSize(2);
+        when(summaryMapper.selectBySkuIds(List.of("SKU001", "SKU002"))).thenReturn(List.of(row("SKU001", 5)));
+        when(summaryMapper.selectBySkuIds(List.of("SKU003"))).thenReturn(List.of(row("SKU003", 7)));
+
+        // When
+        Map<String, InventorySummaryTotals> result = summaryStore.findBySkuIds(List.of("SKU003", "SKU001", "SKU002", "SKU001"));
+
+        // Then
+        assertEquals(2, result.size());
+        assertEquals(7, result.get("SKU003").getTotalAvailable());
+        verifyNoInteractions(inventoryMapper);
+    }
+
+    @Test
+    void testFindBySkuIdsAggregatesInventoriesWhenDisabled() {
+        // Given
+        inventoryProperties.getSummary().setEnabled(false);
+        when(inventoryMapper.getInventorySummaries(List.of("SKU001"))).thenReturn(List.of(row("SKU001", 5)));
+
+        // When
+        Map<String, InventorySummaryTotals> result = summaryStore.findBySkuIds(List.of("SKU001"));
+
+        // Then
+        assertEquals(5, result.get("SKU001").getTotalAvailable());
+        verify(summaryMapper, never()).selectBySkuIds(anyList());
+    }
+
+    private InventoryJournalEntry entry(String skuId, String warehouseId, JournalChangeType type,
+                                        int availableDelta, int reservedDelta) {
+        return InventoryJournalEntry.of(skuId, warehouseId, type, availableDelta, reservedDelta, 0, "ORDER001", null);
+    }
+
+    private InventorySummaryTotals row(String skuId, int available) {
+        InventorySummaryTotals row = new InventorySummaryTotals();
+        row.setSkuId(skuId);
+        row.setTotalAvailable(available);
+        row.setTotalReserved(0);
+        row.setTotalOccupied(0);
+        return row;
+    }
+}